@@ -0,0 +1,66 @@
+#!/usr/bin/env bash
+#
+# Measures how long each way of starting the application takes to answer its first request, and its
+# resident memory at that point, against the in-memory database of the dev profile.
+#
+# Build the jar with AOT first (mvn -Paot package -DskipTests in the project root), and optionally the
+# native executable (mvn -Pnative native:compile -DskipTests). Then:
+#
+#   benchmarks/measure-startup.sh [runs]
+#
+set -euo pipefail
+
+RUNS=${1:-5}
+PORT=${PORT:-18080}
+ROOT=$(cd "$(dirname "$0")/.." && pwd)
+JAR=$(ls "$ROOT"/target/recordshopapi-*.jar)
+NATIVE="$ROOT/target/recordshopapi"
+WORK="$ROOT/target/startup"
+JAVA="${JAVA_HOME:+$JAVA_HOME/bin/}java"
+APP_ARGS=(--spring.profiles.active=dev --server.port="$PORT")
+
+# Class data sharing needs the jar unpacked, since classes nested in the fat jar cannot be archived
+rm -rf "$WORK"
+"$JAVA" -Djarmode=tools -jar "$JAR" extract --destination "$WORK" > /dev/null
+EXTRACTED="$WORK/$(basename "$JAR")"
+
+# Training runs: start the context, exit once it is refreshed and write the loaded classes to an archive
+"$JAVA" -XX:ArchiveClassesAtExit="$WORK/cds.jsa" -Dspring.context.exit=onRefresh \
+    -jar "$EXTRACTED" "${APP_ARGS[@]}" > "$WORK/training-cds.log" 2>&1
+"$JAVA" -XX:ArchiveClassesAtExit="$WORK/aot-cds.jsa" -Dspring.aot.enabled=true -Dspring.context.exit=onRefresh \
+    -jar "$EXTRACTED" "${APP_ARGS[@]}" > "$WORK/training-aot-cds.log" 2>&1
+
+measure() {
+    local name=$1
+    shift
+    local total_ms=0 total_rss=0
+    for ((run = 1; run <= RUNS; run++)); do
+        local start end pid rss
+        start=$(date +%s%N)
+        "$@" "${APP_ARGS[@]}" > "$WORK/$name.log" 2>&1 &
+        pid=$!
+        until curl -sf "http://localhost:$PORT/api/v1/albums/" > /dev/null; do
+            if ! kill -0 "$pid" 2> /dev/null; then
+                echo "$name exited before serving a request, see $WORK/$name.log" >&2
+                return 1
+            fi
+            sleep 0.02
+        done
+        end=$(date +%s%N)
+        rss=$(awk '/^VmRSS/ { print $2 }' "/proc/$pid/status")
+        kill "$pid"
+        wait "$pid" 2> /dev/null || true
+        total_ms=$((total_ms + (end - start) / 1000000))
+        total_rss=$((total_rss + rss))
+    done
+    printf "%-16s first request after %6d ms   RSS %5d MB\n" "$name" $((total_ms / RUNS)) $((total_rss / RUNS / 1024))
+}
+
+echo "Average of $RUNS runs"
+measure jar "$JAVA" -jar "$JAR"
+measure cds "$JAVA" -XX:SharedArchiveFile="$WORK/cds.jsa" -jar "$EXTRACTED"
+measure aot "$JAVA" -Dspring.aot.enabled=true -jar "$EXTRACTED"
+measure aot+cds "$JAVA" -XX:SharedArchiveFile="$WORK/aot-cds.jsa" -Dspring.aot.enabled=true -jar "$EXTRACTED"
+if [[ -x "$NATIVE" ]]; then
+    measure native "$NATIVE"
+fi
@@ -0,0 +1,68 @@
+package com.northcoders.recordshopapi.jmh;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.northcoders.recordshopapi.controller.AlbumFormatsConfig;
+import com.northcoders.recordshopapi.model.Album;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.time.Year;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson on its own, configured as Spring Boot configures it for the controllers, writing JSON or
+ * one of the binary formats of {@link AlbumFormatsConfig}. The payload size of each format is
+ * printed once per fork. Albums write their year through {@code YearSerializer}, which
+ * {@link #serializeYear} isolates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class AlbumSerializationBenchmark {
+
+    @Param({"1", "100", "1000"})
+    int size;
+
+    @Param({"json", "cbor", "smile"})
+    String format;
+
+    private ObjectMapper objectMapper;
+    private JavaType albumList;
+    private List<Album> albums;
+    private byte[] payload;
+    private Year year;
+
+    @Setup
+    public void prepare() throws IOException {
+        objectMapper = switch (format) {
+            case "cbor" -> AlbumFormatsConfig.cborMapper(Jackson2ObjectMapperBuilder.json());
+            case "smile" -> AlbumFormatsConfig.smileMapper(Jackson2ObjectMapperBuilder.json());
+            default -> Jackson2ObjectMapperBuilder.json().build();
+        };
+        albumList = objectMapper.getTypeFactory().constructCollectionType(List.class, Album.class);
+        albums = RecordShopApplicationState.albums(size);
+        payload = objectMapper.writeValueAsBytes(albums);
+        System.out.printf("%n%s payload for %d albums: %,d bytes%n", format, size, payload.length);
+        year = albums.get(0).getYear();
+    }
+
+    @Benchmark
+    public byte[] serializeAlbums() throws IOException {
+        return objectMapper.writeValueAsBytes(albums);
+    }
+
+    @Benchmark
+    public List<Album> deserializeAlbums() throws IOException {
+        return objectMapper.readValue(payload, albumList);
+    }
+
+    @Benchmark
+    public byte[] serializeYear() throws IOException {
+        return objectMapper.writeValueAsBytes(year);
+    }
+}
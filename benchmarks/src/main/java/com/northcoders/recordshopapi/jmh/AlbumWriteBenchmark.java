@@ -0,0 +1,101 @@
+package com.northcoders.recordshopapi.jmh;
+
+import com.northcoders.recordshopapi.changes.AlbumChangeOutbox;
+import com.northcoders.recordshopapi.model.Album;
+import com.northcoders.recordshopapi.model.AlbumChangedEvent;
+import com.northcoders.recordshopapi.model.AlbumPatch;
+import com.northcoders.recordshopapi.repository.RecordShopRepository;
+import com.northcoders.recordshopapi.service.RecordShopService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Album writes through the service, as a request makes them, and the update alone in a transaction
+ * that records its change: one statement that hands back the album as it was, against the read, copy
+ * and save updates used to take. The service writes also pay for the cache and the listeners that
+ * keep the search indexes and facet counters up to date.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class AlbumWriteBenchmark extends RecordShopApplicationState {
+
+    private RecordShopService recordShopService;
+    private RecordShopRepository repository;
+    private AlbumChangeOutbox outbox;
+    private TransactionTemplate transactionTemplate;
+
+    @Override
+    void started() {
+        recordShopService = context.getBean(RecordShopService.class);
+        repository = context.getBean(RecordShopRepository.class);
+        outbox = context.getBean(AlbumChangeOutbox.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+    }
+
+    @Benchmark
+    public Album updateAlbum() {
+        long id = randomId();
+        return recordShopService.updateAlbum(id, albums(1).get(0).toBuilder().quantity(quantity()).build());
+    }
+
+    @Benchmark
+    public Album patchAlbum() {
+        AlbumPatch patch = new AlbumPatch();
+        patch.setQuantity(quantity());
+        return recordShopService.patchAlbum(randomId(), patch, null);
+    }
+
+    @Benchmark
+    public Album singleStatementUpdate() {
+        long id = randomId();
+        AlbumPatch patch = AlbumPatch.of(albums(1).get(0).toBuilder().quantity(quantity()).build());
+        return transactionTemplate.execute(status -> {
+            Album previous = repository.updateReturningPrevious(id, patch, Instant.now(), null).orElseThrow();
+            Album album = patch.applyTo(previous);
+            outbox.record(AlbumChangedEvent.updated(previous, album));
+            return album;
+        });
+    }
+
+    @Benchmark
+    public Album loadAndSaveUpdate() {
+        long id = randomId();
+        Album values = albums(1).get(0).toBuilder().quantity(quantity()).build();
+        return transactionTemplate.execute(status -> {
+            Album album = repository.findById(id).orElseThrow();
+            Album previous = album.toBuilder().build();
+            album.setName(values.getName());
+            album.setArtist(values.getArtist());
+            album.setGenre(values.getGenre());
+            album.setYear(values.getYear());
+            album.setTracks(values.getTracks());
+            album.setDescription(values.getDescription());
+            album.setQuantity(values.getQuantity());
+            Album saved = repository.save(album);
+            outbox.record(AlbumChangedEvent.updated(previous, saved));
+            return saved;
+        });
+    }
+
+    @Benchmark
+    public Album addAndDeleteAlbum() {
+        Album album = recordShopService.addAlbum(albums(1).get(0));
+        recordShopService.deleteAlbumById(album.getId());
+        return album;
+    }
+
+    private long randomId() {
+        return ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+    }
+
+    private static int quantity() {
+        return ThreadLocalRandom.current().nextInt(20);
+    }
+}
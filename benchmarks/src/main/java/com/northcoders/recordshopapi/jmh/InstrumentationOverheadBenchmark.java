@@ -0,0 +1,57 @@
+package com.northcoders.recordshopapi.jmh;
+
+import com.northcoders.recordshopapi.model.Album;
+import com.northcoders.recordshopapi.service.RecordShopService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The cost of the metrics on the cheapest paths, a cached album lookup through the service and
+ * through MockMvc. With {@code instrumented=false} the application's own instrumentation is switched
+ * off and every meter is denied, so what remains is Spring Boot's observation plumbing.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class InstrumentationOverheadBenchmark extends RecordShopApplicationState {
+
+    @Param({"true", "false"})
+    boolean instrumented;
+
+    private RecordShopService recordShopService;
+    private MockMvc mockMvc;
+    private long id;
+
+    @Override
+    List<String> extraArguments() {
+        return List.of(
+                "--recordshop.metrics.enabled=" + instrumented,
+                "--management.metrics.enable.all=" + instrumented);
+    }
+
+    @Override
+    void started() {
+        recordShopService = context.getBean(RecordShopService.class);
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context).build();
+        id = ids.get(0);
+    }
+
+    @Benchmark
+    public Optional<Album> serviceGetAlbumById() {
+        return recordShopService.getAlbumById(id);
+    }
+
+    @Benchmark
+    public MvcResult controllerGetAlbumById() throws Exception {
+        return mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/albums/" + id)).andReturn();
+    }
+}
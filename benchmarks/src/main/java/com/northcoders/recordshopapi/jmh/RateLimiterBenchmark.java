@@ -0,0 +1,71 @@
+package com.northcoders.recordshopapi.jmh;
+
+import com.northcoders.recordshopapi.ratelimit.TokenBucketRateLimiter;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The per-request cost of the rate limiter with four threads charging one client or spreading over
+ * many, against the same buckets guarded by a lock each. With one client every thread contends for
+ * the same bucket, as when one partner floods the API.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@State(Scope.Benchmark)
+public class RateLimiterBenchmark {
+
+    @Param({"1", "10000"})
+    int clients;
+
+    private String[] keys;
+    private TokenBucketRateLimiter limiter;
+    private final Map<String, LockedBucket> lockedBuckets = new ConcurrentHashMap<>();
+
+    @Setup
+    public void setup() {
+        keys = new String[clients];
+        for (int i = 0; i < clients; i++) {
+            keys[i] = "address:10.0." + (i / 256) + "." + (i % 256);
+        }
+        // Never refuses, so every call takes the path that updates the bucket
+        limiter = new TokenBucketRateLimiter(1_000_000_000, 1_000_000_000);
+    }
+
+    @Benchmark
+    public Duration lockFree() {
+        return limiter.tryAcquire(key(), 1);
+    }
+
+    @Benchmark
+    public Duration locked() {
+        return lockedBuckets.computeIfAbsent(key(), key -> new LockedBucket()).tryAcquire(1);
+    }
+
+    private String key() {
+        return clients == 1 ? keys[0] : keys[ThreadLocalRandom.current().nextInt(clients)];
+    }
+
+    // The same arithmetic as the limiter, under a lock
+    private static class LockedBucket {
+
+        private long fullAt = System.nanoTime();
+
+        synchronized Duration tryAcquire(int cost) {
+            long now = System.nanoTime();
+            long next = Math.max(fullAt, now) + cost;
+            if (next - now > 1_000_000_000L) {
+                return Duration.ofNanos(next - now - 1_000_000_000L);
+            }
+            fullAt = next;
+            return Duration.ZERO;
+        }
+    }
+}
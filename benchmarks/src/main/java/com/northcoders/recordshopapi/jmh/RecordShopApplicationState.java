@@ -0,0 +1,80 @@
+package com.northcoders.recordshopapi.jmh;
+
+import com.northcoders.recordshopapi.RecordshopapiApplication;
+import com.northcoders.recordshopapi.model.Album;
+import com.northcoders.recordshopapi.repository.RecordShopRepository;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static com.northcoders.recordshopapi.model.Album.Genre.*;
+
+/**
+ * Starts the application once per fork with the {@code dev} profile, on an in-memory H2 database
+ * seeded with {@link #ALBUMS} albums by {@link #ARTISTS} artists.
+ */
+@State(Scope.Benchmark)
+public abstract class RecordShopApplicationState {
+
+    static final int ALBUMS = 1000;
+    static final int ARTISTS = 50;
+
+    ConfigurableApplicationContext context;
+    List<Long> ids;
+
+    @Setup
+    public void startApplication() {
+        List<String> arguments = new ArrayList<>(List.of(
+                "--spring.profiles.active=dev",
+                "--server.port=0",
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN",
+                // Every request comes from one client; keep the limiter in the path without refusing any
+                "--recordshop.rate-limit.rate=1000000000",
+                "--recordshop.rate-limit.burst=1000000000"));
+        arguments.addAll(extraArguments());
+        context = new SpringApplication(RecordshopapiApplication.class).run(arguments.toArray(String[]::new));
+        RecordShopRepository repository = context.getBean(RecordShopRepository.class);
+        ids = repository.saveAll(albums(ALBUMS)).stream().map(Album::getId).toList();
+        started();
+    }
+
+    /**
+     * Called once the application is running and seeded. JMH does not order {@code @Setup} methods
+     * across a class hierarchy, so subclasses prepare their state here instead.
+     */
+    void started() {
+    }
+
+    List<String> extraArguments() {
+        return List.of();
+    }
+
+    @TearDown
+    public void stopApplication() {
+        context.close();
+    }
+
+    static List<Album> albums(int count) {
+        Album.Genre[] genres = {ROCK, JAZZ, POP, CLASSICAL};
+        return IntStream.range(0, count)
+                .mapToObj(i -> Album.builder()
+                        .name("Album " + i)
+                        .artist("Artist " + (i % ARTISTS))
+                        .genre(genres[i % genres.length])
+                        .year(Year.of(1950 + i % 75))
+                        .tracks(8 + i % 10)
+                        .description("Description of album " + i)
+                        .quantity(i % 20)
+                        .build())
+                .toList();
+    }
+}
@@ -0,0 +1,58 @@
+package com.northcoders.recordshopapi.jmh;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Requests through {@code MockMvc} against the application context: routing, argument binding,
+ * the service and JSON writing, without the network and servlet container.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class RecordShopControllerBenchmark extends RecordShopApplicationState {
+
+    private MockMvc mockMvc;
+
+    @Override
+    void started() {
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context).build();
+    }
+
+    @Benchmark
+    public MvcResult getAlbumById() throws Exception {
+        long id = ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+        return get("/api/v1/albums/" + id);
+    }
+
+    @Benchmark
+    public MvcResult getAlbumsPage() throws Exception {
+        return get("/api/v1/albums/?limit=100");
+    }
+
+    @Benchmark
+    public MvcResult getAlbumsByArtist() throws Exception {
+        return get("/api/v1/albums/artist?artist=Artist " + ThreadLocalRandom.current().nextInt(ARTISTS));
+    }
+
+    @Benchmark
+    public MvcResult searchAlbums() throws Exception {
+        return get("/api/v1/albums/search?genre=ROCK&inStock=true&sort=name");
+    }
+
+    private MvcResult get(String uri) throws Exception {
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get(uri)).andReturn();
+        if (result.getResponse().getStatus() != 200) {
+            throw new IllegalStateException(uri + " returned " + result.getResponse().getStatus());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,72 @@
+package com.northcoders.recordshopapi.jmh;
+
+import com.northcoders.recordshopapi.model.Album;
+import com.northcoders.recordshopapi.model.AlbumPage;
+import com.northcoders.recordshopapi.model.AlbumSearchCriteria;
+import com.northcoders.recordshopapi.service.RecordShopService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static com.northcoders.recordshopapi.model.Album.Genre.ROCK;
+
+/**
+ * {@code RecordShopServiceImpl} through its Spring proxy, so that caching and transactions are
+ * measured as a request would see them.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class RecordShopServiceBenchmark extends RecordShopApplicationState {
+
+    private RecordShopService recordShopService;
+    private AlbumSearchCriteria rockInStock;
+
+    @Override
+    void started() {
+        recordShopService = context.getBean(RecordShopService.class);
+        rockInStock = AlbumSearchCriteria.builder().genre(ROCK).inStock(true).build();
+    }
+
+    @Benchmark
+    public Optional<Album> getAlbumById() {
+        return recordShopService.getAlbumById(randomId());
+    }
+
+    @Benchmark
+    public AlbumPage getAlbumsPage() {
+        return recordShopService.getAlbumsPage(null, 100);
+    }
+
+    @Benchmark
+    public List<Album> getAlbumsByArtist() {
+        return recordShopService.getAlbumsByArtist("Artist " + ThreadLocalRandom.current().nextInt(ARTISTS));
+    }
+
+    @Benchmark
+    public Album getAlbumInfoByName() {
+        return recordShopService.getAlbumInfoByName("Album " + ThreadLocalRandom.current().nextInt(ALBUMS));
+    }
+
+    @Benchmark
+    public Page<Album> searchAlbums() {
+        return recordShopService.searchAlbums(rockInStock, 0, 20, "name", Sort.Direction.ASC);
+    }
+
+    @Benchmark
+    public Album releaseAndReserveStock() {
+        long id = randomId();
+        recordShopService.releaseStock(id, 1);
+        return recordShopService.reserveStock(id, 1);
+    }
+
+    private long randomId() {
+        return ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+    }
+}
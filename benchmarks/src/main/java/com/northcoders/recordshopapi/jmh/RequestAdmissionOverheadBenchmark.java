@@ -0,0 +1,46 @@
+package com.northcoders.recordshopapi.jmh;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What rate limiting and admission control add to the cheapest request, a cached album lookup
+ * through MockMvc. The limits are set high enough that no request is refused.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class RequestAdmissionOverheadBenchmark extends RecordShopApplicationState {
+
+    @Param({"true", "false"})
+    boolean guarded;
+
+    private MockMvc mockMvc;
+    private long id;
+
+    @Override
+    List<String> extraArguments() {
+        return List.of(
+                "--recordshop.rate-limit.enabled=" + guarded,
+                "--recordshop.admission.enabled=" + guarded);
+    }
+
+    @Override
+    void started() {
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context).build();
+        id = ids.get(0);
+    }
+
+    @Benchmark
+    public MvcResult controllerGetAlbumById() throws Exception {
+        return mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/albums/" + id)).andReturn();
+    }
+}
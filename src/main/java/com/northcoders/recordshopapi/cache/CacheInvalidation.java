@@ -0,0 +1,22 @@
+package com.northcoders.recordshopapi.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Message sent to other nodes when a two-tier cache entry changes. A {@code null} key clears the
+ * whole cache.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheInvalidation {
+
+    String origin;
+
+    String cacheName;
+
+    String key;
+
+}
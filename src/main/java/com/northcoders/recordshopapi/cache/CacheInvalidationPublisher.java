@@ -0,0 +1,5 @@
+package com.northcoders.recordshopapi.cache;
+
+public interface CacheInvalidationPublisher {
+    void publish(CacheInvalidation invalidation);
+}
@@ -0,0 +1,29 @@
+package com.northcoders.recordshopapi.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+
+import java.io.IOException;
+
+@Slf4j
+public class RedisCacheInvalidationListener implements MessageListener {
+
+    private final TwoTierCacheManager cacheManager;
+    private final ObjectMapper objectMapper;
+
+    public RedisCacheInvalidationListener(TwoTierCacheManager cacheManager, ObjectMapper objectMapper) {
+        this.cacheManager = cacheManager;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            cacheManager.onInvalidation(objectMapper.readValue(message.getBody(), CacheInvalidation.class));
+        } catch (IOException e) {
+            log.warn("Ignoring malformed cache invalidation message", e);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.northcoders.recordshopapi.cache;
+
+import org.springframework.cache.Cache;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Cache that reads through a fast in-process L1 to a shared L2. Every write goes to both tiers and
+ * is announced to the other nodes, which drop their L1 copy and pick up the new value from L2 on
+ * their next read. Values loaded on a miss are not announced, as they replace nothing: announcing
+ * them would have every cold read on one node evict the same key from every other node's L1.
+ */
+public class TwoTierCache implements Cache {
+
+    private final String name;
+    private final Cache local;
+    private final Cache remote;
+    private final CacheInvalidationPublisher publisher;
+    private final String nodeId;
+
+    public TwoTierCache(String name, Cache local, Cache remote, CacheInvalidationPublisher publisher, String nodeId) {
+        this.name = name;
+        this.local = local;
+        this.remote = remote;
+        this.publisher = publisher;
+        this.nodeId = nodeId;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return this;
+    }
+
+    public Cache getLocalCache() {
+        return local;
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        String cacheKey = toCacheKey(key);
+        ValueWrapper value = local.get(cacheKey);
+        if (value == null) {
+            value = remote.get(cacheKey);
+            if (value != null) {
+                local.put(cacheKey, value.get());
+            }
+        }
+        return value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper value = get(key);
+        Object stored = value == null ? null : value.get();
+        if (stored != null && type != null && !type.isInstance(stored)) {
+            throw new IllegalStateException(String.format(
+                    "Cached value is not of required type [%s]: %s", type.getName(), stored));
+        }
+        return (T) stored;
+    }
+
+    /**
+     * Loads a missing value at most once per node: concurrent misses for a key wait on the L1 entry
+     * while one of them reads L2 and, failing that, the loader. A loaded value only fills L2 if it is
+     * still empty there, so a slow load never replaces a value another node has put in the meantime.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        String cacheKey = toCacheKey(key);
+        return (T) local.get(cacheKey, () -> {
+            ValueWrapper shared = remote.get(cacheKey);
+            if (shared != null) {
+                return shared.get();
+            }
+            T loaded = valueLoader.call();
+            ValueWrapper existing = remote.putIfAbsent(cacheKey, loaded);
+            return existing == null ? loaded : existing.get();
+        });
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        String cacheKey = toCacheKey(key);
+        remote.put(cacheKey, value);
+        local.put(cacheKey, value);
+        publisher.publish(new CacheInvalidation(nodeId, name, cacheKey));
+    }
+
+    // Only fills an empty entry, so like a load it has nothing to announce
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        String cacheKey = toCacheKey(key);
+        ValueWrapper existing = remote.putIfAbsent(cacheKey, value);
+        local.put(cacheKey, existing == null ? value : existing.get());
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        String cacheKey = toCacheKey(key);
+        remote.evict(cacheKey);
+        local.evict(cacheKey);
+        publisher.publish(new CacheInvalidation(nodeId, name, cacheKey));
+    }
+
+    @Override
+    public void clear() {
+        remote.clear();
+        local.clear();
+        publisher.publish(new CacheInvalidation(nodeId, name, null));
+    }
+
+    /**
+     * Applies an invalidation announced by another node to this node's L1 only.
+     */
+    public void invalidateLocal(String key) {
+        if (key == null) {
+            local.clear();
+        } else {
+            local.evict(key);
+        }
+    }
+
+    // Keys cross the wire as strings, so both tiers are keyed the same way on every node
+    private static String toCacheKey(Object key) {
+        return String.valueOf(key);
+    }
+}
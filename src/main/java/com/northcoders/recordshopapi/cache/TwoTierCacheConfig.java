@@ -0,0 +1,66 @@
+package com.northcoders.recordshopapi.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.cache.CacheProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.util.StringUtils;
+
+/**
+ * Replaces the single Caffeine cache with Caffeine (L1) in front of Redis (L2) when
+ * {@code recordshop.cache.redis.enabled} is set, e.g. through the "redis" profile.
+ */
+@Configuration
+@ConditionalOnProperty(name = "recordshop.cache.redis.enabled", havingValue = "true")
+@EnableConfigurationProperties(CacheProperties.class)
+public class TwoTierCacheConfig {
+
+    @Value("${recordshop.cache.redis.channel:recordshop:cache-invalidation}")
+    String channel;
+
+    @Bean
+    public TwoTierCacheManager cacheManager(CacheProperties cacheProperties, RedisConnectionFactory connectionFactory,
+                                            StringRedisTemplate redisTemplate, ObjectMapper objectMapper) {
+        CaffeineCacheManager local = new CaffeineCacheManager();
+        if (StringUtils.hasText(cacheProperties.getCaffeine().getSpec())) {
+            local.setCacheSpecification(cacheProperties.getCaffeine().getSpec());
+        }
+
+        RedisCacheConfiguration redisConfiguration = RedisCacheConfiguration.defaultCacheConfig();
+        if (cacheProperties.getRedis().getTimeToLive() != null) {
+            redisConfiguration = redisConfiguration.entryTtl(cacheProperties.getRedis().getTimeToLive());
+        }
+        RedisCacheManager remote = RedisCacheManager.builder(connectionFactory)
+                .cacheDefaults(redisConfiguration)
+                .build();
+        remote.afterPropertiesSet();
+
+        return new TwoTierCacheManager(local, remote,
+                new RedisCacheInvalidationPublisher(redisTemplate, objectMapper, channel),
+                cacheProperties.getCacheNames());
+    }
+
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(
+            RedisConnectionFactory connectionFactory, TwoTierCacheManager cacheManager, ObjectMapper objectMapper) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(new RedisCacheInvalidationListener(cacheManager, objectMapper), new ChannelTopic(channel));
+        return container;
+    }
+
+    @Bean
+    public TwoTierCacheMeterBinderProvider twoTierCacheMeterBinderProvider() {
+        return new TwoTierCacheMeterBinderProvider();
+    }
+}
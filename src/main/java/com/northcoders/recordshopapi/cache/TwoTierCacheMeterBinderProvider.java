@@ -0,0 +1,22 @@
+package com.northcoders.recordshopapi.cache;
+
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.boot.actuate.metrics.cache.CacheMeterBinderProvider;
+import org.springframework.cache.caffeine.CaffeineCache;
+
+/**
+ * Exposes the hit/miss/eviction stats of the in-process tier, which is where the interesting
+ * numbers for a node live.
+ */
+public class TwoTierCacheMeterBinderProvider implements CacheMeterBinderProvider<TwoTierCache> {
+
+    @Override
+    public MeterBinder getMeterBinder(TwoTierCache cache, Iterable<Tag> tags) {
+        if (cache.getLocalCache() instanceof CaffeineCache local) {
+            return new CaffeineCacheMetrics<>(local.getNativeCache(), cache.getName(), tags);
+        }
+        return null;
+    }
+}
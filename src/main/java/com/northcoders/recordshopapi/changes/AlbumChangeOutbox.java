@@ -0,0 +1,56 @@
+package com.northcoders.recordshopapi.changes;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.northcoders.recordshopapi.model.Album;
+import com.northcoders.recordshopapi.model.AlbumChange;
+import com.northcoders.recordshopapi.model.AlbumChangedEvent;
+import com.northcoders.recordshopapi.repository.AlbumChangeRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+/**
+ * Records album writes in the {@code album_change} table within the transaction of the write, so a
+ * change is kept exactly when the write commits. {@link AlbumChangePublisher} streams them on.
+ */
+@Component
+public class AlbumChangeOutbox {
+
+    @Autowired
+    AlbumChangeRepository repository;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    /**
+     * Fails unless called inside the transaction that wrote the album.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(AlbumChangedEvent event) {
+        repository.save(change(event));
+    }
+
+    /**
+     * The outbox entry for {@code event}, for writers outside JPA that insert it themselves.
+     */
+    public AlbumChange change(AlbumChangedEvent event) {
+        return AlbumChange.builder()
+                .type(event.getType())
+                .albumId(event.getId())
+                .album(event.getAlbum() == null ? null : json(event.getAlbum()))
+                .changedAt(Instant.now())
+                .build();
+    }
+
+    private String json(Album album) {
+        try {
+            return objectMapper.writeValueAsString(album);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(String.format("Cannot write Album with id '%d' as JSON", album.getId()), e);
+        }
+    }
+}
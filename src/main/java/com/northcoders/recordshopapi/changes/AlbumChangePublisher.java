@@ -0,0 +1,241 @@
+package com.northcoders.recordshopapi.changes;
+
+import com.northcoders.recordshopapi.exception.AlbumChangeExpiredException;
+import com.northcoders.recordshopapi.model.AlbumChange;
+import com.northcoders.recordshopapi.model.AlbumChangedEvent;
+import com.northcoders.recordshopapi.repository.AlbumChangeRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes the changes {@link AlbumChangeOutbox} records and streams them to consumers. Publishing
+ * numbers committed changes in batches of {@code recordshop.changes.batch-size}, in the order they
+ * were recorded, continuing from the latest position; a change committed after a later one was
+ * numbered still gets the next position, so consumers never skip it. It runs straight after every
+ * write on this instance and every {@code recordshop.changes.publish-interval} for writes made on
+ * others. Positions are unique in the table, so when two instances number the same changes one of
+ * them fails and retries.
+ * <p>
+ * Each run then reads the newly published changes once, whichever instance numbered them, and hands
+ * them to every consumer that is up to date. Consumers further behind read their own pages from
+ * the table. Published changes are deleted after {@code recordshop.changes.retention}.
+ */
+@Slf4j
+@Component
+public class AlbumChangePublisher implements SmartInitializingSingleton, DisposableBean {
+
+    private static final Duration PRUNE_INTERVAL = Duration.ofHours(1);
+
+    @Autowired
+    AlbumChangeRepository repository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Value("${recordshop.changes.publish-interval:500ms}")
+    Duration publishInterval;
+
+    @Value("${recordshop.changes.batch-size:500}")
+    int batchSize;
+
+    @Value("${recordshop.changes.retention:7d}")
+    Duration retention;
+
+    // The latest position read back, for consumers to catch up to
+    private final Sinks.Many<Long> published = Sinks.many().replay().latest();
+
+    private volatile long lastPosition;
+
+    private volatile long firstPosition;
+
+    private volatile Page recent;
+
+    private final AtomicBoolean publishRequested = new AtomicBoolean();
+
+    private ThreadPoolTaskScheduler scheduler;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        lastPosition = repository.findLastPosition();
+        Long first = repository.findFirstPosition();
+        firstPosition = first == null ? 1 : first;
+        recent = new Page(lastPosition, List.of());
+        published.tryEmitNext(lastPosition);
+        scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setThreadNamePrefix("album-changes-");
+        scheduler.initialize();
+        scheduler.scheduleWithFixedDelay(this::publish, Instant.now(), publishInterval);
+        scheduler.scheduleWithFixedDelay(this::prune, Instant.now().plus(PRUNE_INTERVAL), PRUNE_INTERVAL);
+    }
+
+    @Override
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+        published.tryEmitComplete();
+    }
+
+    /**
+     * The position of the latest change published, or 0 before the first.
+     */
+    public long getLastPosition() {
+        return lastPosition;
+    }
+
+    /**
+     * The position of the oldest change still kept. Consumers can resume from the one before it.
+     */
+    public long getFirstPosition() {
+        return firstPosition;
+    }
+
+    /**
+     * Every change published after position {@code after}, then each change as it is published. Fails
+     * with an {@link AlbumChangeExpiredException} if changes the consumer has not seen were deleted.
+     */
+    public Flux<AlbumChange> changes(long after) {
+        return Flux.defer(() -> {
+            AtomicLong offset = new AtomicLong(after);
+            return published.asFlux()
+                    .onBackpressureLatest()
+                    .concatMap(position -> position <= offset.get() ? Flux.empty() : readUpTo(offset, position), 1);
+        });
+    }
+
+    private Flux<AlbumChange> readUpTo(AtomicLong offset, long position) {
+        return page(offset.get())
+                .expand(page -> page.isEmpty() || last(page) >= position ? Mono.empty() : page(last(page)))
+                .concatMapIterable(page -> page)
+                .doOnNext(change -> {
+                    if (change.getPosition() != offset.get() + 1) {
+                        firstPosition = Math.max(firstPosition, change.getPosition());
+                        throw new AlbumChangeExpiredException(expired(offset.get(), change.getPosition()));
+                    }
+                    offset.set(change.getPosition());
+                });
+    }
+
+    // From memory when the consumer is within the page published last, which is where live consumers are
+    private Mono<List<AlbumChange>> page(long after) {
+        Page page = recent;
+        if (page.contains(after)) {
+            return Mono.just(page.from(after));
+        }
+        return Mono.fromCallable(() -> repository.findByPositionGreaterThanOrderByPositionAsc(after, Limit.of(batchSize)))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private static long last(List<AlbumChange> page) {
+        return page.get(page.size() - 1).getPosition();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAlbumChanged(AlbumChangedEvent event) {
+        requestPublish();
+    }
+
+    /**
+     * Publishes in the background, unless a run is already waiting.
+     */
+    public void requestPublish() {
+        if (scheduler != null && publishRequested.compareAndSet(false, true)) {
+            scheduler.execute(this::publish);
+        }
+    }
+
+    /**
+     * Numbers the changes committed since the last run, then reads back and streams every change
+     * published since, on the calling thread.
+     */
+    public synchronized void publish() {
+        publishRequested.set(false);
+        try {
+            TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+            Integer numbered;
+            do {
+                numbered = transaction.execute(status -> number());
+            } while (numbered != null && numbered == batchSize);
+            List<AlbumChange> page;
+            do {
+                page = repository.findByPositionGreaterThanOrderByPositionAsc(lastPosition, Limit.of(batchSize));
+                if (!page.isEmpty()) {
+                    recent = new Page(lastPosition, page);
+                    lastPosition = last(page);
+                    published.tryEmitNext(lastPosition);
+                }
+            } while (page.size() == batchSize);
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Another instance published the same album changes first", e);
+        } catch (DataAccessException | TransactionException e) {
+            log.warn("Cannot publish album changes, retrying in {}", publishInterval, e);
+        }
+    }
+
+    private int number() {
+        List<AlbumChange> pending = repository.findByPositionIsNullOrderByIdAsc(Limit.of(batchSize));
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        long position = repository.findLastPosition();
+        for (AlbumChange change : pending) {
+            change.setPosition(++position);
+        }
+        return pending.size();
+    }
+
+    /**
+     * Deletes published changes older than the retention, on the calling thread.
+     */
+    public void prune() {
+        try {
+            int deleted = repository.deletePublishedBefore(Instant.now().minus(retention));
+            Long first = repository.findFirstPosition();
+            if (first != null) {
+                firstPosition = first;
+            }
+            log.info("Deleted {} album changes older than {}", deleted, retention);
+        } catch (DataAccessException e) {
+            log.warn("Cannot delete old album changes", e);
+        }
+    }
+
+    public static String expired(long after, long first) {
+        return String.format("Cannot resume after change %d, the oldest change kept is %d; read the albums again " +
+                "and stream changes from the latest", after, first);
+    }
+
+    // Changes numbered after + 1 onwards
+    private record Page(long after, List<AlbumChange> changes) {
+
+        boolean contains(long position) {
+            return position >= after && position < after + changes.size();
+        }
+
+        List<AlbumChange> from(long position) {
+            return changes.subList((int) (position - after), changes.size());
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.northcoders.recordshopapi.controller;
+
+import com.northcoders.recordshopapi.model.AlbumChange;
+import com.northcoders.recordshopapi.service.AlbumChangeService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Server-Sent Events of album writes, served by both the blocking and the non-blocking stack. The id
+ * of each event is the position of the change, so a browser's {@code EventSource} resumes where it
+ * left off by itself. Comments are sent in between to keep idle connections open through proxies.
+ */
+@RestController
+@RequestMapping("/api/v1/albums")
+public class AlbumChangeController {
+
+    static final String LAST_EVENT_ID_HEADER = "Last-Event-ID";
+    static final Duration HEARTBEAT_INTERVAL = Duration.ofSeconds(15);
+
+    @Autowired
+    AlbumChangeService albumChangeService;
+
+    @Tag(name = "get", description = "All GET methods")
+    @Operation(summary = "Stream album changes",
+            description = "Stream every album added, updated or deleted as a Server-Sent Event, oldest first. Each " +
+                    "event's id is the position of the change; pass the last one processed as 'after', or in the " +
+                    LAST_EVENT_ID_HEADER + " header, to resume from the next")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200",
+                    description = "Stream of changes",
+                    content = @Content(mediaType = MediaType.TEXT_EVENT_STREAM_VALUE, schema = @Schema(implementation = AlbumChange.class))),
+            @ApiResponse(responseCode = "400",
+                    description = "Negative position",
+                    content = @Content),
+            @ApiResponse(responseCode = "410",
+                    description = "The changes after this position are no longer kept",
+                    content = @Content)}
+    )
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<AlbumChange>> streamAlbumChanges(
+            @Parameter(description = "Position of the last change processed; without one, only changes from now on are sent") @RequestParam(required = false) Long after,
+            @Parameter(hidden = true) @RequestHeader(value = LAST_EVENT_ID_HEADER, required = false) Long lastEventId) {
+        // A reconnecting EventSource repeats the original URL, so the header is the more recent
+        Flux<ServerSentEvent<AlbumChange>> changes = albumChangeService.streamAlbumChanges(lastEventId != null ? lastEventId : after)
+                .map(change -> ServerSentEvent.builder(change).id(String.valueOf(change.getPosition())).build());
+        // Heartbeats stop with the changes, so that a stream that ends also closes
+        return changes.publish(shared -> Flux.merge(shared, Flux.interval(HEARTBEAT_INTERVAL)
+                .map(tick -> ServerSentEvent.<AlbumChange>builder().comment("heartbeat").build())
+                .takeUntilOther(shared.then(Mono.just(true)))));
+    }
+}
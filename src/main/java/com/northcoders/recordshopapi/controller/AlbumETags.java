@@ -0,0 +1,95 @@
+package com.northcoders.recordshopapi.controller;
+
+import com.northcoders.recordshopapi.exception.AlbumVersionMismatchException;
+import com.northcoders.recordshopapi.model.VersionedAlbum;
+import org.springframework.http.MediaType;
+import org.springframework.util.DigestUtils;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Strong ETags and Last-Modified times for album responses. A single album is tagged with its id and
+ * version, so that the tag can be sent back in If-Match and is never taken for the tag of another album
+ * at the same version. A list is tagged with a digest of the id and version of
+ * every album in it, which changes whenever an album is added to, removed from or changed in the list.
+ * Either tag is suffixed with the format of the response when it is not JSON, see {@link #inFormat}.
+ */
+final class AlbumETags {
+
+    private AlbumETags() {
+    }
+
+    static String of(VersionedAlbum album) {
+        return "\"" + album.getId() + "-" + album.getVersion() + "\"";
+    }
+
+    /**
+     * @param extras anything else the response depends on, such as the total in X-Total-Count
+     */
+    static String of(Collection<? extends VersionedAlbum> albums, long... extras) {
+        ByteBuffer buffer = ByteBuffer.allocate((albums.size() * 2 + extras.length) * Long.BYTES);
+        for (VersionedAlbum album : albums) {
+            buffer.putLong(album.getId()).putLong(album.getVersion());
+        }
+        for (long extra : extras) {
+            buffer.putLong(extra);
+        }
+        return "\"" + DigestUtils.md5DigestAsHex(buffer.array()) + "\"";
+    }
+
+    /**
+     * {@code eTag} for a response written in {@code format}. The same albums as JSON, CBOR or Smile are
+     * different bytes, so each format has its own strong tag; JSON keeps the plain one.
+     */
+    static String inFormat(String eTag, MediaType format) {
+        if (format == null || MediaType.APPLICATION_JSON.equals(format)) {
+            return eTag;
+        }
+        return eTag.substring(0, eTag.length() - 1) + "+" + format.getSubtype() + "\"";
+    }
+
+    /**
+     * The latest change to any of the albums, or null when none is known.
+     */
+    static Instant lastModified(Collection<? extends VersionedAlbum> albums) {
+        return albums.stream()
+                .map(VersionedAlbum::getLastModified)
+                .filter(Objects::nonNull)
+                .max(Instant::compareTo)
+                .orElse(null);
+    }
+
+    /**
+     * The versions of album {@code id} an If-Match header accepts, or null when it accepts any version
+     * because the header is absent or {@code *}. Weak tags never match, as If-Match uses strong
+     * comparison, and nor do the tags of other albums. The tags of every format of the album match.
+     */
+    static Set<Long> versionsMatching(long id, String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String prefix = "\"" + id + "-";
+        Set<Long> versions = new HashSet<>();
+        for (String tag : ifMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.length() > prefix.length() + 1 && tag.startsWith(prefix) && tag.endsWith("\"")) {
+                String version = tag.substring(prefix.length(), tag.length() - 1);
+                int format = version.indexOf('+');
+                try {
+                    versions.add(Long.parseLong(format < 0 ? version : version.substring(0, format)));
+                } catch (NumberFormatException e) {
+                    // A tag this API never hands out, so it cannot match
+                }
+            }
+        }
+        if (versions.isEmpty()) {
+            throw new AlbumVersionMismatchException("If-Match does not hold an ETag of this album");
+        }
+        return versions;
+    }
+}
@@ -0,0 +1,51 @@
+package com.northcoders.recordshopapi.controller;
+
+import com.northcoders.recordshopapi.model.AlbumFileFormat;
+import com.northcoders.recordshopapi.ratelimit.RequestCost;
+import com.northcoders.recordshopapi.service.AlbumExportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+
+@RestController
+@Profile("!reactive")
+@RequestMapping("/api/v1/albums")
+public class AlbumExportController {
+
+    @Autowired
+    AlbumExportService albumExportService;
+
+    @Tag(name = "get", description = "All GET methods")
+    @Operation(summary = "Export all albums",
+            description = "Stream the whole catalogue as newline-delimited JSON or CSV, ordered by id")
+    @ApiResponse(responseCode = "200",
+            description = "Catalogue export",
+            content = {@Content(mediaType = "application/x-ndjson"), @Content(mediaType = "text/csv")}
+    )
+    @GetMapping("/export")
+    @RequestCost(100)
+    public void exportAlbums(
+            @Parameter(description = "Export format: ndjson or csv") @RequestParam(defaultValue = "ndjson") String format,
+            HttpServletResponse response) throws IOException {
+        AlbumFileFormat exportFormat = AlbumFileFormat.fromParameter(format);
+        response.setContentType(exportFormat.getMediaType());
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename("albums." + exportFormat.getFileExtension())
+                .build().toString());
+        albumExportService.exportAlbums(exportFormat, response.getOutputStream());
+    }
+}
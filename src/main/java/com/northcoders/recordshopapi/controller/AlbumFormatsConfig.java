@@ -0,0 +1,95 @@
+package com.northcoders.recordshopapi.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Binary encodings of albums beside JSON, for other services to ask for with {@code Accept}. CBOR
+ * and Smile are written by Jackson with the same settings Spring Boot gives the JSON mapper, so the
+ * three carry the same fields. Smile refers back to property names it has already written, which
+ * makes it the smaller of the two for album lists. The non-blocking API offers Smile only, and not
+ * on the endpoints that stream albums one at a time, as Spring streams neither format. Responses that
+ * carry an ETag have their format chosen by {@link #negotiate(List, List)} before the ETag is set, so
+ * that each format can have its own tag.
+ */
+@Configuration
+public class AlbumFormatsConfig {
+
+    public static final String CBOR = MediaType.APPLICATION_CBOR_VALUE;
+    public static final String SMILE = "application/x-jackson-smile";
+
+    static final List<MediaType> FORMATS =
+            List.of(MediaType.APPLICATION_JSON, MediaType.APPLICATION_CBOR, MediaType.parseMediaType(SMILE));
+    static final List<MediaType> REACTIVE_FORMATS = List.of(MediaType.APPLICATION_JSON, MediaType.parseMediaType(SMILE));
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(cborMapper(builder));
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(smileMapper(builder));
+    }
+
+    @Bean
+    public CodecCustomizer smileCodecCustomizer(Jackson2ObjectMapperBuilder builder) {
+        ObjectMapper smileMapper = smileMapper(builder);
+        // Given a mapper but no media types, the codecs would claim JSON's
+        MediaType smile = MediaType.parseMediaType(SMILE);
+        return configurer -> {
+            configurer.defaultCodecs().jackson2SmileEncoder(new Jackson2SmileEncoder(smileMapper, smile));
+            configurer.defaultCodecs().jackson2SmileDecoder(new Jackson2SmileDecoder(smileMapper, smile));
+        };
+    }
+
+    /**
+     * The first of {@code offered} that the Accept headers ask for, taking their media types from the
+     * highest quality down. Null when they ask for none of them or cannot be parsed, which leaves Spring
+     * to refuse the request. No Accept header at all asks for JSON.
+     */
+    static MediaType negotiate(List<String> accept, List<MediaType> offered) {
+        List<MediaType> accepted;
+        try {
+            accepted = new ArrayList<>(MediaType.parseMediaTypes(accept));
+        } catch (InvalidMediaTypeException e) {
+            return null;
+        }
+        if (accepted.isEmpty()) {
+            accepted.add(MediaType.ALL);
+        }
+        accepted.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+        for (MediaType type : accepted) {
+            for (MediaType format : offered) {
+                if (type.getQualityValue() > 0 && type.includes(format)) {
+                    return format;
+                }
+            }
+        }
+        return null;
+    }
+
+    // The builder Spring Boot hands out is a fresh copy each time, so setting its factory is safe
+    public static ObjectMapper cborMapper(Jackson2ObjectMapperBuilder builder) {
+        return builder.factory(new CBORFactory()).build();
+    }
+
+    public static ObjectMapper smileMapper(Jackson2ObjectMapperBuilder builder) {
+        return builder.factory(new SmileFactory()).build();
+    }
+}
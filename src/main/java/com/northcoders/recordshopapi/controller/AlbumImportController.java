@@ -0,0 +1,86 @@
+package com.northcoders.recordshopapi.controller;
+
+import com.northcoders.recordshopapi.model.AlbumFileFormat;
+import com.northcoders.recordshopapi.model.AlbumImportJob;
+import com.northcoders.recordshopapi.ratelimit.RequestCost;
+import com.northcoders.recordshopapi.service.AlbumImportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.InputStream;
+
+@RestController
+@Profile("!reactive")
+@RequestMapping("/api/v1/albums/import")
+public class AlbumImportController {
+
+    private static final String CSV = "text/csv";
+    private static final String NDJSON = "application/x-ndjson";
+
+    @Autowired
+    AlbumImportService albumImportService;
+
+    @Tag(name = "add", description = "All ADD methods")
+    @Operation(summary = "Import albums from a file",
+            description = "Upload a CSV file with a header row, or newline-delimited JSON, as the request body. " +
+                    "The import runs in the background; follow the Location header to track its progress")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202",
+                    description = "Import accepted",
+                    content = {@Content(mediaType = "application/json", schema = @Schema(implementation = AlbumImportJob.class))}),
+            @ApiResponse(responseCode = "400",
+                    description = "Unsupported format or unreadable upload",
+                    content = @Content),
+            @ApiResponse(responseCode = "503",
+                    description = "Too many imports waiting to start",
+                    content = @Content)}
+    )
+    @PostMapping(consumes = {CSV, NDJSON})
+    @RequestCost(50)
+    public ResponseEntity<AlbumImportJob> importAlbums(
+            @Parameter(description = "File format, ndjson or csv; defaults to the request content type") @RequestParam(required = false) String format,
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            @Parameter(description = "Albums to import", required = true) InputStream albums) {
+        AlbumFileFormat fileFormat = format != null
+                ? AlbumFileFormat.fromParameter(format)
+                : MediaType.valueOf(CSV).includes(contentType) ? AlbumFileFormat.CSV : AlbumFileFormat.NDJSON;
+        AlbumImportJob job = albumImportService.startImport(fileFormat, albums);
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .header(HttpHeaders.LOCATION, "/api/v1/albums/import/" + job.getId())
+                .body(job);
+    }
+
+    @Tag(name = "get", description = "All GET methods")
+    @Operation(summary = "Get import progress",
+            description = "Get the progress, throughput and row errors of an import")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200",
+                    description = "Import job found",
+                    content = {@Content(mediaType = "application/json", schema = @Schema(implementation = AlbumImportJob.class))}),
+            @ApiResponse(responseCode = "404",
+                    description = "Import job not found",
+                    content = @Content)}
+    )
+    @GetMapping("/{id}")
+    public ResponseEntity<AlbumImportJob> getImportJob(@Parameter(description = "Import job id") @PathVariable String id) {
+        return new ResponseEntity<>(albumImportService.getImportJob(id), HttpStatus.OK);
+    }
+}
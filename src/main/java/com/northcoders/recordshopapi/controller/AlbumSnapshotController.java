@@ -0,0 +1,95 @@
+package com.northcoders.recordshopapi.controller;
+
+import com.northcoders.recordshopapi.model.Album;
+import com.northcoders.recordshopapi.ratelimit.RequestCost;
+import com.northcoders.recordshopapi.service.AlbumExportService;
+import com.northcoders.recordshopapi.snapshot.AlbumCatalogueSnapshot;
+import com.northcoders.recordshopapi.snapshot.SnapshotEncoding;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.catalina.Globals;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+/**
+ * Serves the {@link AlbumCatalogueSnapshot} as it lies on disk. On Tomcat the file is handed to the
+ * connector, which sends it with {@code sendfile} once the handler returns, so its bytes never enter
+ * the JVM; elsewhere, e.g. under MockMvc, it is copied with {@link FileChannel#transferTo}.
+ */
+@RestController
+@Profile("!reactive")
+@RequestMapping("/api/v1/albums")
+public class AlbumSnapshotController {
+
+    @Autowired
+    AlbumCatalogueSnapshot catalogueSnapshot;
+
+    @Autowired
+    AlbumExportService albumExportService;
+
+    @Tag(name = "get", description = "All GET methods")
+    @Operation(summary = "Get the whole catalogue",
+            description = "Get every album as one JSON array, from a snapshot rebuilt in the background a few seconds " +
+                    "after albums change. The snapshot is stored compressed with zstd and gzip, chosen with Accept-Encoding; " +
+                    "send the ETag back in If-None-Match to skip the download while it is unchanged")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200",
+                    description = "Catalogue",
+                    content = @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = Album.class)))),
+            @ApiResponse(responseCode = "304",
+                    description = "Catalogue unchanged since the ETag in If-None-Match",
+                    content = @Content)}
+    )
+    @GetMapping("/snapshot")
+    @RequestCost(1)
+    public void getCatalogueSnapshot(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().getHeaderValue());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        AlbumCatalogueSnapshot.Snapshot snapshot = catalogueSnapshot.current().orElse(null);
+        if (snapshot == null) {
+            // Not built yet after startup
+            albumExportService.exportAlbumsAsJson(response.getOutputStream());
+            return;
+        }
+        if (new ServletWebRequest(request, response).checkNotModified(snapshot.etag())) {
+            return;
+        }
+
+        SnapshotEncoding encoding = SnapshotEncoding.negotiate(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        if (encoding != SnapshotEncoding.IDENTITY) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, encoding.getCoding());
+        }
+        Path file = snapshot.file(encoding);
+        try (FileChannel channel = FileChannel.open(file)) {
+            long size = channel.size();
+            response.setContentLengthLong(size);
+            if (Boolean.TRUE.equals(request.getAttribute(Globals.SENDFILE_SUPPORTED_ATTR))) {
+                request.setAttribute(Globals.SENDFILE_FILENAME_ATTR, file.toAbsolutePath().toString());
+                request.setAttribute(Globals.SENDFILE_FILE_START_ATTR, 0L);
+                request.setAttribute(Globals.SENDFILE_FILE_END_ATTR, size);
+            } else {
+                channel.transferTo(0, size, Channels.newChannel(response.getOutputStream()));
+            }
+        }
+    }
+}
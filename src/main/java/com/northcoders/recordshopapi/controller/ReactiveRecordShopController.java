@@ -0,0 +1,227 @@
+package com.northcoders.recordshopapi.controller;
+
+import com.northcoders.recordshopapi.model.Album;
+import com.northcoders.recordshopapi.model.AlbumFacet;
+import com.northcoders.recordshopapi.model.AlbumSearchCriteria;
+import com.northcoders.recordshopapi.model.AlbumSuggestions;
+import com.northcoders.recordshopapi.model.VersionedAlbum;
+import com.northcoders.recordshopapi.service.ReactiveRecordShopService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.time.Year;
+import java.util.List;
+
+import static com.northcoders.recordshopapi.controller.RecordShopController.NDJSON;
+import static com.northcoders.recordshopapi.controller.RecordShopController.NEXT_CURSOR_HEADER;
+import static com.northcoders.recordshopapi.controller.RecordShopController.TOTAL_COUNT_HEADER;
+
+/**
+ * Same routes, parameters and status codes as {@link RecordShopController}, served without blocking
+ * under the {@code reactive} profile. Lists are written as the rows arrive from the database, as a
+ * JSON array or, when the client accepts it, as newline-delimited JSON. Streamed lists carry no ETag,
+ * as it would only be known once the last album was written.
+ */
+@RestController
+@Profile("reactive")
+@RequestMapping("/api/v1/albums")
+public class ReactiveRecordShopController {
+
+    @Autowired
+    ReactiveRecordShopService recordShopService;
+
+    @Operation(summary = "Get all albums", description = "Get saved albums one page at a time, ordered by id")
+    @GetMapping("/")
+    public Mono<ResponseEntity<List<Album>>> getAllAlbums(
+            @Parameter(description = "Maximum number of albums to return (1-1000, default 100)") @RequestParam(required = false) Integer limit,
+            @Parameter(description = "Cursor returned with the previous page") @RequestParam(required = false) String after,
+            ServerHttpRequest request) {
+        return recordShopService.getAlbumsPage(after, limit).map(page -> {
+            ResponseEntity.BodyBuilder response = withValidators(ResponseEntity.ok(), request, page.getAlbums());
+            if (page.getNextCursor() != null) {
+                response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+            }
+            return response.body(page.getAlbums());
+        });
+    }
+
+    @Operation(summary = "Get album by id", description = "Get an album by its id")
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<Album>> getAlbumById(
+            @Parameter(description = "ID of album to retrieve", required = true) @PathVariable long id,
+            ServerHttpRequest request) {
+        return recordShopService.getAlbumById(id).map(album -> withValidators(ResponseEntity.ok(), request, album).body(album));
+    }
+
+    @Operation(summary = "Add album", description = "Add a new album")
+    @PostMapping("/add")
+    @ResponseStatus(HttpStatus.CREATED)
+    public Mono<Album> addAlbum(
+            @Parameter(description = "Album to add to shop", required = true) @RequestBody Album album) {
+        return recordShopService.addAlbum(album);
+    }
+
+    @Operation(summary = "Update album", description = "Update an album by its id")
+    @PutMapping("/update/{id}")
+    public Mono<ResponseEntity<Album>> updateAlbum(
+            @Parameter(description = "ID of album to update", required = true) @PathVariable long id,
+            @Parameter(description = "Updated version of existing album", required = true) @RequestBody Album updatedAlbum,
+            @Parameter(description = "ETag the album must still have") @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            ServerHttpRequest request) {
+        return Mono.defer(() -> recordShopService.updateAlbum(id, updatedAlbum, AlbumETags.versionsMatching(id, ifMatch)))
+                .map(album -> withValidators(ResponseEntity.status(HttpStatus.ACCEPTED), request, album).body(album));
+    }
+
+    @Operation(summary = "Delete album", description = "Delete an album by its id")
+    @DeleteMapping("/delete/{id}")
+    public Mono<Void> deleteAlbumById(
+            @Parameter(description = "ID of album to delete", required = true) @PathVariable long id) {
+        return recordShopService.deleteAlbumById(id);
+    }
+
+    @Operation(summary = "Reserve stock", description = "Take copies of an album out of stock, only if enough are left")
+    @PostMapping("/stock/{id}/reserve")
+    public Mono<Album> reserveStock(
+            @Parameter(description = "ID of album to reserve", required = true) @PathVariable long id,
+            @Parameter(description = "Number of copies to reserve") @RequestParam(defaultValue = "1") int quantity) {
+        return recordShopService.reserveStock(id, quantity);
+    }
+
+    @Operation(summary = "Release stock", description = "Put reserved copies of an album back into stock")
+    @PostMapping("/stock/{id}/release")
+    public Mono<Album> releaseStock(
+            @Parameter(description = "ID of album to release", required = true) @PathVariable long id,
+            @Parameter(description = "Number of copies to release") @RequestParam(defaultValue = "1") int quantity) {
+        return recordShopService.releaseStock(id, quantity);
+    }
+
+    @Operation(summary = "Adjust stock", description = "Add to or, with a negative delta, take from the stock of an album")
+    @PostMapping("/stock/{id}/adjust")
+    public Mono<Album> adjustStock(
+            @Parameter(description = "ID of album to adjust", required = true) @PathVariable long id,
+            @Parameter(description = "Change in the number of copies", required = true) @RequestParam int delta) {
+        return recordShopService.adjustStock(id, delta);
+    }
+
+    @Operation(summary = "Get albums by artist", description = "Get all albums by a particular artist")
+    @GetMapping(value = "/artist", produces = {MediaType.APPLICATION_JSON_VALUE, NDJSON})
+    public Flux<Album> getAlbumsByArtist(
+            @Parameter(description = "Name of artist to filter albums with", required = true) @RequestParam String artist) {
+        return recordShopService.getAlbumsByArtist(artist);
+    }
+
+    @Operation(summary = "Get albums by genre", description = "Get all albums by a particular genre")
+    @GetMapping(value = "/genre", produces = {MediaType.APPLICATION_JSON_VALUE, NDJSON})
+    public Flux<Album> getAlbumsByGenre(
+            @Parameter(description = "Genre to filter albums with", required = true) @RequestParam Album.Genre genre) {
+        return recordShopService.getAlbumsByGenre(genre);
+    }
+
+    @Operation(summary = "Get albums by year", description = "Get all albums by a release year")
+    @GetMapping(value = "/year", produces = {MediaType.APPLICATION_JSON_VALUE, NDJSON})
+    public Flux<Album> getAlbumsByYear(
+            @Parameter(description = "Release year to filter albums with", required = true) @RequestParam Year year) {
+        return recordShopService.getAlbumsByYear(year);
+    }
+
+    @Operation(summary = "Get album info", description = "Get the info of an album by its name")
+    @GetMapping("/name")
+    public Mono<ResponseEntity<Album>> getAlbumInfoByName(
+            @Parameter(description = "Name of album whose info is to be retrieved", required = true) @RequestParam String name,
+            ServerHttpRequest request) {
+        return recordShopService.getAlbumInfoByName(name).map(album -> withValidators(ResponseEntity.ok(), request, album).body(album));
+    }
+
+    @Operation(summary = "Search albums", description = "Get albums matching every given filter, one page at a time")
+    @GetMapping("/search")
+    public Mono<ResponseEntity<List<Album>>> searchAlbums(
+            @Parameter(description = "Name of artist to filter albums with") @RequestParam(required = false) String artist,
+            @Parameter(description = "Genre to filter albums with") @RequestParam(required = false) Album.Genre genre,
+            @Parameter(description = "Earliest release year, inclusive") @RequestParam(required = false) Year yearFrom,
+            @Parameter(description = "Latest release year, inclusive") @RequestParam(required = false) Year yearTo,
+            @Parameter(description = "Only return albums with a quantity above zero") @RequestParam(defaultValue = "false") boolean inStock,
+            @Parameter(description = "Case-insensitive start of the album name") @RequestParam(required = false) String name,
+            @Parameter(description = "Zero-based page number") @RequestParam(defaultValue = "0") int page,
+            @Parameter(description = "Page size (1-1000)") @RequestParam(defaultValue = "20") int size,
+            @Parameter(description = "Field to sort by: id, name, artist, genre, year or quantity") @RequestParam(defaultValue = "id") String sort,
+            @Parameter(description = "Sort direction") @RequestParam(defaultValue = "ASC") Sort.Direction direction,
+            ServerHttpRequest request) {
+        AlbumSearchCriteria criteria = AlbumSearchCriteria.builder()
+                .artist(artist)
+                .genre(genre)
+                .yearFrom(yearFrom)
+                .yearTo(yearTo)
+                .inStock(inStock)
+                .namePrefix(name)
+                .build();
+        return recordShopService.searchAlbums(criteria, page, size, sort, direction)
+                .map(albums -> withValidators(ResponseEntity.ok(), request, albums.getContent(), albums.getTotalElements())
+                        .header(TOTAL_COUNT_HEADER, String.valueOf(albums.getTotalElements()))
+                        .body(albums.getContent()));
+    }
+
+    @Operation(summary = "Find albums", description = "Get the albums best matching free text, best match first")
+    @GetMapping("/find")
+    public Mono<ResponseEntity<List<Album>>> findAlbums(
+            @Parameter(description = "Words to look for in album names, artists and descriptions", required = true) @RequestParam String q,
+            @Parameter(description = "Maximum number of albums to return (1-100, default 20)") @RequestParam(required = false) Integer limit,
+            ServerHttpRequest request) {
+        return recordShopService.findAlbums(q, limit)
+                .map(albums -> withValidators(ResponseEntity.ok(), request, albums).body(albums));
+    }
+
+    @Operation(summary = "Suggest artists and album names", description = "Get the artists and album names starting with a prefix")
+    @GetMapping("/typeahead")
+    public Mono<AlbumSuggestions> suggestAlbums(
+            @Parameter(description = "What the user has typed so far", required = true) @RequestParam String prefix,
+            @Parameter(description = "Maximum number of artists and of names to return (1-20, default 10)") @RequestParam(required = false) Integer limit) {
+        return recordShopService.suggestAlbums(prefix, limit);
+    }
+
+    @Operation(summary = "Count albums by genre, year, decade or artist",
+            description = "Get the number of albums and the copies in stock for each value, the most albums first")
+    @GetMapping("/facets")
+    public Mono<List<AlbumFacet>> getAlbumFacets(
+            @Parameter(description = "What to group albums by", required = true) @RequestParam AlbumFacet.Field by,
+            @Parameter(description = "Maximum number of values to return (1-10000, default 100)") @RequestParam(required = false) Integer limit) {
+        return recordShopService.getAlbumFacets(by, limit);
+    }
+
+    // As in RecordShopController, the format is chosen before the ETag is set, so that the tag can name it
+    private static ResponseEntity.BodyBuilder withValidators(ResponseEntity.BodyBuilder response, ServerHttpRequest request,
+                                                             Album album) {
+        return withValidators(response, request, AlbumETags.of(album), album.getLastModified());
+    }
+
+    private static ResponseEntity.BodyBuilder withValidators(ResponseEntity.BodyBuilder response, ServerHttpRequest request,
+                                                             List<? extends VersionedAlbum> albums, long... extras) {
+        return withValidators(response, request, AlbumETags.of(albums, extras), AlbumETags.lastModified(albums));
+    }
+
+    private static ResponseEntity.BodyBuilder withValidators(ResponseEntity.BodyBuilder response, ServerHttpRequest request,
+                                                             String eTag, Instant lastModified) {
+        MediaType format = AlbumFormatsConfig.negotiate(
+                request.getHeaders().getOrEmpty(HttpHeaders.ACCEPT), AlbumFormatsConfig.REACTIVE_FORMATS);
+        response.varyBy(HttpHeaders.ACCEPT);
+        if (format != null) {
+            response.contentType(format);
+        }
+        response.eTag(AlbumETags.inFormat(eTag, format));
+        if (lastModified != null) {
+            response.lastModified(lastModified);
+        }
+        return response;
+    }
+}
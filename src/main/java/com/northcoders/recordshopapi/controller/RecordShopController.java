@@ -1,6 +1,15 @@
 package com.northcoders.recordshopapi.controller;
 
 import com.northcoders.recordshopapi.model.Album;
+import com.northcoders.recordshopapi.model.AlbumFacet;
+import com.northcoders.recordshopapi.model.AlbumPage;
+import com.northcoders.recordshopapi.model.AlbumPatch;
+import com.northcoders.recordshopapi.model.AlbumSearchCriteria;
+import com.northcoders.recordshopapi.model.AlbumSuggestions;
+import com.northcoders.recordshopapi.model.BatchResult;
+import com.northcoders.recordshopapi.model.VersionedAlbum;
+import com.northcoders.recordshopapi.ratelimit.RequestCost;
+import com.northcoders.recordshopapi.service.AlbumBatchService;
 import com.northcoders.recordshopapi.service.RecordShopService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -10,30 +19,66 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
+import java.io.InputStream;
+import java.time.Instant;
 import java.time.Year;
+import java.util.Collections;
 import java.util.List;
 
 @RestController
+@Profile("!reactive")
 @RequestMapping("/api/v1/albums")
 public class RecordShopController {
 
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+    static final String SUMMARY_DESCRIPTION = "Return albums without their description";
+
+    static final String NDJSON = "application/x-ndjson";
+    static final String MERGE_PATCH = "application/merge-patch+json";
+
     @Autowired
     RecordShopService recordShopService;
 
+    @Autowired
+    AlbumBatchService albumBatchService;
+
     @Tag(name = "get", description = "All GET methods")
-    @Operation(summary = "Get all albums", description = "Get all saved albums")
-    @ApiResponse(responseCode = "200",
-            description = "All albums found",
-            content = @Content(array = @ArraySchema(schema = @Schema(implementation = Album.class)))
+    @Operation(summary = "Get all albums",
+            description = "Get saved albums one page at a time, ordered by id. When more albums follow, the " +
+                    NEXT_CURSOR_HEADER + " response header holds the cursor to pass as 'after' for the next page")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200",
+                    description = "Page of albums found",
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = Album.class)))),
+            @ApiResponse(responseCode = "400",
+                    description = "Invalid limit or cursor",
+                    content = @Content)}
     )
     @GetMapping("/")
-    public ResponseEntity<List<Album>> getAllAlbums() {
-        return new ResponseEntity<>(recordShopService.getAllAlbums(), HttpStatus.OK);
+    @RequestCost(10)
+    public ResponseEntity<List<Album>> getAllAlbums(
+            @Parameter(description = "Maximum number of albums to return (1-1000, default 100)") @RequestParam(required = false) Integer limit,
+            @Parameter(description = "Cursor returned with the previous page") @RequestParam(required = false) String after) {
+        AlbumPage page = recordShopService.getAlbumsPage(after, limit);
+        HttpHeaders headers = validators(page.getAlbums());
+        if (page.getNextCursor() != null) {
+            headers.add(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return new ResponseEntity<>(page.getAlbums(), headers, HttpStatus.OK);
     }
 
     @Tag(name = "get", description = "All GET methods")
@@ -42,6 +87,9 @@ public class RecordShopController {
             @ApiResponse(responseCode = "200",
                     description = "Album found",
                     content = {@Content(mediaType = "application/json", schema = @Schema(implementation = Album.class))}),
+            @ApiResponse(responseCode = "304",
+                    description = "Album unchanged since the ETag in If-None-Match",
+                    content = @Content),
             @ApiResponse(responseCode = "404",
                     description = "Album not found",
                     content = @Content)}
@@ -49,8 +97,9 @@ public class RecordShopController {
     @GetMapping("/{id}")
     public ResponseEntity<Album> getAlbumById(
             @Parameter(description = "ID of album to retrieve", required = true) @PathVariable long id) {
+        // Served from the album cache, and not serialized at all when If-None-Match holds its ETag
         Album album = recordShopService.getAlbumById(id).get();
-        return new ResponseEntity<>(album, HttpStatus.OK);
+        return new ResponseEntity<>(album, validators(album), HttpStatus.OK);
     }
 
 
@@ -67,22 +116,108 @@ public class RecordShopController {
         return new ResponseEntity<>(albumToAdd, HttpStatus.CREATED);
     }
 
+    @Tag(name = "add", description = "All ADD methods")
+    @Operation(summary = "Add albums in bulk",
+            description = "Add many albums from a JSON array or newline-delimited JSON. Albums are stored in batches " +
+                    "and each one gets its own result, so invalid albums do not stop the rest")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200",
+                    description = "Per-album results",
+                    content = {@Content(mediaType = "application/json", schema = @Schema(implementation = BatchResult.class))}),
+            @ApiResponse(responseCode = "400",
+                    description = "Malformed request body",
+                    content = @Content)}
+    )
+    @PostMapping(value = "/add/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, NDJSON})
+    @RequestCost(20)
+    public ResponseEntity<BatchResult> addAlbums(
+            @Parameter(description = "Albums to add to shop", required = true) InputStream albums) {
+        return new ResponseEntity<>(albumBatchService.addAlbums(albums), HttpStatus.OK);
+    }
+
+    @Tag(name = "update", description = "All UPDATE methods")
+    @Operation(summary = "Update albums in bulk",
+            description = "Update many albums, identified by their ids, from a JSON array or newline-delimited JSON")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200",
+                    description = "Per-album results",
+                    content = {@Content(mediaType = "application/json", schema = @Schema(implementation = BatchResult.class))}),
+            @ApiResponse(responseCode = "400",
+                    description = "Malformed request body",
+                    content = @Content)}
+    )
+    @PutMapping(value = "/update/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, NDJSON})
+    @RequestCost(20)
+    public ResponseEntity<BatchResult> updateAlbums(
+            @Parameter(description = "Updated versions of existing albums", required = true) InputStream albums) {
+        return new ResponseEntity<>(albumBatchService.updateAlbums(albums), HttpStatus.OK);
+    }
+
+    @Tag(name = "delete", description = "All DELETE methods")
+    @Operation(summary = "Delete albums in bulk", description = "Delete many albums by their ids, given as a JSON array")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200",
+                    description = "Per-album results",
+                    content = {@Content(mediaType = "application/json", schema = @Schema(implementation = BatchResult.class))}),
+            @ApiResponse(responseCode = "400",
+                    description = "Malformed request body",
+                    content = @Content)}
+    )
+    @DeleteMapping(value = "/delete/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, NDJSON})
+    @RequestCost(20)
+    public ResponseEntity<BatchResult> deleteAlbums(
+            @Parameter(description = "IDs of albums to delete", required = true) InputStream ids) {
+        return new ResponseEntity<>(albumBatchService.deleteAlbums(ids), HttpStatus.OK);
+    }
+
     @Tag(name = "update", description = "All UPDATE methods")
-    @Operation(summary = "Update album", description = "Update an album by its id")
+    @Operation(summary = "Update album",
+            description = "Update an album by its id. With an If-Match header, only if the album still has that ETag")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200",
                     description = "Album updated",
                     content = {@Content(mediaType = "application/json", schema = @Schema(implementation = Album.class))}),
             @ApiResponse(responseCode = "404",
                     description = "Album not found",
+                    content = @Content),
+            @ApiResponse(responseCode = "412",
+                    description = "Album changed since the ETag in If-Match",
                     content = @Content)}
     )
     @PutMapping("/update/{id}")
     public ResponseEntity<Album> updateAlbum(
             @Parameter(description = "ID of album to update", required = true) @PathVariable long id,
-            @Parameter(description = "Updated version of existing album", required = true) @RequestBody Album updatedAlbum) {
-        Album albumUpdated = recordShopService.updateAlbum(id, updatedAlbum);
-        return new ResponseEntity<>(albumUpdated, HttpStatus.ACCEPTED);
+            @Parameter(description = "Updated version of existing album", required = true) @RequestBody Album updatedAlbum,
+            @Parameter(description = "ETag the album must still have") @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Album albumUpdated = recordShopService.updateAlbum(id, updatedAlbum, AlbumETags.versionsMatching(id, ifMatch));
+        return new ResponseEntity<>(albumUpdated, validators(albumUpdated), HttpStatus.ACCEPTED);
+    }
+
+    @Tag(name = "update", description = "All UPDATE methods")
+    @Operation(summary = "Update some fields of an album",
+            description = "Change only the fields sent, as a JSON merge patch: fields left out keep their values, and a " +
+                    "description sent as null is removed. With an If-Match header, only if the album still has that ETag")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200",
+                    description = "Album updated",
+                    content = {@Content(mediaType = "application/json", schema = @Schema(implementation = Album.class))}),
+            @ApiResponse(responseCode = "400",
+                    description = "No fields sent, or a field other than the description sent as null",
+                    content = @Content),
+            @ApiResponse(responseCode = "404",
+                    description = "Album not found",
+                    content = @Content),
+            @ApiResponse(responseCode = "412",
+                    description = "Album changed since the ETag in If-Match",
+                    content = @Content)}
+    )
+    @PatchMapping(value = "/update/{id}", consumes = {MERGE_PATCH, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<Album> patchAlbum(
+            @Parameter(description = "ID of album to update", required = true) @PathVariable long id,
+            @Parameter(description = "Fields to change", required = true) @RequestBody AlbumPatch patch,
+            @Parameter(description = "ETag the album must still have") @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Album albumUpdated = recordShopService.patchAlbum(id, patch, AlbumETags.versionsMatching(id, ifMatch));
+        return new ResponseEntity<>(albumUpdated, validators(albumUpdated), HttpStatus.OK);
     }
 
     @Tag(name = "delete", description = "All DELETE methods")
@@ -101,6 +236,69 @@ public class RecordShopController {
         recordShopService.deleteAlbumById(id);
     }
 
+    @Tag(name = "update", description = "All UPDATE methods")
+    @Operation(summary = "Reserve stock", description = "Take copies of an album out of stock, only if enough are left")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200",
+                    description = "Stock reserved",
+                    content = {@Content(mediaType = "application/json", schema = @Schema(implementation = Album.class))}),
+            @ApiResponse(responseCode = "404",
+                    description = "Album not found",
+                    content = @Content),
+            @ApiResponse(responseCode = "409",
+                    description = "Not enough stock",
+                    content = @Content)}
+    )
+    @PostMapping("/stock/{id}/reserve")
+    public ResponseEntity<Album> reserveStock(
+            @Parameter(description = "ID of album to reserve", required = true) @PathVariable long id,
+            @Parameter(description = "Number of copies to reserve") @RequestParam(defaultValue = "1") int quantity) {
+        return new ResponseEntity<>(recordShopService.reserveStock(id, quantity), HttpStatus.OK);
+    }
+
+    @Tag(name = "update", description = "All UPDATE methods")
+    @Operation(summary = "Release stock", description = "Put reserved copies of an album back into stock")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200",
+                    description = "Stock released",
+                    content = {@Content(mediaType = "application/json", schema = @Schema(implementation = Album.class))}),
+            @ApiResponse(responseCode = "400",
+                    description = "Quantity not positive, or stock would exceed the largest int",
+                    content = @Content),
+            @ApiResponse(responseCode = "404",
+                    description = "Album not found",
+                    content = @Content)}
+    )
+    @PostMapping("/stock/{id}/release")
+    public ResponseEntity<Album> releaseStock(
+            @Parameter(description = "ID of album to release", required = true) @PathVariable long id,
+            @Parameter(description = "Number of copies to release") @RequestParam(defaultValue = "1") int quantity) {
+        return new ResponseEntity<>(recordShopService.releaseStock(id, quantity), HttpStatus.OK);
+    }
+
+    @Tag(name = "update", description = "All UPDATE methods")
+    @Operation(summary = "Adjust stock", description = "Add to or, with a negative delta, take from the stock of an album")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200",
+                    description = "Stock adjusted",
+                    content = {@Content(mediaType = "application/json", schema = @Schema(implementation = Album.class))}),
+            @ApiResponse(responseCode = "400",
+                    description = "Stock would exceed the largest int",
+                    content = @Content),
+            @ApiResponse(responseCode = "404",
+                    description = "Album not found",
+                    content = @Content),
+            @ApiResponse(responseCode = "409",
+                    description = "Stock would go below zero",
+                    content = @Content)}
+    )
+    @PostMapping("/stock/{id}/adjust")
+    public ResponseEntity<Album> adjustStock(
+            @Parameter(description = "ID of album to adjust", required = true) @PathVariable long id,
+            @Parameter(description = "Change in the number of copies", required = true) @RequestParam int delta) {
+        return new ResponseEntity<>(recordShopService.adjustStock(id, delta), HttpStatus.OK);
+    }
+
     @Tag(name = "get", description = "All GET methods")
     @Operation(summary = "Get albums by artist", description = "Get all albums by a particular artist")
     @ApiResponses(value = {
@@ -112,9 +310,14 @@ public class RecordShopController {
                     content = @Content)}
     )
     @GetMapping("/artist")
-    public ResponseEntity<List<Album>> getAlbumsByArtist(
-            @Parameter(description = "Name of artist to filter albums with", required = true) @RequestParam String artist) {
-        return new ResponseEntity<>(recordShopService.getAlbumsByArtist(artist), HttpStatus.OK);
+    @RequestCost(5)
+    public ResponseEntity<List<? extends VersionedAlbum>> getAlbumsByArtist(
+            @Parameter(description = "Name of artist to filter albums with", required = true) @RequestParam String artist,
+            @Parameter(description = SUMMARY_DESCRIPTION) @RequestParam(defaultValue = "false") boolean summary) {
+        List<? extends VersionedAlbum> albums = summary
+                ? recordShopService.getAlbumSummariesByArtist(artist)
+                : recordShopService.getAlbumsByArtist(artist);
+        return new ResponseEntity<>(albums, validators(albums), HttpStatus.OK);
     }
 
     @Tag(name = "get", description = "All GET methods")
@@ -128,9 +331,14 @@ public class RecordShopController {
                     content = @Content)}
     )
     @GetMapping("/genre")
-    public ResponseEntity<List<Album>> getAlbumsByGenre(
-            @Parameter(description = "Genre to filter albums with", required = true) @RequestParam Album.Genre genre) {
-        return new ResponseEntity<>(recordShopService.getAlbumsByGenre(genre), HttpStatus.OK);
+    @RequestCost(5)
+    public ResponseEntity<List<? extends VersionedAlbum>> getAlbumsByGenre(
+            @Parameter(description = "Genre to filter albums with", required = true) @RequestParam Album.Genre genre,
+            @Parameter(description = SUMMARY_DESCRIPTION) @RequestParam(defaultValue = "false") boolean summary) {
+        List<? extends VersionedAlbum> albums = summary
+                ? recordShopService.getAlbumSummariesByGenre(genre)
+                : recordShopService.getAlbumsByGenre(genre);
+        return new ResponseEntity<>(albums, validators(albums), HttpStatus.OK);
     }
 
     @Tag(name = "get", description = "All GET methods")
@@ -144,9 +352,14 @@ public class RecordShopController {
                     content = @Content)}
     )
     @GetMapping("/year")
-    public ResponseEntity<List<Album>> getAlbumsByGenre(
-            @Parameter(description = "Year to filter albums with", required = true) @RequestParam Year year) {
-        return new ResponseEntity<>(recordShopService.getAlbumsByYear(year), HttpStatus.OK);
+    @RequestCost(5)
+    public ResponseEntity<List<? extends VersionedAlbum>> getAlbumsByGenre(
+            @Parameter(description = "Year to filter albums with", required = true) @RequestParam Year year,
+            @Parameter(description = SUMMARY_DESCRIPTION) @RequestParam(defaultValue = "false") boolean summary) {
+        List<? extends VersionedAlbum> albums = summary
+                ? recordShopService.getAlbumSummariesByYear(year)
+                : recordShopService.getAlbumsByYear(year);
+        return new ResponseEntity<>(albums, validators(albums), HttpStatus.OK);
     }
 
     @Tag(name = "get", description = "All GET methods")
@@ -160,9 +373,138 @@ public class RecordShopController {
                     content = @Content)}
     )
     @GetMapping("/name")
-    public ResponseEntity<String> getAlbumInfoByName(
+    public ResponseEntity<Album> getAlbumInfoByName(
             @Parameter(description = "Name of album whose info is to be retrieved", required = true) @RequestParam String name) {
-        return new ResponseEntity<>(recordShopService.getAlbumInfoByName(name), HttpStatus.OK);
+        Album album = recordShopService.getAlbumInfoByName(name);
+        return new ResponseEntity<>(album, validators(album), HttpStatus.OK);
+    }
+
+    @Tag(name = "get", description = "All GET methods")
+    @Operation(summary = "Search albums",
+            description = "Get albums matching every given filter, one page at a time. The " + TOTAL_COUNT_HEADER +
+                    " response header holds the number of matching albums")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200",
+                    description = "Page of matching albums, possibly empty",
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = Album.class)))),
+            @ApiResponse(responseCode = "400",
+                    description = "Invalid paging, sort or year range",
+                    content = @Content)}
+    )
+    @GetMapping("/search")
+    @RequestCost(5)
+    public ResponseEntity<List<Album>> searchAlbums(
+            @Parameter(description = "Name of artist to filter albums with") @RequestParam(required = false) String artist,
+            @Parameter(description = "Genre to filter albums with") @RequestParam(required = false) Album.Genre genre,
+            @Parameter(description = "Earliest release year, inclusive") @RequestParam(required = false) Year yearFrom,
+            @Parameter(description = "Latest release year, inclusive") @RequestParam(required = false) Year yearTo,
+            @Parameter(description = "Only return albums with a quantity above zero") @RequestParam(defaultValue = "false") boolean inStock,
+            @Parameter(description = "Case-insensitive start of the album name") @RequestParam(required = false) String name,
+            @Parameter(description = "Zero-based page number") @RequestParam(defaultValue = "0") int page,
+            @Parameter(description = "Page size (1-1000)") @RequestParam(defaultValue = "20") int size,
+            @Parameter(description = "Field to sort by: id, name, artist, genre, year or quantity") @RequestParam(defaultValue = "id") String sort,
+            @Parameter(description = "Sort direction") @RequestParam(defaultValue = "ASC") Sort.Direction direction) {
+        AlbumSearchCriteria criteria = AlbumSearchCriteria.builder()
+                .artist(artist)
+                .genre(genre)
+                .yearFrom(yearFrom)
+                .yearTo(yearTo)
+                .inStock(inStock)
+                .namePrefix(name)
+                .build();
+        Page<Album> albums = recordShopService.searchAlbums(criteria, page, size, sort, direction);
+        HttpHeaders headers = validators(albums.getContent(), albums.getTotalElements());
+        headers.add(TOTAL_COUNT_HEADER, String.valueOf(albums.getTotalElements()));
+        return new ResponseEntity<>(albums.getContent(), headers, HttpStatus.OK);
+    }
+
+    @Tag(name = "get", description = "All GET methods")
+    @Operation(summary = "Find albums",
+            description = "Get the albums whose name, artist or description best match free text, best match first. " +
+                    "Words match regardless of case and accents, as prefixes, and with a typo or two")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200",
+                    description = "Matching albums, possibly none",
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = Album.class)))),
+            @ApiResponse(responseCode = "400",
+                    description = "Blank text or invalid limit",
+                    content = @Content)}
+    )
+    @GetMapping("/find")
+    @RequestCost(2)
+    public ResponseEntity<List<Album>> findAlbums(
+            @Parameter(description = "Words to look for in album names, artists and descriptions", required = true) @RequestParam String q,
+            @Parameter(description = "Maximum number of albums to return (1-100, default 20)") @RequestParam(required = false) Integer limit) {
+        List<Album> albums = recordShopService.findAlbums(q, limit);
+        return new ResponseEntity<>(albums, validators(albums), HttpStatus.OK);
+    }
+
+    @Tag(name = "get", description = "All GET methods")
+    @Operation(summary = "Suggest artists and album names",
+            description = "Get the artists and album names starting with a prefix, those with the most albums first, " +
+                    "for a search box to call as the user types. Case, accents and a leading article are ignored")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200",
+                    description = "Suggestions, possibly none",
+                    content = {@Content(mediaType = "application/json", schema = @Schema(implementation = AlbumSuggestions.class))}),
+            @ApiResponse(responseCode = "400",
+                    description = "Blank prefix or invalid limit",
+                    content = @Content)}
+    )
+    @GetMapping("/typeahead")
+    public ResponseEntity<AlbumSuggestions> suggestAlbums(
+            @Parameter(description = "What the user has typed so far", required = true) @RequestParam String prefix,
+            @Parameter(description = "Maximum number of artists and of names to return (1-20, default 10)") @RequestParam(required = false) Integer limit) {
+        return new ResponseEntity<>(recordShopService.suggestAlbums(prefix, limit), HttpStatus.OK);
+    }
+
+    @Tag(name = "get", description = "All GET methods")
+    @Operation(summary = "Count albums by genre, year, decade or artist",
+            description = "Get the number of albums and the copies in stock for each genre, year, decade or artist, " +
+                    "those with the most albums first")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200",
+                    description = "Counts, possibly none",
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = AlbumFacet.class)))),
+            @ApiResponse(responseCode = "400",
+                    description = "Unknown field or invalid limit",
+                    content = @Content)}
+    )
+    @GetMapping("/facets")
+    public ResponseEntity<List<AlbumFacet>> getAlbumFacets(
+            @Parameter(description = "What to group albums by", required = true) @RequestParam AlbumFacet.Field by,
+            @Parameter(description = "Maximum number of values to return (1-10000, default 100)") @RequestParam(required = false) Integer limit) {
+        return new ResponseEntity<>(recordShopService.getAlbumFacets(by, limit), HttpStatus.OK);
+    }
+
+    /**
+     * ETag and Last-Modified of a response. Spring answers a GET whose If-None-Match or
+     * If-Modified-Since they satisfy with 304, before the body is serialized, so the format is chosen
+     * here from Accept and fixed with Content-Type, for the ETag to name it. The response varies by
+     * Accept, which caches need to know to keep the formats apart.
+     */
+    private static HttpHeaders validators(Album album) {
+        return validators(AlbumETags.of(album), album.getLastModified());
+    }
+
+    private static HttpHeaders validators(List<? extends VersionedAlbum> albums, long... extras) {
+        return validators(AlbumETags.of(albums, extras), AlbumETags.lastModified(albums));
+    }
+
+    private static HttpHeaders validators(String eTag, Instant lastModified) {
+        HttpServletRequest request = ((ServletRequestAttributes) RequestContextHolder.currentRequestAttributes()).getRequest();
+        MediaType format = AlbumFormatsConfig.negotiate(
+                Collections.list(request.getHeaders(HttpHeaders.ACCEPT)), AlbumFormatsConfig.FORMATS);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setVary(List.of(HttpHeaders.ACCEPT));
+        if (format != null) {
+            headers.setContentType(format);
+        }
+        headers.setETag(AlbumETags.inFormat(eTag, format));
+        if (lastModified != null) {
+            headers.setLastModified(lastModified);
+        }
+        return headers;
     }
 
 }
@@ -0,0 +1,58 @@
+package com.northcoders.recordshopapi.datasource;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.util.WebUtils;
+
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Reads a client's requests from the primary for {@code recordshop.datasource.replicas.sticky-for}
+ * after it writes, so that it sees its own writes before the replicas catch up. The time is kept in
+ * a cookie, so it holds whichever instance serves the next request.
+ */
+public class ReadYourWritesInterceptor implements AsyncHandlerInterceptor {
+
+    static final String COOKIE = "recordshop-wrote";
+    static final Set<String> SAFE_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+
+    private final ReplicaPool replicaPool;
+
+    private final Duration stickyFor;
+
+    public ReadYourWritesInterceptor(ReplicaPool replicaPool, Duration stickyFor) {
+        this.replicaPool = replicaPool;
+        this.stickyFor = stickyFor;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!SAFE_METHODS.contains(request.getMethod())) {
+            // Set before the handler runs, while the response can still take headers
+            response.addHeader(HttpHeaders.SET_COOKIE, ResponseCookie.from(COOKIE, "1")
+                    .maxAge(stickyFor)
+                    .path("/")
+                    .httpOnly(true)
+                    .build()
+                    .toString());
+            replicaPool.pinToPrimary();
+        } else if (WebUtils.getCookie(request, COOKIE) != null) {
+            replicaPool.pinToPrimary();
+        }
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        replicaPool.unpin();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        replicaPool.unpin();
+    }
+}
@@ -0,0 +1,99 @@
+package com.northcoders.recordshopapi.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Sends read-only transactions to the replicas in {@code recordshop.datasource.replicas.urls} when
+ * {@code recordshop.datasource.replicas.enabled} is set, e.g. through the "replica" profile, and
+ * everything else to {@code spring.datasource}. The connection is only taken when the first statement
+ * runs, once the transaction is known to be read-only; Flyway and writes always use the primary.
+ */
+@Configuration
+@ConditionalOnProperty(name = "recordshop.datasource.replicas.enabled", havingValue = "true")
+public class ReplicaDataSourceConfig {
+
+    @Value("${recordshop.datasource.replicas.urls}")
+    List<String> urls;
+
+    @Value("${recordshop.datasource.replicas.username:${spring.datasource.username:}}")
+    String username;
+
+    @Value("${recordshop.datasource.replicas.password:${spring.datasource.password:}}")
+    String password;
+
+    @Value("${recordshop.datasource.replicas.maximum-pool-size:10}")
+    int maximumPoolSize;
+
+    @Value("${recordshop.datasource.replicas.connection-timeout:2s}")
+    Duration connectionTimeout;
+
+    @Value("${recordshop.datasource.replicas.health-check-interval:5s}")
+    Duration healthCheckInterval;
+
+    @Value("${recordshop.datasource.replicas.sticky-for:0s}")
+    Duration stickyFor;
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReplicaPool replicaPool(HikariDataSource primaryDataSource, DataSourceProperties properties) {
+        List<HikariDataSource> replicas = IntStream.range(0, urls.size())
+                .mapToObj(i -> replica("replica-" + (i + 1), urls.get(i), properties.determineDriverClassName()))
+                .toList();
+        return new ReplicaPool(primaryDataSource, replicas, healthCheckInterval);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaPool replicaPool) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primaryDataSource);
+        dataSource.setReadOnlyDataSource(replicaPool);
+        return dataSource;
+    }
+
+    @Bean
+    public WebMvcConfigurer readYourWrites(ReplicaPool replicaPool) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                if (!stickyFor.isZero()) {
+                    registry.addInterceptor(new ReadYourWritesInterceptor(replicaPool, stickyFor));
+                }
+            }
+        };
+    }
+
+    private HikariDataSource replica(String name, String url, String driverClassName) {
+        HikariDataSource replica = new HikariDataSource();
+        replica.setPoolName(name);
+        replica.setJdbcUrl(url.trim());
+        replica.setDriverClassName(driverClassName);
+        replica.setUsername(username);
+        replica.setPassword(password);
+        replica.setMaximumPoolSize(maximumPoolSize);
+        replica.setConnectionTimeout(connectionTimeout.toMillis());
+        replica.setReadOnly(true);
+        // Start even when a replica is down; the health checks take it out of rotation
+        replica.setInitializationFailTimeout(-1);
+        return replica;
+    }
+}
@@ -0,0 +1,189 @@
+package com.northcoders.recordshopapi.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Connections for read-only transactions. Each is taken from the next replica in turn, skipping
+ * replicas that failed to hand out a connection or their last health check, and from the primary
+ * when no replica is healthy or the current thread is pinned to it, e.g. straight after the client
+ * wrote. Replicas are checked every {@code recordshop.datasource.replicas.health-check-interval} and
+ * rejoin once they pass.
+ */
+@Slf4j
+public class ReplicaPool extends AbstractDataSource implements SmartInitializingSingleton, DisposableBean, MeterBinder {
+
+    private final DataSource primary;
+
+    private final List<Replica> replicas;
+
+    private final Duration healthCheckInterval;
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    private final ThreadLocal<Boolean> pinned = ThreadLocal.withInitial(() -> false);
+
+    private final LongAdder primaryConnections = new LongAdder();
+
+    private ThreadPoolTaskScheduler scheduler;
+
+    public ReplicaPool(DataSource primary, List<HikariDataSource> replicas, Duration healthCheckInterval) {
+        this.primary = primary;
+        this.replicas = replicas.stream().map(Replica::new).toList();
+        this.healthCheckInterval = healthCheckInterval;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setThreadNamePrefix("replica-health-");
+        scheduler.initialize();
+        scheduler.scheduleWithFixedDelay(this::checkHealth, Instant.now(), healthCheckInterval);
+    }
+
+    @Override
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+        replicas.forEach(replica -> replica.dataSource.close());
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!pinned.get()) {
+            int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+            for (int i = 0; i < replicas.size(); i++) {
+                Replica replica = replicas.get((start + i) % replicas.size());
+                if (replica.healthy) {
+                    try {
+                        Connection connection = replica.dataSource.getConnection();
+                        replica.connections.increment();
+                        return connection;
+                    } catch (SQLException e) {
+                        replica.down(e);
+                    }
+                }
+            }
+        }
+        primaryConnections.increment();
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Replica connections use the credentials they were configured with");
+    }
+
+    /**
+     * Sends read-only transactions on the current thread to the primary until {@link #unpin()}.
+     */
+    public void pinToPrimary() {
+        pinned.set(true);
+    }
+
+    public void unpin() {
+        pinned.remove();
+    }
+
+    /**
+     * Takes each replica out of rotation if it cannot hand out a valid connection, and back in once it
+     * can, on the calling thread.
+     */
+    public void checkHealth() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.dataSource.getConnection()) {
+                if (connection.isValid((int) Math.max(1, Duration.ofMillis(replica.dataSource.getValidationTimeout()).toSeconds()))) {
+                    replica.up();
+                } else {
+                    replica.down(null);
+                }
+            } catch (SQLException e) {
+                replica.down(e);
+            }
+        }
+    }
+
+    public List<Replica> getReplicas() {
+        return replicas;
+    }
+
+    /**
+     * Connections for read-only transactions that went to the primary instead of a replica.
+     */
+    public long getPrimaryConnections() {
+        return primaryConnections.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (Replica replica : replicas) {
+            Gauge.builder("recordshop.datasource.replica.healthy", replica, r -> r.healthy ? 1 : 0)
+                    .description("Whether the replica is in rotation for read-only transactions")
+                    .tag("replica", replica.getName())
+                    .register(registry);
+            FunctionCounter.builder("recordshop.datasource.read.connections", replica, Replica::getConnections)
+                    .description("Connections handed out for read-only transactions")
+                    .tag("target", replica.getName())
+                    .register(registry);
+        }
+        FunctionCounter.builder("recordshop.datasource.read.connections", this, ReplicaPool::getPrimaryConnections)
+                .description("Connections handed out for read-only transactions")
+                .tag("target", "primary")
+                .register(registry);
+    }
+
+    @Getter
+    public static class Replica {
+
+        private final String name;
+
+        private final HikariDataSource dataSource;
+
+        private volatile boolean healthy = true;
+
+        private final LongAdder connections = new LongAdder();
+
+        Replica(HikariDataSource dataSource) {
+            this.name = dataSource.getPoolName();
+            this.dataSource = dataSource;
+        }
+
+        public long getConnections() {
+            return connections.sum();
+        }
+
+        void up() {
+            if (!healthy) {
+                log.info("Replica {} is healthy again, sending reads to it", name);
+                healthy = true;
+            }
+        }
+
+        void down(SQLException e) {
+            if (healthy) {
+                log.warn("Replica {} failed, sending its reads elsewhere until it passes a health check", name, e);
+                healthy = false;
+            }
+        }
+    }
+}
@@ -0,0 +1,5 @@
+package com.northcoders.recordshopapi.exception;
+
+public class AlbumChangeExpiredException extends RuntimeException {
+    public AlbumChangeExpiredException(String message) {super(message);}
+}
@@ -1,11 +1,15 @@
 package com.northcoders.recordshopapi.exception;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 
+import java.time.Duration;
+
 @ControllerAdvice
 public class AlbumExceptionHandler {
 
@@ -14,4 +18,61 @@ public class AlbumExceptionHandler {
         return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
     }
 
+    @ExceptionHandler
+    public ResponseEntity<Object> handleInvalidAlbumQuery(InvalidAlbumQueryException e) {
+        return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<Object> handleInvalidAlbumPayload(InvalidAlbumPayloadException e) {
+        return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<Object> handleInsufficientStock(InsufficientStockException e) {
+        return new ResponseEntity<>(e.getMessage(), HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<Object> handleAlbumVersionMismatch(AlbumVersionMismatchException e) {
+        return new ResponseEntity<>(e.getMessage(), HttpStatus.PRECONDITION_FAILED);
+    }
+
+    // Another update committed between reading the album and writing it back
+    @ExceptionHandler
+    public ResponseEntity<Object> handleConcurrentUpdate(ObjectOptimisticLockingFailureException e) {
+        return new ResponseEntity<>("The album was changed by another request, fetch it and retry",
+                HttpStatus.PRECONDITION_FAILED);
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<Object> handleImportJobNotFound(ImportJobNotFoundException e) {
+        return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
+    }
+
+    // The consumer fell further behind than the changes are kept, so it has to read the albums again
+    @ExceptionHandler
+    public ResponseEntity<Object> handleAlbumChangeExpired(AlbumChangeExpiredException e) {
+        return new ResponseEntity<>(e.getMessage(), HttpStatus.GONE);
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<Object> handleRateLimitExceeded(RateLimitExceededException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, retryAfter(e.getRetryAfter()))
+                .body(e.getMessage());
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<Object> handleServiceOverloaded(ServiceOverloadedException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, retryAfter(e.getRetryAfter()))
+                .body(e.getMessage());
+    }
+
+    // Whole seconds, rounded up so that a client retrying on time is let through
+    private static String retryAfter(Duration wait) {
+        return String.valueOf(Math.max(1, wait.plusNanos(999_999_999).toSeconds()));
+    }
+
 }
@@ -0,0 +1,5 @@
+package com.northcoders.recordshopapi.exception;
+
+public class AlbumVersionMismatchException extends RuntimeException {
+    public AlbumVersionMismatchException(String message) {super(message);}
+}
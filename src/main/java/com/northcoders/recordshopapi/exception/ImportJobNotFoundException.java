@@ -0,0 +1,5 @@
+package com.northcoders.recordshopapi.exception;
+
+public class ImportJobNotFoundException extends RuntimeException {
+    public ImportJobNotFoundException(String message) {super(message);}
+}
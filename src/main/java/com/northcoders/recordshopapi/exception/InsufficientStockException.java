@@ -0,0 +1,5 @@
+package com.northcoders.recordshopapi.exception;
+
+public class InsufficientStockException extends RuntimeException {
+    public InsufficientStockException(String message) {super(message);}
+}
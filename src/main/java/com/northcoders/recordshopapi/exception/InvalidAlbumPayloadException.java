@@ -0,0 +1,5 @@
+package com.northcoders.recordshopapi.exception;
+
+public class InvalidAlbumPayloadException extends RuntimeException {
+    public InvalidAlbumPayloadException(String message, Throwable cause) {super(message, cause);}
+}
@@ -0,0 +1,5 @@
+package com.northcoders.recordshopapi.exception;
+
+public class InvalidAlbumQueryException extends RuntimeException {
+    public InvalidAlbumQueryException(String message) {super(message);}
+}
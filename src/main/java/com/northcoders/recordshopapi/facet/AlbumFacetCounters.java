@@ -0,0 +1,226 @@
+package com.northcoders.recordshopapi.facet;
+
+import com.northcoders.recordshopapi.model.Album;
+import com.northcoders.recordshopapi.model.AlbumChangedEvent;
+import com.northcoders.recordshopapi.model.AlbumFacet;
+import com.northcoders.recordshopapi.repository.RecordShopRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Album counts and stock by genre, year, decade and artist, served from memory so that a dashboard
+ * costs as much as the facets it shows rather than the whole catalogue. The counters are loaded
+ * from grouped totals in the database before the application starts serving, then follow
+ * {@link AlbumChangedEvent}s. They are reconciled with the database every
+ * {@code recordshop.facets.reconcile-interval}, which also picks up writes made by other instances,
+ * and straight after a write that did not say what it replaced.
+ */
+@Slf4j
+@Component
+public class AlbumFacetCounters implements SmartInitializingSingleton, DisposableBean {
+
+    @Autowired
+    RecordShopRepository repository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Value("${recordshop.facets.reconcile-interval:5m}")
+    Duration reconcileInterval;
+
+    private volatile Counters counters = new Counters();
+
+    // Changes heard while a reconciliation reads the database, replayed onto the new counters. Guarded by this
+    private List<AlbumChangedEvent> replay;
+
+    private final AtomicBoolean reconcileRequested = new AtomicBoolean();
+
+    private ThreadPoolTaskScheduler scheduler;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        reconcile();
+        scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setThreadNamePrefix("album-facets-");
+        scheduler.initialize();
+        scheduler.scheduleWithFixedDelay(this::reconcile, Instant.now().plus(reconcileInterval), reconcileInterval);
+    }
+
+    @Override
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+    }
+
+    /**
+     * Up to {@code limit} values of {@code field}, those with the most albums first.
+     */
+    public List<AlbumFacet> facets(AlbumFacet.Field field, int limit) {
+        Map<String, Totals> totals = counters.totals(field);
+        return totals.entrySet().stream()
+                .sorted(Map.Entry.<String, Totals>comparingByValue(Comparator.comparingLong(Totals::albums).reversed())
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(limit)
+                .map(entry -> new AlbumFacet(entry.getKey(), entry.getValue().albums(), entry.getValue().quantity()))
+                .toList();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAlbumChanged(AlbumChangedEvent event) {
+        boolean previousUnknown = event.getType() != AlbumChangedEvent.Type.ADDED && event.getPrevious() == null;
+        synchronized (this) {
+            if (!previousUnknown) {
+                apply(event, counters);
+            }
+            if (replay != null) {
+                replay.add(event);
+            }
+        }
+        if (previousUnknown) {
+            requestReconcile();
+        }
+    }
+
+    /**
+     * Reconciles the counters with the database, in the background, unless a reconciliation is already waiting.
+     */
+    public void requestReconcile() {
+        if (scheduler != null && reconcileRequested.compareAndSet(false, true)) {
+            scheduler.execute(this::reconcile);
+        }
+    }
+
+    /**
+     * Replaces the counters with totals read from the database, on the calling thread.
+     */
+    public void reconcile() {
+        reconcileRequested.set(false);
+        synchronized (this) {
+            replay = new ArrayList<>();
+        }
+        try {
+            long start = System.nanoTime();
+            Counters loaded = load();
+            int drifted;
+            synchronized (this) {
+                // Changes committed just before the totals were read may be applied twice until the next reconciliation
+                replay.stream()
+                        .filter(event -> event.getType() == AlbumChangedEvent.Type.ADDED || event.getPrevious() != null)
+                        .forEach(event -> apply(event, loaded));
+                drifted = counters.differences(loaded);
+                counters = loaded;
+            }
+            log.info("Reconciled album facets for {} artists in {} ms, {} values had drifted",
+                    loaded.artists.size(), (System.nanoTime() - start) / 1_000_000, drifted);
+        } catch (DataAccessException e) {
+            log.warn("Cannot reconcile the album facets, keeping the current counters", e);
+        } finally {
+            synchronized (this) {
+                replay = null;
+            }
+        }
+    }
+
+    private Counters load() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        return transaction.execute(status -> {
+            Counters loaded = new Counters();
+            repository.totalsByGenre().forEach(row -> loaded.genres.put((Album.Genre) row[0], totals(row)));
+            repository.totalsByYear().forEach(row -> loaded.years.put((Year) row[0], totals(row)));
+            try (Stream<Object[]> rows = repository.totalsByArtist()) {
+                rows.forEach(row -> loaded.artists.put((String) row[0], totals(row)));
+            }
+            return loaded;
+        });
+    }
+
+    private static Totals totals(Object[] row) {
+        return new Totals(((Number) row[1]).longValue(), ((Number) row[2]).longValue());
+    }
+
+    private static void apply(AlbumChangedEvent event, Counters counters) {
+        if (event.getPrevious() != null) {
+            counters.add(event.getPrevious(), -1);
+        }
+        if (event.getAlbum() != null) {
+            counters.add(event.getAlbum(), 1);
+        }
+    }
+
+    private static class Counters {
+
+        final Map<Album.Genre, Totals> genres = new ConcurrentHashMap<>();
+        final Map<Year, Totals> years = new ConcurrentHashMap<>();
+        final Map<String, Totals> artists = new ConcurrentHashMap<>();
+
+        void add(Album album, int sign) {
+            Totals change = new Totals(sign, (long) sign * album.getQuantity());
+            add(genres, album.getGenre(), change);
+            add(years, album.getYear(), change);
+            add(artists, album.getArtist(), change);
+        }
+
+        // Values left without albums are dropped, so the maps only ever hold values in the catalogue
+        private static <K> void add(Map<K, Totals> totals, K key, Totals change) {
+            totals.compute(key, (ignored, current) -> {
+                Totals sum = current == null ? change : current.plus(change);
+                return sum.albums() == 0 ? null : sum;
+            });
+        }
+
+        Map<String, Totals> totals(AlbumFacet.Field field) {
+            if (field == AlbumFacet.Field.ARTIST) {
+                return artists;
+            }
+            Map<String, Totals> totals = new HashMap<>();
+            switch (field) {
+                case GENRE -> genres.forEach((genre, value) -> totals.put(genre.name(), value));
+                case YEAR -> years.forEach((year, value) -> totals.put(year.toString(), value));
+                default -> years.forEach((year, value) ->
+                        totals.merge(Math.floorDiv(year.getValue(), 10) * 10 + "s", value, Totals::plus));
+            }
+            return totals;
+        }
+
+        int differences(Counters other) {
+            return differences(genres, other.genres) + differences(years, other.years) + differences(artists, other.artists);
+        }
+
+        private static <K> int differences(Map<K, Totals> ours, Map<K, Totals> theirs) {
+            int differences = (int) ours.entrySet().stream()
+                    .filter(entry -> !entry.getValue().equals(theirs.get(entry.getKey())))
+                    .count();
+            return differences + (int) theirs.keySet().stream().filter(key -> !ours.containsKey(key)).count();
+        }
+    }
+
+    private record Totals(long albums, long quantity) {
+
+        Totals plus(Totals other) {
+            return new Totals(albums + other.albums, quantity + other.quantity);
+        }
+    }
+}
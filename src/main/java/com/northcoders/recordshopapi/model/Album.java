@@ -1,41 +1,65 @@
 package com.northcoders.recordshopapi.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.fasterxml.jackson.datatype.jsr310.ser.YearSerializer;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
+import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UpdateTimestamp;
 
 import java.io.Serializable;
+import java.time.Instant;
 import java.time.Year;
 
 @Entity
+@Table(name = "album", indexes = {
+        @Index(name = "idx_album_artist", columnList = "artist"),
+        @Index(name = "idx_album_genre", columnList = "genre"),
+        @Index(name = "idx_album_year", columnList = "year"),
+        @Index(name = "idx_album_name", columnList = "name")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Builder
-public class Album implements Serializable {
+@Builder(toBuilder = true)
+public class Album implements VersionedAlbum, Serializable {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "album_seq")
+    // Hands out 50 ids per sequence call so that batched inserts do not pay a round-trip per row
+    @SequenceGenerator(name = "album_seq", sequenceName = "album_seq", allocationSize = 50)
     @Column(updatable = false, nullable = false)
     long id;
 
+    @NotNull
     @Column(nullable = false)
     String name;
 
+    @NotNull
     @Column(nullable = false)
     String artist;
 
-    @Column(nullable = false)
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
     Genre genre;
 
+    @NotNull
     @JsonSerialize(using = YearSerializer.class)
     @Column(nullable = false)
     Year year;
@@ -49,6 +73,21 @@ public class Album implements Serializable {
     @Column
     int quantity;
 
+    // Sent as the ETag header rather than in the body, and checked against If-Match on updates
+    @Version
+    @JsonIgnore
+    @Column(nullable = false)
+    long version;
+
+    @UpdateTimestamp
+    @JsonIgnore
+    @Column(nullable = false)
+    Instant lastModified;
+
+    public Album(long id, String name, String artist, Genre genre, Year year, int tracks, String description, int quantity) {
+        this(id, name, artist, genre, year, tracks, description, quantity, 0L, null);
+    }
+
     public enum Genre {
         ROCK,
         CLASSICAL,
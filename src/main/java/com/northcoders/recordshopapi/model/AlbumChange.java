@@ -0,0 +1,62 @@
+package com.northcoders.recordshopapi.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * One album write, as recorded in the outbox. {@code album} is the album as saved, already in JSON,
+ * or {@code null} when it was deleted. {@code position} is null until the change is published, then
+ * numbers it among all changes, without gaps.
+ */
+@Entity
+@Table(name = "album_change", indexes = @Index(name = "idx_album_change_position", columnList = "position", unique = true))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonPropertyOrder({"position", "type", "albumId", "changedAt", "album"})
+public class AlbumChange {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "album_change_seq")
+    @SequenceGenerator(name = "album_change_seq", sequenceName = "album_change_seq", allocationSize = 50)
+    @JsonIgnore
+    @Column(updatable = false, nullable = false)
+    long id;
+
+    @Column
+    Long position;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    AlbumChangedEvent.Type type;
+
+    @Column(nullable = false)
+    long albumId;
+
+    // Written into the stream as it is, rather than parsed and serialized again for every consumer
+    @JsonRawValue
+    @Column(length = 4000)
+    String album;
+
+    @Column(nullable = false)
+    Instant changedAt;
+
+}
@@ -0,0 +1,45 @@
+package com.northcoders.recordshopapi.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Published by the services whenever an album is written. {@code album} is the album as saved, or
+ * {@code null} when it was deleted. {@code previous} is the album before the change, or {@code null}
+ * when it was added. Listeners treat a missing {@code previous} on any other change as unknown.
+ */
+@Data
+@AllArgsConstructor
+public class AlbumChangedEvent {
+
+    Type type;
+
+    long id;
+
+    Album album;
+
+    Album previous;
+
+    public static AlbumChangedEvent added(Album album) {
+        return new AlbumChangedEvent(Type.ADDED, album.getId(), album, null);
+    }
+
+    public static AlbumChangedEvent updated(Album previous, Album album) {
+        return new AlbumChangedEvent(Type.UPDATED, album.getId(), album, previous);
+    }
+
+    public static AlbumChangedEvent deleted(long id, Album previous) {
+        return new AlbumChangedEvent(Type.DELETED, id, null, previous);
+    }
+
+    public boolean isDeleted() {
+        return type == Type.DELETED;
+    }
+
+    public enum Type {
+        ADDED,
+        UPDATED,
+        DELETED
+    }
+
+}
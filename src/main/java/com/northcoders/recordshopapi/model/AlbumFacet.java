@@ -0,0 +1,28 @@
+package com.northcoders.recordshopapi.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The number of albums sharing a genre, year, decade or artist, and the copies of them in stock.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AlbumFacet {
+
+    String value;
+
+    long albums;
+
+    long quantity;
+
+    public enum Field {
+        GENRE,
+        YEAR,
+        DECADE,
+        ARTIST
+    }
+
+}
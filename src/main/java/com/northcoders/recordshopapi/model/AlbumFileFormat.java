@@ -0,0 +1,34 @@
+package com.northcoders.recordshopapi.model;
+
+import com.northcoders.recordshopapi.exception.InvalidAlbumQueryException;
+
+import java.util.Locale;
+
+public enum AlbumFileFormat {
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv", "csv");
+
+    private final String mediaType;
+    private final String fileExtension;
+
+    AlbumFileFormat(String mediaType, String fileExtension) {
+        this.mediaType = mediaType;
+        this.fileExtension = fileExtension;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    public String getFileExtension() {
+        return fileExtension;
+    }
+
+    public static AlbumFileFormat fromParameter(String format) {
+        try {
+            return valueOf(format.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidAlbumQueryException(String.format("Unsupported file format '%s', expected ndjson or csv", format));
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.northcoders.recordshopapi.model;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progress of one bulk import. Counters are updated by the reader and the chunk writers while the
+ * job runs, so every getter returns a snapshot. At most {@code maxErrors} row errors are kept.
+ */
+@JsonPropertyOrder({"id", "format", "status", "progress", "bytesRead", "totalBytes", "rowsRead", "rowsImported",
+        "rowsFailed", "rowsPerSecond", "createdAt", "startedAt", "finishedAt", "failure", "errors"})
+public class AlbumImportJob {
+
+    public enum Status {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    private final String id;
+    private final AlbumFileFormat format;
+    private final long totalBytes;
+    private final int maxErrors;
+    private final Instant createdAt = Instant.now();
+    private final AtomicLong bytesRead = new AtomicLong();
+    private final AtomicLong rowsRead = new AtomicLong();
+    private final AtomicLong rowsImported = new AtomicLong();
+    private final AtomicLong rowsFailed = new AtomicLong();
+    private final List<BatchItemResult> errors = new ArrayList<>();
+    private volatile Status status = Status.QUEUED;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String failure;
+
+    public AlbumImportJob(String id, AlbumFileFormat format, long totalBytes, int maxErrors) {
+        this.id = id;
+        this.format = format;
+        this.totalBytes = totalBytes;
+        this.maxErrors = maxErrors;
+    }
+
+    public void start() {
+        startedAt = Instant.now();
+        status = Status.RUNNING;
+    }
+
+    public void complete() {
+        finishedAt = Instant.now();
+        status = Status.COMPLETED;
+    }
+
+    public void fail(String message) {
+        failure = message;
+        finishedAt = Instant.now();
+        status = Status.FAILED;
+    }
+
+    public void setBytesRead(long bytes) {
+        bytesRead.set(bytes);
+    }
+
+    public void rowRead() {
+        rowsRead.incrementAndGet();
+    }
+
+    public void recordResult(BatchItemResult result) {
+        if (result.isSuccessful()) {
+            rowsImported.incrementAndGet();
+            return;
+        }
+        rowsFailed.incrementAndGet();
+        synchronized (errors) {
+            if (errors.size() < maxErrors) {
+                errors.add(result);
+            }
+        }
+    }
+
+    public boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.FAILED;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public AlbumFileFormat getFormat() {
+        return format;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public double getProgress() {
+        if (status == Status.COMPLETED || totalBytes == 0) {
+            return status == Status.COMPLETED ? 1.0 : 0.0;
+        }
+        return Math.min(1.0, (double) bytesRead.get() / totalBytes);
+    }
+
+    public long getBytesRead() {
+        return bytesRead.get();
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public long getRowsRead() {
+        return rowsRead.get();
+    }
+
+    public long getRowsImported() {
+        return rowsImported.get();
+    }
+
+    public long getRowsFailed() {
+        return rowsFailed.get();
+    }
+
+    public double getRowsPerSecond() {
+        if (startedAt == null) {
+            return 0.0;
+        }
+        Instant end = finishedAt == null ? Instant.now() : finishedAt;
+        long millis = Math.max(1, Duration.between(startedAt, end).toMillis());
+        return (rowsImported.get() + rowsFailed.get()) * 1000.0 / millis;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public String getFailure() {
+        return failure;
+    }
+
+    public List<BatchItemResult> getErrors() {
+        synchronized (errors) {
+            return List.copyOf(errors);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.northcoders.recordshopapi.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One keyset page of the album catalogue. {@code nextCursor} is {@code null} on the last page.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AlbumPage {
+
+    List<Album> albums;
+
+    String nextCursor;
+
+}
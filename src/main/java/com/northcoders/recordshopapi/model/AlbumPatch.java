@@ -0,0 +1,94 @@
+package com.northcoders.recordshopapi.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.time.Year;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The album fields a write sets, read as a JSON merge patch: a field left out keeps its value and a
+ * field sent as {@code null} is cleared. Only the description may be cleared. A full update is the
+ * patch of every field, see {@link #of(Album)}.
+ */
+public class AlbumPatch {
+
+    private static final Set<String> NULLABLE = Set.of("description");
+
+    // Field name, which is also the column name, to the value it is set to
+    private final Map<String, Object> values = new LinkedHashMap<>();
+
+    public static AlbumPatch of(Album album) {
+        AlbumPatch patch = new AlbumPatch();
+        patch.setName(album.getName());
+        patch.setArtist(album.getArtist());
+        patch.setGenre(album.getGenre());
+        patch.setYear(album.getYear());
+        patch.setTracks(album.getTracks());
+        patch.setDescription(album.getDescription());
+        patch.setQuantity(album.getQuantity());
+        return patch;
+    }
+
+    public void setName(String name) {
+        values.put("name", name);
+    }
+
+    public void setArtist(String artist) {
+        values.put("artist", artist);
+    }
+
+    public void setGenre(Album.Genre genre) {
+        values.put("genre", genre);
+    }
+
+    public void setYear(Year year) {
+        values.put("year", year);
+    }
+
+    public void setTracks(Integer tracks) {
+        values.put("tracks", tracks);
+    }
+
+    public void setDescription(String description) {
+        values.put("description", description);
+    }
+
+    public void setQuantity(Integer quantity) {
+        values.put("quantity", quantity);
+    }
+
+    /**
+     * The fields set, in the order they were set.
+     */
+    @JsonIgnore
+    public Map<String, Object> getValues() {
+        return Collections.unmodifiableMap(values);
+    }
+
+    public static boolean isNullable(String field) {
+        return NULLABLE.contains(field);
+    }
+
+    /**
+     * A copy of {@code album} with the fields of this patch set.
+     */
+    public Album applyTo(Album album) {
+        Album.AlbumBuilder patched = album.toBuilder();
+        values.forEach((field, value) -> {
+            switch (field) {
+                case "name" -> patched.name((String) value);
+                case "artist" -> patched.artist((String) value);
+                case "genre" -> patched.genre((Album.Genre) value);
+                case "year" -> patched.year((Year) value);
+                case "tracks" -> patched.tracks((Integer) value);
+                case "description" -> patched.description((String) value);
+                case "quantity" -> patched.quantity((Integer) value);
+                default -> throw new IllegalStateException("Unknown album field " + field);
+            }
+        });
+        return patched.build();
+    }
+}
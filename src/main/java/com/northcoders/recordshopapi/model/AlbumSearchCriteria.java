@@ -0,0 +1,32 @@
+package com.northcoders.recordshopapi.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Year;
+
+/**
+ * Filters for the combined album search. Every filter left {@code null} (or {@code false} for
+ * {@code inStock}) matches all albums.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AlbumSearchCriteria {
+
+    String artist;
+
+    Album.Genre genre;
+
+    Year yearFrom;
+
+    Year yearTo;
+
+    boolean inStock;
+
+    String namePrefix;
+
+}
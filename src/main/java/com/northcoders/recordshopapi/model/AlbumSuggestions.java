@@ -0,0 +1,22 @@
+package com.northcoders.recordshopapi.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Artists and album names starting with what the user has typed so far, those with the most albums
+ * first.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AlbumSuggestions {
+
+    List<String> artists;
+
+    List<String> names;
+
+}
@@ -0,0 +1,28 @@
+package com.northcoders.recordshopapi.model;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.datatype.jsr310.ser.YearSerializer;
+
+import java.time.Year;
+
+/**
+ * List view of an album. Repository queries returning this projection only select these
+ * columns, leaving out the description. {@link Album} must not implement it, as Spring Data only
+ * projects to a type the entity is not already an instance of.
+ */
+public interface AlbumSummary extends VersionedAlbum {
+
+    String getName();
+
+    String getArtist();
+
+    Album.Genre getGenre();
+
+    @JsonSerialize(using = YearSerializer.class)
+    Year getYear();
+
+    int getTracks();
+
+    int getQuantity();
+
+}
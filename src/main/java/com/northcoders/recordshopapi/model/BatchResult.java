@@ -0,0 +1,25 @@
+package com.northcoders.recordshopapi.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchResult {
+
+    int succeeded;
+
+    int failed;
+
+    List<BatchItemResult> items;
+
+    public static BatchResult of(List<BatchItemResult> items) {
+        int succeeded = (int) items.stream().filter(BatchItemResult::isSuccessful).count();
+        return new BatchResult(succeeded, items.size() - succeeded, items);
+    }
+
+}
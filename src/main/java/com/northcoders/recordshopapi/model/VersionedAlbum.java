@@ -0,0 +1,21 @@
+package com.northcoders.recordshopapi.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.time.Instant;
+
+/**
+ * What an album response is tagged with, shared by full albums and summaries. The version and last
+ * change are sent as the ETag and Last-Modified headers rather than in the body.
+ */
+public interface VersionedAlbum {
+
+    long getId();
+
+    @JsonIgnore
+    long getVersion();
+
+    @JsonIgnore
+    Instant getLastModified();
+
+}
@@ -0,0 +1,57 @@
+package com.northcoders.recordshopapi.monitoring;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Records how many SQL statements each request issued in the {@code recordshop.http.sql.statements}
+ * summary, tagged with the same {@code method} and {@code uri} as {@code http.server.requests}.
+ * Statements are counted on the request threads only. An async request is counted across its first
+ * dispatch and the dispatch that completes it, but a body streamed from another thread, such as a
+ * {@code StreamingResponseBody} or an SSE emitter, is not counted.
+ */
+public class SqlStatementMetricsInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String STATEMENTS_BEFORE_ASYNC = SqlStatementMetricsInterceptor.class.getName() + ".statements";
+
+    private final SqlStatementCounter counter;
+
+    private final MeterRegistry meterRegistry;
+
+    public SqlStatementMetricsInterceptor(SqlStatementCounter counter, MeterRegistry meterRegistry) {
+        this.counter = counter;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        counter.start();
+        return true;
+    }
+
+    // The thread goes back to the pool, so stop counting on it and carry the count to the async dispatch
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        request.setAttribute(STATEMENTS_BEFORE_ASYNC, counter.stop());
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        int statements = counter.stop();
+        if (request.getAttribute(STATEMENTS_BEFORE_ASYNC) instanceof Integer before) {
+            statements += before;
+        }
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        DistributionSummary.builder("recordshop.http.sql.statements")
+                .description("SQL statements issued while handling a request")
+                .baseUnit("statements")
+                .tag("method", request.getMethod())
+                .tag("uri", pattern == null ? "UNKNOWN" : pattern.toString())
+                .register(meterRegistry)
+                .record(statements);
+    }
+}
@@ -0,0 +1,50 @@
+package com.northcoders.recordshopapi.ratelimit;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caps the requests handled at once, so that a spike is turned away straight away rather than
+ * queueing for database connections until they time out. A request that finds every slot taken
+ * waits up to {@code maxWait} for one to free up.
+ */
+public class AdmissionController {
+
+    private final Semaphore slots;
+
+    private final int maxConcurrent;
+
+    private final Duration maxWait;
+
+    public AdmissionController(int maxConcurrent, Duration maxWait) {
+        this.slots = new Semaphore(maxConcurrent);
+        this.maxConcurrent = maxConcurrent;
+        this.maxWait = maxWait;
+    }
+
+    /**
+     * Takes a slot, returning false if none freed up in time. Every slot taken must be given back
+     * with {@link #release()}.
+     */
+    public boolean tryAdmit() {
+        try {
+            return slots.tryAcquire(maxWait.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    public void release() {
+        slots.release();
+    }
+
+    public int getInFlight() {
+        return maxConcurrent - slots.availablePermits();
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+}
@@ -0,0 +1,62 @@
+package com.northcoders.recordshopapi.ratelimit;
+
+import com.northcoders.recordshopapi.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.time.Duration;
+
+/**
+ * Holds a slot of the {@link AdmissionController} while a request is handled, and refuses the request
+ * with a {@link ServiceOverloadedException} when none is free. A streamed response gives its slot
+ * back once the handler returns, as it no longer holds a thread or a database connection.
+ */
+public class AdmissionInterceptor implements AsyncHandlerInterceptor {
+
+    static final String ADMITTED = AdmissionInterceptor.class.getName() + ".admitted";
+    static final Duration RETRY_AFTER = Duration.ofSeconds(1);
+
+    private final AdmissionController admissionController;
+
+    private final MeterRegistry meterRegistry;
+
+    public AdmissionInterceptor(AdmissionController admissionController, MeterRegistry meterRegistry) {
+        this.admissionController = admissionController;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getDispatcherType() == DispatcherType.ASYNC) {
+            return true;
+        }
+        if (!admissionController.tryAdmit()) {
+            meterRegistry.counter("recordshop.http.requests.rejected", "reason", "overload").increment();
+            throw new ServiceOverloadedException(String.format(
+                    "The server is handling %d requests already, retry shortly", admissionController.getMaxConcurrent()),
+                    RETRY_AFTER);
+        }
+        request.setAttribute(ADMITTED, true);
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        release(request);
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        release(request);
+    }
+
+    private void release(HttpServletRequest request) {
+        if (request.getAttribute(ADMITTED) != null) {
+            request.removeAttribute(ADMITTED);
+            admissionController.release();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.northcoders.recordshopapi.ratelimit;
+
+import com.northcoders.recordshopapi.exception.RateLimitExceededException;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.util.StringUtils;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.time.Duration;
+
+/**
+ * Charges each request its {@link RequestCost} against the bucket of the client that sent it, and
+ * refuses it with a {@link RateLimitExceededException} when the bucket runs dry. Clients are told
+ * apart by the {@code recordshop.rate-limit.client-header} when one is set and sent, and otherwise
+ * by their address.
+ */
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    private final TokenBucketRateLimiter limiter;
+
+    private final String clientHeader;
+
+    private final MeterRegistry meterRegistry;
+
+    public RateLimitInterceptor(TokenBucketRateLimiter limiter, String clientHeader, MeterRegistry meterRegistry) {
+        this.limiter = limiter;
+        this.clientHeader = clientHeader;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // A streamed response dispatches again once it is done, which the request already paid for
+        if (request.getDispatcherType() == DispatcherType.ASYNC) {
+            return true;
+        }
+        Duration wait = limiter.tryAcquire(client(request), cost(handler));
+        if (!wait.isZero()) {
+            meterRegistry.counter("recordshop.http.requests.rejected", "reason", "rate-limit").increment();
+            throw new RateLimitExceededException(String.format(
+                    "Too many requests from this client, retry in %d ms", wait.toMillis()), wait);
+        }
+        return true;
+    }
+
+    private String client(HttpServletRequest request) {
+        if (StringUtils.hasText(clientHeader)) {
+            String key = request.getHeader(clientHeader);
+            if (StringUtils.hasText(key)) {
+                return "key:" + key;
+            }
+        }
+        return "address:" + request.getRemoteAddr();
+    }
+
+    static int cost(Object handler) {
+        if (handler instanceof HandlerMethod method) {
+            RequestCost cost = method.getMethodAnnotation(RequestCost.class);
+            if (cost != null) {
+                return cost.value();
+            }
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,75 @@
+package com.northcoders.recordshopapi.ratelimit;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+
+/**
+ * Per-client rate limits and a cap on the requests handled at once for the album API, switched off
+ * with {@code recordshop.rate-limit.enabled=false} and {@code recordshop.admission.enabled=false}.
+ * A request is charged to its client first, so a client over its limit does not take a slot.
+ */
+@Configuration
+public class RequestAdmissionConfig {
+
+    @Value("${recordshop.rate-limit.rate:50}")
+    double rate;
+
+    @Value("${recordshop.rate-limit.burst:200}")
+    int burst;
+
+    @Value("${recordshop.rate-limit.client-header:}")
+    String clientHeader;
+
+    @Value("${recordshop.admission.max-concurrent:64}")
+    int maxConcurrent;
+
+    @Value("${recordshop.admission.max-wait:100ms}")
+    Duration maxWait;
+
+    @Bean
+    @ConditionalOnProperty(name = "recordshop.rate-limit.enabled", matchIfMissing = true)
+    public TokenBucketRateLimiter rateLimiter() {
+        return new TokenBucketRateLimiter(rate, burst);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "recordshop.admission.enabled", matchIfMissing = true)
+    public AdmissionController admissionController() {
+        return new AdmissionController(maxConcurrent, maxWait);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "recordshop.admission.enabled", matchIfMissing = true)
+    public MeterBinder admissionMetrics(AdmissionController admissionController) {
+        return registry -> Gauge.builder("recordshop.http.requests.in.flight", admissionController, AdmissionController::getInFlight)
+                .description("Album API requests being handled")
+                .register(registry);
+    }
+
+    @Bean
+    public WebMvcConfigurer requestAdmission(ObjectProvider<TokenBucketRateLimiter> rateLimiter,
+                                             ObjectProvider<AdmissionController> admissionController,
+                                             MeterRegistry meterRegistry) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                rateLimiter.ifAvailable(limiter -> registry
+                        .addInterceptor(new RateLimitInterceptor(limiter, clientHeader, meterRegistry))
+                        .addPathPatterns("/api/**"));
+                admissionController.ifAvailable(controller -> registry
+                        .addInterceptor(new AdmissionInterceptor(controller, meterRegistry))
+                        .addPathPatterns("/api/**"));
+            }
+        };
+    }
+}
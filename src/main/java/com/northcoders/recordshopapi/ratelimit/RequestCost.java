@@ -0,0 +1,16 @@
+package com.northcoders.recordshopapi.ratelimit;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * How many tokens a request to the annotated handler takes from its client's bucket, in proportion
+ * to the work it makes the database do. Handlers without it cost one.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RequestCost {
+    int value();
+}
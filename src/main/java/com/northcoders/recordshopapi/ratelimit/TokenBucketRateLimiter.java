@@ -0,0 +1,108 @@
+package com.northcoders.recordshopapi.ratelimit;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * A token bucket per client, holding up to {@code burst} tokens and refilled at {@code rate} tokens a
+ * second. Each bucket is a single {@link AtomicLong}: the time at which it will be full again, which
+ * a request moves forward by its cost with one compare-and-set. Clients never wait on a lock, and
+ * clients in different map bins never touch the same memory.
+ * <p>
+ * Full buckets carry no information, so {@link #evictFull()} drops them every minute; a client that
+ * comes back starts from a full bucket, as it would have anyway.
+ */
+public class TokenBucketRateLimiter implements SmartInitializingSingleton, DisposableBean {
+
+    private static final Duration EVICT_INTERVAL = Duration.ofMinutes(1);
+
+    private final ConcurrentMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    private final long nanosPerToken;
+
+    private final long capacityNanos;
+
+    private final int burst;
+
+    private final LongSupplier clock;
+
+    private ThreadPoolTaskScheduler scheduler;
+
+    public TokenBucketRateLimiter(double rate, int burst) {
+        this(rate, burst, System::nanoTime);
+    }
+
+    TokenBucketRateLimiter(double rate, int burst, LongSupplier clock) {
+        if (rate <= 0 || burst < 1) {
+            throw new IllegalArgumentException(String.format(
+                    "Rate and burst must be positive but were %s and %d", rate, burst));
+        }
+        this.nanosPerToken = Math.max(1, Math.round(1_000_000_000 / rate));
+        this.capacityNanos = burst * nanosPerToken;
+        this.burst = burst;
+        this.clock = clock;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setThreadNamePrefix("rate-limit-");
+        scheduler.initialize();
+        scheduler.scheduleWithFixedDelay(this::evictFull, Instant.now().plus(EVICT_INTERVAL), EVICT_INTERVAL);
+    }
+
+    @Override
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+    }
+
+    /**
+     * Takes {@code cost} tokens from the bucket of {@code client}, or none if it holds fewer. Returns
+     * zero when they were taken, or else how long until they will be. A cost above the burst takes the
+     * whole bucket.
+     */
+    public Duration tryAcquire(String client, int cost) {
+        long now = clock.getAsLong();
+        AtomicLong fullAt = buckets.get(client);
+        if (fullAt == null) {
+            // A new client's bucket is full as of now, so it starts with the whole burst
+            fullAt = buckets.computeIfAbsent(client, key -> new AtomicLong(now));
+        }
+        long charge = Math.min(cost, burst) * nanosPerToken;
+        while (true) {
+            long current = fullAt.get();
+            long next = (current - now > 0 ? current : now) + charge;
+            long over = next - now - capacityNanos;
+            if (over > 0) {
+                return Duration.ofNanos(over);
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return Duration.ZERO;
+            }
+        }
+    }
+
+    /**
+     * Drops the buckets that have refilled completely, on the calling thread.
+     */
+    public int evictFull() {
+        long now = clock.getAsLong();
+        int before = buckets.size();
+        buckets.values().removeIf(fullAt -> fullAt.get() - now <= 0);
+        return before - buckets.size();
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+}
@@ -0,0 +1,49 @@
+package com.northcoders.recordshopapi.repository;
+
+import com.northcoders.recordshopapi.model.AlbumChange;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface AlbumChangeRepository extends JpaRepository<AlbumChange, Long> {
+
+    List<AlbumChange> findByPositionGreaterThanOrderByPositionAsc(long position, Limit limit);
+
+    /**
+     * The oldest changes not yet published, locked until the transaction ends so that a publisher on
+     * another instance waits for them rather than numbering them too.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<AlbumChange> findByPositionIsNullOrderByIdAsc(Limit limit);
+
+    /**
+     * The position of the latest published change, or 0 before the first.
+     */
+    @Query("SELECT COALESCE(MAX(C.position), 0) FROM AlbumChange C")
+    long findLastPosition();
+
+    /**
+     * The position of the oldest change still kept, or null before the first.
+     */
+    @Query("SELECT MIN(C.position) FROM AlbumChange C")
+    Long findFirstPosition();
+
+    /**
+     * Deletes published changes made before {@code cutoff}, always keeping the latest so that
+     * positions carry on from it.
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM AlbumChange C where C.changedAt < ?1 and C.position < " +
+            "(SELECT MAX(L.position) FROM AlbumChange L)")
+    int deletePublishedBefore(Instant cutoff);
+}
@@ -0,0 +1,75 @@
+package com.northcoders.recordshopapi.repository;
+
+import com.northcoders.recordshopapi.model.Album;
+import com.northcoders.recordshopapi.model.AlbumSearchCriteria;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.Year;
+import java.util.Locale;
+
+/**
+ * Composable query predicates for albums. {@link #matching(AlbumSearchCriteria)} combines the
+ * ones a search asks for into a single query.
+ */
+public final class AlbumSpecifications {
+
+    private static final char LIKE_ESCAPE = '\\';
+
+    private AlbumSpecifications() {
+    }
+
+    public static Specification<Album> matching(AlbumSearchCriteria criteria) {
+        Specification<Album> specification = Specification.where(null);
+        if (criteria.getArtist() != null) {
+            specification = specification.and(hasArtist(criteria.getArtist()));
+        }
+        if (criteria.getGenre() != null) {
+            specification = specification.and(hasGenre(criteria.getGenre()));
+        }
+        if (criteria.getYearFrom() != null) {
+            specification = specification.and(releasedFrom(criteria.getYearFrom()));
+        }
+        if (criteria.getYearTo() != null) {
+            specification = specification.and(releasedUntil(criteria.getYearTo()));
+        }
+        if (criteria.isInStock()) {
+            specification = specification.and(inStock());
+        }
+        if (criteria.getNamePrefix() != null && !criteria.getNamePrefix().isEmpty()) {
+            specification = specification.and(nameStartsWith(criteria.getNamePrefix()));
+        }
+        return specification;
+    }
+
+    public static Specification<Album> hasArtist(String artist) {
+        return (root, query, builder) -> builder.equal(root.get("artist"), artist);
+    }
+
+    public static Specification<Album> hasGenre(Album.Genre genre) {
+        return (root, query, builder) -> builder.equal(root.get("genre"), genre);
+    }
+
+    public static Specification<Album> releasedFrom(Year year) {
+        return (root, query, builder) -> builder.greaterThanOrEqualTo(root.get("year"), year);
+    }
+
+    public static Specification<Album> releasedUntil(Year year) {
+        return (root, query, builder) -> builder.lessThanOrEqualTo(root.get("year"), year);
+    }
+
+    public static Specification<Album> inStock() {
+        return (root, query, builder) -> builder.greaterThan(root.get("quantity"), 0);
+    }
+
+    /**
+     * Case-insensitive match on the start of the album name.
+     */
+    public static Specification<Album> nameStartsWith(String prefix) {
+        String pattern = escapeLike(prefix.toLowerCase(Locale.ROOT)) + "%";
+        return (root, query, builder) -> builder.like(builder.lower(root.get("name")), pattern, LIKE_ESCAPE);
+    }
+
+    static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
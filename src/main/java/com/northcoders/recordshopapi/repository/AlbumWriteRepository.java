@@ -0,0 +1,35 @@
+package com.northcoders.recordshopapi.repository;
+
+import com.northcoders.recordshopapi.model.Album;
+import com.northcoders.recordshopapi.model.AlbumPatch;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Album writes that take a single statement and hand back the row as it was before, so that callers
+ * need not read the album first to find out whether it exists or what it held. Part of
+ * {@link RecordShopRepository}. All flush the persistence context before and clear it after, like
+ * {@link RecordShopRepository#adjustQuantity(long, int)}.
+ */
+public interface AlbumWriteRepository {
+
+    /**
+     * Sets the fields of {@code patch}, increments the version and stamps {@code lastModified}, only
+     * while the version is one of {@code expectedVersions}, or whatever the version when that is null.
+     * Returns the album as it was before, or empty when it is missing or at another version.
+     */
+    Optional<Album> updateReturningPrevious(long id, AlbumPatch patch, Instant lastModified, Collection<Long> expectedVersions);
+
+    /**
+     * Deletes the album, returning it as it was, or empty when it is missing.
+     */
+    Optional<Album> deleteReturningPrevious(long id);
+
+    /**
+     * Deletes the albums among {@code ids}, returning them as they were. Ids of missing albums are skipped.
+     */
+    List<Album> deleteAllReturningPrevious(Collection<Long> ids);
+}
@@ -0,0 +1,135 @@
+package com.northcoders.recordshopapi.repository;
+
+import com.northcoders.recordshopapi.model.Album;
+import com.northcoders.recordshopapi.model.AlbumPatch;
+import com.northcoders.recordshopapi.repository.AlbumWriteStatements.Dialect;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.Year;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Runs {@link AlbumWriteStatements} as native queries through Hibernate, so that they are counted like
+ * every other statement. On a database other than H2 or PostgreSQL each write takes two statements, a
+ * locking read and the write.
+ */
+public class AlbumWriteRepositoryImpl implements AlbumWriteRepository {
+
+    @PersistenceContext
+    EntityManager entityManager;
+
+    volatile Dialect dialect;
+
+    @Override
+    public Optional<Album> updateReturningPrevious(long id, AlbumPatch patch, Instant lastModified, Collection<Long> expectedVersions) {
+        boolean conditional = expectedVersions != null;
+        Optional<Album> previous = Optional.empty();
+        if (!dialect().returnsPrevious()) {
+            previous = execute(versions(entityManager.createNativeQuery(AlbumWriteStatements.lock(false, conditional))
+                    .setParameter("id", id), expectedVersions));
+            if (previous.isEmpty()) {
+                return previous;
+            }
+        }
+        Query query = versions(entityManager.createNativeQuery(AlbumWriteStatements.update(dialect(), patch, conditional))
+                .setParameter("id", id)
+                .setParameter("lastModified", lastModified), expectedVersions);
+        patch.getValues().forEach((field, value) -> {
+            if (value != null) {
+                query.setParameter(field, AlbumWriteStatements.column(value));
+            }
+        });
+        if (previous.isPresent()) {
+            query.executeUpdate();
+            return previous;
+        }
+        return execute(query);
+    }
+
+    @Override
+    public Optional<Album> deleteReturningPrevious(long id) {
+        Query query = entityManager.createNativeQuery(AlbumWriteStatements.delete(dialect())).setParameter("id", id);
+        if (dialect().returnsPrevious()) {
+            return execute(query);
+        }
+        Optional<Album> previous = execute(entityManager.createNativeQuery(AlbumWriteStatements.lock(false, false))
+                .setParameter("id", id));
+        previous.ifPresent(album -> query.executeUpdate());
+        return previous;
+    }
+
+    @Override
+    public List<Album> deleteAllReturningPrevious(Collection<Long> ids) {
+        Query query = entityManager.createNativeQuery(AlbumWriteStatements.deleteAll(dialect())).setParameter("ids", ids);
+        if (dialect().returnsPrevious()) {
+            return executeAll(query);
+        }
+        List<Album> previous = executeAll(entityManager.createNativeQuery(AlbumWriteStatements.lock(true, false))
+                .setParameter("ids", ids));
+        if (!previous.isEmpty()) {
+            query.executeUpdate();
+        }
+        return previous;
+    }
+
+    private Optional<Album> execute(Query query) {
+        return executeAll(query).stream().findFirst();
+    }
+
+    private List<Album> executeAll(Query query) {
+        entityManager.flush();
+        List<?> rows = query.getResultList();
+        // Any copy of the albums in the persistence context is now stale
+        entityManager.clear();
+        return rows.stream().map(row -> toAlbum((Object[]) row)).toList();
+    }
+
+    private static Query versions(Query query, Collection<Long> expectedVersions) {
+        return expectedVersions == null ? query : query.setParameter("versions", expectedVersions);
+    }
+
+    private Dialect dialect() {
+        if (dialect == null) {
+            org.hibernate.dialect.Dialect hibernateDialect = entityManager.getEntityManagerFactory()
+                    .unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+            dialect = hibernateDialect instanceof H2Dialect ? Dialect.H2
+                    : hibernateDialect instanceof PostgreSQLDialect ? Dialect.POSTGRESQL
+                    : Dialect.OTHER;
+        }
+        return dialect;
+    }
+
+    private static Album toAlbum(Object[] row) {
+        return new Album(
+                ((Number) row[0]).longValue(),
+                (String) row[1],
+                (String) row[2],
+                Album.Genre.valueOf((String) row[3]),
+                Year.of(((Number) row[4]).intValue()),
+                row[5] == null ? 0 : ((Number) row[5]).intValue(),
+                (String) row[6],
+                row[7] == null ? 0 : ((Number) row[7]).intValue(),
+                ((Number) row[8]).longValue(),
+                instant(row[9]));
+    }
+
+    // The driver decides how a timestamp with time zone comes back
+    private static Instant instant(Object value) {
+        return switch (value) {
+            case Instant instant -> instant;
+            case OffsetDateTime offsetDateTime -> offsetDateTime.toInstant();
+            case Timestamp timestamp -> timestamp.toInstant();
+            default -> throw new IllegalStateException("Unexpected timestamp type " + value.getClass());
+        };
+    }
+}
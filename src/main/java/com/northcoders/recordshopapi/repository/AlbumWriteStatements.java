@@ -0,0 +1,106 @@
+package com.northcoders.recordshopapi.repository;
+
+import com.northcoders.recordshopapi.model.Album;
+import com.northcoders.recordshopapi.model.AlbumPatch;
+
+import java.time.Year;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * The single-statement writes of {@link AlbumWriteRepository}, shared by the blocking and the
+ * non-blocking repository. H2 hands back the rows a write changed, as they were, through
+ * {@code OLD TABLE}; PostgreSQL through {@code RETURNING}, which for an update needs the row locked and
+ * joined in as it was. Any other database reads the rows with {@link #lock(boolean, boolean)} first and
+ * then writes them with the plain statement. Parameters are named, as both JPA and R2DBC take them:
+ * {@code :id}, {@code :lastModified}, {@code :versions} when conditional, and one per non-null field of
+ * the patch.
+ */
+final class AlbumWriteStatements {
+
+    /**
+     * The databases with a syntax for handing back the rows a write changed, and the rest.
+     */
+    enum Dialect {
+        H2,
+        POSTGRESQL,
+        OTHER;
+
+        boolean returnsPrevious() {
+            return this != OTHER;
+        }
+    }
+
+    static final List<String> COLUMNS = List.of(
+            "id", "name", "artist", "genre", "year", "tracks", "description", "quantity", "version", "last_modified");
+    private static final String SELECTED = columns("");
+    private static final String RETURNED = columns("\"old\".");
+
+    private AlbumWriteStatements() {
+    }
+
+    static String update(Dialect dialect, AlbumPatch patch, boolean conditional) {
+        StringBuilder set = new StringBuilder();
+        patch.getValues().forEach((field, value) -> set.append('"').append(field).append("\" = ")
+                .append(value == null ? "NULL" : ":" + field).append(", "));
+        String where = where(conditional);
+        return switch (dialect) {
+            case H2 -> "SELECT " + SELECTED + " FROM OLD TABLE (UPDATE \"album\" SET " + set +
+                    "\"version\" = \"version\" + 1, \"last_modified\" = :lastModified WHERE " + where + ")";
+            case POSTGRESQL -> "UPDATE \"album\" SET " + set + "\"version\" = \"old\".\"version\" + 1, \"last_modified\" = :lastModified " +
+                    "FROM (SELECT " + SELECTED + " FROM \"album\" WHERE " + where + " FOR UPDATE) AS \"old\" " +
+                    "WHERE \"album\".\"id\" = \"old\".\"id\" RETURNING " + RETURNED;
+            case OTHER -> "UPDATE \"album\" SET " + set +
+                    "\"version\" = \"version\" + 1, \"last_modified\" = :lastModified WHERE " + where;
+        };
+    }
+
+    static String delete(Dialect dialect) {
+        return switch (dialect) {
+            case H2 -> "SELECT " + SELECTED + " FROM OLD TABLE (DELETE FROM \"album\" WHERE \"id\" = :id)";
+            case POSTGRESQL -> "DELETE FROM \"album\" WHERE \"id\" = :id RETURNING " + SELECTED;
+            case OTHER -> "DELETE FROM \"album\" WHERE \"id\" = :id";
+        };
+    }
+
+    /**
+     * Deletes every album in {@code :ids}, handing back each as it was.
+     */
+    static String deleteAll(Dialect dialect) {
+        return switch (dialect) {
+            case H2 -> "SELECT " + SELECTED + " FROM OLD TABLE (DELETE FROM \"album\" WHERE \"id\" IN (:ids))";
+            case POSTGRESQL -> "DELETE FROM \"album\" WHERE \"id\" IN (:ids) RETURNING " + SELECTED;
+            case OTHER -> "DELETE FROM \"album\" WHERE \"id\" IN (:ids)";
+        };
+    }
+
+    /**
+     * Reads and locks the album {@code :id}, or every album in {@code :ids}, ahead of a plain write on
+     * a database where the write cannot hand the rows back itself.
+     */
+    static String lock(boolean all, boolean conditional) {
+        return "SELECT " + SELECTED + " FROM \"album\" WHERE " +
+                (all ? "\"id\" IN (:ids)" : where(conditional)) + " FOR UPDATE";
+    }
+
+    /**
+     * The value of a patched field as its column holds it.
+     */
+    static Object column(Object value) {
+        if (value instanceof Album.Genre genre) {
+            return genre.name();
+        }
+        if (value instanceof Year year) {
+            return year.getValue();
+        }
+        return value;
+    }
+
+    private static String where(boolean conditional) {
+        return "\"id\" = :id" + (conditional ? " AND \"version\" IN (:versions)" : "");
+    }
+
+    private static String columns(String qualifier) {
+        return COLUMNS.stream().map(column -> qualifier + "\"" + column + "\"").collect(Collectors.joining(", "));
+    }
+}
@@ -0,0 +1,61 @@
+package com.northcoders.recordshopapi.repository;
+
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Ids from a sequence with {@code INCREMENT BY size}, allocated as Hibernate's pooled optimizer does:
+ * each value read from the sequence reserves itself and the {@code size - 1} values below it, so only
+ * one id in {@code size} costs a round trip and none collides with those Hibernate hands out from the
+ * same sequence. When two callers find the block used up at once, both read the sequence and the
+ * rest of one block is left unused.
+ */
+final class PooledSequence {
+
+    private final int size;
+
+    private final Supplier<Mono<Long>> nextValue;
+
+    private final AtomicReference<Block> block = new AtomicReference<>(new Block(1, 0));
+
+    PooledSequence(int size, Supplier<Mono<Long>> nextValue) {
+        this.size = size;
+        this.nextValue = nextValue;
+    }
+
+    Mono<Long> next() {
+        return Mono.defer(() -> {
+            long id = block.get().take();
+            if (id > 0) {
+                return Mono.just(id);
+            }
+            return nextValue.get().map(hi -> {
+                // The sequence starts at 1, which reserves only itself
+                Block fresh = new Block(Math.max(1, hi - size + 1), hi);
+                block.set(fresh);
+                return fresh.take();
+            });
+        });
+    }
+
+    private static final class Block {
+
+        private final AtomicLong next;
+
+        private final long hi;
+
+        Block(long lo, long hi) {
+            this.next = new AtomicLong(lo);
+            this.hi = hi;
+        }
+
+        // The next id of the block, or 0 when it is used up
+        long take() {
+            long id = next.getAndIncrement();
+            return id <= hi ? id : 0;
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package com.northcoders.recordshopapi.repository;
+
+import com.northcoders.recordshopapi.model.Album;
+import com.northcoders.recordshopapi.model.AlbumChange;
+import com.northcoders.recordshopapi.model.AlbumPatch;
+import com.northcoders.recordshopapi.model.AlbumSearchCriteria;
+import com.northcoders.recordshopapi.repository.AlbumWriteStatements.Dialect;
+import io.r2dbc.spi.Readable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Sort;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.Year;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Non-blocking access to the album table over R2DBC, with the same queries as
+ * {@link RecordShopRepository}. Writes share the Hibernate id sequences and allocate from them in
+ * blocks, as Hibernate does.
+ */
+@Repository
+@Profile("reactive")
+public class ReactiveAlbumRepository {
+
+    private static final String COLUMNS =
+            "\"id\", \"name\", \"artist\", \"genre\", \"year\", \"tracks\", \"description\", \"quantity\"";
+    private static final String SELECT =
+            "SELECT " + COLUMNS + ", \"version\", \"last_modified\" FROM \"album\"";
+    // Writes keep the columns Hibernate maintains through @Version and @UpdateTimestamp in step
+    private static final String TOUCH = "\"version\" = \"version\" + 1, \"last_modified\" = CURRENT_TIMESTAMP";
+
+    // The allocationSize of the entities and the INCREMENT BY of the sequences
+    private static final int ALLOCATION_SIZE = 50;
+
+    @Autowired
+    DatabaseClient databaseClient;
+
+    volatile Dialect dialect;
+
+    private final PooledSequence albumIds = new PooledSequence(ALLOCATION_SIZE, () -> nextValue("album_seq"));
+
+    private final PooledSequence changeIds = new PooledSequence(ALLOCATION_SIZE, () -> nextValue("album_change_seq"));
+
+    public Flux<Album> findAll() {
+        return databaseClient.sql(SELECT + " ORDER BY \"id\"").map(ReactiveAlbumRepository::toAlbum).all();
+    }
+
+    public Flux<Album> findByIdGreaterThanOrderByIdAsc(long id, int limit) {
+        return databaseClient.sql(SELECT + " WHERE \"id\" > :id ORDER BY \"id\" LIMIT :limit")
+                .bind("id", id)
+                .bind("limit", limit)
+                .map(ReactiveAlbumRepository::toAlbum)
+                .all();
+    }
+
+    public Mono<Album> findById(long id) {
+        return databaseClient.sql(SELECT + " WHERE \"id\" = :id")
+                .bind("id", id)
+                .map(ReactiveAlbumRepository::toAlbum)
+                .one();
+    }
+
+    public Flux<Album> findAllById(Collection<Long> ids) {
+        return databaseClient.sql(SELECT + " WHERE \"id\" IN (:ids)")
+                .bind("ids", ids)
+                .map(ReactiveAlbumRepository::toAlbum)
+                .all();
+    }
+
+    public Flux<Album> findByArtist(String artist) {
+        return databaseClient.sql(SELECT + " WHERE \"artist\" = :artist")
+                .bind("artist", artist)
+                .map(ReactiveAlbumRepository::toAlbum)
+                .all();
+    }
+
+    public Flux<Album> findByGenre(Album.Genre genre) {
+        return databaseClient.sql(SELECT + " WHERE \"genre\" = :genre")
+                .bind("genre", genre.name())
+                .map(ReactiveAlbumRepository::toAlbum)
+                .all();
+    }
+
+    public Flux<Album> findByYear(Year year) {
+        return databaseClient.sql(SELECT + " WHERE \"year\" = :year")
+                .bind("year", year.getValue())
+                .map(ReactiveAlbumRepository::toAlbum)
+                .all();
+    }
+
+    public Mono<Album> findByName(String name) {
+        return databaseClient.sql(SELECT + " WHERE \"name\" = :name LIMIT 1")
+                .bind("name", name)
+                .map(ReactiveAlbumRepository::toAlbum)
+                .one();
+    }
+
+    public Mono<Album> insert(Album album) {
+        return albumIds.next()
+                .flatMap(id -> {
+                    // Stamped here rather than by the column default, so the album can be returned without a read
+                    Instant now = Instant.now();
+                    return bindAlbum(databaseClient.sql("INSERT INTO \"album\" (" + COLUMNS + ", \"last_modified\") " +
+                            "VALUES (:id, :name, :artist, :genre, :year, :tracks, :description, :quantity, :lastModified)"), id, album)
+                            .bind("lastModified", now.atOffset(ZoneOffset.UTC))
+                            .then()
+                            .thenReturn(new Album(id, album.getName(), album.getArtist(), album.getGenre(), album.getYear(),
+                                    album.getTracks(), album.getDescription(), album.getQuantity(), 0L, now));
+                });
+    }
+
+    /**
+     * See {@link AlbumWriteRepository#updateReturningPrevious(long, AlbumPatch, Instant, Collection)}.
+     * Run it in a transaction, as on a database other than H2 or PostgreSQL it locks the album first.
+     */
+    public Mono<Album> updateReturningPrevious(long id, AlbumPatch patch, Instant lastModified, Collection<Long> expectedVersions) {
+        boolean conditional = expectedVersions != null;
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        parameters.put("id", id);
+        if (conditional) {
+            parameters.put("versions", expectedVersions);
+        }
+        Map<String, Object> locked = new LinkedHashMap<>(parameters);
+        parameters.put("lastModified", lastModified.atOffset(ZoneOffset.UTC));
+        patch.getValues().forEach((field, value) -> {
+            if (value != null) {
+                parameters.put(field, AlbumWriteStatements.column(value));
+            }
+        });
+        return Mono.defer(() -> {
+            DatabaseClient.GenericExecuteSpec update = databaseClient.sql(AlbumWriteStatements.update(dialect(), patch, conditional))
+                    .bindValues(parameters);
+            if (dialect().returnsPrevious()) {
+                return update.map(ReactiveAlbumRepository::toAlbum).one();
+            }
+            return databaseClient.sql(AlbumWriteStatements.lock(false, conditional))
+                    .bindValues(locked)
+                    .map(ReactiveAlbumRepository::toAlbum)
+                    .one()
+                    .flatMap(previous -> update.then().thenReturn(previous));
+        });
+    }
+
+    /**
+     * See {@link AlbumWriteRepository#deleteReturningPrevious(long)}, and run it in a transaction too.
+     */
+    public Mono<Album> deleteReturningPrevious(long id) {
+        return Mono.defer(() -> {
+            DatabaseClient.GenericExecuteSpec delete = databaseClient.sql(AlbumWriteStatements.delete(dialect())).bind("id", id);
+            if (dialect().returnsPrevious()) {
+                return delete.map(ReactiveAlbumRepository::toAlbum).one();
+            }
+            return databaseClient.sql(AlbumWriteStatements.lock(false, false))
+                    .bind("id", id)
+                    .map(ReactiveAlbumRepository::toAlbum)
+                    .one()
+                    .flatMap(previous -> delete.then().thenReturn(previous));
+        });
+    }
+
+    /**
+     * Adds {@code change} to the outbox, in one statement. Run it in the transaction of the write it records.
+     */
+    public Mono<Void> insertChange(AlbumChange change) {
+        return changeIds.next().flatMap(id -> {
+            DatabaseClient.GenericExecuteSpec spec = databaseClient.sql("INSERT INTO \"album_change\" " +
+                            "(\"id\", \"type\", \"album_id\", \"album\", \"changed_at\") " +
+                            "VALUES (:id, :type, :albumId, :album, :changedAt)")
+                    .bind("id", id)
+                    .bind("type", change.getType().name())
+                    .bind("albumId", change.getAlbumId())
+                    .bind("changedAt", change.getChangedAt().atOffset(ZoneOffset.UTC));
+            return (change.getAlbum() == null ? spec.bindNull("album", String.class) : spec.bind("album", change.getAlbum()))
+                    .then();
+        });
+    }
+
+    /**
+     * See {@link RecordShopRepository#adjustQuantity(long, int)}.
+     */
+    public Mono<Long> adjustQuantity(long id, int delta) {
+        return databaseClient.sql("UPDATE \"album\" SET \"quantity\" = \"quantity\" + :delta, " + TOUCH + " " +
+                        "WHERE \"id\" = :id AND CAST(\"quantity\" AS BIGINT) + :delta BETWEEN 0 AND 2147483647")
+                .bind("id", id)
+                .bind("delta", delta)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    /**
+     * Same filters as {@link AlbumSpecifications#matching(AlbumSearchCriteria)}. The sort field must
+     * already be validated, as it is written into the query.
+     */
+    public Flux<Album> search(AlbumSearchCriteria criteria, int page, int size, String sort, Sort.Direction direction) {
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        StringBuilder sql = new StringBuilder(SELECT).append(where(criteria, parameters))
+                .append(" ORDER BY \"").append(sort).append("\" ").append(direction.name());
+        if (!"id".equals(sort)) {
+            sql.append(", \"id\"");
+        }
+        sql.append(" LIMIT :limit OFFSET :offset");
+        parameters.put("limit", size);
+        parameters.put("offset", (long) page * size);
+        return databaseClient.sql(sql.toString())
+                .bindValues(parameters)
+                .map(ReactiveAlbumRepository::toAlbum)
+                .all();
+    }
+
+    public Mono<Long> count(AlbumSearchCriteria criteria) {
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        String sql = "SELECT COUNT(*) FROM \"album\"" + where(criteria, parameters);
+        return databaseClient.sql(sql)
+                .bindValues(parameters)
+                .map(row -> row.get(0, Long.class))
+                .one();
+    }
+
+    private static String where(AlbumSearchCriteria criteria, Map<String, Object> parameters) {
+        StringBuilder where = new StringBuilder();
+        if (criteria.getArtist() != null) {
+            where.append(" AND \"artist\" = :artist");
+            parameters.put("artist", criteria.getArtist());
+        }
+        if (criteria.getGenre() != null) {
+            where.append(" AND \"genre\" = :genre");
+            parameters.put("genre", criteria.getGenre().name());
+        }
+        if (criteria.getYearFrom() != null) {
+            where.append(" AND \"year\" >= :yearFrom");
+            parameters.put("yearFrom", criteria.getYearFrom().getValue());
+        }
+        if (criteria.getYearTo() != null) {
+            where.append(" AND \"year\" <= :yearTo");
+            parameters.put("yearTo", criteria.getYearTo().getValue());
+        }
+        if (criteria.isInStock()) {
+            where.append(" AND \"quantity\" > 0");
+        }
+        if (criteria.getNamePrefix() != null && !criteria.getNamePrefix().isEmpty()) {
+            where.append(" AND LOWER(\"name\") LIKE :namePattern ESCAPE '\\'");
+            parameters.put("namePattern", AlbumSpecifications.escapeLike(criteria.getNamePrefix().toLowerCase(Locale.ROOT)) + "%");
+        }
+        return where.isEmpty() ? "" : " WHERE" + where.substring(" AND".length());
+    }
+
+    private Mono<Long> nextValue(String sequence) {
+        return databaseClient.sql("SELECT nextval('" + sequence + "')")
+                .map(row -> row.get(0, Long.class))
+                .one();
+    }
+
+    private Dialect dialect() {
+        if (dialect == null) {
+            dialect = switch (databaseClient.getConnectionFactory().getMetadata().getName()) {
+                case "H2" -> Dialect.H2;
+                case "PostgreSQL" -> Dialect.POSTGRESQL;
+                default -> Dialect.OTHER;
+            };
+        }
+        return dialect;
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bindAlbum(DatabaseClient.GenericExecuteSpec spec, long id, Album album) {
+        spec = spec.bind("id", id)
+                .bind("name", album.getName())
+                .bind("artist", album.getArtist())
+                .bind("genre", album.getGenre().name())
+                .bind("year", album.getYear().getValue())
+                .bind("tracks", album.getTracks())
+                .bind("quantity", album.getQuantity());
+        return album.getDescription() == null
+                ? spec.bindNull("description", String.class)
+                : spec.bind("description", album.getDescription());
+    }
+
+    private static Album toAlbum(Readable row) {
+        Integer tracks = row.get("tracks", Integer.class);
+        Integer quantity = row.get("quantity", Integer.class);
+        return new Album(
+                row.get("id", Long.class),
+                row.get("name", String.class),
+                row.get("artist", String.class),
+                Album.Genre.valueOf(row.get("genre", String.class)),
+                Year.of(row.get("year", Integer.class)),
+                tracks == null ? 0 : tracks,
+                row.get("description", String.class),
+                quantity == null ? 0 : quantity,
+                row.get("version", Long.class),
+                row.get("last_modified", OffsetDateTime.class).toInstant());
+    }
+}
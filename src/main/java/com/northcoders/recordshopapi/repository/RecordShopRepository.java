@@ -1,15 +1,24 @@
 package com.northcoders.recordshopapi.repository;
 
 import com.northcoders.recordshopapi.model.Album;
+import com.northcoders.recordshopapi.model.AlbumSummary;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
-import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Year;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
-public interface RecordShopRepository extends CrudRepository<Album, Long> {
+public interface RecordShopRepository extends JpaRepository<Album, Long>, JpaSpecificationExecutor<Album>, AlbumWriteRepository {
     @Query("SELECT A FROM Album A where A.artist = ?1")
     List<Album> findByArtist(String artist);
 
@@ -20,4 +29,70 @@ public interface RecordShopRepository extends CrudRepository<Album, Long> {
     List<Album> findByYear(Year year);
 
     Album findByName(String name);
+
+    List<AlbumSummary> findSummariesByArtist(String artist);
+
+    List<AlbumSummary> findSummariesByGenre(Album.Genre genre);
+
+    List<AlbumSummary> findSummariesByYear(Year year);
+
+    List<Album> findByIdGreaterThanOrderByIdAsc(long id, Limit limit);
+
+    /**
+     * Streams every album in id order through a server-side cursor. Must be consumed inside a
+     * transaction and closed afterwards.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query("SELECT A FROM Album A order by A.id")
+    Stream<Album> streamAll();
+
+    /**
+     * Adds {@code delta} to the stock of an album in one conditional statement, unless that would take
+     * it below zero or past the largest int. Returns the number of rows changed, 0 when the album is
+     * missing or the stock out of range. The check adds in bigint, so that it cannot overflow itself.
+     * Bulk updates bypass {@code @Version} and {@code @UpdateTimestamp}, so both are set here.
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Album A SET A.quantity = A.quantity + ?2, A.version = A.version + 1, A.lastModified = instant " +
+            "where A.id = ?1 and cast(A.quantity as Long) + ?2 between 0 and 2147483647")
+    int adjustQuantity(long id, int delta);
+
+    /**
+     * The number of albums by each artist, as {@code [artist, count]}. Must be consumed inside a
+     * transaction and closed afterwards.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT A.artist, COUNT(A) FROM Album A group by A.artist")
+    Stream<Object[]> countByArtist();
+
+    /**
+     * The number of albums with each name, as {@code [name, count]}. Must be consumed inside a
+     * transaction and closed afterwards.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT A.name, COUNT(A) FROM Album A group by A.name")
+    Stream<Object[]> countByName();
+
+    /**
+     * The number of albums and the copies in stock of each genre, as {@code [genre, count, quantity]}.
+     */
+    @Query("SELECT A.genre, COUNT(A), COALESCE(SUM(A.quantity), 0) FROM Album A group by A.genre")
+    List<Object[]> totalsByGenre();
+
+    /**
+     * The number of albums and the copies in stock of each year, as {@code [year, count, quantity]}.
+     */
+    @Query("SELECT A.year, COUNT(A), COALESCE(SUM(A.quantity), 0) FROM Album A group by A.year")
+    List<Object[]> totalsByYear();
+
+    /**
+     * The number of albums and the copies in stock of each artist, as {@code [artist, count, quantity]}.
+     * Must be consumed inside a transaction and closed afterwards.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT A.artist, COUNT(A), COALESCE(SUM(A.quantity), 0) FROM Album A group by A.artist")
+    Stream<Object[]> totalsByArtist();
 }
@@ -0,0 +1,23 @@
+package com.northcoders.recordshopapi.search;
+
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.FSDirectory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * The search index lives on the heap unless {@code recordshop.search.directory} names a directory,
+ * where it is memory-mapped instead. Either way it is rebuilt from the database on startup.
+ */
+@Configuration
+public class AlbumSearchConfig {
+
+    @Bean(destroyMethod = "close")
+    public AlbumSearchIndex albumSearchIndex(@Value("${recordshop.search.directory:}") String directory) throws IOException {
+        return new AlbumSearchIndex(directory.isEmpty() ? new ByteBuffersDirectory() : FSDirectory.open(Path.of(directory)));
+    }
+}
@@ -0,0 +1,216 @@
+package com.northcoders.recordshopapi.search;
+
+import com.northcoders.recordshopapi.model.Album;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.miscellaneous.ASCIIFoldingFilter;
+import org.apache.lucene.analysis.standard.StandardTokenizer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.FuzzyQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.Directory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Full-text index over the name, artist and description of every album. Text is split into words,
+ * lower-cased and folded to ASCII, so "Beyoncé", "beyonce" and "BEYONCE" are the same word. A query
+ * matches words exactly, as prefixes, and with up to one typo (two for words of 8 letters or more),
+ * ranked in that order and with name above artist above description.
+ * <p>
+ * The index only holds album ids; callers load the albums themselves. Writes are visible to the
+ * next search.
+ */
+public class AlbumSearchIndex implements Closeable {
+
+    static final String ID = "id";
+    static final Map<String, Float> FIELDS = new LinkedHashMap<>();
+
+    static {
+        FIELDS.put("name", 3f);
+        FIELDS.put("artist", 2f);
+        FIELDS.put("description", 1f);
+    }
+
+    // Keeps queries below Lucene's clause limit, whatever the client sends
+    static final int MAX_QUERY_WORDS = 10;
+    static final int MIN_PREFIX_LENGTH = 2;
+    private static final float EXACT_BOOST = 4f;
+    private static final float PREFIX_BOOST = 2f;
+
+    private final Analyzer analyzer = new FoldingAnalyzer();
+    private final IndexWriter writer;
+    private final SearcherManager searcherManager;
+
+    public AlbumSearchIndex(Directory directory) {
+        try {
+            writer = new IndexWriter(directory, new IndexWriterConfig(analyzer)
+                    .setOpenMode(IndexWriterConfig.OpenMode.CREATE));
+            searcherManager = new SearcherManager(writer, null);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open the album search index", e);
+        }
+    }
+
+    public void index(Album album) {
+        try {
+            writer.updateDocument(new Term(ID, String.valueOf(album.getId())), toDocument(album));
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Cannot index Album with id '%d'", album.getId()), e);
+        }
+    }
+
+    /**
+     * Replaces the whole index with {@code albums}.
+     */
+    public long rebuild(Iterator<Album> albums) {
+        long count = 0;
+        try {
+            writer.deleteAll();
+            while (albums.hasNext()) {
+                writer.addDocument(toDocument(albums.next()));
+                count++;
+            }
+            writer.commit();
+            searcherManager.maybeRefresh();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot rebuild the album search index", e);
+        }
+        return count;
+    }
+
+    public void delete(long id) {
+        try {
+            writer.deleteDocuments(new Term(ID, String.valueOf(id)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Cannot remove Album with id '%d' from the search index", id), e);
+        }
+    }
+
+    /**
+     * Returns the ids of the albums best matching {@code text}, best first.
+     */
+    public List<Long> search(String text, int limit) {
+        Query query = toQuery(words(text));
+        if (query == null) {
+            return List.of();
+        }
+        try {
+            // Cheap when nothing was written since the last search
+            searcherManager.maybeRefresh();
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                StoredFields storedFields = searcher.storedFields();
+                List<Long> ids = new ArrayList<>();
+                for (ScoreDoc hit : searcher.search(query, limit).scoreDocs) {
+                    ids.add(Long.valueOf(storedFields.document(hit.doc).get(ID)));
+                }
+                return ids;
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot search the album index", e);
+        }
+    }
+
+    public int size() {
+        return writer.getDocStats().numDocs;
+    }
+
+    List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        try (TokenStream tokens = analyzer.tokenStream("", text)) {
+            CharTermAttribute term = tokens.addAttribute(CharTermAttribute.class);
+            tokens.reset();
+            while (tokens.incrementToken() && words.size() < MAX_QUERY_WORDS) {
+                words.add(term.toString());
+            }
+            tokens.end();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return words;
+    }
+
+    // Any word may match; albums matching more of them, and more closely, score higher
+    static Query toQuery(List<String> words) {
+        if (words.isEmpty()) {
+            return null;
+        }
+        BooleanQuery.Builder query = new BooleanQuery.Builder();
+        for (String word : words) {
+            BooleanQuery.Builder wordQuery = new BooleanQuery.Builder();
+            int maxEdits = word.length() < 4 ? 0 : word.length() < 8 ? 1 : 2;
+            for (Map.Entry<String, Float> field : FIELDS.entrySet()) {
+                Term term = new Term(field.getKey(), word);
+                wordQuery.add(new BoostQuery(new TermQuery(term), field.getValue() * EXACT_BOOST), BooleanClause.Occur.SHOULD);
+                if (word.length() >= MIN_PREFIX_LENGTH) {
+                    wordQuery.add(new BoostQuery(new PrefixQuery(term), field.getValue() * PREFIX_BOOST), BooleanClause.Occur.SHOULD);
+                }
+                if (maxEdits > 0) {
+                    // The first letter must match, which keeps typo matching fast on a large index
+                    wordQuery.add(new BoostQuery(new FuzzyQuery(term, maxEdits, 1), field.getValue()), BooleanClause.Occur.SHOULD);
+                }
+            }
+            query.add(wordQuery.build(), BooleanClause.Occur.SHOULD);
+        }
+        return query.build();
+    }
+
+    private static Document toDocument(Album album) {
+        Document document = new Document();
+        document.add(new StringField(ID, String.valueOf(album.getId()), Field.Store.YES));
+        document.add(new TextField("name", album.getName(), Field.Store.NO));
+        document.add(new TextField("artist", album.getArtist(), Field.Store.NO));
+        if (album.getDescription() != null) {
+            document.add(new TextField("description", album.getDescription(), Field.Store.NO));
+        }
+        return document;
+    }
+
+    @Override
+    public void close() throws IOException {
+        searcherManager.close();
+        writer.close();
+    }
+
+    static class FoldingAnalyzer extends Analyzer {
+
+        @Override
+        protected TokenStreamComponents createComponents(String fieldName) {
+            Tokenizer tokenizer = new StandardTokenizer();
+            return new TokenStreamComponents(tokenizer, new ASCIIFoldingFilter(new LowerCaseFilter(tokenizer)));
+        }
+
+        @Override
+        protected TokenStream normalize(String fieldName, TokenStream in) {
+            return new ASCIIFoldingFilter(new LowerCaseFilter(in));
+        }
+    }
+}
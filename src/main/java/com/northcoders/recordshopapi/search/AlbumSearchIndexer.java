@@ -0,0 +1,79 @@
+package com.northcoders.recordshopapi.search;
+
+import com.northcoders.recordshopapi.model.Album;
+import com.northcoders.recordshopapi.model.AlbumChangedEvent;
+import com.northcoders.recordshopapi.repository.RecordShopRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Keeps {@link AlbumSearchIndex} in step with the album table. The index is rebuilt from the
+ * database before the application starts serving, then updated from {@link AlbumChangedEvent}s
+ * once their transaction commits, so rolled-back writes never reach it.
+ * <p>
+ * Each instance only hears of its own writes. Albums written by another instance are missing from,
+ * or stale in, this instance's results until it restarts; ids the database no longer holds are
+ * dropped when the albums are loaded.
+ */
+@Slf4j
+@Component
+public class AlbumSearchIndexer implements SmartInitializingSingleton {
+
+    @Autowired
+    AlbumSearchIndex index;
+
+    @Autowired
+    RecordShopRepository repository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    EntityManager entityManager;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        long start = System.nanoTime();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        long count = transaction.execute(status -> {
+            try (Stream<Album> albums = repository.streamAll()) {
+                Iterator<Album> iterator = albums.iterator();
+                // Detach each album once indexed so that memory use does not grow with the catalogue
+                return index.rebuild(new Iterator<>() {
+                    @Override
+                    public boolean hasNext() {
+                        return iterator.hasNext();
+                    }
+
+                    @Override
+                    public Album next() {
+                        Album album = iterator.next();
+                        entityManager.detach(album);
+                        return album;
+                    }
+                });
+            }
+        });
+        log.info("Indexed {} albums for search in {} ms", count, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAlbumChanged(AlbumChangedEvent event) {
+        if (event.isDeleted()) {
+            index.delete(event.getId());
+        } else {
+            index.index(event.getAlbum());
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.northcoders.recordshopapi.search;
+
+import com.northcoders.recordshopapi.model.Album;
+import com.northcoders.recordshopapi.model.AlbumChangedEvent;
+import com.northcoders.recordshopapi.model.AlbumSuggestions;
+import com.northcoders.recordshopapi.repository.RecordShopRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Artist and album name suggestions, served from memory. Both {@link TypeaheadIndex}es are built from
+ * album counts in the database before the application starts serving, then follow
+ * {@link AlbumChangedEvent}s. They are rebuilt every {@code recordshop.typeahead.rebuild-interval},
+ * which also picks up writes made by other instances, and sooner when more than
+ * {@code recordshop.typeahead.max-pending} changes have piled up or a write did not say what it
+ * replaced.
+ */
+@Slf4j
+@Component
+public class AlbumTypeahead implements SmartInitializingSingleton, DisposableBean {
+
+    @Autowired
+    RecordShopRepository repository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Value("${recordshop.typeahead.rebuild-interval:10m}")
+    Duration rebuildInterval;
+
+    @Value("${recordshop.typeahead.max-pending:5000}")
+    int maxPending;
+
+    private volatile TypeaheadIndex artists = new TypeaheadIndex(Map.of());
+
+    private volatile TypeaheadIndex names = new TypeaheadIndex(Map.of());
+
+    // Changes heard while a rebuild reads the database, replayed onto the new indexes. Guarded by this
+    private List<AlbumChangedEvent> replay;
+
+    private final AtomicBoolean rebuildRequested = new AtomicBoolean();
+
+    private ThreadPoolTaskScheduler scheduler;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        rebuild();
+        scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setThreadNamePrefix("album-typeahead-");
+        scheduler.initialize();
+        scheduler.scheduleWithFixedDelay(this::rebuild, Instant.now().plus(rebuildInterval), rebuildInterval);
+    }
+
+    @Override
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+    }
+
+    public AlbumSuggestions suggest(String prefix, int limit) {
+        return new AlbumSuggestions(artists.suggest(prefix, limit), names.suggest(prefix, limit));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAlbumChanged(AlbumChangedEvent event) {
+        synchronized (this) {
+            apply(event, artists, names);
+            if (replay != null) {
+                replay.add(event);
+            }
+        }
+        boolean previousUnknown = event.getType() != AlbumChangedEvent.Type.ADDED && event.getPrevious() == null;
+        if (previousUnknown || artists.pending() + names.pending() > maxPending) {
+            requestRebuild();
+        }
+    }
+
+    /**
+     * Rebuilds both indexes from the database, in the background, unless a rebuild is already waiting.
+     */
+    public void requestRebuild() {
+        if (scheduler != null && rebuildRequested.compareAndSet(false, true)) {
+            scheduler.execute(this::rebuild);
+        }
+    }
+
+    /**
+     * Rebuilds both indexes from the database on the calling thread.
+     */
+    public void rebuild() {
+        rebuildRequested.set(false);
+        synchronized (this) {
+            replay = new ArrayList<>();
+        }
+        try {
+            long start = System.nanoTime();
+            TypeaheadIndex newArtists = new TypeaheadIndex(counts(repository::countByArtist));
+            TypeaheadIndex newNames = new TypeaheadIndex(counts(repository::countByName));
+            synchronized (this) {
+                // Changes committed just before the counts were read may be applied twice until the next rebuild
+                replay.forEach(event -> apply(event, newArtists, newNames));
+                artists = newArtists;
+                names = newNames;
+            }
+            log.info("Built typeahead for {} artists and {} album names ({} KB) in {} ms", newArtists.entries(),
+                    newNames.entries(), (newArtists.fstBytes() + newNames.fstBytes()) >> 10, (System.nanoTime() - start) / 1_000_000);
+        } catch (DataAccessException e) {
+            log.warn("Cannot rebuild the typeahead, keeping the current one", e);
+        } finally {
+            synchronized (this) {
+                replay = null;
+            }
+        }
+    }
+
+    private Map<String, Long> counts(Supplier<Stream<Object[]>> query) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        return transaction.execute(status -> {
+            Map<String, Long> counts = new HashMap<>();
+            try (Stream<Object[]> rows = query.get()) {
+                rows.forEach(row -> counts.put((String) row[0], (Long) row[1]));
+            }
+            return counts;
+        });
+    }
+
+    private static void apply(AlbumChangedEvent event, TypeaheadIndex artists, TypeaheadIndex names) {
+        Album previous = event.getPrevious();
+        Album album = event.getAlbum();
+        if (previous != null) {
+            artists.add(previous.getArtist(), -1);
+            names.add(previous.getName(), -1);
+        }
+        if (album == null) {
+            return;
+        }
+        if (previous != null || event.getType() == AlbumChangedEvent.Type.ADDED) {
+            artists.add(album.getArtist(), 1);
+            names.add(album.getName(), 1);
+        } else {
+            // Adding would count an album that kept its name twice, so only make sure the name is there
+            artists.ensure(album.getArtist());
+            names.ensure(album.getName());
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package com.northcoders.recordshopapi.search;
+
+import org.apache.lucene.analysis.miscellaneous.ASCIIFoldingFilter;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefBuilder;
+import org.apache.lucene.util.IntsRefBuilder;
+import org.apache.lucene.util.fst.FST;
+import org.apache.lucene.util.fst.FSTCompiler;
+import org.apache.lucene.util.fst.PositiveIntOutputs;
+import org.apache.lucene.util.fst.Util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+/**
+ * Texts ranked by a count, looked up by the start of the text regardless of case and accents, with
+ * a leading "the", "a" or "an" optional. The texts and counts given to the constructor are compiled
+ * into a Lucene FST, which shares common prefixes and suffixes and finds the highest counts under a
+ * prefix without visiting the rest. Later changes are kept in a small sorted map beside it until the
+ * owner builds a new index; {@link #pending()} tells it when.
+ */
+public class TypeaheadIndex {
+
+    private static final PositiveIntOutputs OUTPUTS = PositiveIntOutputs.getSingleton();
+    // The FST keeps the lowest output under a prefix, so counts are stored as costs
+    private static final long MAX_COUNT = Integer.MAX_VALUE;
+    private static final char SEPARATOR = '\0';
+    private static final String[] ARTICLES = {"", "the ", "a ", "an "};
+    // How the text as given differs from its normalized form, after the article
+    private static final char LOWER_CASE = 'l';
+    private static final char UPPER_CASE = 'u';
+    private static final char TITLE_CASE = 't';
+    private static final char VERBATIM = 'v';
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final FST<Long> fst;
+    private final long entries;
+    // Keys whose count changed since the FST was built. Written under the index's lock, read without it
+    private final ConcurrentSkipListMap<String, Count> changes = new ConcurrentSkipListMap<>();
+
+    public TypeaheadIndex(Map<String, Long> counts) {
+        Map<BytesRef, Long> keyCounts = new HashMap<>();
+        counts.forEach((text, count) -> keys(text).forEach(key -> keyCounts.merge(new BytesRef(key), count, Long::sum)));
+        List<BytesRef> keys = new ArrayList<>(keyCounts.keySet());
+        keys.sort(Comparator.naturalOrder());
+        try {
+            FSTCompiler<Long> compiler = new FSTCompiler.Builder<>(FST.INPUT_TYPE.BYTE1, OUTPUTS).build();
+            IntsRefBuilder scratch = new IntsRefBuilder();
+            for (BytesRef key : keys) {
+                compiler.add(Util.toIntsRef(key, scratch), cost(keyCounts.get(key)));
+            }
+            fst = keys.isEmpty() ? null : FST.fromFSTReader(compiler.compile(), compiler.getFSTReader());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot build the typeahead index", e);
+        }
+        entries = keys.size();
+    }
+
+    /**
+     * Adds {@code delta}, which may be negative, to the count of {@code text}. A text whose count
+     * falls to zero is no longer suggested.
+     */
+    public synchronized void add(String text, long delta) {
+        keys(text).forEach(key -> addToKey(key, delta));
+    }
+
+    /**
+     * Makes sure {@code text} is suggested, without adding to a count it already has. For writes whose
+     * previous state is unknown, until the owner rebuilds the index with exact counts.
+     */
+    public synchronized void ensure(String text) {
+        for (String key : keys(text)) {
+            long count = count(key).count();
+            if (count < 1) {
+                addToKey(key, 1 - count);
+            }
+        }
+    }
+
+    private void addToKey(String key, long delta) {
+        Count count = count(key);
+        if (count.count() + delta == count.base()) {
+            changes.remove(key);
+        } else {
+            changes.put(key, new Count(count.base(), count.count() + delta));
+        }
+    }
+
+    private Count count(String key) {
+        Count count = changes.get(key);
+        if (count == null) {
+            long base = baseCount(key);
+            return new Count(base, base);
+        }
+        return count;
+    }
+
+    /**
+     * Up to {@code limit} texts starting with {@code prefix}, highest count first.
+     */
+    public List<String> suggest(String prefix, int limit) {
+        String normalized = normalize(prefix);
+        if (normalized.isEmpty()) {
+            return List.of();
+        }
+        // "the " has finished a word, where "the" could still become "theatre"
+        if (Character.isWhitespace(prefix.charAt(prefix.length() - 1))) {
+            normalized += " ";
+        }
+        // A text can match twice, with and without its article. An entry outside the FST's top results can
+        // only overtake one that has been lowered since, so fetch until enough of them are left as they were
+        int wanted = 2 * limit;
+        Map<String, Long> candidates = top(normalized, wanted);
+        long lowered = lowered(candidates);
+        while (candidates.size() == wanted && candidates.size() - lowered < 2 * limit) {
+            wanted = 2 * limit + (int) lowered;
+            candidates = top(normalized, wanted);
+            lowered = lowered(candidates);
+        }
+        Map<String, Long> counts = candidates;
+        changes.subMap(normalized, normalized + Character.MAX_VALUE).forEach((key, count) -> counts.put(key, count.count()));
+
+        return counts.entrySet().stream()
+                .filter(candidate -> candidate.getValue() > 0)
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .map(candidate -> text(candidate.getKey()))
+                .distinct()
+                .limit(limit)
+                .toList();
+    }
+
+    /**
+     * Number of texts and article-less variants compiled into the FST.
+     */
+    public long entries() {
+        return entries;
+    }
+
+    /**
+     * Number of keys changed since the FST was built.
+     */
+    public int pending() {
+        return changes.size();
+    }
+
+    public long fstBytes() {
+        return fst == null ? 0 : fst.ramBytesUsed();
+    }
+
+    private long lowered(Map<String, Long> candidates) {
+        return candidates.keySet().stream().filter(key -> {
+            Count count = changes.get(key);
+            return count != null && count.count() < count.base();
+        }).count();
+    }
+
+    private Map<String, Long> top(String normalized, int count) {
+        if (fst == null) {
+            return new HashMap<>();
+        }
+        try {
+            FST.BytesReader reader = fst.getBytesReader();
+            FST.Arc<Long> arc = fst.getFirstArc(new FST.Arc<>());
+            long prefixCost = 0;
+            BytesRef prefix = new BytesRef(normalized);
+            for (int i = 0; i < prefix.length; i++) {
+                if (fst.findTargetArc(prefix.bytes[prefix.offset + i] & 0xff, arc, arc, reader) == null) {
+                    return new HashMap<>();
+                }
+                prefixCost += arc.output();
+            }
+            Map<String, Long> top = new HashMap<>();
+            BytesRefBuilder key = new BytesRefBuilder();
+            for (Util.Result<Long> completion : Util.shortestPaths(fst, arc, prefixCost, Long::compare, count, true)) {
+                key.copyBytes(prefix);
+                key.append(Util.toBytesRef(completion.input, new BytesRefBuilder()));
+                top.put(key.get().utf8ToString(), count(completion.output));
+            }
+            return top;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private long baseCount(String key) {
+        if (fst == null) {
+            return 0;
+        }
+        try {
+            Long cost = Util.get(fst, new BytesRef(key));
+            return cost == null ? 0 : count(cost);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // The normalized text, and without a leading article, each followed by what it takes to get back to
+    // the text as given. That is usually a letter for its casing, so the FST can share the ends of keys
+    static List<String> keys(String text) {
+        String normalized = normalize(text);
+        if (normalized.isEmpty()) {
+            return List.of();
+        }
+        String casing = casing(normalized, text);
+        List<String> keys = new ArrayList<>(2);
+        keys.add(normalized + SEPARATOR + '0' + casing);
+        for (int article = 1; article < ARTICLES.length; article++) {
+            if (normalized.startsWith(ARTICLES[article]) && normalized.length() > ARTICLES[article].length()) {
+                keys.add(normalized.substring(ARTICLES[article].length()) + SEPARATOR + (char) ('0' + article) + casing);
+            }
+        }
+        return keys;
+    }
+
+    // The text as given, back from one of its keys
+    static String text(String key) {
+        int separator = key.indexOf(SEPARATOR);
+        String normalized = ARTICLES[key.charAt(separator + 1) - '0'] + key.substring(0, separator);
+        return switch (key.charAt(separator + 2)) {
+            case LOWER_CASE -> normalized;
+            case UPPER_CASE -> normalized.toUpperCase(Locale.ROOT);
+            case TITLE_CASE -> titleCase(normalized);
+            default -> key.substring(separator + 3);
+        };
+    }
+
+    private static String casing(String normalized, String text) {
+        if (text.equals(normalized)) {
+            return String.valueOf(LOWER_CASE);
+        } else if (text.equals(normalized.toUpperCase(Locale.ROOT))) {
+            return String.valueOf(UPPER_CASE);
+        } else if (text.equals(titleCase(normalized))) {
+            return String.valueOf(TITLE_CASE);
+        }
+        return VERBATIM + text;
+    }
+
+    private static String titleCase(String normalized) {
+        char[] letters = normalized.toCharArray();
+        for (int i = 0; i < letters.length; i++) {
+            if (i == 0 || letters[i - 1] == ' ') {
+                letters[i] = Character.toUpperCase(letters[i]);
+            }
+        }
+        return new String(letters);
+    }
+
+    static String normalize(String text) {
+        String lowerCase = WHITESPACE.matcher(text.strip()).replaceAll(" ").toLowerCase(Locale.ROOT);
+        char[] folded = new char[4 * lowerCase.length()];
+        int length = ASCIIFoldingFilter.foldToASCII(lowerCase.toCharArray(), 0, folded, 0, lowerCase.length());
+        return new String(folded, 0, length).replace(SEPARATOR, ' ');
+    }
+
+    private static long cost(long count) {
+        return MAX_COUNT - Math.min(count, MAX_COUNT);
+    }
+
+    private static long count(long cost) {
+        return MAX_COUNT - cost;
+    }
+
+    // The count compiled into the FST, and the count now
+    private record Count(long base, long count) {
+    }
+}
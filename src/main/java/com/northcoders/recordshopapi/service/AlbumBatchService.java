@@ -0,0 +1,21 @@
+package com.northcoders.recordshopapi.service;
+
+import com.northcoders.recordshopapi.model.Album;
+import com.northcoders.recordshopapi.model.BatchItemResult;
+import com.northcoders.recordshopapi.model.BatchResult;
+
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.List;
+
+public interface AlbumBatchService {
+    BatchResult addAlbums(InputStream albums);
+    BatchResult addAlbums(Iterator<Album> albums);
+
+    /**
+     * Inserts one chunk of albums in a single transaction, with results indexed from zero within the chunk.
+     */
+    List<BatchItemResult> addChunk(List<Album> albums);
+    BatchResult updateAlbums(InputStream albums);
+    BatchResult deleteAlbums(InputStream ids);
+}
@@ -0,0 +1,262 @@
+package com.northcoders.recordshopapi.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.northcoders.recordshopapi.changes.AlbumChangeOutbox;
+import com.northcoders.recordshopapi.exception.InvalidAlbumPayloadException;
+import com.northcoders.recordshopapi.model.Album;
+import com.northcoders.recordshopapi.model.AlbumChangedEvent;
+import com.northcoders.recordshopapi.model.BatchItemResult;
+import com.northcoders.recordshopapi.model.BatchResult;
+import com.northcoders.recordshopapi.repository.RecordShopRepository;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static com.northcoders.recordshopapi.model.BatchItemResult.Status.*;
+
+/**
+ * Persists albums in chunks of {@code recordshop.batch.size}, one transaction per chunk, relying on
+ * Hibernate JDBC batching for the statements inside a chunk. A chunk that fails to commit is
+ * replayed item by item so that one bad album only fails itself.
+ */
+@Service
+public class AlbumBatchServiceImpl implements AlbumBatchService {
+
+    @Autowired
+    RecordShopRepository repository;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    Validator validator;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    CacheManager cacheManager;
+
+    @Autowired
+    AlbumChangeOutbox outbox;
+
+    @Autowired
+    ApplicationEventPublisher eventPublisher;
+
+    @Value("${recordshop.batch.size:500}")
+    int batchSize;
+
+    @Override
+    public BatchResult addAlbums(InputStream albums) {
+        return addAlbums(readValues(albums, Album.class));
+    }
+
+    @Override
+    public BatchResult addAlbums(Iterator<Album> albums) {
+        return inChunks(albums, this::insertChunk);
+    }
+
+    @Override
+    public List<BatchItemResult> addChunk(List<Album> albums) {
+        return writeChunk(this::insertChunk, albums, 0);
+    }
+
+    @Override
+    public BatchResult updateAlbums(InputStream albums) {
+        return inChunks(readValues(albums, Album.class), this::updateChunk);
+    }
+
+    @Override
+    public BatchResult deleteAlbums(InputStream ids) {
+        return inChunks(readValues(ids, Long.class), this::deleteChunk);
+    }
+
+    private List<BatchItemResult> insertChunk(List<Album> albums, int firstIndex) {
+        BatchItemResult[] results = new BatchItemResult[albums.size()];
+        List<Album> valid = new ArrayList<>(albums.size());
+        for (int i = 0; i < albums.size(); i++) {
+            Album album = albums.get(i);
+            String violations = validate(album);
+            if (violations != null) {
+                results[i] = new BatchItemResult(firstIndex + i, null, INVALID, violations);
+            } else {
+                // Always insert, even if the client sent an id, and reset ids left over from a failed attempt
+                album.setId(0);
+                valid.add(album);
+            }
+        }
+        repository.saveAll(valid);
+        repository.flush();
+        // Delivered once the chunk commits, and dropped if it rolls back
+        valid.forEach(album -> changed(AlbumChangedEvent.added(album)));
+        for (int i = 0; i < albums.size(); i++) {
+            if (results[i] == null) {
+                results[i] = new BatchItemResult(firstIndex + i, albums.get(i).getId(), CREATED, null);
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    private List<BatchItemResult> updateChunk(List<Album> albums, int firstIndex) {
+        Map<Long, Album> existing = repository.findAllById(albums.stream().map(Album::getId).toList()).stream()
+                .collect(Collectors.toMap(Album::getId, Function.identity()));
+        List<BatchItemResult> results = new ArrayList<>(albums.size());
+        for (int i = 0; i < albums.size(); i++) {
+            Album updatedAlbum = albums.get(i);
+            Album oldAlbum = existing.get(updatedAlbum.getId());
+            String violations = validate(updatedAlbum);
+            if (violations != null) {
+                results.add(new BatchItemResult(firstIndex + i, updatedAlbum.getId(), INVALID, violations));
+            } else if (oldAlbum == null) {
+                results.add(new BatchItemResult(firstIndex + i, updatedAlbum.getId(), NOT_FOUND,
+                        String.format("Cannot find Album with id '%d'", updatedAlbum.getId())));
+            } else {
+                Album previous = oldAlbum.toBuilder().build();
+                oldAlbum.setName(updatedAlbum.getName());
+                oldAlbum.setArtist(updatedAlbum.getArtist());
+                oldAlbum.setGenre(updatedAlbum.getGenre());
+                oldAlbum.setYear(updatedAlbum.getYear());
+                oldAlbum.setTracks(updatedAlbum.getTracks());
+                oldAlbum.setDescription(updatedAlbum.getDescription());
+                oldAlbum.setQuantity(updatedAlbum.getQuantity());
+                changed(AlbumChangedEvent.updated(previous, oldAlbum));
+                results.add(new BatchItemResult(firstIndex + i, oldAlbum.getId(), UPDATED, null));
+            }
+        }
+        repository.flush();
+        return results;
+    }
+
+    private List<BatchItemResult> deleteChunk(List<Long> ids, int firstIndex) {
+        List<Long> requested = ids.stream().filter(id -> id != null).toList();
+        // One statement that deletes the chunk and hands back what the albums held, for the listeners
+        List<Album> deleted = requested.isEmpty() ? List.of() : repository.deleteAllReturningPrevious(requested);
+        deleted.forEach(album -> changed(AlbumChangedEvent.deleted(album.getId(), album)));
+        Set<Long> existing = deleted.stream().map(Album::getId).collect(Collectors.toSet());
+        List<BatchItemResult> results = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            Long id = ids.get(i);
+            if (id == null) {
+                results.add(new BatchItemResult(firstIndex + i, null, INVALID, "id must not be null"));
+            } else if (existing.contains(id)) {
+                results.add(new BatchItemResult(firstIndex + i, id, DELETED, null));
+            } else {
+                results.add(new BatchItemResult(firstIndex + i, id, NOT_FOUND,
+                        String.format("Cannot find Album with id '%d'", id)));
+            }
+        }
+        return results;
+    }
+
+    // Recorded in the outbox with the rest of the chunk, and heard by listeners once it commits
+    private void changed(AlbumChangedEvent event) {
+        outbox.record(event);
+        eventPublisher.publishEvent(event);
+    }
+
+    private <T> BatchResult inChunks(Iterator<T> items, ChunkWriter<T> writer) {
+        List<BatchItemResult> results = new ArrayList<>();
+        List<T> chunk = new ArrayList<>(batchSize);
+        int index = 0;
+        while (true) {
+            T item;
+            try {
+                if (!items.hasNext()) {
+                    break;
+                }
+                item = items.next();
+            } catch (RuntimeException e) {
+                throw new InvalidAlbumPayloadException(String.format(
+                        "Malformed batch item at index %d, the %d items before it were processed", index, index), e);
+            }
+            chunk.add(item);
+            index++;
+            if (chunk.size() == batchSize) {
+                results.addAll(writeChunk(writer, chunk, index - chunk.size()));
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            results.addAll(writeChunk(writer, chunk, index - chunk.size()));
+        }
+        return BatchResult.of(results);
+    }
+
+    private <T> List<BatchItemResult> writeChunk(ChunkWriter<T> writer, List<T> chunk, int firstIndex) {
+        List<BatchItemResult> results;
+        try {
+            results = new TransactionTemplate(transactionManager).execute(status -> writer.write(chunk, firstIndex));
+        } catch (DataAccessException | TransactionException e) {
+            if (chunk.size() == 1) {
+                Object item = chunk.get(0);
+                Long id = item instanceof Album album ? (Long) album.getId() : (Long) item;
+                return List.of(new BatchItemResult(firstIndex, id, FAILED, e.getMostSpecificCause().getMessage()));
+            }
+            results = new ArrayList<>(chunk.size());
+            for (int i = 0; i < chunk.size(); i++) {
+                results.addAll(writeChunk(writer, List.of(chunk.get(i)), firstIndex + i));
+            }
+            return results;
+        }
+        evictChanged(results);
+        return results;
+    }
+
+    private void evictChanged(List<BatchItemResult> results) {
+        Cache albums = cacheManager.getCache("album");
+        boolean changed = false;
+        for (BatchItemResult result : results) {
+            if (result.getStatus() == UPDATED || result.getStatus() == DELETED) {
+                albums.evict(result.getId());
+                changed = true;
+            }
+        }
+        if (changed) {
+            cacheManager.getCache("albumInfo").clear();
+        }
+    }
+
+    private String validate(Album album) {
+        Set<ConstraintViolation<Album>> violations = validator.validate(album);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    private <T> Iterator<T> readValues(InputStream input, Class<T> type) {
+        try {
+            return objectMapper.readerFor(type).readValues(input);
+        } catch (IOException e) {
+            throw new InvalidAlbumPayloadException("Cannot read batch request body", e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface ChunkWriter<T> {
+        List<BatchItemResult> write(List<T> chunk, int firstIndex);
+    }
+}
@@ -0,0 +1,8 @@
+package com.northcoders.recordshopapi.service;
+
+import com.northcoders.recordshopapi.model.AlbumChange;
+import reactor.core.publisher.Flux;
+
+public interface AlbumChangeService {
+    Flux<AlbumChange> streamAlbumChanges(Long after);
+}
@@ -0,0 +1,37 @@
+package com.northcoders.recordshopapi.service;
+
+import com.northcoders.recordshopapi.changes.AlbumChangePublisher;
+import com.northcoders.recordshopapi.exception.AlbumChangeExpiredException;
+import com.northcoders.recordshopapi.exception.InvalidAlbumQueryException;
+import com.northcoders.recordshopapi.model.AlbumChange;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+
+/**
+ * Streams album changes as {@link AlbumChangePublisher} publishes them. A consumer keeps the position
+ * of the last change it processed and passes it back to resume; without one the stream starts after
+ * the latest change. Checked against what the publisher holds in memory, so opening a stream does
+ * not block either web stack.
+ */
+@Service
+public class AlbumChangeServiceImpl implements AlbumChangeService {
+
+    @Autowired
+    AlbumChangePublisher publisher;
+
+    @Override
+    public Flux<AlbumChange> streamAlbumChanges(Long after) {
+        if (after == null) {
+            return publisher.changes(publisher.getLastPosition());
+        }
+        if (after < 0) {
+            throw new InvalidAlbumQueryException(String.format("Change position must not be negative but was %d", after));
+        }
+        long first = publisher.getFirstPosition();
+        if (after < first - 1) {
+            throw new AlbumChangeExpiredException(AlbumChangePublisher.expired(after, first));
+        }
+        return publisher.changes(after);
+    }
+}
@@ -0,0 +1,171 @@
+package com.northcoders.recordshopapi.service;
+
+import com.northcoders.recordshopapi.model.Album;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * RFC 4180 CSV layout of an album, one album per line after a header line. Reading maps columns
+ * by header name, so columns may come in any order and unknown ones are ignored.
+ */
+public final class AlbumCsv {
+
+    public static final String HEADER = "id,name,artist,genre,year,tracks,description,quantity";
+
+    private AlbumCsv() {
+    }
+
+    public static void writeHeader(Writer writer) throws IOException {
+        writer.write(HEADER);
+        writer.write("\r\n");
+    }
+
+    public static void writeRow(Writer writer, Album album) throws IOException {
+        writer.write(Long.toString(album.getId()));
+        writer.write(',');
+        writeField(writer, album.getName());
+        writer.write(',');
+        writeField(writer, album.getArtist());
+        writer.write(',');
+        writeField(writer, album.getGenre() == null ? null : album.getGenre().name());
+        writer.write(',');
+        writeField(writer, album.getYear() == null ? null : album.getYear().toString());
+        writer.write(',');
+        writer.write(Integer.toString(album.getTracks()));
+        writer.write(',');
+        writeField(writer, album.getDescription());
+        writer.write(',');
+        writer.write(Integer.toString(album.getQuantity()));
+        writer.write("\r\n");
+    }
+
+    private static void writeField(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    /**
+     * Reads the next record, or returns {@code null} at the end of the input. Unquoted empty fields
+     * are read as {@code null}, quoted ones as empty strings.
+     */
+    public static List<String> readRecord(Reader reader) throws IOException {
+        int c = reader.read();
+        while (c == '\r' || c == '\n') {
+            c = reader.read();
+        }
+        if (c == -1) {
+            return null;
+        }
+        List<String> record = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean inQuotes = false;
+        while (true) {
+            if (inQuotes) {
+                if (c == -1) {
+                    throw new IllegalArgumentException("Unterminated quoted field");
+                }
+                if (c == '"') {
+                    c = reader.read();
+                    if (c == '"') {
+                        field.append('"');
+                    } else {
+                        inQuotes = false;
+                        continue;
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.isEmpty() && !quoted) {
+                quoted = true;
+                inQuotes = true;
+            } else if (c == ',') {
+                record.add(quoted || !field.isEmpty() ? field.toString() : null);
+                field.setLength(0);
+                quoted = false;
+            } else if (c == '\r' || c == '\n' || c == -1) {
+                record.add(quoted || !field.isEmpty() ? field.toString() : null);
+                return record;
+            } else {
+                field.append((char) c);
+            }
+            c = reader.read();
+        }
+    }
+
+    /**
+     * Maps each known column name in a header record to its position.
+     */
+    public static Map<String, Integer> columns(List<String> header) {
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            if (header.get(i) != null) {
+                columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * Builds an album from a record, leaving missing values {@code null} for validation to report.
+     * Any id column is ignored.
+     *
+     * @throws IllegalArgumentException if a value cannot be converted
+     */
+    public static Album toAlbum(Map<String, Integer> columns, List<String> record) {
+        Album album = new Album();
+        album.setName(value(columns, record, "name"));
+        album.setArtist(value(columns, record, "artist"));
+        String genre = value(columns, record, "genre");
+        if (genre != null) {
+            try {
+                album.setGenre(Album.Genre.valueOf(genre.trim().toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(String.format("genre '%s' is not a known genre", genre));
+            }
+        }
+        String year = value(columns, record, "year");
+        if (year != null) {
+            album.setYear(Year.of(number(year, "year")));
+        }
+        String tracks = value(columns, record, "tracks");
+        if (tracks != null) {
+            album.setTracks(number(tracks, "tracks"));
+        }
+        album.setDescription(value(columns, record, "description"));
+        String quantity = value(columns, record, "quantity");
+        if (quantity != null) {
+            album.setQuantity(number(quantity, "quantity"));
+        }
+        return album;
+    }
+
+    private static String value(Map<String, Integer> columns, List<String> record, String column) {
+        Integer position = columns.get(column);
+        return position == null || position >= record.size() ? null : record.get(position);
+    }
+
+    private static int number(String value, String column) {
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(String.format("%s '%s' is not a whole number", column, value));
+        }
+    }
+}
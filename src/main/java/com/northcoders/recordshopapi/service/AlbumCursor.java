@@ -0,0 +1,35 @@
+package com.northcoders.recordshopapi.service;
+
+import com.northcoders.recordshopapi.exception.InvalidAlbumQueryException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursor for paging through albums in id order. Clients only ever echo the
+ * value back, so the encoding can change without breaking them.
+ */
+public final class AlbumCursor {
+
+    private static final String PREFIX = "id:";
+
+    private AlbumCursor() {
+    }
+
+    public static String encode(long lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((PREFIX + lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static long decode(String cursor) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!decoded.startsWith(PREFIX)) {
+                throw new IllegalArgumentException();
+            }
+            return Long.parseLong(decoded.substring(PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidAlbumQueryException(String.format("Invalid page cursor '%s'", cursor));
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.northcoders.recordshopapi.service;
+
+import com.northcoders.recordshopapi.model.AlbumFileFormat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface AlbumExportService {
+    void exportAlbums(AlbumFileFormat format, OutputStream output) throws IOException;
+
+    /**
+     * The whole catalogue as one JSON array, ordered by id.
+     */
+    void exportAlbumsAsJson(OutputStream output) throws IOException;
+}
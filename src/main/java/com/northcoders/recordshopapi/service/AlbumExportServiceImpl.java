@@ -0,0 +1,110 @@
+package com.northcoders.recordshopapi.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.northcoders.recordshopapi.model.Album;
+import com.northcoders.recordshopapi.model.AlbumFileFormat;
+import com.northcoders.recordshopapi.repository.RecordShopRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes the whole catalogue straight from a database cursor to the output, detaching each album
+ * once written so that memory use does not grow with the size of the catalogue.
+ */
+@Service
+public class AlbumExportServiceImpl implements AlbumExportService {
+
+    @Autowired
+    RecordShopRepository repository;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @PersistenceContext
+    EntityManager entityManager;
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportAlbums(AlbumFileFormat format, OutputStream output) throws IOException {
+        try (Stream<Album> albums = repository.streamAll()) {
+            switch (format) {
+                case NDJSON -> writeNdjson(albums.iterator(), output);
+                case CSV -> writeCsv(albums.iterator(), output);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportAlbumsAsJson(OutputStream output) throws IOException {
+        try (Stream<Album> albums = repository.streamAll()) {
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(output);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            try (SequenceWriter writer = albumWriter().writeValuesAsArray(generator)) {
+                Iterator<Album> iterator = albums.iterator();
+                while (iterator.hasNext()) {
+                    Album album = iterator.next();
+                    writer.write(album);
+                    entityManager.detach(album);
+                }
+            }
+            generator.close();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void writeNdjson(Iterator<Album> albums, OutputStream output) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(output);
+        generator.setRootValueSeparator(new SerializedString("\n"));
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        try (SequenceWriter writer = albumWriter().writeValues(generator)) {
+            while (albums.hasNext()) {
+                Album album = albums.next();
+                writer.write(album);
+                entityManager.detach(album);
+            }
+        }
+        generator.writeRaw('\n');
+        generator.close();
+    }
+
+    /**
+     * Writes albums without flushing after each one, as ObjectMapper does by default, which would send
+     * every album to the client in a packet of its own. The output is flushed once, at the end.
+     */
+    private ObjectWriter albumWriter() {
+        return objectMapper.writerFor(Album.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    private void writeCsv(Iterator<Album> albums, OutputStream output) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), 64 * 1024);
+        AlbumCsv.writeHeader(writer);
+        while (albums.hasNext()) {
+            Album album = albums.next();
+            AlbumCsv.writeRow(writer, album);
+            entityManager.detach(album);
+        }
+        writer.flush();
+    }
+}
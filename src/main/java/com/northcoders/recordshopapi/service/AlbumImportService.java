@@ -0,0 +1,11 @@
+package com.northcoders.recordshopapi.service;
+
+import com.northcoders.recordshopapi.model.AlbumFileFormat;
+import com.northcoders.recordshopapi.model.AlbumImportJob;
+
+import java.io.InputStream;
+
+public interface AlbumImportService {
+    AlbumImportJob startImport(AlbumFileFormat format, InputStream upload);
+    AlbumImportJob getImportJob(String id);
+}
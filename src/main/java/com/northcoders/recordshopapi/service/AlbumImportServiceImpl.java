@@ -0,0 +1,332 @@
+package com.northcoders.recordshopapi.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.northcoders.recordshopapi.exception.ImportJobNotFoundException;
+import com.northcoders.recordshopapi.exception.InvalidAlbumPayloadException;
+import com.northcoders.recordshopapi.exception.ServiceOverloadedException;
+import com.northcoders.recordshopapi.model.Album;
+import com.northcoders.recordshopapi.model.AlbumFileFormat;
+import com.northcoders.recordshopapi.model.AlbumImportJob;
+import com.northcoders.recordshopapi.model.BatchItemResult;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+import static com.northcoders.recordshopapi.model.BatchItemResult.Status.INVALID;
+
+/**
+ * Runs bulk imports in the background. The upload is first spooled to a temporary file so that the
+ * request can return straight away; a job thread then parses the file one row at a time and hands
+ * chunks of {@code recordshop.batch.size} albums to a pool of writers. Only
+ * {@code recordshop.import.in-flight-chunks} chunks may be queued or being written at once, so the
+ * parser waits for the database instead of reading ahead, and memory stays bounded whatever the file size.
+ * At most {@code recordshop.import.queue-capacity} jobs wait for a job thread; beyond that an upload is
+ * refused with a {@link ServiceOverloadedException} and its file deleted. Jobs are kept in memory on the
+ * node that accepted the upload.
+ */
+@Slf4j
+@Service
+public class AlbumImportServiceImpl implements AlbumImportService {
+
+    @Autowired
+    AlbumBatchService albumBatchService;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Value("${recordshop.batch.size:500}")
+    int batchSize;
+
+    @Value("${recordshop.import.jobs:2}")
+    int concurrentJobs;
+
+    @Value("${recordshop.import.workers:4}")
+    int workers;
+
+    @Value("${recordshop.import.queue-capacity:16}")
+    int queueCapacity;
+
+    @Value("${recordshop.import.in-flight-chunks:8}")
+    int inFlightChunks;
+
+    @Value("${recordshop.import.max-errors:1000}")
+    int maxErrors;
+
+    @Value("${recordshop.import.retention:1h}")
+    Duration retention;
+
+    // Imports take seconds to minutes, so a queue slot is not freed straight away
+    private static final Duration RETRY_AFTER = Duration.ofSeconds(30);
+
+    private final Map<String, AlbumImportJob> jobs = new ConcurrentHashMap<>();
+
+    // Uploads spooled to disk and not yet deleted, whether their job is queued or running
+    private final Set<Path> files = ConcurrentHashMap.newKeySet();
+
+    private ThreadPoolTaskExecutor jobExecutor;
+
+    private ThreadPoolTaskExecutor writerExecutor;
+
+    @PostConstruct
+    void startExecutors() {
+        jobExecutor = executor("album-import-", concurrentJobs, queueCapacity);
+        // Bounded by the in-flight chunks of each job instead
+        writerExecutor = executor("album-import-writer-", workers, Integer.MAX_VALUE);
+    }
+
+    // Running jobs are interrupted and delete their own files; queued jobs never run, so theirs go here
+    @PreDestroy
+    void stopExecutors() {
+        jobExecutor.shutdown();
+        writerExecutor.shutdown();
+        List.copyOf(files).forEach(this::deleteQuietly);
+    }
+
+    @Override
+    public AlbumImportJob startImport(AlbumFileFormat format, InputStream upload) {
+        Path file;
+        long size;
+        try {
+            file = Files.createTempFile("album-import-", "." + format.getFileExtension());
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot create a temporary file for the import", e);
+        }
+        files.add(file);
+        try {
+            size = Files.copy(upload, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            deleteQuietly(file);
+            throw new InvalidAlbumPayloadException("Cannot read import upload", e);
+        }
+        removeExpiredJobs();
+        AlbumImportJob job = new AlbumImportJob(UUID.randomUUID().toString(), format, size, maxErrors);
+        jobs.put(job.getId(), job);
+        try {
+            jobExecutor.execute(() -> run(job, file));
+        } catch (TaskRejectedException e) {
+            jobs.remove(job.getId());
+            deleteQuietly(file);
+            throw new ServiceOverloadedException(String.format(
+                    "%d imports are waiting to start already, retry later", queueCapacity), RETRY_AFTER);
+        }
+        return job;
+    }
+
+    @Override
+    public AlbumImportJob getImportJob(String id) {
+        AlbumImportJob job = jobs.get(id);
+        if (job == null) {
+            throw new ImportJobNotFoundException(String.format("Cannot find import job with id '%s'", id));
+        }
+        return job;
+    }
+
+    private void run(AlbumImportJob job, Path file) {
+        job.start();
+        Semaphore permits = new Semaphore(inFlightChunks);
+        try (CountingInputStream input = new CountingInputStream(Files.newInputStream(file));
+             BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), 64 * 1024)) {
+            RowReader rows = job.getFormat() == AlbumFileFormat.CSV ? new CsvRowReader(reader) : new NdjsonRowReader(reader);
+            List<Album> chunk = new ArrayList<>(batchSize);
+            List<Integer> indexes = new ArrayList<>(batchSize);
+            int index = 0;
+            Album album;
+            while (!job.isFinished() && (album = rows.next(job, index)) != null) {
+                job.rowRead();
+                job.setBytesRead(input.count);
+                if (album != RowReader.SKIPPED) {
+                    chunk.add(album);
+                    indexes.add(index);
+                }
+                index++;
+                if (chunk.size() == batchSize) {
+                    submit(job, chunk, indexes, permits);
+                    chunk = new ArrayList<>(batchSize);
+                    indexes = new ArrayList<>(batchSize);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                submit(job, chunk, indexes, permits);
+            }
+            permits.acquire(inFlightChunks);
+            job.setBytesRead(input.count);
+            if (!job.isFinished()) {
+                job.complete();
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            job.fail("Cannot read import file: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.fail("Import was interrupted");
+        } catch (RuntimeException e) {
+            log.error("Import job {} failed", job.getId(), e);
+            job.fail(e.getMessage());
+        } finally {
+            deleteQuietly(file);
+        }
+    }
+
+    private void submit(AlbumImportJob job, List<Album> chunk, List<Integer> indexes, Semaphore permits)
+            throws InterruptedException {
+        permits.acquire();
+        try {
+            writerExecutor.execute(() -> {
+                try {
+                    List<BatchItemResult> results = albumBatchService.addChunk(chunk);
+                    for (BatchItemResult result : results) {
+                        result.setIndex(indexes.get(result.getIndex()));
+                        job.recordResult(result);
+                    }
+                } catch (RuntimeException e) {
+                    log.error("Import job {} failed to write a chunk", job.getId(), e);
+                    job.fail(e.getMessage());
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private void removeExpiredJobs() {
+        Instant cutoff = Instant.now().minus(retention);
+        jobs.values().removeIf(job -> job.isFinished() && job.getFinishedAt().isBefore(cutoff));
+    }
+
+    private static ThreadPoolTaskExecutor executor(String threadNamePrefix, int threads, int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix(threadNamePrefix);
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.initialize();
+        return executor;
+    }
+
+    private void deleteQuietly(Path file) {
+        files.remove(file);
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Cannot delete import file {}", file, e);
+        }
+    }
+
+    /**
+     * Reads one row at a time, returning {@link #SKIPPED} for a row that could not be parsed after
+     * recording it on the job, and {@code null} at the end of the file.
+     */
+    private interface RowReader {
+        Album SKIPPED = new Album();
+
+        Album next(AlbumImportJob job, int index) throws IOException;
+    }
+
+    private class NdjsonRowReader implements RowReader {
+        private final BufferedReader reader;
+
+        NdjsonRowReader(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public Album next(AlbumImportJob job, int index) throws IOException {
+            String line;
+            do {
+                line = reader.readLine();
+                if (line == null) {
+                    return null;
+                }
+            } while (line.isBlank());
+            try {
+                return objectMapper.readValue(line, Album.class);
+            } catch (JsonProcessingException e) {
+                job.recordResult(new BatchItemResult(index, null, INVALID, "Malformed row: " + e.getOriginalMessage()));
+                return SKIPPED;
+            }
+        }
+    }
+
+    private static class CsvRowReader implements RowReader {
+        private final BufferedReader reader;
+        private Map<String, Integer> columns;
+
+        CsvRowReader(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public Album next(AlbumImportJob job, int index) throws IOException {
+            if (columns == null) {
+                List<String> header = AlbumCsv.readRecord(reader);
+                if (header == null) {
+                    return null;
+                }
+                columns = AlbumCsv.columns(header);
+            }
+            List<String> record = AlbumCsv.readRecord(reader);
+            if (record == null) {
+                return null;
+            }
+            try {
+                return AlbumCsv.toAlbum(columns, record);
+            } catch (IllegalArgumentException e) {
+                job.recordResult(new BatchItemResult(index, null, INVALID, e.getMessage()));
+                return SKIPPED;
+            }
+        }
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+        private volatile long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.northcoders.recordshopapi.service;
+
+import com.northcoders.recordshopapi.model.Album;
+import com.northcoders.recordshopapi.model.AlbumFacet;
+import com.northcoders.recordshopapi.model.AlbumPage;
+import com.northcoders.recordshopapi.model.AlbumSearchCriteria;
+import com.northcoders.recordshopapi.model.AlbumSuggestions;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Sort;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Year;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Non-blocking counterpart of {@link RecordShopService}, with the same rules and error messages.
+ */
+public interface ReactiveRecordShopService {
+    Flux<Album> getAllAlbums();
+    Mono<AlbumPage> getAlbumsPage(String after, Integer limit);
+    Mono<Album> getAlbumById(Long id);
+    Mono<Album> addAlbum(Album album);
+    Mono<Album> updateAlbum(Long id, Album updatedAlbum);
+    Mono<Album> updateAlbum(Long id, Album updatedAlbum, Set<Long> expectedVersions);
+    Mono<Void> deleteAlbumById(Long id);
+    Mono<Album> reserveStock(Long id, int quantity);
+    Mono<Album> releaseStock(Long id, int quantity);
+    Mono<Album> adjustStock(Long id, int delta);
+    Flux<Album> getAlbumsByArtist(String artist);
+    Flux<Album> getAlbumsByGenre(Album.Genre genre);
+    Flux<Album> getAlbumsByYear(Year year);
+    Mono<Album> getAlbumInfoByName(String name);
+    Mono<Page<Album>> searchAlbums(AlbumSearchCriteria criteria, int page, int size, String sort, Sort.Direction direction);
+    Mono<List<Album>> findAlbums(String text, Integer limit);
+    Mono<AlbumSuggestions> suggestAlbums(String prefix, Integer limit);
+    Mono<List<AlbumFacet>> getAlbumFacets(AlbumFacet.Field by, Integer limit);
+}
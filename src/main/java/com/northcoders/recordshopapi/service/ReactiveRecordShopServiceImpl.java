@@ -0,0 +1,296 @@
+package com.northcoders.recordshopapi.service;
+
+import com.northcoders.recordshopapi.changes.AlbumChangeOutbox;
+import com.northcoders.recordshopapi.exception.AlbumNotFoundException;
+import com.northcoders.recordshopapi.exception.AlbumVersionMismatchException;
+import com.northcoders.recordshopapi.exception.InvalidAlbumPayloadException;
+import com.northcoders.recordshopapi.facet.AlbumFacetCounters;
+import com.northcoders.recordshopapi.model.Album;
+import com.northcoders.recordshopapi.model.AlbumChangedEvent;
+import com.northcoders.recordshopapi.model.AlbumFacet;
+import com.northcoders.recordshopapi.model.AlbumPage;
+import com.northcoders.recordshopapi.model.AlbumPatch;
+import com.northcoders.recordshopapi.model.AlbumSearchCriteria;
+import com.northcoders.recordshopapi.model.AlbumSuggestions;
+import com.northcoders.recordshopapi.repository.ReactiveAlbumRepository;
+import com.northcoders.recordshopapi.search.AlbumSearchIndex;
+import com.northcoders.recordshopapi.search.AlbumTypeahead;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Instant;
+import java.time.Year;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Reads and writes through {@link ReactiveAlbumRepository} without blocking. Results are not cached
+ * here, but writes evict the entries the blocking service caches, since other instances may run
+ * the blocking stack against the same shared cache. Each write and its outbox entry share one R2DBC
+ * transaction; caches are evicted and listeners told once it commits.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveRecordShopServiceImpl implements ReactiveRecordShopService {
+
+    @Autowired
+    ReactiveAlbumRepository repository;
+
+    @Autowired
+    CacheManager cacheManager;
+
+    @Autowired
+    Validator validator;
+
+    @Autowired
+    AlbumSearchIndex searchIndex;
+
+    @Autowired
+    AlbumTypeahead typeahead;
+
+    @Autowired
+    AlbumFacetCounters facetCounters;
+
+    @Autowired
+    AlbumChangeOutbox outbox;
+
+    @Autowired
+    TransactionalOperator transactions;
+
+    @Autowired
+    ApplicationEventPublisher eventPublisher;
+
+    @Override
+    public Flux<Album> getAllAlbums() {
+        return repository.findAll();
+    }
+
+    @Override
+    public Mono<AlbumPage> getAlbumsPage(String after, Integer limit) {
+        return Mono.defer(() -> {
+            int pageLimit = RecordShopServiceImpl.pageLimit(limit);
+            long afterId = after == null ? 0L : AlbumCursor.decode(after);
+
+            // Fetch one extra row to learn whether another page follows without a count query
+            return repository.findByIdGreaterThanOrderByIdAsc(afterId, pageLimit + 1).collectList().map(albums -> {
+                if (albums.size() <= pageLimit) {
+                    return new AlbumPage(albums, null);
+                }
+                List<Album> page = albums.subList(0, pageLimit);
+                return new AlbumPage(page, AlbumCursor.encode(page.get(pageLimit - 1).getId()));
+            });
+        });
+    }
+
+    @Override
+    public Mono<Album> getAlbumById(Long id) {
+        return repository.findById(id).switchIfEmpty(Mono.error(() -> albumNotFound(id)));
+    }
+
+    @Override
+    public Mono<Album> addAlbum(Album album) {
+        return validate(album)
+                .then(Mono.defer(() -> repository.insert(album))
+                        .flatMap(added -> record(AlbumChangedEvent.added(added)).thenReturn(added))
+                        .as(transactions::transactional))
+                .flatMap(added -> evict(added.getId(), added.getName()).thenReturn(added))
+                .doOnNext(added -> eventPublisher.publishEvent(AlbumChangedEvent.added(added)));
+    }
+
+    @Override
+    public Mono<Album> updateAlbum(Long id, Album updatedAlbum) {
+        return updateAlbum(id, updatedAlbum, null);
+    }
+
+    /**
+     * See {@link RecordShopServiceImpl#updateAlbum(Long, Album, Set)}. The version is checked by the
+     * update statement itself, which also hands back the album as it was for the change event.
+     */
+    @Override
+    public Mono<Album> updateAlbum(Long id, Album updatedAlbum, Set<Long> expectedVersions) {
+        return validate(updatedAlbum)
+                .then(Mono.defer(() -> update(id, AlbumPatch.of(updatedAlbum), expectedVersions))
+                        .flatMap(event -> record(event).thenReturn(event))
+                        .as(transactions::transactional))
+                .flatMap(event -> evict(id, event.getPrevious().getName(), event.getAlbum().getName()).thenReturn(event))
+                .doOnNext(eventPublisher::publishEvent)
+                .map(AlbumChangedEvent::getAlbum);
+    }
+
+    // The updated album follows from the one the statement hands back, so nothing is read back
+    private Mono<AlbumChangedEvent> update(Long id, AlbumPatch patch, Set<Long> expectedVersions) {
+        Instant lastModified = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        return repository.updateReturningPrevious(id, patch, lastModified, expectedVersions)
+                .switchIfEmpty(Mono.defer(() -> notUpdated(id, expectedVersions)))
+                .map(previous -> AlbumChangedEvent.updated(previous, patch.applyTo(previous).toBuilder()
+                        .version(previous.getVersion() + 1)
+                        .lastModified(lastModified)
+                        .build()));
+    }
+
+    // Only a refused conditional update reads the album, to tell a missing album from a moved version
+    private Mono<Album> notUpdated(Long id, Set<Long> expectedVersions) {
+        if (expectedVersions == null) {
+            return Mono.error(albumNotFound(id));
+        }
+        return repository.findById(id)
+                .switchIfEmpty(Mono.error(() -> albumNotFound(id)))
+                .flatMap(current -> Mono.error(new AlbumVersionMismatchException(
+                        RecordShopServiceImpl.versionMismatch(id, current.getVersion()))));
+    }
+
+    @Override
+    public Mono<Void> deleteAlbumById(Long id) {
+        return repository.deleteReturningPrevious(id)
+                .switchIfEmpty(Mono.error(() -> albumNotFound(id)))
+                .map(previous -> AlbumChangedEvent.deleted(id, previous))
+                .flatMap(event -> record(event).thenReturn(event))
+                .as(transactions::transactional)
+                .flatMap(event -> evict(id, event.getPrevious().getName()).thenReturn(event))
+                .doOnNext(eventPublisher::publishEvent)
+                .then();
+    }
+
+    @Override
+    public Mono<Album> reserveStock(Long id, int quantity) {
+        return Mono.defer(() -> {
+            RecordShopServiceImpl.requirePositive(quantity);
+            return changeStock(id, -quantity);
+        });
+    }
+
+    @Override
+    public Mono<Album> releaseStock(Long id, int quantity) {
+        return Mono.defer(() -> {
+            RecordShopServiceImpl.requirePositive(quantity);
+            return changeStock(id, quantity);
+        });
+    }
+
+    @Override
+    public Mono<Album> adjustStock(Long id, int delta) {
+        return changeStock(id, delta);
+    }
+
+    private Mono<Album> changeStock(Long id, int delta) {
+        return repository.adjustQuantity(id, delta)
+                .flatMap(rows -> getAlbumById(id).flatMap(album -> rows == 1
+                        ? record(stockChanged(album, delta)).thenReturn(album)
+                        : Mono.error(RecordShopServiceImpl.stockOutOfRange(album, delta))))
+                .as(transactions::transactional)
+                .flatMap(album -> evict(id, album.getName()).thenReturn(album))
+                .doOnNext(album -> eventPublisher.publishEvent(stockChanged(album, delta)));
+    }
+
+    private static AlbumChangedEvent stockChanged(Album album, int delta) {
+        return AlbumChangedEvent.updated(album.toBuilder().quantity(album.getQuantity() - delta).build(), album);
+    }
+
+    private Mono<Void> record(AlbumChangedEvent event) {
+        return Mono.defer(() -> repository.insertChange(outbox.change(event)));
+    }
+
+    @Override
+    public Flux<Album> getAlbumsByArtist(String artist) {
+        return repository.findByArtist(artist)
+                .switchIfEmpty(Mono.error(() -> new AlbumNotFoundException(RecordShopServiceImpl.artistNotFound(artist))));
+    }
+
+    @Override
+    public Flux<Album> getAlbumsByGenre(Album.Genre genre) {
+        return repository.findByGenre(genre)
+                .switchIfEmpty(Mono.error(() -> new AlbumNotFoundException(RecordShopServiceImpl.genreNotFound(genre))));
+    }
+
+    @Override
+    public Flux<Album> getAlbumsByYear(Year year) {
+        return repository.findByYear(year)
+                .switchIfEmpty(Mono.error(() -> new AlbumNotFoundException(RecordShopServiceImpl.yearNotFound(year))));
+    }
+
+    @Override
+    public Mono<Album> getAlbumInfoByName(String name) {
+        return repository.findByName(name)
+                .switchIfEmpty(Mono.error(() -> new AlbumNotFoundException(
+                        String.format("Cannot find any album with name '%s'", name))));
+    }
+
+    @Override
+    public Mono<Page<Album>> searchAlbums(AlbumSearchCriteria criteria, int page, int size, String sort, Sort.Direction direction) {
+        return Mono.defer(() -> {
+            RecordShopServiceImpl.validateSearch(criteria, page, size, sort);
+            return Mono.zip(repository.search(criteria, page, size, sort, direction).collectList(), repository.count(criteria));
+        }).<Page<Album>>map(result -> new PageImpl<>(result.getT1(), PageRequest.of(page, size, Sort.by(direction, sort)), result.getT2()));
+    }
+
+    /**
+     * See {@link RecordShopServiceImpl#findAlbums(String, Integer)}.
+     */
+    @Override
+    public Mono<List<Album>> findAlbums(String text, Integer limit) {
+        // Typo matching can take a few milliseconds on a large index, and a directory on disk may block
+        return Mono.fromCallable(() -> searchIndex.search(text, RecordShopServiceImpl.findLimit(text, limit)))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(ids -> ids.isEmpty()
+                        ? Mono.just(List.<Album>of())
+                        : repository.findAllById(ids).collectMap(Album::getId).map(albums -> inOrder(ids, albums)));
+    }
+
+    // In memory and sub-millisecond, so answered on the calling thread
+    @Override
+    public Mono<AlbumSuggestions> suggestAlbums(String prefix, Integer limit) {
+        return Mono.fromCallable(() -> typeahead.suggest(prefix, RecordShopServiceImpl.suggestLimit(prefix, limit)));
+    }
+
+    @Override
+    public Mono<List<AlbumFacet>> getAlbumFacets(AlbumFacet.Field by, Integer limit) {
+        return Mono.fromCallable(() -> facetCounters.facets(by, RecordShopServiceImpl.facetLimit(limit)));
+    }
+
+    private static List<Album> inOrder(List<Long> ids, Map<Long, Album> albums) {
+        return ids.stream().map(albums::get).filter(Objects::nonNull).toList();
+    }
+
+    private Mono<Void> validate(Album album) {
+        return Mono.fromRunnable(() -> {
+            Set<ConstraintViolation<Album>> violations = validator.validate(album);
+            if (!violations.isEmpty()) {
+                throw new InvalidAlbumPayloadException(violations.stream()
+                        .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                        .sorted()
+                        .collect(Collectors.joining("; ")), null);
+            }
+        });
+    }
+
+    // A shared Redis tier may do network I/O here, so keep it off the event loop
+    private Mono<Void> evict(long id, String... names) {
+        return Mono.<Void>fromRunnable(() -> {
+            cacheManager.getCache("album").evict(id);
+            for (String name : names) {
+                cacheManager.getCache("albumInfo").evict(name);
+            }
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private static AlbumNotFoundException albumNotFound(long id) {
+        return new AlbumNotFoundException(String.format("Cannot find Album with id '%d'", id));
+    }
+}
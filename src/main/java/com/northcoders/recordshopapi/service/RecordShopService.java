@@ -1,22 +1,44 @@
 package com.northcoders.recordshopapi.service;
 
 import com.northcoders.recordshopapi.model.Album;
+import com.northcoders.recordshopapi.model.AlbumFacet;
+import com.northcoders.recordshopapi.model.AlbumPage;
+import com.northcoders.recordshopapi.model.AlbumPatch;
+import com.northcoders.recordshopapi.model.AlbumSearchCriteria;
+import com.northcoders.recordshopapi.model.AlbumSuggestions;
+import com.northcoders.recordshopapi.model.AlbumSummary;
 import org.springframework.cache.annotation.CacheConfig;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Sort;
 
 import java.time.Year;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 public interface RecordShopService {
     List<Album> getAllAlbums();
+    AlbumPage getAlbumsPage(String after, Integer limit);
     Optional<Album> getAlbumById(Long id);
     Album addAlbum(Album album);
     Album updateAlbum(Long id, Album updatedAlbum);
+    Album updateAlbum(Long id, Album updatedAlbum, Set<Long> expectedVersions);
+    Album patchAlbum(Long id, AlbumPatch patch, Set<Long> expectedVersions);
     void deleteAlbumById(Long id);
+    Album reserveStock(Long id, int quantity);
+    Album releaseStock(Long id, int quantity);
+    Album adjustStock(Long id, int delta);
     List<Album> getAlbumsByArtist(String artist);
     List<Album> getAlbumsByGenre(Album.Genre genre);
     List<Album> getAlbumsByYear(Year year);
-    String getAlbumInfoByName(String name);
+    List<AlbumSummary> getAlbumSummariesByArtist(String artist);
+    List<AlbumSummary> getAlbumSummariesByGenre(Album.Genre genre);
+    List<AlbumSummary> getAlbumSummariesByYear(Year year);
+    Album getAlbumInfoByName(String name);
+    Page<Album> searchAlbums(AlbumSearchCriteria criteria, int page, int size, String sort, Sort.Direction direction);
+    List<Album> findAlbums(String text, Integer limit);
+    AlbumSuggestions suggestAlbums(String prefix, Integer limit);
+    List<AlbumFacet> getAlbumFacets(AlbumFacet.Field by, Integer limit);
 
 }
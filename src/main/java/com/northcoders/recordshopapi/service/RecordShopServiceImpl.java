@@ -1,24 +1,84 @@
 package com.northcoders.recordshopapi.service;
 
+import com.northcoders.recordshopapi.changes.AlbumChangeOutbox;
 import com.northcoders.recordshopapi.exception.AlbumNotFoundException;
+import com.northcoders.recordshopapi.exception.AlbumVersionMismatchException;
+import com.northcoders.recordshopapi.exception.InsufficientStockException;
+import com.northcoders.recordshopapi.exception.InvalidAlbumPayloadException;
+import com.northcoders.recordshopapi.exception.InvalidAlbumQueryException;
+import com.northcoders.recordshopapi.facet.AlbumFacetCounters;
 import com.northcoders.recordshopapi.model.Album;
+import com.northcoders.recordshopapi.model.AlbumChangedEvent;
+import com.northcoders.recordshopapi.model.AlbumFacet;
+import com.northcoders.recordshopapi.model.AlbumPage;
+import com.northcoders.recordshopapi.model.AlbumPatch;
+import com.northcoders.recordshopapi.model.AlbumSearchCriteria;
+import com.northcoders.recordshopapi.model.AlbumSuggestions;
+import com.northcoders.recordshopapi.model.AlbumSummary;
+import com.northcoders.recordshopapi.repository.AlbumSpecifications;
 import com.northcoders.recordshopapi.repository.RecordShopRepository;
+import com.northcoders.recordshopapi.search.AlbumSearchIndex;
+import com.northcoders.recordshopapi.search.AlbumTypeahead;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.time.Year;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
+@Timed(value = "recordshop.service", description = "Time taken by RecordShopService methods", histogram = true)
 public class RecordShopServiceImpl implements RecordShopService {
 
+    static final int DEFAULT_PAGE_LIMIT = 100;
+    static final int MAX_PAGE_LIMIT = 1000;
+    static final Set<String> SEARCH_SORT_FIELDS = Set.of("id", "name", "artist", "genre", "year", "quantity");
+    static final int DEFAULT_FIND_LIMIT = 20;
+    static final int MAX_FIND_LIMIT = 100;
+    static final int DEFAULT_SUGGEST_LIMIT = 10;
+    static final int MAX_SUGGEST_LIMIT = 20;
+    static final int DEFAULT_FACET_LIMIT = 100;
+    static final int MAX_FACET_LIMIT = 10_000;
+
     @Autowired
     RecordShopRepository repository;
 
+    @Autowired
+    AlbumSearchIndex searchIndex;
+
+    @Autowired
+    AlbumTypeahead typeahead;
+
+    @Autowired
+    AlbumFacetCounters facetCounters;
+
+    @Autowired
+    AlbumChangeOutbox outbox;
+
+    @Autowired
+    ApplicationEventPublisher eventPublisher;
+
     @Override
+    @Transactional(readOnly = true)
     public List<Album> getAllAlbums() {
         List<Album> albums = new ArrayList<>();
         repository.findAll().forEach(albums::add);
@@ -26,6 +86,29 @@ public class RecordShopServiceImpl implements RecordShopService {
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public AlbumPage getAlbumsPage(String after, Integer limit) {
+        int pageLimit = pageLimit(limit);
+        long afterId = after == null ? 0L : AlbumCursor.decode(after);
+
+        // Fetch one extra row to learn whether another page follows without a count query
+        List<Album> albums = repository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(pageLimit + 1));
+        if (albums.size() <= pageLimit) {
+            return new AlbumPage(albums, null);
+        }
+        List<Album> page = albums.subList(0, pageLimit);
+        return new AlbumPage(page, AlbumCursor.encode(page.get(pageLimit - 1).getId()));
+    }
+
+    /**
+     * Not read-only, so that it reads from the primary even with replicas: what it loads is cached for
+     * every client, and a replica that has not caught up would fill the cache with an album that was
+     * just changed or deleted, to be served until the entry expires. Loaded through the cache on a miss
+     * ({@code sync}), so that the two-tier cache knows the value is a fill rather than a write.
+     */
+    @Override
+    @Cacheable(value = "album", key = "#id", sync = true)
+    @Transactional
     public Optional<Album> getAlbumById(Long id) {
         Optional<Album> album = repository.findById(id);
         if (album.isPresent()) {
@@ -36,72 +119,341 @@ public class RecordShopServiceImpl implements RecordShopService {
     }
 
     @Override
+    @Caching(
+            put = @CachePut(value = "album", key = "#result.id"),
+            evict = @CacheEvict(value = "albumInfo", key = "#album.name"))
+    @Transactional
     public Album addAlbum(Album album) {
-        return repository.save(album);
+        Album added = repository.save(album);
+        changed(AlbumChangedEvent.added(added));
+        return added;
     }
 
     @Override
-    @CachePut(value = "album", key = "#id")
+    // Evicted rather than replaced, as concurrent updates could put their results in any order. The
+    // previous name of the album is unknown here, so every cached info entry is dropped
+    @Caching(evict = {
+            @CacheEvict(value = "album", key = "#id"),
+            @CacheEvict(value = "albumInfo", allEntries = true)})
+    @Transactional
     public Album updateAlbum(Long id, Album updatedAlbum) {
-        Optional<Album> album = repository.findById(id);
-        if (album.isPresent()) {
-            album = album.map(oldAlbum -> {
-                oldAlbum.setName(updatedAlbum.getName());
-                oldAlbum.setArtist(updatedAlbum.getArtist());
-                oldAlbum.setGenre(updatedAlbum.getGenre());
-                oldAlbum.setYear(updatedAlbum.getYear());
-                oldAlbum.setTracks(updatedAlbum.getTracks());
-                oldAlbum.setDescription(updatedAlbum.getDescription());
-                oldAlbum.setQuantity(updatedAlbum.getQuantity());
-                return repository.save(oldAlbum);}
-            );
-        } else {
-            throw new AlbumNotFoundException(String.format("Cannot find Album with id '%d'", id));
+        return update(id, AlbumPatch.of(updatedAlbum), null);
+    }
+
+    /**
+     * Updates the album only if its current version is one of {@code expectedVersions}, or whatever its
+     * version when that is null. The version is checked by the update statement itself, so an update
+     * committed by another request in between fails with an {@code AlbumVersionMismatchException}.
+     */
+    @Override
+    @Caching(evict = {
+            @CacheEvict(value = "album", key = "#id"),
+            @CacheEvict(value = "albumInfo", allEntries = true)})
+    @Transactional
+    public Album updateAlbum(Long id, Album updatedAlbum, Set<Long> expectedVersions) {
+        return update(id, AlbumPatch.of(updatedAlbum), expectedVersions);
+    }
+
+    /**
+     * Sets only the fields in {@code patch}, on the same terms as {@link #updateAlbum(Long, Album, Set)}.
+     */
+    @Override
+    @Caching(evict = {
+            @CacheEvict(value = "album", key = "#id"),
+            @CacheEvict(value = "albumInfo", allEntries = true)})
+    @Transactional
+    public Album patchAlbum(Long id, AlbumPatch patch, Set<Long> expectedVersions) {
+        return update(id, patch, expectedVersions);
+    }
+
+    // One statement that also hands back the album as it was, for the change event; the updated album
+    // follows from it, so nothing is read back
+    private Album update(Long id, AlbumPatch patch, Set<Long> expectedVersions) {
+        requireValid(patch);
+        Instant lastModified = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        Optional<Album> previous = repository.updateReturningPrevious(id, patch, lastModified, expectedVersions);
+        if (previous.isEmpty()) {
+            if (expectedVersions == null) {
+                throw new AlbumNotFoundException(String.format("Cannot find Album with id '%d'", id));
+            }
+            // Only a refused conditional update reads the album, to tell a missing album from a moved version
+            Album current = repository.findById(id)
+                    .orElseThrow(() -> new AlbumNotFoundException(String.format("Cannot find Album with id '%d'", id)));
+            throw new AlbumVersionMismatchException(versionMismatch(id, current.getVersion()));
+        }
+        Album album = patch.applyTo(previous.get()).toBuilder()
+                .version(previous.get().getVersion() + 1)
+                .lastModified(lastModified)
+                .build();
+        changed(AlbumChangedEvent.updated(previous.get(), album));
+        return album;
+    }
+
+    static void requireValid(AlbumPatch patch) {
+        if (patch.getValues().isEmpty()) {
+            throw new InvalidAlbumPayloadException("The request sets no album fields", null);
+        }
+        String missing = patch.getValues().entrySet().stream()
+                .filter(field -> field.getValue() == null && !AlbumPatch.isNullable(field.getKey()))
+                .map(field -> field.getKey() + " must not be null")
+                .collect(Collectors.joining("; "));
+        if (!missing.isEmpty()) {
+            throw new InvalidAlbumPayloadException(missing, null);
         }
-        return album.get();
     }
 
     @Override
+    @Caching(evict = {
+            @CacheEvict(value = "album", key = "#id"),
+            @CacheEvict(value = "albumInfo", allEntries = true)})
+    @Transactional
     public void deleteAlbumById(Long id) {
-        if (repository.findById(id).isPresent()) {
-            repository.deleteById(id);
-        } else {
-            throw new AlbumNotFoundException(String.format("Cannot find Album with id '%d'", id));
+        Album previous = repository.deleteReturningPrevious(id)
+                .orElseThrow(() -> new AlbumNotFoundException(String.format("Cannot find Album with id '%d'", id)));
+        changed(AlbumChangedEvent.deleted(id, previous));
+    }
+
+    @Override
+    @Caching(evict = {
+            @CacheEvict(value = "album", key = "#id"),
+            @CacheEvict(value = "albumInfo", key = "#result.name")})
+    @Transactional
+    public Album reserveStock(Long id, int quantity) {
+        requirePositive(quantity);
+        return changeStock(id, -quantity);
+    }
+
+    @Override
+    @Caching(evict = {
+            @CacheEvict(value = "album", key = "#id"),
+            @CacheEvict(value = "albumInfo", key = "#result.name")})
+    @Transactional
+    public Album releaseStock(Long id, int quantity) {
+        requirePositive(quantity);
+        return changeStock(id, quantity);
+    }
+
+    @Override
+    @Caching(evict = {
+            @CacheEvict(value = "album", key = "#id"),
+            @CacheEvict(value = "albumInfo", key = "#result.name")})
+    @Transactional
+    public Album adjustStock(Long id, int delta) {
+        return changeStock(id, delta);
+    }
+
+    // A single conditional UPDATE, so concurrent buyers never act on a stale read of the quantity. The
+    // cached album is evicted rather than replaced, as concurrent writers could put theirs in any order
+    private Album changeStock(Long id, int delta) {
+        if (repository.adjustQuantity(id, delta) == 1) {
+            Album album = repository.findById(id)
+                    .orElseThrow(() -> new AlbumNotFoundException(String.format("Cannot find Album with id '%d'", id)));
+            changed(AlbumChangedEvent.updated(album.toBuilder().quantity(album.getQuantity() - delta).build(), album));
+            return album;
+        }
+        Album album = repository.findById(id)
+                .orElseThrow(() -> new AlbumNotFoundException(String.format("Cannot find Album with id '%d'", id)));
+        throw stockOutOfRange(album, delta);
+    }
+
+    // A refused stock change either took more copies than are left or would add past the largest int
+    static RuntimeException stockOutOfRange(Album album, int delta) {
+        if (delta > 0) {
+            return new InvalidAlbumQueryException(String.format(
+                    "Cannot add %d to the stock of Album with id '%d', which holds %d, as it would exceed %d",
+                    delta, album.getId(), album.getQuantity(), Integer.MAX_VALUE));
+        }
+        return new InsufficientStockException(String.format(
+                "Cannot take %d from the stock of Album with id '%d', only %d left", -(long) delta, album.getId(), album.getQuantity()));
+    }
+
+    // Recorded in the outbox inside the transaction of the write; listeners hear of it once it commits
+    private void changed(AlbumChangedEvent event) {
+        outbox.record(event);
+        eventPublisher.publishEvent(event);
+    }
+
+    static void requirePositive(int quantity) {
+        if (quantity < 1) {
+            throw new InvalidAlbumQueryException(String.format("Quantity must be positive but was %d", quantity));
         }
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Album> getAlbumsByArtist(String artist) {
-        if (repository.findByArtist(artist).isEmpty()) {
-            throw new AlbumNotFoundException(String.format("Cannot find any album with artist name '%s'", artist));
-        }
-        return repository.findByArtist(artist);
+        return requireAny(repository.findByArtist(artist), artistNotFound(artist));
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Album> getAlbumsByGenre(Album.Genre genre) {
-        if (repository.findByGenre(genre).isEmpty()) {
-            throw new AlbumNotFoundException(String.format("Cannot find any album belonging to the genre '%s'", genre));
-        } else {
-            return repository.findByGenre(genre);
-        }
+        return requireAny(repository.findByGenre(genre), genreNotFound(genre));
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Album> getAlbumsByYear(Year year) {
-        if (repository.findByYear(year).isEmpty()) {
-            throw new AlbumNotFoundException(String.format("Cannot find any albums with release year '%s'", year));
-        } else {
-            return repository.findByYear(year);
-        }
+        return requireAny(repository.findByYear(year), yearNotFound(year));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<AlbumSummary> getAlbumSummariesByArtist(String artist) {
+        return requireAny(repository.findSummariesByArtist(artist), artistNotFound(artist));
     }
 
     @Override
-    public String getAlbumInfoByName(String name) {
-        if (repository.findByName(name) == null) {
+    @Transactional(readOnly = true)
+    public List<AlbumSummary> getAlbumSummariesByGenre(Album.Genre genre) {
+        return requireAny(repository.findSummariesByGenre(genre), genreNotFound(genre));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<AlbumSummary> getAlbumSummariesByYear(Year year) {
+        return requireAny(repository.findSummariesByYear(year), yearNotFound(year));
+    }
+
+    // Read from the primary and loaded through the cache for the same reasons as getAlbumById()
+    @Override
+    @Cacheable(value = "albumInfo", key = "#name", sync = true)
+    @Transactional
+    public Album getAlbumInfoByName(String name) {
+        Album album = repository.findByName(name);
+        if (album == null) {
             throw new AlbumNotFoundException(String.format("Cannot find any album with name '%s'", name));
-        } else {
-            return repository.findByName(name).toString();
         }
+        return album;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<Album> searchAlbums(AlbumSearchCriteria criteria, int page, int size, String sort, Sort.Direction direction) {
+        validateSearch(criteria, page, size, sort);
+
+        // Tie-break on id so that pages stay stable when the sort field has duplicates
+        Sort order = Sort.by(direction, sort);
+        if (!"id".equals(sort)) {
+            order = order.and(Sort.by("id"));
+        }
+        return repository.findAll(AlbumSpecifications.matching(criteria), PageRequest.of(page, size, order));
+    }
+
+    /**
+     * Albums whose name, artist or description best match {@code text}, allowing for prefixes, typos,
+     * case and accents, best match first. See {@link AlbumSearchIndex}.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<Album> findAlbums(String text, Integer limit) {
+        List<Long> ids = searchIndex.search(text, findLimit(text, limit));
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        // One query for every hit, then back into ranked order; ids deleted since they were indexed drop out
+        Map<Long, Album> albums = repository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Album::getId, Function.identity()));
+        return ids.stream().map(albums::get).filter(Objects::nonNull).toList();
+    }
+
+    /**
+     * Served from memory by {@link AlbumTypeahead}, without touching the database.
+     */
+    @Override
+    public AlbumSuggestions suggestAlbums(String prefix, Integer limit) {
+        return typeahead.suggest(prefix, suggestLimit(prefix, limit));
+    }
+
+    /**
+     * Served from memory by {@link AlbumFacetCounters}, without touching the database.
+     */
+    @Override
+    public List<AlbumFacet> getAlbumFacets(AlbumFacet.Field by, Integer limit) {
+        return facetCounters.facets(by, facetLimit(limit));
+    }
+
+    static int pageLimit(Integer limit) {
+        int pageLimit = limit == null ? DEFAULT_PAGE_LIMIT : limit;
+        if (pageLimit < 1 || pageLimit > MAX_PAGE_LIMIT) {
+            throw new InvalidAlbumQueryException(
+                    String.format("Page limit must be between 1 and %d but was %d", MAX_PAGE_LIMIT, pageLimit));
+        }
+        return pageLimit;
+    }
+
+    static int findLimit(String text, Integer limit) {
+        if (text == null || text.isBlank()) {
+            throw new InvalidAlbumQueryException("Search text must not be blank");
+        }
+        int findLimit = limit == null ? DEFAULT_FIND_LIMIT : limit;
+        if (findLimit < 1 || findLimit > MAX_FIND_LIMIT) {
+            throw new InvalidAlbumQueryException(
+                    String.format("Search limit must be between 1 and %d but was %d", MAX_FIND_LIMIT, findLimit));
+        }
+        return findLimit;
+    }
+
+    static int suggestLimit(String prefix, Integer limit) {
+        if (prefix == null || prefix.isBlank()) {
+            throw new InvalidAlbumQueryException("Prefix must not be blank");
+        }
+        int suggestLimit = limit == null ? DEFAULT_SUGGEST_LIMIT : limit;
+        if (suggestLimit < 1 || suggestLimit > MAX_SUGGEST_LIMIT) {
+            throw new InvalidAlbumQueryException(
+                    String.format("Suggestion limit must be between 1 and %d but was %d", MAX_SUGGEST_LIMIT, suggestLimit));
+        }
+        return suggestLimit;
+    }
+
+    static int facetLimit(Integer limit) {
+        int facetLimit = limit == null ? DEFAULT_FACET_LIMIT : limit;
+        if (facetLimit < 1 || facetLimit > MAX_FACET_LIMIT) {
+            throw new InvalidAlbumQueryException(
+                    String.format("Facet limit must be between 1 and %d but was %d", MAX_FACET_LIMIT, facetLimit));
+        }
+        return facetLimit;
+    }
+
+    static void validateSearch(AlbumSearchCriteria criteria, int page, int size, String sort) {
+        if (page < 0) {
+            throw new InvalidAlbumQueryException(String.format("Page must not be negative but was %d", page));
+        }
+        if (size < 1 || size > MAX_PAGE_LIMIT) {
+            throw new InvalidAlbumQueryException(
+                    String.format("Page size must be between 1 and %d but was %d", MAX_PAGE_LIMIT, size));
+        }
+        if (!SEARCH_SORT_FIELDS.contains(sort)) {
+            throw new InvalidAlbumQueryException(
+                    String.format("Cannot sort albums by '%s', expected one of %s", sort, SEARCH_SORT_FIELDS));
+        }
+        if (criteria.getYearFrom() != null && criteria.getYearTo() != null
+                && criteria.getYearFrom().isAfter(criteria.getYearTo())) {
+            throw new InvalidAlbumQueryException(String.format(
+                    "Year range start '%s' is after its end '%s'", criteria.getYearFrom(), criteria.getYearTo()));
+        }
+    }
+
+    private static <T> List<T> requireAny(List<T> albums, String notFoundMessage) {
+        if (albums.isEmpty()) {
+            throw new AlbumNotFoundException(notFoundMessage);
+        }
+        return albums;
+    }
+
+    static String artistNotFound(String artist) {
+        return String.format("Cannot find any album with artist name '%s'", artist);
+    }
+
+    static String genreNotFound(Album.Genre genre) {
+        return String.format("Cannot find any album belonging to the genre '%s'", genre);
+    }
+
+    static String yearNotFound(Year year) {
+        return String.format("Cannot find any albums with release year '%s'", year);
+    }
+
+    static String versionMismatch(long id, long version) {
+        return String.format("Album with id '%d' is at version %d, which the request does not match", id, version);
     }
 }
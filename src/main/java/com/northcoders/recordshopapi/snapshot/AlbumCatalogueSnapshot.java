@@ -0,0 +1,156 @@
+package com.northcoders.recordshopapi.snapshot;
+
+import com.northcoders.recordshopapi.changes.AlbumChangePublisher;
+import com.northcoders.recordshopapi.service.AlbumExportService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * The whole catalogue as a JSON array, written to disk once in every {@link SnapshotEncoding} so that
+ * serving it takes no database work, serialization or compression. The snapshot is labelled with the
+ * position of the latest album change, which every instance agrees on, and rebuilt when that moves:
+ * every {@code recordshop.snapshot.check-interval}, whichever instance made the writes.
+ * <p>
+ * Files live in a directory of their own under {@code recordshop.snapshot.directory}. The previous
+ * snapshot is kept until the next one replaces it, for responses still being sent from it.
+ */
+@Slf4j
+@Component
+@Profile("!reactive")
+public class AlbumCatalogueSnapshot implements SmartInitializingSingleton, DisposableBean {
+
+    @Autowired
+    AlbumExportService albumExportService;
+
+    @Autowired
+    AlbumChangePublisher publisher;
+
+    @Value("${recordshop.snapshot.directory:${java.io.tmpdir}}")
+    Path directory;
+
+    @Value("${recordshop.snapshot.check-interval:5s}")
+    Duration checkInterval;
+
+    private volatile Snapshot current;
+
+    private Snapshot previous;
+
+    private Path files;
+
+    private ThreadPoolTaskScheduler scheduler;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        try {
+            Files.createDirectories(directory);
+            files = Files.createTempDirectory(directory, "recordshop-catalogue-");
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create the catalogue snapshot directory in " + directory, e);
+        }
+        scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setThreadNamePrefix("catalogue-snapshot-");
+        scheduler.initialize();
+        scheduler.scheduleWithFixedDelay(this::refresh, Instant.now(), checkInterval);
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+        if (files != null) {
+            FileSystemUtils.deleteRecursively(files);
+        }
+    }
+
+    /**
+     * The latest snapshot, or empty until the first is built.
+     */
+    public Optional<Snapshot> current() {
+        return Optional.ofNullable(current);
+    }
+
+    /**
+     * Builds a new snapshot if albums changed since the current one, on the calling thread.
+     */
+    public synchronized void refresh() {
+        long position = publisher.getLastPosition();
+        if (current != null && current.position() == position) {
+            return;
+        }
+        try {
+            long start = System.nanoTime();
+            Snapshot built = build(position);
+            delete(previous);
+            previous = current;
+            current = built;
+            log.info("Built the catalogue snapshot at change {} in {} ms, {} bytes as zstd", position,
+                    Duration.ofNanos(System.nanoTime() - start).toMillis(), Files.size(built.file(SnapshotEncoding.ZSTD)));
+        } catch (IOException | DataAccessException e) {
+            log.warn("Cannot build the catalogue snapshot, retrying in {}", checkInterval, e);
+        }
+    }
+
+    private Snapshot build(long position) throws IOException {
+        // A rebuild at the same position, e.g. after a failure, must not overwrite files being sent
+        String name = "catalogue-" + position + "-" + System.nanoTime();
+        Map<SnapshotEncoding, Path> encoded = new EnumMap<>(SnapshotEncoding.class);
+        Path json = files.resolve(name + SnapshotEncoding.IDENTITY.getFileExtension());
+        try (OutputStream output = new BufferedOutputStream(Files.newOutputStream(json), 64 * 1024)) {
+            albumExportService.exportAlbumsAsJson(output);
+        }
+        encoded.put(SnapshotEncoding.IDENTITY, json);
+        for (SnapshotEncoding encoding : SnapshotEncoding.values()) {
+            if (encoding != SnapshotEncoding.IDENTITY) {
+                Path file = files.resolve(name + encoding.getFileExtension());
+                try (OutputStream output = encoding.compress(new BufferedOutputStream(Files.newOutputStream(file), 64 * 1024))) {
+                    Files.copy(json, output);
+                }
+                encoded.put(encoding, file);
+            }
+        }
+        return new Snapshot(position, encoded, Instant.now());
+    }
+
+    private static void delete(Snapshot snapshot) throws IOException {
+        if (snapshot != null) {
+            for (Path file : snapshot.files().values()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    public record Snapshot(long position, Map<SnapshotEncoding, Path> files, Instant builtAt) {
+
+        /**
+         * Weak, as the encodings of one snapshot differ in bytes but not in content.
+         */
+        public String etag() {
+            return "W/\"catalogue-" + position + "\"";
+        }
+
+        public Path file(SnapshotEncoding encoding) {
+            return files.get(encoding);
+        }
+    }
+}
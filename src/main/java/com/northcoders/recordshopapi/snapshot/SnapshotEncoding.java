@@ -0,0 +1,98 @@
+package com.northcoders.recordshopapi.snapshot;
+
+import com.github.luben.zstd.ZstdOutputStream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The encodings the catalogue snapshot is stored in, most compact first. Each is compressed once per
+ * snapshot, so high levels pay off; zstd stops at 12, as the levels above it took several times as
+ * long to build for a file little smaller.
+ */
+public enum SnapshotEncoding {
+    ZSTD("zstd", ".json.zst"),
+    GZIP("gzip", ".json.gz"),
+    IDENTITY("identity", ".json");
+
+    private static final int ZSTD_LEVEL = 12;
+
+    private final String coding;
+    private final String fileExtension;
+
+    SnapshotEncoding(String coding, String fileExtension) {
+        this.coding = coding;
+        this.fileExtension = fileExtension;
+    }
+
+    public String getCoding() {
+        return coding;
+    }
+
+    public String getFileExtension() {
+        return fileExtension;
+    }
+
+    OutputStream compress(OutputStream output) throws IOException {
+        return switch (this) {
+            case ZSTD -> new ZstdOutputStream(output, ZSTD_LEVEL);
+            case GZIP -> new BestGzipOutputStream(output);
+            case IDENTITY -> output;
+        };
+    }
+
+    /**
+     * The most compact encoding the {@code Accept-Encoding} header allows, or identity when it allows
+     * none of them. Encodings are not ranked by the client's q-values, only accepted or refused.
+     */
+    public static SnapshotEncoding negotiate(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return IDENTITY;
+        }
+        for (SnapshotEncoding encoding : values()) {
+            if (encoding != IDENTITY && accepts(acceptEncoding, encoding.coding)) {
+                return encoding;
+            }
+        }
+        return IDENTITY;
+    }
+
+    private static boolean accepts(String acceptEncoding, String coding) {
+        Boolean wildcard = null;
+        for (String element : acceptEncoding.split(",")) {
+            String[] parts = element.split(";");
+            String name = parts[0].trim().toLowerCase(Locale.ROOT);
+            boolean accepted = parts.length < 2 || !isZero(parts[1]);
+            if (name.equals(coding)) {
+                return accepted;
+            }
+            if (name.equals("*")) {
+                wildcard = accepted;
+            }
+        }
+        return Boolean.TRUE.equals(wildcard);
+    }
+
+    private static class BestGzipOutputStream extends GZIPOutputStream {
+
+        BestGzipOutputStream(OutputStream output) throws IOException {
+            super(output, 64 * 1024);
+            def.setLevel(Deflater.BEST_COMPRESSION);
+        }
+    }
+
+    private static boolean isZero(String parameter) {
+        String[] pair = parameter.trim().split("=");
+        if (pair.length != 2 || !pair[0].trim().equalsIgnoreCase("q")) {
+            return false;
+        }
+        try {
+            return Double.parseDouble(pair[1].trim()) == 0;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+-- Album table as Hibernate generated it before migrations were introduced. Existing databases
+-- are baselined at this version, so this script only runs against empty schemas.
+CREATE SEQUENCE "album_seq" START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE "album" (
+    "id"          BIGINT       NOT NULL,
+    "name"        VARCHAR(255) NOT NULL,
+    "artist"      VARCHAR(255) NOT NULL,
+    "genre"       SMALLINT     NOT NULL,
+    "year"        INTEGER      NOT NULL,
+    "tracks"      INTEGER,
+    "description" VARCHAR(255),
+    "quantity"    INTEGER,
+    CONSTRAINT "album_pkey" PRIMARY KEY ("id")
+);
@@ -0,0 +1,19 @@
+-- Genres were persisted by ordinal, which silently breaks if Album.Genre is ever reordered.
+ALTER TABLE "album" ADD COLUMN "genre_name" VARCHAR(20);
+
+UPDATE "album" SET "genre_name" = CASE "genre"
+    WHEN 0 THEN 'ROCK'
+    WHEN 1 THEN 'CLASSICAL'
+    WHEN 2 THEN 'POP'
+    WHEN 3 THEN 'AFROBEAT'
+    WHEN 4 THEN 'COUNTRY'
+    WHEN 5 THEN 'ELECTRONIC'
+    WHEN 6 THEN 'HIP_HOP'
+    WHEN 7 THEN 'JAZZ'
+    WHEN 8 THEN 'DISCO'
+    WHEN 9 THEN 'BLUES'
+END;
+
+ALTER TABLE "album" DROP COLUMN "genre";
+ALTER TABLE "album" RENAME COLUMN "genre_name" TO "genre";
+ALTER TABLE "album" ALTER COLUMN "genre" SET NOT NULL;
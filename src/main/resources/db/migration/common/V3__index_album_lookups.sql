@@ -0,0 +1,4 @@
+CREATE INDEX "idx_album_artist" ON "album" ("artist");
+CREATE INDEX "idx_album_genre" ON "album" ("genre");
+CREATE INDEX "idx_album_year" ON "album" ("year");
+CREATE INDEX "idx_album_name" ON "album" ("name");
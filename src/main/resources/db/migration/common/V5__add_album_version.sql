@@ -0,0 +1,4 @@
+-- Incremented on every change to an album and stamped with the time of the change, for ETags,
+-- Last-Modified and If-Match. Existing albums start at version 0, last modified now.
+ALTER TABLE "album" ADD COLUMN "version" BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE "album" ADD COLUMN "last_modified" TIMESTAMP(6) WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP NOT NULL;
@@ -0,0 +1,16 @@
+-- Outbox of album writes, inserted in the transaction of each write. The position is left empty
+-- until the publisher numbers the change, in commit order, and is the offset consumers resume from.
+CREATE SEQUENCE "album_change_seq" START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE "album_change" (
+    "id"         BIGINT                      NOT NULL,
+    "position"   BIGINT,
+    "type"       VARCHAR(10)                 NOT NULL,
+    "album_id"   BIGINT                      NOT NULL,
+    "album"      VARCHAR(4000),
+    "changed_at" TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    CONSTRAINT "album_change_pkey" PRIMARY KEY ("id")
+);
+
+-- Also stops two instances from handing out the same position
+CREATE UNIQUE INDEX "idx_album_change_position" ON "album_change" ("position");
@@ -0,0 +1,2 @@
+-- H2 cannot index expressions, so case-insensitive name lookups fall back to idx_album_name.
+-- Kept so that both vendors report the same schema version.
@@ -0,0 +1,2 @@
+-- Serves lower("name") equality and prefix (LIKE 'abc%') lookups such as the /search name filter.
+CREATE INDEX "idx_album_name_lower" ON "album" (lower("name") text_pattern_ops);
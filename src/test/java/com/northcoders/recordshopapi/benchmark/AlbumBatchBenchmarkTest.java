@@ -0,0 +1,79 @@
+package com.northcoders.recordshopapi.benchmark;
+
+import com.northcoders.recordshopapi.model.Album;
+import com.northcoders.recordshopapi.model.BatchResult;
+import com.northcoders.recordshopapi.repository.RecordShopRepository;
+import com.northcoders.recordshopapi.service.AlbumBatchService;
+import com.northcoders.recordshopapi.service.RecordShopService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Year;
+import java.util.Iterator;
+import java.util.stream.IntStream;
+
+import static com.northcoders.recordshopapi.model.Album.Genre.ROCK;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Insert throughput of the bulk add path against one save per album, on H2:
+ * {@code mvn test -Pbenchmark -Dtest=AlbumBatchBenchmarkTest [-Dbenchmark.rows=200000]}
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("dev")
+public class AlbumBatchBenchmarkTest {
+
+    private final int rows = Integer.getInteger("benchmark.rows", 200_000);
+    private final int singleRows = Integer.getInteger("benchmark.singleRows", 10_000);
+
+    @Autowired
+    private RecordShopService recordShopService;
+
+    @Autowired
+    private AlbumBatchService albumBatchService;
+
+    @Autowired
+    private RecordShopRepository repository;
+
+    @AfterEach
+    public void cleanup() {
+        repository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("Bulk insert throughput against one save per album")
+    public void insertThroughput() {
+        long start = System.nanoTime();
+        IntStream.range(0, singleRows).forEach(i -> recordShopService.addAlbum(album(i)));
+        double singleRate = singleRows / seconds(start);
+
+        start = System.nanoTime();
+        BatchResult result = albumBatchService.addAlbums(albums(rows));
+        double batchRate = rows / seconds(start);
+
+        System.out.printf("%nAlbum inserts (albums/s)%n");
+        System.out.printf("%-28s %,12.0f  (%,d albums)%n", "addAlbum, one per call", singleRate, singleRows);
+        System.out.printf("%-28s %,12.0f  (%,d albums)%n", "addAlbums, batched", batchRate, rows);
+
+        assertThat(result.getSucceeded()).isEqualTo(rows);
+        assertThat(batchRate).isGreaterThan(singleRate);
+    }
+
+    private static Iterator<Album> albums(int count) {
+        return IntStream.range(0, count).mapToObj(AlbumBatchBenchmarkTest::album).iterator();
+    }
+
+    private static Album album(int i) {
+        return new Album(0L, "Album " + i, "Artist " + (i % 1000), ROCK, Year.of(1950 + i % 75), 10, "Album number " + i, 5);
+    }
+
+    private static double seconds(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000_000.0;
+    }
+}
@@ -0,0 +1,129 @@
+package com.northcoders.recordshopapi.benchmark;
+
+import com.northcoders.recordshopapi.changes.AlbumChangePublisher;
+import com.northcoders.recordshopapi.model.Album;
+import com.northcoders.recordshopapi.model.BatchResult;
+import com.northcoders.recordshopapi.repository.RecordShopRepository;
+import com.northcoders.recordshopapi.service.AlbumBatchService;
+import com.northcoders.recordshopapi.service.AlbumChangeService;
+import com.northcoders.recordshopapi.service.RecordShopService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+import java.time.Year;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static com.northcoders.recordshopapi.model.Album.Genre.ROCK;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Time from a write committing to a subscriber receiving its change, and the rate changes are
+ * streamed during a bulk add, on H2:
+ * {@code mvn test -Pbenchmark -Dtest=AlbumChangeStreamBenchmarkTest [-Dbenchmark.rows=100000]}
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("dev")
+public class AlbumChangeStreamBenchmarkTest {
+
+    private final int rows = Integer.getInteger("benchmark.rows", 100_000);
+    private final int writes = Integer.getInteger("benchmark.writes", 2_000);
+
+    @Autowired
+    private RecordShopService recordShopService;
+
+    @Autowired
+    private AlbumBatchService albumBatchService;
+
+    @Autowired
+    private AlbumChangeService albumChangeService;
+
+    @Autowired
+    private AlbumChangePublisher publisher;
+
+    @Autowired
+    private RecordShopRepository repository;
+
+    @AfterEach
+    public void cleanup() {
+        repository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("Publication lag of single writes")
+    public void publicationLag() throws InterruptedException {
+        publisher.publish();
+        BlockingQueue<Long> received = new ArrayBlockingQueue<>(writes);
+        var subscription = albumChangeService.streamAlbumChanges(publisher.getLastPosition())
+                .subscribe(change -> received.add(System.nanoTime()));
+
+        long[] lags = new long[writes];
+        try {
+            for (int i = 0; i < writes; i++) {
+                recordShopService.addAlbum(album(i));
+                long committed = System.nanoTime();
+                Long at = received.poll(10, TimeUnit.SECONDS);
+                assertThat(at).isNotNull();
+                lags[i] = at - committed;
+            }
+        } finally {
+            subscription.dispose();
+        }
+
+        Arrays.sort(lags);
+        System.out.printf("%nAlbum change lag, commit to receipt (ms)%n");
+        System.out.printf("%-12s %8.2f%n", "p50", millis(lags[writes / 2]));
+        System.out.printf("%-12s %8.2f%n", "p99", millis(lags[writes * 99 / 100]));
+        System.out.printf("%-12s %8.2f  (%,d writes)%n", "max", millis(lags[writes - 1]), writes);
+    }
+
+    @Test
+    @DisplayName("Throughput of changes streamed during a bulk add")
+    public void streamThroughput() {
+        publisher.publish();
+        long start = System.nanoTime();
+        var changes = albumChangeService.streamAlbumChanges(publisher.getLastPosition())
+                .take(rows)
+                .count()
+                .toFuture();
+
+        BatchResult result = albumBatchService.addAlbums(albums(rows));
+        double writeRate = rows / seconds(start);
+        Long streamed = changes.orTimeout(Duration.ofMinutes(5).toSeconds(), TimeUnit.SECONDS).join();
+        double streamRate = rows / seconds(start);
+
+        System.out.printf("%nAlbum changes during a bulk add (changes/s)%n");
+        System.out.printf("%-28s %,12.0f  (%,d albums)%n", "addAlbums, committed", writeRate, rows);
+        System.out.printf("%-28s %,12.0f  (%,d changes)%n", "streamed to a subscriber", streamRate, streamed);
+
+        assertThat(result.getSucceeded()).isEqualTo(rows);
+        assertThat(streamed).isEqualTo(rows);
+    }
+
+    private static Iterator<Album> albums(int count) {
+        return IntStream.range(0, count).mapToObj(AlbumChangeStreamBenchmarkTest::album).iterator();
+    }
+
+    private static Album album(int i) {
+        return new Album(0L, "Album " + i, "Artist " + (i % 1000), ROCK, Year.of(1950 + i % 75), 10, "Album number " + i, 5);
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private static double seconds(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000_000.0;
+    }
+}
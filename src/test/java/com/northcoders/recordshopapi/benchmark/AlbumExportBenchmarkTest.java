@@ -0,0 +1,129 @@
+package com.northcoders.recordshopapi.benchmark;
+
+import com.northcoders.recordshopapi.model.AlbumFileFormat;
+import com.northcoders.recordshopapi.repository.RecordShopRepository;
+import com.northcoders.recordshopapi.service.AlbumExportService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Exports a large catalogue while sampling the heap retained after each GC and counting flushes, on H2:
+ * {@code mvn test -Pbenchmark -Dtest=AlbumExportBenchmarkTest [-Dbenchmark.rows=1000000]}
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("dev")
+public class AlbumExportBenchmarkTest {
+
+    private static final long MAX_HEAP_GROWTH = 64L * 1024 * 1024;
+
+    private final int rows = Integer.getInteger("benchmark.rows", 1_000_000);
+
+    @Autowired
+    private AlbumExportService albumExportService;
+
+    @Autowired
+    private RecordShopRepository repository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void seed() {
+        for (int from = 0; from < rows; from += 10_000) {
+            List<Object[]> batch = IntStream.range(from, Math.min(from + 10_000, rows))
+                    .mapToObj(i -> new Object[]{i + 1L, "Album " + i, "Artist " + (i % 1000), "ROCK", 1950 + i % 75, 10, "Album number " + i, 5})
+                    .toList();
+            jdbcTemplate.batchUpdate("INSERT INTO \"album\" (\"id\", \"name\", \"artist\", \"genre\", \"year\", \"tracks\", \"description\", \"quantity\") VALUES (?, ?, ?, ?, ?, ?, ?, ?)", batch);
+        }
+    }
+
+    @AfterEach
+    public void cleanup() {
+        repository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("Heap retained during a full NDJSON export stays flat")
+    public void exportHeapIsFlat() throws Exception {
+        exportAndMeasure(AlbumFileFormat.NDJSON);
+    }
+
+    @Test
+    @DisplayName("Heap retained during a full CSV export stays flat")
+    public void exportCsvHeapIsFlat() throws Exception {
+        exportAndMeasure(AlbumFileFormat.CSV);
+    }
+
+    private void exportAndMeasure(AlbumFileFormat format) throws Exception {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long baseline = retainedHeap(memory);
+        AtomicLong peak = new AtomicLong(baseline);
+        Thread sampler = Thread.ofPlatform().daemon().start(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                peak.accumulateAndGet(retainedHeap(memory), Math::max);
+                try {
+                    Thread.sleep(250);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+
+        CountingOutputStream output = new CountingOutputStream();
+        long start = System.nanoTime();
+        albumExportService.exportAlbums(format, output);
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        sampler.interrupt();
+        sampler.join();
+
+        long growth = peak.get() - baseline;
+        System.out.printf("%n%s export of %,d albums: %,d bytes in %.1f s (%,.0f albums/s), retained heap growth %,d KB%n",
+                format, rows, output.count, seconds, rows / seconds, growth / 1024);
+
+        assertThat(output.count).isGreaterThan((long) rows * 40);
+        assertThat(growth).isLessThan(MAX_HEAP_GROWTH);
+        assertThat(output.flushes).isLessThanOrEqualTo(1);
+    }
+
+    private static long retainedHeap(MemoryMXBean memory) {
+        System.gc();
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+        private long count;
+        private int flushes;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+
+        @Override
+        public void flush() {
+            flushes++;
+        }
+    }
+}
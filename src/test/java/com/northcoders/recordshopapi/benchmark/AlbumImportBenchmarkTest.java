@@ -0,0 +1,98 @@
+package com.northcoders.recordshopapi.benchmark;
+
+import com.northcoders.recordshopapi.model.AlbumFileFormat;
+import com.northcoders.recordshopapi.model.AlbumImportJob;
+import com.northcoders.recordshopapi.service.AlbumImportService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Imports a large generated CSV file while sampling the heap retained after each GC, on a file-backed
+ * H2 database, thrown away afterwards, so that the imported rows themselves do not count as heap growth:
+ * {@code mvn test -Pbenchmark -Dtest=AlbumImportBenchmarkTest [-Dbenchmark.megabytes=500]}
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("dev")
+public class AlbumImportBenchmarkTest {
+
+    private static final long MAX_HEAP_GROWTH = 64L * 1024 * 1024;
+
+    private final long bytes = Long.getLong("benchmark.megabytes", 500) * 1024 * 1024;
+
+    @Autowired
+    private AlbumImportService albumImportService;
+
+    @TempDir
+    Path tempDir;
+
+    @DynamicPropertySource
+    static void fileDatabase(DynamicPropertyRegistry registry) throws IOException {
+        Path database = Files.createTempDirectory("album-import-benchmark");
+        registry.add("spring.datasource.url", () -> "jdbc:h2:file:" + database.resolve("recordshop")
+                + ";CACHE_SIZE=8192;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH");
+    }
+
+    @Test
+    @DisplayName("Heap retained while importing a large CSV file stays flat")
+    public void importHeapIsFlat() throws Exception {
+        Path file = tempDir.resolve("albums.csv");
+        long rows = 0;
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("name,artist,genre,year,tracks,description,quantity\n");
+            while (Files.size(file) < bytes || rows % 100_000 != 0) {
+                writer.write("Album " + rows + ",Artist " + (rows % 1000) + ",ROCK," + (1950 + rows % 75)
+                        + ",10,\"An album description that pads the row, as supplier files do\",5\n");
+                rows++;
+                if (rows % 100_000 == 0) {
+                    writer.flush();
+                }
+            }
+        }
+
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long baseline = retainedHeap(memory);
+        long peak = baseline;
+        AlbumImportJob job;
+        try (InputStream upload = Files.newInputStream(file)) {
+            job = albumImportService.startImport(AlbumFileFormat.CSV, upload);
+        }
+        while (!job.isFinished()) {
+            Thread.sleep(1000);
+            peak = Math.max(peak, retainedHeap(memory));
+        }
+
+        long growth = peak - baseline;
+        System.out.printf("%nCSV import of %,d rows (%,d MB): %s in %s, %,.0f rows/s, retained heap growth %,d KB%n",
+                rows, Files.size(file) / (1024 * 1024), job.getStatus(),
+                Duration.between(job.getStartedAt(), job.getFinishedAt()), job.getRowsPerSecond(), growth / 1024);
+
+        assertThat(job.getStatus()).isEqualTo(AlbumImportJob.Status.COMPLETED);
+        assertThat(job.getRowsImported()).isEqualTo(rows);
+        assertThat(growth).isLessThan(MAX_HEAP_GROWTH);
+    }
+
+    private static long retainedHeap(MemoryMXBean memory) {
+        System.gc();
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,132 @@
+package com.northcoders.recordshopapi.benchmark;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Lookup latency of the repository's filter queries against a large album table, before and
+ * after the index migrations. Runs on H2 in PostgreSQL mode:
+ * {@code mvn test -Pbenchmark -Dtest=AlbumIndexBenchmarkTest [-Dbenchmark.rows=1000000]}
+ */
+@Tag("benchmark")
+public class AlbumIndexBenchmarkTest {
+
+    private static final String URL = "jdbc:h2:mem:index-benchmark;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1";
+    private static final String[] GENRES = {"ROCK", "CLASSICAL", "POP", "AFROBEAT", "COUNTRY", "ELECTRONIC", "HIP_HOP", "JAZZ", "DISCO", "BLUES"};
+    private static final int ARTISTS = 100_000;
+
+    private final int rows = Integer.getInteger("benchmark.rows", 1_000_000);
+    private final int lookups = Integer.getInteger("benchmark.lookups", 50);
+
+    private final Map<String, String> queries = new LinkedHashMap<>();
+
+    {
+        queries.put("artist", "SELECT \"id\" FROM \"album\" WHERE \"artist\" = ?");
+        queries.put("name", "SELECT \"id\" FROM \"album\" WHERE \"name\" = ?");
+        queries.put("genre", "SELECT \"id\" FROM \"album\" WHERE \"genre\" = ?");
+        queries.put("year", "SELECT \"id\" FROM \"album\" WHERE \"year\" = ?");
+    }
+
+    @Test
+    @DisplayName("Album lookups before and after the index migrations")
+    public void lookupLatency() throws SQLException {
+        Flyway.configure().dataSource(URL, "sa", "")
+                .locations("classpath:db/migration/common", "classpath:db/migration/h2")
+                .target("2")
+                .load().migrate();
+
+        try (Connection connection = DriverManager.getConnection(URL, "sa", "")) {
+            populate(connection);
+            Map<String, double[]> before = measure(connection);
+
+            Flyway.configure().dataSource(URL, "sa", "")
+                    .locations("classpath:db/migration/common", "classpath:db/migration/h2")
+                    .load().migrate();
+            Map<String, double[]> after = measure(connection);
+
+            System.out.printf("%nAlbum lookups at %,d rows (%d lookups each, ms)%n", rows, lookups);
+            System.out.printf("%-8s %12s %12s %12s %12s%n", "lookup", "before p50", "before p99", "after p50", "after p99");
+            queries.keySet().forEach(lookup -> System.out.printf("%-8s %12.3f %12.3f %12.3f %12.3f%n", lookup,
+                    percentile(before.get(lookup), 50), percentile(before.get(lookup), 99),
+                    percentile(after.get(lookup), 50), percentile(after.get(lookup), 99)));
+
+            assertThat(percentile(after.get("artist"), 50)).isLessThan(percentile(before.get("artist"), 50));
+            assertThat(percentile(after.get("name"), 50)).isLessThan(percentile(before.get("name"), 50));
+        }
+    }
+
+    private void populate(Connection connection) throws SQLException {
+        connection.setAutoCommit(false);
+        Random random = new Random(42);
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO \"album\" (\"id\", \"name\", \"artist\", \"genre\", \"year\", \"tracks\", \"description\", \"quantity\") " +
+                        "VALUES (?, ?, ?, ?, ?, ?, ?, ?)")) {
+            for (int id = 1; id <= rows; id++) {
+                insert.setLong(1, id);
+                insert.setString(2, "Album " + id);
+                insert.setString(3, "Artist " + random.nextInt(ARTISTS));
+                insert.setString(4, GENRES[random.nextInt(GENRES.length)]);
+                insert.setInt(5, 1950 + random.nextInt(75));
+                insert.setInt(6, 1 + random.nextInt(20));
+                insert.setString(7, "Description of album " + id);
+                insert.setInt(8, random.nextInt(50));
+                insert.addBatch();
+                if (id % 10_000 == 0) {
+                    insert.executeBatch();
+                    connection.commit();
+                }
+            }
+            insert.executeBatch();
+            connection.commit();
+        }
+        connection.setAutoCommit(true);
+    }
+
+    private Map<String, double[]> measure(Connection connection) throws SQLException {
+        Map<String, double[]> latencies = new LinkedHashMap<>();
+        Random random = new Random(7);
+        for (Map.Entry<String, String> query : queries.entrySet()) {
+            double[] millis = new double[lookups];
+            try (PreparedStatement statement = connection.prepareStatement(query.getValue())) {
+                for (int i = 0; i < lookups; i++) {
+                    switch (query.getKey()) {
+                        case "artist" -> statement.setString(1, "Artist " + random.nextInt(ARTISTS));
+                        case "name" -> statement.setString(1, "Album " + (1 + random.nextInt(rows)));
+                        case "genre" -> statement.setString(1, GENRES[random.nextInt(GENRES.length)]);
+                        default -> statement.setInt(1, 1950 + random.nextInt(75));
+                    }
+                    long start = System.nanoTime();
+                    try (ResultSet result = statement.executeQuery()) {
+                        while (result.next()) {
+                            result.getLong(1);
+                        }
+                    }
+                    millis[i] = (System.nanoTime() - start) / 1_000_000.0;
+                }
+            }
+            latencies.put(query.getKey(), millis);
+        }
+        return latencies;
+    }
+
+    static double percentile(double[] values, int percentile) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+}
@@ -0,0 +1,138 @@
+package com.northcoders.recordshopapi.benchmark;
+
+import com.northcoders.recordshopapi.model.Album;
+import com.northcoders.recordshopapi.search.AlbumSearchIndex;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Year;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+
+import static com.northcoders.recordshopapi.benchmark.AlbumIndexBenchmarkTest.percentile;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Latency of full-text album searches against an index of generated albums, whose names, artists
+ * and descriptions are drawn from a vocabulary of made-up words:
+ * {@code mvn test -Pbenchmark -Dtest=AlbumSearchBenchmarkTest [-Dbenchmark.rows=1000000]}
+ */
+@Tag("benchmark")
+public class AlbumSearchBenchmarkTest {
+
+    private static final String[] SYLLABLES = {"ba", "ro", "ke", "li", "mu", "sa", "to", "ne", "di", "va",
+            "lo", "ri", "po", "ma", "ze", "ku", "fi", "go", "te", "ya"};
+    private static final Album.Genre[] GENRES = Album.Genre.values();
+
+    private final int rows = Integer.getInteger("benchmark.rows", 1_000_000);
+    private final int lookups = Integer.getInteger("benchmark.lookups", 200);
+    private final String[] words = vocabulary(20_000, new Random(1));
+
+    @Test
+    @DisplayName("Full-text searches at a million albums")
+    public void searchLatency() throws IOException {
+        ByteBuffersDirectory directory = new ByteBuffersDirectory();
+        try (AlbumSearchIndex index = new AlbumSearchIndex(directory)) {
+            long start = System.nanoTime();
+            index.rebuild(albums(new Random(42)));
+            double buildSeconds = (System.nanoTime() - start) / 1e9;
+
+            Map<String, Function<Random, String>> queries = new LinkedHashMap<>();
+            queries.put("word", random -> word(random));
+            queries.put("prefix", random -> word(random).substring(0, 3));
+            queries.put("typo", random -> typo(word(random), random));
+            queries.put("two words", random -> word(random) + " " + typo(word(random), random));
+
+            // Warm up, so that the first kind of query measured does not also pay for JIT compilation
+            Random warmUp = new Random(3);
+            for (int i = 0; i < lookups; i++) {
+                queries.values().forEach(query -> index.search(query.apply(warmUp), 20));
+            }
+
+            System.out.printf("%nAlbum search at %,d albums: index built in %.1f s, %,d MB on the heap%n",
+                    index.size(), buildSeconds, size(directory) >> 20);
+            System.out.printf("%-10s %10s %10s %10s%n", "query", "p50 ms", "p99 ms", "max ms");
+            Random random = new Random(7);
+            for (Map.Entry<String, Function<Random, String>> query : queries.entrySet()) {
+                double[] millis = new double[lookups];
+                int empty = 0;
+                for (int i = 0; i < lookups; i++) {
+                    String text = query.getValue().apply(random);
+                    long queryStart = System.nanoTime();
+                    if (index.search(text, 20).isEmpty()) {
+                        empty++;
+                    }
+                    millis[i] = (System.nanoTime() - queryStart) / 1_000_000.0;
+                }
+                System.out.printf("%-10s %10.3f %10.3f %10.3f%n", query.getKey(),
+                        percentile(millis, 50), percentile(millis, 99), percentile(millis, 100));
+                assertThat(empty).as("searches for '%s' without results", query.getKey()).isZero();
+            }
+        }
+    }
+
+    private static long size(ByteBuffersDirectory directory) throws IOException {
+        long bytes = 0;
+        for (String file : directory.listAll()) {
+            bytes += directory.fileLength(file);
+        }
+        return bytes;
+    }
+
+    private Iterator<Album> albums(Random random) {
+        return new Iterator<>() {
+            private long id;
+
+            @Override
+            public boolean hasNext() {
+                return id < rows;
+            }
+
+            @Override
+            public Album next() {
+                id++;
+                return new Album(id, words(random, 1 + random.nextInt(4)), words(random, 2),
+                        GENRES[random.nextInt(GENRES.length)], Year.of(1950 + random.nextInt(75)),
+                        1 + random.nextInt(20), words(random, 6), random.nextInt(50));
+            }
+        };
+    }
+
+    private String words(Random random, int count) {
+        StringBuilder text = new StringBuilder(word(random));
+        for (int i = 1; i < count; i++) {
+            text.append(' ').append(word(random));
+        }
+        return text.toString();
+    }
+
+    private String word(Random random) {
+        return words[random.nextInt(words.length)];
+    }
+
+    // Swaps one letter after the first, which the index keeps exact for speed
+    private static String typo(String word, Random random) {
+        char[] letters = word.toCharArray();
+        int position = 1 + random.nextInt(letters.length - 1);
+        letters[position] = letters[position] == 'x' ? 'q' : 'x';
+        return new String(letters);
+    }
+
+    private static String[] vocabulary(int size, Random random) {
+        String[] words = new String[size];
+        for (int i = 0; i < size; i++) {
+            StringBuilder word = new StringBuilder();
+            for (int syllables = 2 + random.nextInt(3); syllables > 0; syllables--) {
+                word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+            }
+            words[i] = word.toString();
+        }
+        return words;
+    }
+}
@@ -0,0 +1,128 @@
+package com.northcoders.recordshopapi.benchmark;
+
+import com.northcoders.recordshopapi.changes.AlbumChangePublisher;
+import com.northcoders.recordshopapi.model.Album;
+import com.northcoders.recordshopapi.repository.RecordShopRepository;
+import com.northcoders.recordshopapi.service.RecordShopService;
+import com.northcoders.recordshopapi.snapshot.AlbumCatalogueSnapshot;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Year;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static com.northcoders.recordshopapi.model.Album.Genre.ROCK;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Downloads the whole catalogue repeatedly, as a gzip-compressed NDJSON export and as the zstd
+ * catalogue snapshot, comparing the process CPU time and the bytes sent per download, on H2. The
+ * client runs in the same JVM, so its share of the CPU time (reading the body) is counted for both:
+ * {@code mvn test -Pbenchmark -Dtest=AlbumSnapshotBenchmarkTest [-Dbenchmark.rows=100000 -Dbenchmark.requests=20]}
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"recordshop.snapshot.check-interval=1h",
+                "recordshop.rate-limit.enabled=false", "recordshop.admission.enabled=false"})
+@ActiveProfiles("dev")
+public class AlbumSnapshotBenchmarkTest {
+
+    private static final long FIRST_SEEDED_ID = 1_000_000_000L;
+
+    private final int rows = Integer.getInteger("benchmark.rows", 100_000);
+    private final int requests = Integer.getInteger("benchmark.requests", 20);
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private RecordShopRepository repository;
+
+    @Autowired
+    private RecordShopService recordShopService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private AlbumChangePublisher publisher;
+
+    @Autowired
+    private AlbumCatalogueSnapshot catalogueSnapshot;
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    @BeforeEach
+    public void seed() {
+        // Rows inserted directly record no change, so one album is added through the service for the
+        // snapshot to be rebuilt at, and the rest take ids well clear of its sequence
+        recordShopService.addAlbum(new Album(0L, "Album " + rows, "Artist 0", ROCK, Year.of(2024), 10, null, 5));
+        for (int from = 0; from < rows; from += 10_000) {
+            List<Object[]> batch = IntStream.range(from, Math.min(from + 10_000, rows))
+                    .mapToObj(i -> new Object[]{FIRST_SEEDED_ID + i, "Album " + i, "Artist " + (i % 1000), "ROCK", 1950 + i % 75, 10, "Album number " + i, 5})
+                    .toList();
+            jdbcTemplate.batchUpdate("INSERT INTO \"album\" (\"id\", \"name\", \"artist\", \"genre\", \"year\", \"tracks\", \"description\", \"quantity\") VALUES (?, ?, ?, ?, ?, ?, ?, ?)", batch);
+        }
+        publisher.publish();
+        catalogueSnapshot.refresh();
+    }
+
+    @AfterEach
+    public void cleanup() {
+        repository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("The snapshot costs a fraction of the CPU time and bytes of a compressed export")
+    public void snapshotIsCheaperThanExport() throws Exception {
+        Download export = download("/api/v1/albums/export?format=ndjson", "gzip");
+        Download snapshot = download("/api/v1/albums/snapshot", "zstd, gzip");
+
+        System.out.printf("%nWhole catalogue of %,d albums, %d downloads each:%n", rows, requests);
+        System.out.printf("  export ndjson+gzip:  %,8.1f ms CPU per download, %,d bytes%n", export.cpuMillis(), export.bytes());
+        System.out.printf("  snapshot zstd:       %,8.1f ms CPU per download, %,d bytes%n", snapshot.cpuMillis(), snapshot.bytes());
+
+        assertThat(snapshot.bytes()).isLessThan(export.bytes());
+        assertThat(snapshot.cpuMillis()).isLessThan(export.cpuMillis() / 4);
+    }
+
+    private Download download(String path, String acceptEncoding) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Accept-Encoding", acceptEncoding)
+                .build();
+        // Warm up
+        for (int i = 0; i < 3; i++) {
+            client.send(request, HttpResponse.BodyHandlers.discarding());
+        }
+        long bytes = 0;
+        long start = processCpuTime();
+        for (int i = 0; i < requests; i++) {
+            HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            assertThat(response.statusCode()).isEqualTo(200);
+            assertThat(response.headers().firstValue("Content-Encoding")).isPresent();
+            bytes = response.body().length;
+        }
+        return new Download((processCpuTime() - start) / 1_000_000.0 / requests, bytes);
+    }
+
+    private static long processCpuTime() {
+        return ((com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean()).getProcessCpuTime();
+    }
+
+    private record Download(double cpuMillis, long bytes) {
+    }
+}
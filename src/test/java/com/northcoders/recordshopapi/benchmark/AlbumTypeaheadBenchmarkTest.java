@@ -0,0 +1,91 @@
+package com.northcoders.recordshopapi.benchmark;
+
+import com.northcoders.recordshopapi.search.TypeaheadIndex;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static com.northcoders.recordshopapi.benchmark.AlbumIndexBenchmarkTest.percentile;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Memory and latency of typeahead suggestions over generated album names, with counts skewed so
+ * that a few names are much more common than the rest:
+ * {@code mvn test -Pbenchmark -Dtest=AlbumTypeaheadBenchmarkTest [-Dbenchmark.rows=1000000]}
+ */
+@Tag("benchmark")
+public class AlbumTypeaheadBenchmarkTest {
+
+    private static final String[] SYLLABLES = {"ba", "ro", "ke", "li", "mu", "sa", "to", "ne", "di", "va",
+            "lo", "ri", "po", "ma", "ze", "ku", "fi", "go", "te", "ya"};
+    private static final String[] ARTICLES = {"", "", "", "The ", "A "};
+
+    private final int rows = Integer.getInteger("benchmark.rows", 1_000_000);
+    private final int lookups = Integer.getInteger("benchmark.lookups", 10_000);
+
+    @Test
+    @DisplayName("Typeahead suggestions at a million names")
+    public void suggestLatency() {
+        Random random = new Random(42);
+        Map<String, Long> counts = new HashMap<>();
+        long textBytes = 0;
+        while (counts.size() < rows) {
+            String name = name(random);
+            if (counts.put(name, 1L + (long) Math.pow(random.nextDouble(), 8) * 1000) == null) {
+                textBytes += name.getBytes(StandardCharsets.UTF_8).length;
+            }
+        }
+
+        long start = System.nanoTime();
+        TypeaheadIndex index = new TypeaheadIndex(counts);
+        double buildSeconds = (System.nanoTime() - start) / 1e9;
+        // Changes made since the last rebuild, as the index sees them between rebuilds
+        counts.keySet().stream().limit(5_000).forEach(name -> index.add(name, random.nextBoolean() ? 1 : -1));
+
+        String[] prefixes = new String[lookups];
+        Random prefixRandom = new Random(7);
+        for (int i = 0; i < lookups; i++) {
+            String name = name(prefixRandom).toLowerCase();
+            prefixes[i] = name.substring(0, 1 + prefixRandom.nextInt(3));
+        }
+        // Warm up, so that the measurements do not also pay for JIT compilation
+        for (String prefix : prefixes) {
+            index.suggest(prefix, 10);
+        }
+
+        double[] millis = new double[lookups];
+        int empty = 0;
+        for (int i = 0; i < lookups; i++) {
+            long lookupStart = System.nanoTime();
+            if (index.suggest(prefixes[i], 10).isEmpty()) {
+                empty++;
+            }
+            millis[i] = (System.nanoTime() - lookupStart) / 1_000_000.0;
+        }
+
+        System.out.printf("%nTypeahead over %,d names (%,d keys): built in %.1f s, FST %,d KB for %,d KB of text%n",
+                counts.size(), index.entries(), buildSeconds, index.fstBytes() >> 10, textBytes >> 10);
+        System.out.printf("%-10s %10s %10s %10s%n", "prefix", "p50 ms", "p99 ms", "max ms");
+        System.out.printf("%-10s %10.3f %10.3f %10.3f%n", "1-3 chars",
+                percentile(millis, 50), percentile(millis, 99), percentile(millis, 100));
+        assertThat(empty).isZero();
+    }
+
+    private static String name(Random random) {
+        StringBuilder name = new StringBuilder(ARTICLES[random.nextInt(ARTICLES.length)]);
+        for (int words = 1 + random.nextInt(3); words > 0; words--) {
+            StringBuilder word = new StringBuilder();
+            for (int syllables = 2 + random.nextInt(3); syllables > 0; syllables--) {
+                word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+            }
+            word.setCharAt(0, Character.toUpperCase(word.charAt(0)));
+            name.append(word).append(words > 1 ? " " : "");
+        }
+        return name.toString();
+    }
+}
@@ -0,0 +1,33 @@
+package com.northcoders.recordshopapi.benchmark;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Load on Tomcat's default platform-thread pool, on H2. Run together with
+ * {@link VirtualThreadLoadBenchmarkTest} to compare:
+ * {@code mvn test -Pbenchmark -Dtest='*ThreadLoadBenchmarkTest' [-Dbenchmark.clients=400 -Dbenchmark.requests=10 -Dbenchmark.dbLatencyMs=5]}
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        // Every client sends from one address, and more at once than admission control lets in
+        properties = {"spring.datasource.hikari.maximum-pool-size=20",
+                "recordshop.rate-limit.enabled=false", "recordshop.admission.enabled=false"})
+@ActiveProfiles("dev")
+@Import(ThreadModeLoadBenchmark.InFlightRequestsConfig.class)
+public class PlatformThreadLoadBenchmarkTest extends ThreadModeLoadBenchmark {
+
+    @Test
+    @DisplayName("Latency and concurrency with platform request threads")
+    public void platformThreads() throws Exception {
+        LoadResult result = runLoad("platform");
+
+        assertThat(result.peakConcurrent()).isLessThanOrEqualTo(200);
+    }
+}
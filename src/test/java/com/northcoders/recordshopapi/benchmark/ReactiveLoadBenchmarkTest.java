@@ -0,0 +1,31 @@
+package com.northcoders.recordshopapi.benchmark;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Load with the {@code reactive} profile, on Netty and R2DBC against H2. See
+ * {@link PlatformThreadLoadBenchmarkTest}; the R2DBC pool has the same 20 connections as Hikari there.
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.r2dbc.pool.max-size=20")
+@ActiveProfiles({"dev", "reactive"})
+@Import(ThreadModeLoadBenchmark.InFlightRequestsConfig.class)
+public class ReactiveLoadBenchmarkTest extends ThreadModeLoadBenchmark {
+
+    @Test
+    @DisplayName("Latency, concurrency and memory per client on the non-blocking stack")
+    public void reactive() throws Exception {
+        LoadResult result = runLoad("reactive");
+
+        assertThat(result.errors()).isZero();
+        assertThat(result.peakConcurrent()).isGreaterThan(200);
+    }
+}
@@ -0,0 +1,117 @@
+package com.northcoders.recordshopapi.benchmark;
+
+import com.northcoders.recordshopapi.exception.InsufficientStockException;
+import com.northcoders.recordshopapi.model.Album;
+import com.northcoders.recordshopapi.repository.RecordShopRepository;
+import com.northcoders.recordshopapi.service.RecordShopService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.northcoders.recordshopapi.model.Album.Genre.ROCK;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Sells out an album to concurrent buyers through reserveStock and through the read-modify-write
+ * updateAlbum path it replaces, on H2:
+ * {@code mvn test -Pbenchmark -Dtest=StockContentionBenchmarkTest [-Dbenchmark.buyers=64 -Dbenchmark.stock=20000]}
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("dev")
+public class StockContentionBenchmarkTest {
+
+    private final int buyers = Integer.getInteger("benchmark.buyers", 64);
+    private final int stock = Integer.getInteger("benchmark.stock", 20_000);
+
+    @Autowired
+    private RecordShopService recordShopService;
+
+    @Autowired
+    private RecordShopRepository repository;
+
+    @AfterEach
+    public void cleanup() {
+        repository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("Sale throughput and lost updates with concurrent buyers")
+    public void stockContention() throws Exception {
+        long atomicId = newAlbum();
+        AtomicInteger atomicSales = new AtomicInteger();
+        double atomicSeconds = race(() -> {
+            while (true) {
+                try {
+                    recordShopService.reserveStock(atomicId, 1);
+                    atomicSales.incrementAndGet();
+                } catch (InsufficientStockException e) {
+                    return;
+                }
+            }
+        });
+
+        long naiveId = newAlbum();
+        AtomicInteger naiveSales = new AtomicInteger();
+        double naiveSeconds = race(() -> {
+            while (true) {
+                Album album = repository.findById(naiveId).orElseThrow();
+                if (album.getQuantity() < 1) {
+                    return;
+                }
+                album.setQuantity(album.getQuantity() - 1);
+                recordShopService.updateAlbum(naiveId, album);
+                naiveSales.incrementAndGet();
+            }
+        });
+
+        System.out.printf("%nSelling %,d copies to %d buyers%n", stock, buyers);
+        System.out.printf("%-24s %,10.0f sales/s  %,8d sold  %,8d oversold%n",
+                "reserveStock", atomicSales.get() / atomicSeconds, atomicSales.get(), atomicSales.get() - stock);
+        System.out.printf("%-24s %,10.0f sales/s  %,8d sold  %,8d oversold%n",
+                "read, updateAlbum", naiveSales.get() / naiveSeconds, naiveSales.get(), naiveSales.get() - stock);
+
+        assertThat(atomicSales.get()).isEqualTo(stock);
+        assertThat(repository.findById(atomicId).orElseThrow().getQuantity()).isZero();
+    }
+
+    private long newAlbum() {
+        return repository.save(new Album(0L, "Album", "Artist", ROCK, Year.of(2001), 10, null, stock)).getId();
+    }
+
+    private double race(Runnable buyer) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(buyers);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < buyers; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    buyer.run();
+                    return null;
+                }));
+            }
+            long begin = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            return (System.nanoTime() - begin) / 1_000_000_000.0;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package com.northcoders.recordshopapi.benchmark;
+
+import com.northcoders.recordshopapi.model.Album;
+import com.northcoders.recordshopapi.repository.RecordShopRepository;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Statement;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import javax.sql.DataSource;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static com.northcoders.recordshopapi.model.Album.Genre.ROCK;
+
+/**
+ * Drives a running server with many concurrent clients that each page through albums, and reports
+ * latency percentiles, the peak number of requests the server was handling at once, and the peak
+ * live threads and heap growth per client connection. H2 answers in-process without ever blocking,
+ * so every statement is delayed by {@code benchmark.dbLatencyMs} while holding its connection, as a
+ * round trip to a database server would be. The delay is a sleep on JDBC and a timer on R2DBC.
+ */
+abstract class ThreadModeLoadBenchmark {
+
+    final int clients = Integer.getInteger("benchmark.clients", 400);
+    final int requestsPerClient = Integer.getInteger("benchmark.requests", 10);
+
+    @LocalServerPort
+    int port;
+
+    @Autowired
+    RecordShopRepository repository;
+
+    @Autowired
+    InFlightRequests inFlightRequests;
+
+    @BeforeEach
+    public void seed() {
+        repository.saveAll(IntStream.range(0, 1000)
+                .mapToObj(i -> new Album(0L, "Album " + i, "Artist " + (i % 50), ROCK, Year.of(1950 + i % 75), 10, null, 5))
+                .toList());
+    }
+
+    @AfterEach
+    public void cleanup() {
+        repository.deleteAllInBatch();
+    }
+
+    LoadResult runLoad(String mode) throws Exception {
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(30))
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/albums/?limit=20"))
+                .timeout(Duration.ofSeconds(60))
+                .build();
+        AtomicInteger errors = new AtomicInteger();
+        long[] latencies = new long[clients * requestsPerClient];
+        AtomicInteger next = new AtomicInteger();
+        inFlightRequests.reset();
+        ResourceSampler sampler = new ResourceSampler();
+
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int c = 0; c < clients; c++) {
+                futures.add(executor.submit(() -> {
+                    for (int r = 0; r < requestsPerClient; r++) {
+                        long sent = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() != 200) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (IOException e) {
+                            errors.incrementAndGet();
+                        }
+                        latencies[next.getAndIncrement()] = System.nanoTime() - sent;
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        sampler.stop();
+
+        Arrays.sort(latencies);
+        LoadResult result = new LoadResult(latencies.length / seconds, millis(latencies, 50), millis(latencies, 99),
+                inFlightRequests.peak(), errors.get(), sampler.peakThreads(), sampler.heapGrowth() / 1024.0 / clients);
+        System.out.printf("%n%-9s %,d clients x %d requests: %,8.0f req/s  p50 %,7.1f ms  p99 %,7.1f ms  "
+                        + "peak concurrent %,5d  errors %,d%n"
+                        + "%-9s peak platform threads %,d  heap growth %,.1f KB per client%n",
+                mode, clients, requestsPerClient, result.requestsPerSecond(), result.p50Millis(), result.p99Millis(),
+                result.peakConcurrent(), result.errors(), "", result.peakThreads(), result.heapKbPerClient());
+        return result;
+    }
+
+    private static double millis(long[] sortedNanos, int percentile) {
+        int index = (int) Math.ceil(percentile / 100.0 * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(0, index)] / 1_000_000.0;
+    }
+
+    record LoadResult(double requestsPerSecond, double p50Millis, double p99Millis, int peakConcurrent, int errors,
+                      int peakThreads, double heapKbPerClient) {
+    }
+
+    /**
+     * Samples live platform threads and used heap every 10 ms. The heap figure is the peak minus the
+     * used heap after a GC at the start, so it counts garbage as well as live per-connection state;
+     * it is only meaningful when compared between runs with the same load.
+     */
+    private static class ResourceSampler {
+        private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        private final AtomicInteger peakThreads = new AtomicInteger();
+        private final AtomicLong peakHeap = new AtomicLong();
+        private final long baseline;
+
+        ResourceSampler() {
+            System.gc();
+            baseline = memory.getHeapMemoryUsage().getUsed();
+            executor.scheduleAtFixedRate(() -> {
+                peakThreads.accumulateAndGet(threads.getThreadCount(), Math::max);
+                peakHeap.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+            }, 0, 10, TimeUnit.MILLISECONDS);
+        }
+
+        void stop() throws InterruptedException {
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+        }
+
+        int peakThreads() {
+            return peakThreads.get();
+        }
+
+        long heapGrowth() {
+            return Math.max(0, peakHeap.get() - baseline);
+        }
+    }
+
+    /**
+     * Counts requests in progress on either web stack: as a servlet filter on Tomcat and as a web
+     * filter on Netty. Each stack ignores the contract it does not use.
+     */
+    static class InFlightRequests extends OncePerRequestFilter implements WebFilter {
+        private final AtomicInteger current = new AtomicInteger();
+        private final AtomicInteger peak = new AtomicInteger();
+
+        @Override
+        protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+                throws ServletException, IOException {
+            peak.accumulateAndGet(current.incrementAndGet(), Math::max);
+            try {
+                chain.doFilter(request, response);
+            } finally {
+                current.decrementAndGet();
+            }
+        }
+
+        @Override
+        public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+            return Mono.defer(() -> {
+                peak.accumulateAndGet(current.incrementAndGet(), Math::max);
+                return chain.filter(exchange);
+            }).doFinally(signal -> current.decrementAndGet());
+        }
+
+        void reset() {
+            peak.set(0);
+        }
+
+        int peak() {
+            return peak.get();
+        }
+    }
+
+    @TestConfiguration
+    static class InFlightRequestsConfig {
+        @Bean
+        InFlightRequests inFlightRequests() {
+            return new InFlightRequests();
+        }
+
+        @Bean
+        static BeanPostProcessor databaseLatency() {
+            long latencyMillis = Long.getLong("benchmark.dbLatencyMs", 5);
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (bean instanceof DataSource dataSource && !(bean instanceof DelegatingDataSource)) {
+                        return new DelegatingDataSource(dataSource) {
+                            @Override
+                            public java.sql.Connection getConnection() throws SQLException {
+                                return withLatency(super.getConnection(), latencyMillis);
+                            }
+                        };
+                    }
+                    if (bean instanceof DatabaseClient databaseClient) {
+                        return DatabaseClient.create(withLatency(databaseClient.getConnectionFactory(), latencyMillis));
+                    }
+                    return bean;
+                }
+            };
+        }
+
+        private static java.sql.Connection withLatency(java.sql.Connection connection, long latencyMillis) {
+            return (java.sql.Connection) Proxy.newProxyInstance(java.sql.Connection.class.getClassLoader(),
+                    new Class<?>[]{java.sql.Connection.class},
+                    (proxy, method, args) -> {
+                        if (method.getName().equals("prepareStatement")) {
+                            Thread.sleep(latencyMillis);
+                        }
+                        try {
+                            return method.invoke(connection, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+        }
+
+        private static ConnectionFactory withLatency(ConnectionFactory connectionFactory, long latencyMillis) {
+            return delegate(ConnectionFactory.class, connectionFactory, (method, args) -> method.getName().equals("create")
+                    ? Mono.from(connectionFactory.create()).map(connection -> withLatency(connection, latencyMillis))
+                    : null);
+        }
+
+        private static Connection withLatency(Connection connection, long latencyMillis) {
+            return delegate(Connection.class, connection, (method, args) -> method.getName().equals("createStatement")
+                    ? withLatency(connection.createStatement((String) args[0]), latencyMillis)
+                    : null);
+        }
+
+        private static Statement withLatency(Statement statement, long latencyMillis) {
+            return delegate(Statement.class, statement, (method, args) -> method.getName().equals("execute")
+                    ? Mono.delay(Duration.ofMillis(latencyMillis)).thenMany(statement.execute())
+                    : null);
+        }
+
+        /**
+         * Proxies {@code target}, answering a call from {@code interceptor} when it returns non-null.
+         * Calls that return the target itself, such as the builder methods of a statement, return the
+         * proxy instead so that the interceptor stays in place.
+         */
+        @SuppressWarnings("unchecked")
+        private static <T> T delegate(Class<T> type, T target, Interceptor interceptor) {
+            Object[] self = new Object[1];
+            self[0] = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+                Object result = interceptor.invoke(method, args);
+                if (result != null) {
+                    return result;
+                }
+                try {
+                    result = method.invoke(target, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+                return result == target ? self[0] : result;
+            });
+            return (T) self[0];
+        }
+
+        @FunctionalInterface
+        private interface Interceptor {
+            Object invoke(java.lang.reflect.Method method, Object[] args);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.northcoders.recordshopapi.benchmark;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Load with the {@code virtual} profile, on H2. See {@link PlatformThreadLoadBenchmarkTest}.
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        // Every client sends from one address, and more at once than admission control lets in
+        properties = {"spring.datasource.hikari.maximum-pool-size=20",
+                "recordshop.rate-limit.enabled=false", "recordshop.admission.enabled=false"})
+@ActiveProfiles({"dev", "virtual"})
+@Import(ThreadModeLoadBenchmark.InFlightRequestsConfig.class)
+public class VirtualThreadLoadBenchmarkTest extends ThreadModeLoadBenchmark {
+
+    @Test
+    @DisplayName("Latency and concurrency with virtual request threads")
+    public void virtualThreads() throws Exception {
+        LoadResult result = runLoad("virtual");
+
+        assertThat(Thread.currentThread().isVirtual()).isFalse();
+        assertThat(result.peakConcurrent()).isGreaterThan(200);
+    }
+}
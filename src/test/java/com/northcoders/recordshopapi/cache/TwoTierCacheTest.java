@@ -0,0 +1,200 @@
+package com.northcoders.recordshopapi.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.northcoders.recordshopapi.model.Album;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.redis.connection.DefaultMessage;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.northcoders.recordshopapi.model.Album.Genre.JAZZ;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two nodes sharing one L2 stand-in and an in-memory invalidation bus in place of Redis pub/sub.
+ */
+public class TwoTierCacheTest {
+
+    private final List<TwoTierCacheManager> nodes = new ArrayList<>();
+
+    private TwoTierCacheManager nodeA;
+    private TwoTierCacheManager nodeB;
+    private ConcurrentMapCacheManager sharedRemote;
+
+    @BeforeEach
+    public void setup() {
+        sharedRemote = new ConcurrentMapCacheManager();
+        CacheInvalidationPublisher bus = invalidation -> nodes.forEach(node -> node.onInvalidation(invalidation));
+        nodeA = new TwoTierCacheManager(new CaffeineCacheManager(), sharedRemote, bus, Set.of("album"));
+        nodeB = new TwoTierCacheManager(new CaffeineCacheManager(), sharedRemote, bus, Set.of("album"));
+        nodes.addAll(List.of(nodeA, nodeB));
+    }
+
+    @Test
+    @DisplayName("A value cached on one node is read through L2 on another node")
+    public void readsThroughSharedTier() {
+        //Arrange
+        Album album = new Album(1L, "Album1", "ArtistName1", JAZZ, Year.of(2001), 10, "Good Album1", 5);
+
+        //Act
+        nodeA.getCache("album").put(1L, album);
+        Cache.ValueWrapper actual = nodeB.getCache("album").get(1L);
+
+        //Assert
+        assertThat(actual).isNotNull();
+        assertThat(actual.get()).isEqualTo(album);
+        assertThat(((TwoTierCache) nodeB.getCache("album")).getLocalCache().get("1")).isNotNull();
+    }
+
+    @Test
+    @DisplayName("An update on one node drops the stale L1 entry on the other node")
+    public void updateInvalidatesOtherNodes() {
+        //Arrange
+        Album original = new Album(2L, "Album2", "ArtistName2", JAZZ, Year.of(2002), 20, "Fine Album2", 7);
+        Album updated = new Album(2L, "Album2", "ArtistName2", JAZZ, Year.of(2002), 20, "Fine Album2", 6);
+        nodeA.getCache("album").put(2L, original);
+        nodeB.getCache("album").get(2L);
+
+        //Act
+        nodeA.getCache("album").put(2L, updated);
+
+        //Assert
+        assertThat(nodeB.getCache("album").get(2L).get()).isEqualTo(updated);
+    }
+
+    @Test
+    @DisplayName("A value loaded on a miss on one node leaves the L1 entry of the other node in place")
+    public void loadDoesNotInvalidateOtherNodes() {
+        //Arrange
+        Album album = new Album(6L, "Album6", "ArtistName6", JAZZ, Year.of(2006), 12, "Album6", 3);
+        nodeB.getCache("album").put(6L, album);
+        // The shared entry expires while node B still holds its own copy
+        sharedRemote.getCache("album").clear();
+
+        //Act
+        Album loaded = nodeA.getCache("album").get(6L, () -> album);
+
+        //Assert
+        assertThat(loaded).isEqualTo(album);
+        assertThat(((TwoTierCache) nodeB.getCache("album")).getLocalCache().get("6")).isNotNull();
+        assertThat(((TwoTierCache) nodeA.getCache("album")).getLocalCache().get("6")).isNotNull();
+        assertThat(sharedRemote.getCache("album").get("6")).isNotNull();
+    }
+
+    @Test
+    @DisplayName("A load that finishes after another node's update keeps the updated value in L2")
+    public void loadDoesNotOverwriteNewerValue() {
+        //Arrange
+        Album stale = new Album(7L, "Album7", "ArtistName7", JAZZ, Year.of(2007), 12, "Album7", 4);
+        Album updated = new Album(7L, "Album7", "ArtistName7", JAZZ, Year.of(2007), 12, "Album7", 3);
+
+        //Act
+        Album loaded = nodeA.getCache("album").get(7L, () -> {
+            // Node B's write reaches L2 while node A is still reading the database
+            sharedRemote.getCache("album").put("7", updated);
+            return stale;
+        });
+
+        //Assert
+        assertThat(loaded).isEqualTo(updated);
+        assertThat(sharedRemote.getCache("album").get("7").get()).isEqualTo(updated);
+        assertThat(nodeA.getCache("album").get(7L).get()).isEqualTo(updated);
+    }
+
+    @Test
+    @DisplayName("Concurrent misses for the same key on one node call the loader once")
+    public void concurrentMissesLoadOnce() throws Exception {
+        //Arrange
+        Album album = new Album(8L, "Album8", "ArtistName8", JAZZ, Year.of(2008), 12, "Album8", 2);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Callable<Album> loader = () -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            release.await();
+            return album;
+        };
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        //Act
+        Future<Album> first = executor.submit(() -> nodeA.getCache("album").get(8L, loader));
+        loading.await();
+        Future<Album> second = executor.submit(() -> nodeA.getCache("album").get(8L, loader));
+        Thread.sleep(100);
+        release.countDown();
+
+        //Assert
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo(album);
+        assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo(album);
+        assertThat(loads).hasValue(1);
+        executor.shutdown();
+    }
+
+    @Test
+    @DisplayName("Evicting or clearing on one node removes the entry for every node")
+    public void evictAndClearInvalidateOtherNodes() {
+        //Arrange
+        Album album = new Album(3L, "Album3", "ArtistName3", JAZZ, Year.of(2003), 30, "Great Album3", 9);
+        nodeA.getCache("album").put(3L, album);
+        nodeA.getCache("album").put(4L, album);
+        nodeB.getCache("album").get(3L);
+        nodeB.getCache("album").get(4L);
+
+        //Act
+        nodeA.getCache("album").evict(3L);
+
+        //Assert
+        assertThat(nodeB.getCache("album").get(3L)).isNull();
+        assertThat(nodeB.getCache("album").get(4L)).isNotNull();
+
+        //Act
+        nodeA.getCache("album").clear();
+
+        //Assert
+        assertThat(nodeB.getCache("album").get(4L)).isNull();
+    }
+
+    @Test
+    @DisplayName("The Redis listener applies invalidations from other nodes and ignores its own")
+    public void redisListenerAppliesRemoteInvalidations() throws Exception {
+        //Arrange
+        ObjectMapper mapper = new ObjectMapper();
+        RedisCacheInvalidationListener listener = new RedisCacheInvalidationListener(nodeB, mapper);
+        Album album = new Album(5L, "Album5", "ArtistName5", JAZZ, Year.of(2005), 12, "Album5", 1);
+        nodeB.getCache("album").put(5L, album);
+        Cache local = ((TwoTierCache) nodeB.getCache("album")).getLocalCache();
+
+        //Act
+        listener.onMessage(message(mapper, new CacheInvalidation(nodeB.getNodeId(), "album", "5")), null);
+
+        //Assert
+        assertThat(local.get("5")).isNotNull();
+
+        //Act
+        listener.onMessage(message(mapper, new CacheInvalidation("another-node", "album", "5")), null);
+
+        //Assert
+        assertThat(local.get("5")).isNull();
+    }
+
+    private static DefaultMessage message(ObjectMapper mapper, CacheInvalidation invalidation) throws Exception {
+        return new DefaultMessage("channel".getBytes(StandardCharsets.UTF_8), mapper.writeValueAsBytes(invalidation));
+    }
+}
@@ -0,0 +1,182 @@
+package com.northcoders.recordshopapi.changes;
+
+import com.northcoders.recordshopapi.exception.AlbumChangeExpiredException;
+import com.northcoders.recordshopapi.exception.InsufficientStockException;
+import com.northcoders.recordshopapi.model.Album;
+import com.northcoders.recordshopapi.model.AlbumChange;
+import com.northcoders.recordshopapi.model.AlbumChangedEvent;
+import com.northcoders.recordshopapi.repository.AlbumChangeRepository;
+import com.northcoders.recordshopapi.repository.RecordShopRepository;
+import com.northcoders.recordshopapi.service.AlbumBatchService;
+import com.northcoders.recordshopapi.service.AlbumChangeService;
+import com.northcoders.recordshopapi.service.RecordShopService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Year;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static com.northcoders.recordshopapi.model.Album.Genre.JAZZ;
+import static com.northcoders.recordshopapi.model.Album.Genre.ROCK;
+import static com.northcoders.recordshopapi.model.AlbumChangedEvent.Type.ADDED;
+import static com.northcoders.recordshopapi.model.AlbumChangedEvent.Type.DELETED;
+import static com.northcoders.recordshopapi.model.AlbumChangedEvent.Type.UPDATED;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest(properties = "recordshop.changes.retention=0s")
+@ActiveProfiles("dev")
+public class AlbumChangePublisherTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    @Autowired
+    private RecordShopService recordShopService;
+
+    @Autowired
+    private AlbumBatchService albumBatchService;
+
+    @Autowired
+    private AlbumChangeService albumChangeService;
+
+    @Autowired
+    private AlbumChangePublisher publisher;
+
+    @Autowired
+    private AlbumChangeOutbox outbox;
+
+    @Autowired
+    private AlbumChangeRepository changeRepository;
+
+    @Autowired
+    private RecordShopRepository repository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private long start;
+
+    // Changes are kept between tests, as deleting them would restart the positions
+    @BeforeEach
+    public void setup() {
+        publisher.publish();
+        start = publisher.getLastPosition();
+    }
+
+    @AfterEach
+    public void cleanup() {
+        repository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("Writes through the services are streamed in order, numbered from the position resumed after")
+    public void streamsWrites() {
+        //Arrange
+        Album album = recordShopService.addAlbum(new Album(0L, "Abbey Road", "The Beatles", ROCK, Year.of(1969), 17, null, 5));
+        recordShopService.updateAlbum(album.getId(), new Album(0L, "Let It Be", "The Beatles", ROCK, Year.of(1970), 12, null, 5));
+        recordShopService.reserveStock(album.getId(), 2);
+        recordShopService.deleteAlbumById(album.getId());
+
+        //Act
+        List<AlbumChange> changes = albumChangeService.streamAlbumChanges(start).take(4).collectList().block(TIMEOUT);
+        List<AlbumChange> resumed = albumChangeService.streamAlbumChanges(start + 2).take(2).collectList().block(TIMEOUT);
+
+        //Assert
+        assertThat(changes).extracting(AlbumChange::getType).containsExactly(ADDED, UPDATED, UPDATED, DELETED);
+        assertThat(changes).extracting(AlbumChange::getPosition).containsExactly(start + 1, start + 2, start + 3, start + 4);
+        assertThat(changes).extracting(AlbumChange::getAlbumId).containsOnly(album.getId());
+        assertThat(changes.get(1).getAlbum()).contains("\"name\":\"Let It Be\"");
+        assertThat(changes.get(2).getAlbum()).contains("\"quantity\":3");
+        assertThat(changes.get(3).getAlbum()).isNull();
+        assertThat(resumed).isEqualTo(changes.subList(2, 4));
+    }
+
+    @Test
+    @DisplayName("A write that fails leaves no change behind, and a batch records one change per album")
+    public void recordsCommittedWritesOnly() {
+        //Arrange
+        Album album = recordShopService.addAlbum(new Album(0L, "Kind of Blue", "Miles Davis", JAZZ, Year.of(1959), 5, null, 1));
+        String ndjson = """
+                {"name":"Blue Train","artist":"John Coltrane","genre":"JAZZ","year":"1958","tracks":5,"quantity":4}
+                {"name":"Giant Steps","artist":"John Coltrane","genre":"JAZZ","year":"1960","tracks":7,"quantity":2}
+                """;
+
+        //Act
+        assertThrows(InsufficientStockException.class, () -> recordShopService.reserveStock(album.getId(), 2));
+        albumBatchService.addAlbums(new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)));
+        List<AlbumChange> changes = albumChangeService.streamAlbumChanges(start).take(3).collectList().block(TIMEOUT);
+
+        //Assert
+        assertThat(changes).extracting(AlbumChange::getType).containsExactly(ADDED, ADDED, ADDED);
+        assertThat(changeRepository.findByPositionGreaterThanOrderByPositionAsc(start, Limit.of(10)))
+                .hasSize(3);
+    }
+
+    @Test
+    @DisplayName("A change that commits after a later one was published gets the next position rather than being skipped")
+    public void numbersChangesInCommitOrder() throws Exception {
+        //Arrange
+        Album album = recordShopService.addAlbum(new Album(0L, "Blue Train", "John Coltrane", JAZZ, Year.of(1958), 5, null, 4));
+        publisher.publish();
+        CountDownLatch recorded = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        CompletableFuture<Void> slowWrite = CompletableFuture.runAsync(() -> new TransactionTemplate(transactionManager)
+                .executeWithoutResult(status -> {
+                    outbox.record(AlbumChangedEvent.deleted(album.getId(), album));
+                    recorded.countDown();
+                    await(commit);
+                }));
+
+        //Act
+        await(recorded);
+        recordShopService.addAlbum(new Album(0L, "Giant Steps", "John Coltrane", JAZZ, Year.of(1960), 7, null, 2));
+        publisher.publish();
+        commit.countDown();
+        slowWrite.get(10, TimeUnit.SECONDS);
+        publisher.publish();
+        List<AlbumChange> changes = albumChangeService.streamAlbumChanges(start + 1).take(2).collectList().block(TIMEOUT);
+
+        //Assert
+        assertThat(changes).extracting(AlbumChange::getType).containsExactly(ADDED, DELETED);
+        assertThat(changes).extracting(AlbumChange::getPosition).containsExactly(start + 2, start + 3);
+    }
+
+    @Test
+    @DisplayName("Resuming from before the oldest change kept fails, while the latest change is always kept")
+    public void resumingBeforeRetentionFails() {
+        //Arrange
+        recordShopService.addAlbum(new Album(0L, "Help!", "The Beatles", ROCK, Year.of(1965), 14, null, 5));
+        recordShopService.addAlbum(new Album(0L, "Revolver", "The Beatles", ROCK, Year.of(1966), 14, null, 8));
+        publisher.publish();
+
+        //Act
+        publisher.prune();
+
+        //Assert
+        assertThat(publisher.getFirstPosition()).isEqualTo(start + 2);
+        assertThrows(AlbumChangeExpiredException.class, () -> albumChangeService.streamAlbumChanges(start));
+        assertThat(albumChangeService.streamAlbumChanges(start + 1).blockFirst(TIMEOUT).getPosition()).isEqualTo(start + 2);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.northcoders.recordshopapi.controller;
+
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.northcoders.recordshopapi.exception.AlbumChangeExpiredException;
+import com.northcoders.recordshopapi.exception.AlbumExceptionHandler;
+import com.northcoders.recordshopapi.model.AlbumChange;
+import com.northcoders.recordshopapi.service.AlbumChangeService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import reactor.core.publisher.Flux;
+
+import java.time.Instant;
+
+import static com.northcoders.recordshopapi.model.AlbumChangedEvent.Type.ADDED;
+import static com.northcoders.recordshopapi.model.AlbumChangedEvent.Type.DELETED;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AlbumChangeControllerTest {
+
+    @Mock
+    private AlbumChangeService albumChangeService;
+
+    @InjectMocks
+    private AlbumChangeController albumChangeController;
+
+    private MockMvc mockMvcController;
+
+    @BeforeEach
+    public void setup() {
+        mockMvcController = MockMvcBuilders.standaloneSetup(albumChangeController)
+                .setControllerAdvice(new AlbumExceptionHandler())
+                // As configured by Spring Boot, so dates are written as text
+                .setMessageConverters(new MappingJackson2HttpMessageConverter(Jackson2ObjectMapperBuilder.json()
+                        .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build()))
+                .build();
+    }
+
+    @Test
+    @DisplayName("GET /changes streams each change as an event whose id is its position")
+    void streamAlbumChanges() throws Exception {
+        //Arrange
+        Instant changedAt = Instant.parse("2024-06-01T10:15:30Z");
+        when(albumChangeService.streamAlbumChanges(4L)).thenReturn(Flux.just(
+                new AlbumChange(11L, 5L, ADDED, 7L, "{\"id\":7,\"name\":\"Album7\"}", changedAt),
+                new AlbumChange(12L, 6L, DELETED, 7L, null, changedAt)));
+
+        //Act
+        MvcResult result = this.mockMvcController.perform(MockMvcRequestBuilders.get("/api/v1/albums/changes?after=4")
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+
+        //Assert
+        String events = this.mockMvcController.perform(MockMvcRequestBuilders.asyncDispatch(result))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().contentTypeCompatibleWith(MediaType.TEXT_EVENT_STREAM))
+                .andReturn().getResponse().getContentAsString();
+        assertThat(events).isEqualTo(
+                "id:5\ndata:{\"position\":5,\"type\":\"ADDED\",\"albumId\":7,\"changedAt\":\"2024-06-01T10:15:30Z\"," +
+                        "\"album\":{\"id\":7,\"name\":\"Album7\"}}\n\n" +
+                "id:6\ndata:{\"position\":6,\"type\":\"DELETED\",\"albumId\":7,\"changedAt\":\"2024-06-01T10:15:30Z\"," +
+                        "\"album\":null}\n\n");
+    }
+
+    @Test
+    @DisplayName("GET /changes resumes after the Last-Event-ID header rather than the position in the URL")
+    void streamAlbumChangesAfterLastEventId() throws Exception {
+        //Arrange
+        when(albumChangeService.streamAlbumChanges(9L)).thenReturn(Flux.empty());
+
+        //Act and Assert
+        MvcResult result = this.mockMvcController.perform(MockMvcRequestBuilders.get("/api/v1/albums/changes?after=4")
+                        .header("Last-Event-ID", "9"))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+        this.mockMvcController.perform(MockMvcRequestBuilders.asyncDispatch(result))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+    }
+
+    @Test
+    @DisplayName("GET /changes returns the GONE status code when the changes after the position were deleted")
+    void streamExpiredAlbumChanges() throws Exception {
+        //Arrange
+        when(albumChangeService.streamAlbumChanges(1L)).thenThrow(new AlbumChangeExpiredException("Expired"));
+
+        //Act and Assert
+        this.mockMvcController.perform(MockMvcRequestBuilders.get("/api/v1/albums/changes?after=1"))
+                .andExpect(MockMvcResultMatchers.status().isGone());
+    }
+}
@@ -0,0 +1,164 @@
+package com.northcoders.recordshopapi.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.northcoders.recordshopapi.model.Album;
+import com.northcoders.recordshopapi.repository.RecordShopRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.time.Year;
+
+import static com.northcoders.recordshopapi.model.Album.Genre.ROCK;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * ETags, If-None-Match and If-Match against the database, where the versions are real.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("dev")
+public class AlbumConditionalRequestTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper mapper;
+
+    @Autowired
+    private RecordShopRepository repository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @AfterEach
+    public void cleanup() {
+        repository.deleteAllInBatch();
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+
+    @Test
+    @DisplayName("PUT with the current ETag in If-Match updates the album, and a stale ETag is refused with 412")
+    public void updateIfMatch() throws Exception {
+        //Arrange
+        Album album = repository.save(new Album(0L, "Album1", "ArtistName1", ROCK, Year.of(2001), 10, null, 5));
+        String eTag = mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/albums/{id}", album.getId()))
+                .andExpect(MockMvcResultMatchers.header().exists("Last-Modified"))
+                .andReturn().getResponse().getHeader("ETag");
+        album.setName("Album1 Remastered");
+
+        //Act
+        String newETag = mockMvc.perform(MockMvcRequestBuilders.put("/api/v1/albums/update/{id}", album.getId())
+                        .header("If-Match", eTag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(album)))
+                .andExpect(MockMvcResultMatchers.status().isAccepted())
+                .andReturn().getResponse().getHeader("ETag");
+        mockMvc.perform(MockMvcRequestBuilders.put("/api/v1/albums/update/{id}", album.getId())
+                        .header("If-Match", eTag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(album)))
+                .andExpect(MockMvcResultMatchers.status().isPreconditionFailed());
+
+        //Assert
+        assertThat(newETag).isNotEqualTo(eTag);
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/albums/{id}", album.getId()).header("If-None-Match", newETag))
+                .andExpect(MockMvcResultMatchers.status().isNotModified());
+        assertThat(repository.findById(album.getId()).orElseThrow().getName()).isEqualTo("Album1 Remastered");
+    }
+
+    @Test
+    @DisplayName("PUT refuses with 412 the ETag of another album at the same version")
+    public void updateIfMatchOtherAlbum() throws Exception {
+        //Arrange
+        Album album = repository.save(new Album(0L, "Album1", "ArtistName1", ROCK, Year.of(2001), 10, null, 5));
+        Album other = repository.save(new Album(0L, "Album2", "ArtistName2", ROCK, Year.of(2002), 10, null, 5));
+        String otherETag = mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/albums/{id}", other.getId()))
+                .andReturn().getResponse().getHeader("ETag");
+        album.setName("Album1 Remastered");
+
+        //Act and Assert
+        mockMvc.perform(MockMvcRequestBuilders.put("/api/v1/albums/update/{id}", album.getId())
+                        .header("If-Match", otherETag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(album)))
+                .andExpect(MockMvcResultMatchers.status().isPreconditionFailed());
+        assertThat(repository.findById(album.getId()).orElseThrow().getName()).isEqualTo("Album1");
+    }
+
+    @Test
+    @DisplayName("PATCH changes only the fields sent, honours If-Match, and refuses nulls for required fields")
+    public void patchIfMatch() throws Exception {
+        //Arrange
+        Album album = repository.save(new Album(0L, "Album1", "ArtistName1", ROCK, Year.of(2001), 10, "Good Album1", 5));
+        String eTag = mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/albums/{id}", album.getId()))
+                .andReturn().getResponse().getHeader("ETag");
+
+        //Act
+        String newETag = mockMvc.perform(MockMvcRequestBuilders.patch("/api/v1/albums/update/{id}", album.getId())
+                        .header("If-Match", eTag)
+                        .contentType("application/merge-patch+json")
+                        .content("{\"name\":\"Album1 Remastered\",\"description\":null}"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.name").value("Album1 Remastered"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.artist").value("ArtistName1"))
+                .andReturn().getResponse().getHeader("ETag");
+        mockMvc.perform(MockMvcRequestBuilders.patch("/api/v1/albums/update/{id}", album.getId())
+                        .header("If-Match", eTag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"tracks\":12}"))
+                .andExpect(MockMvcResultMatchers.status().isPreconditionFailed());
+        mockMvc.perform(MockMvcRequestBuilders.patch("/api/v1/albums/update/{id}", album.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":null}"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+        mockMvc.perform(MockMvcRequestBuilders.patch("/api/v1/albums/update/{id}", album.getId() + 1000)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"tracks\":12}"))
+                .andExpect(MockMvcResultMatchers.status().isNotFound());
+
+        //Assert
+        assertThat(newETag).isEqualTo("\"" + album.getId() + "-" + (album.getVersion() + 1) + "\"");
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/albums/{id}", album.getId()).header("If-None-Match", newETag))
+                .andExpect(MockMvcResultMatchers.status().isNotModified());
+        Album patched = repository.findById(album.getId()).orElseThrow();
+        assertThat(patched.getName()).isEqualTo("Album1 Remastered");
+        assertThat(patched.getDescription()).isNull();
+        assertThat(patched.getTracks()).isEqualTo(10);
+        assertThat(patched.getQuantity()).isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("A stock change gives the album and the lists it appears in new ETags")
+    public void stockChangeChangesETags() throws Exception {
+        //Arrange
+        Album album = repository.save(new Album(0L, "Album1", "ArtistName1", ROCK, Year.of(2001), 10, null, 5));
+        String albumETag = mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/albums/{id}", album.getId()))
+                .andReturn().getResponse().getHeader("ETag");
+        String listETag = mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/albums/genre?genre=ROCK"))
+                .andReturn().getResponse().getHeader("ETag");
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/albums/genre?genre=ROCK").header("If-None-Match", listETag))
+                .andExpect(MockMvcResultMatchers.status().isNotModified());
+
+        //Act
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/albums/stock/{id}/reserve", album.getId()))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+
+        //Assert
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/albums/{id}", album.getId()).header("If-None-Match", albumETag))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.quantity").value(4));
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/albums/genre?genre=ROCK").header("If-None-Match", listETag))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+    }
+}
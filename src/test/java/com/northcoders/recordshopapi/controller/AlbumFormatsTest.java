@@ -0,0 +1,154 @@
+package com.northcoders.recordshopapi.controller;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.northcoders.recordshopapi.model.Album;
+import com.northcoders.recordshopapi.repository.RecordShopRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.time.Year;
+import java.util.List;
+
+import static com.northcoders.recordshopapi.model.Album.Genre.JAZZ;
+import static com.northcoders.recordshopapi.model.Album.Genre.ROCK;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Albums asked for and sent as CBOR and Smile rather than JSON.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("dev")
+public class AlbumFormatsTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper mapper;
+
+    @Autowired
+    private Jackson2ObjectMapperBuilder builder;
+
+    @Autowired
+    private RecordShopRepository repository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @AfterEach
+    public void cleanup() {
+        repository.deleteAllInBatch();
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+
+    @Test
+    @DisplayName("GET returns the same albums as CBOR, Smile or JSON, as the Accept header asks, and CBOR is smaller")
+    public void getAlbumsInEachFormat() throws Exception {
+        //Arrange
+        repository.save(new Album(0L, "Kind of Blue", "Miles Davis", JAZZ, Year.of(1959), 5, "Modal jazz", 3));
+        repository.save(new Album(0L, "Sketches of Spain", "Miles Davis", JAZZ, Year.of(1960), 5, null, 1));
+        ObjectMapper cbor = AlbumFormatsConfig.cborMapper(builder);
+        ObjectMapper smile = AlbumFormatsConfig.smileMapper(builder);
+        JavaType albumList = cbor.getTypeFactory().constructCollectionType(List.class, Album.class);
+
+        //Act
+        byte[] json = get(MediaType.APPLICATION_JSON_VALUE);
+        List<Album> fromCbor = cbor.readValue(get(AlbumFormatsConfig.CBOR), albumList);
+        List<Album> fromSmile = smile.readValue(get(AlbumFormatsConfig.SMILE), albumList);
+
+        //Assert
+        List<Album> fromJson = mapper.readValue(json, albumList);
+        assertThat(fromCbor).isEqualTo(fromJson).hasSize(2);
+        assertThat(fromSmile).isEqualTo(fromJson);
+        assertThat(get(AlbumFormatsConfig.CBOR).length).isLessThan(json.length);
+    }
+
+    @Test
+    @DisplayName("GET /{id} varies by Accept and gives each format its own ETag, which If-None-Match and If-Match take")
+    public void eTagPerFormat() throws Exception {
+        //Arrange
+        Album album = repository.save(new Album(0L, "Kind of Blue", "Miles Davis", JAZZ, Year.of(1959), 5, "Modal jazz", 3));
+
+        //Act
+        String jsonETag = mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/albums/{id}", album.getId())
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.header().string("Vary", "Accept"))
+                .andReturn().getResponse().getHeader("ETag");
+        String cborETag = mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/albums/{id}", album.getId())
+                        .accept(AlbumFormatsConfig.SMILE + ";q=0.5", AlbumFormatsConfig.CBOR))
+                .andExpect(MockMvcResultMatchers.content().contentType(AlbumFormatsConfig.CBOR))
+                .andExpect(MockMvcResultMatchers.header().string("Vary", "Accept"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        //Assert
+        assertThat(cborETag).isNotEqualTo(jsonETag);
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/albums/{id}", album.getId())
+                        .accept(AlbumFormatsConfig.CBOR).header("If-None-Match", jsonETag))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/albums/{id}", album.getId())
+                        .accept(AlbumFormatsConfig.CBOR).header("If-None-Match", cborETag))
+                .andExpect(MockMvcResultMatchers.status().isNotModified())
+                .andExpect(MockMvcResultMatchers.header().string("ETag", cborETag));
+        mockMvc.perform(MockMvcRequestBuilders.put("/api/v1/albums/update/{id}", album.getId())
+                        .header("If-Match", cborETag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(album)))
+                .andExpect(MockMvcResultMatchers.status().isAccepted());
+    }
+
+    @Test
+    @DisplayName("POST /add accepts a CBOR album and answers in CBOR")
+    public void addAlbumAsCbor() throws Exception {
+        //Arrange
+        ObjectMapper cbor = AlbumFormatsConfig.cborMapper(builder);
+        Album album = new Album(0L, "Revolver", "The Beatles", ROCK, Year.of(1966), 14, null, 8);
+
+        //Act
+        byte[] response = mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/albums/add")
+                        .contentType(AlbumFormatsConfig.CBOR)
+                        .accept(AlbumFormatsConfig.CBOR)
+                        .content(cbor.writeValueAsBytes(album)))
+                .andExpect(MockMvcResultMatchers.status().isCreated())
+                .andExpect(MockMvcResultMatchers.content().contentType(AlbumFormatsConfig.CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        //Assert
+        Album added = cbor.readValue(response, Album.class);
+        assertThat(added.getName()).isEqualTo("Revolver");
+        assertThat(repository.findById(added.getId())).isPresent();
+    }
+
+    @Test
+    @DisplayName("GET /name returns the album as a JSON object")
+    public void getAlbumInfoAsJson() throws Exception {
+        //Arrange
+        repository.save(new Album(0L, "Kind of Blue", "Miles Davis", JAZZ, Year.of(1959), 5, "Modal jazz", 3));
+
+        //Act and Assert
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/albums/name?name=Kind of Blue"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.artist").value("Miles Davis"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.year").value("1959"));
+    }
+
+    private byte[] get(String mediaType) throws Exception {
+        return mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/albums/artist?artist=Miles Davis").accept(mediaType))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().contentType(mediaType))
+                .andReturn().getResponse().getContentAsByteArray();
+    }
+}
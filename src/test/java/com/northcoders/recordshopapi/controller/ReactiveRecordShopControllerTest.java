@@ -0,0 +1,357 @@
+package com.northcoders.recordshopapi.controller;
+
+import com.northcoders.recordshopapi.changes.AlbumChangePublisher;
+import com.northcoders.recordshopapi.facet.AlbumFacetCounters;
+import com.northcoders.recordshopapi.model.Album;
+import com.northcoders.recordshopapi.model.AlbumChangedEvent;
+import com.northcoders.recordshopapi.model.AlbumFacet;
+import com.northcoders.recordshopapi.repository.RecordShopRepository;
+import com.northcoders.recordshopapi.search.AlbumTypeahead;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.time.Duration;
+import java.time.Year;
+import java.util.List;
+
+import static com.northcoders.recordshopapi.model.Album.Genre.JAZZ;
+import static com.northcoders.recordshopapi.model.Album.Genre.ROCK;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@SpringBootTest
+@AutoConfigureWebTestClient
+@ActiveProfiles({"dev", "reactive"})
+class ReactiveRecordShopControllerTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private RecordShopRepository repository;
+
+    @Autowired
+    private AlbumChangePublisher publisher;
+
+    @SpyBean
+    private AlbumFacetCounters facetCounters;
+
+    @SpyBean
+    private AlbumTypeahead typeahead;
+
+    @AfterEach
+    public void cleanup() {
+        repository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("GET / with a limit returns one page of albums and the cursor of the next page")
+    public void getAllAlbumsPaged() {
+        //Arrange
+        repository.saveAll(List.of(
+                new Album(0L, "Album1", "ArtistName1", ROCK, Year.of(2001), 10, null, 5),
+                new Album(0L, "Album2", "ArtistName2", JAZZ, Year.of(2002), 11, null, 6),
+                new Album(0L, "Album3", "ArtistName3", ROCK, Year.of(2003), 12, null, 7)));
+
+        //Act
+        WebTestClient.ResponseSpec firstPage = webTestClient.get().uri("/api/v1/albums/?limit=2").exchange();
+        String cursor = firstPage.returnResult(Album.class).getResponseHeaders().getFirst("X-Next-Cursor");
+        WebTestClient.ResponseSpec lastPage = webTestClient.get().uri("/api/v1/albums/?limit=2&after={cursor}", cursor).exchange();
+
+        //Assert
+        assertThat(cursor).isNotNull();
+        firstPage.expectStatus().isOk()
+                .expectBodyList(Album.class)
+                .value(albums -> assertThat(albums).extracting(Album::getName).containsExactly("Album1", "Album2"));
+        lastPage.expectStatus().isOk()
+                .expectHeader().doesNotExist("X-Next-Cursor")
+                .expectBodyList(Album.class)
+                .value(albums -> assertThat(albums).extracting(Album::getName).containsExactly("Album3"));
+    }
+
+    @Test
+    @DisplayName("POST, PUT and DELETE add, update and remove an album with the same status codes as the MVC API")
+    public void addUpdateAndDeleteAlbum() {
+        //Arrange
+        Album album = new Album(0L, "Album1", "ArtistName1", ROCK, Year.of(2001), 10, "Description", 5);
+
+        //Act
+        Album added = webTestClient.post().uri("/api/v1/albums/add").bodyValue(album).exchange()
+                .expectStatus().isCreated()
+                .expectBody(Album.class).returnResult().getResponseBody();
+        added.setName("Album1 Remastered");
+        webTestClient.put().uri("/api/v1/albums/update/{id}", added.getId()).bodyValue(added).exchange()
+                .expectStatus().isAccepted();
+        Album info = webTestClient.get().uri("/api/v1/albums/name?name=Album1 Remastered").exchange()
+                .expectStatus().isOk()
+                .expectBody(Album.class).returnResult().getResponseBody();
+        webTestClient.delete().uri("/api/v1/albums/delete/{id}", added.getId()).exchange()
+                .expectStatus().isOk();
+
+        //Assert
+        assertThat(added.getId()).isPositive();
+        assertThat(info.getName()).isEqualTo("Album1 Remastered");
+        assertThat(repository.findById(added.getId())).isEmpty();
+        webTestClient.get().uri("/api/v1/albums/{id}", added.getId()).exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    @DisplayName("PUT and DELETE tell listeners what the album held, so facets and typeahead are not rebuilt")
+    public void writesCarryPreviousAlbum() {
+        //Arrange
+        Album added = webTestClient.post().uri("/api/v1/albums/add")
+                .bodyValue(new Album(0L, "Album1", "ArtistName1", ROCK, Year.of(2001), 10, null, 5)).exchange()
+                .expectStatus().isCreated()
+                .expectBody(Album.class).returnResult().getResponseBody();
+        added.setArtist("ArtistName2");
+        clearInvocations(facetCounters, typeahead);
+        ArgumentCaptor<AlbumChangedEvent> events = ArgumentCaptor.forClass(AlbumChangedEvent.class);
+
+        //Act
+        webTestClient.put().uri("/api/v1/albums/update/{id}", added.getId()).bodyValue(added).exchange()
+                .expectStatus().isAccepted();
+        webTestClient.delete().uri("/api/v1/albums/delete/{id}", added.getId()).exchange()
+                .expectStatus().isOk();
+
+        //Assert
+        verify(facetCounters, times(2)).onAlbumChanged(events.capture());
+        assertThat(events.getAllValues()).extracting(event -> event.getPrevious().getArtist())
+                .containsExactly("ArtistName1", "ArtistName2");
+        assertThat(events.getAllValues().get(0).getAlbum().getVersion()).isEqualTo(1);
+        verify(facetCounters, never()).requestReconcile();
+        verify(typeahead, never()).requestRebuild();
+        assertThat(facetCounters.facets(AlbumFacet.Field.ARTIST, 10)).extracting(AlbumFacet::getValue)
+                .doesNotContain("ArtistName1", "ArtistName2");
+    }
+
+    @Test
+    @DisplayName("GET /{id} honours If-None-Match and PUT refuses a stale If-Match with PRECONDITION_FAILED")
+    public void conditionalRequests() {
+        //Arrange
+        Album album = repository.save(new Album(0L, "Album1", "ArtistName1", ROCK, Year.of(2001), 10, null, 5));
+        String eTag = webTestClient.get().uri("/api/v1/albums/{id}", album.getId()).exchange()
+                .expectStatus().isOk()
+                .returnResult(Album.class).getResponseHeaders().getETag();
+        album.setName("Album1 Remastered");
+
+        //Act
+        webTestClient.get().uri("/api/v1/albums/{id}", album.getId()).header("If-None-Match", eTag).exchange()
+                .expectStatus().isNotModified();
+        String newETag = webTestClient.put().uri("/api/v1/albums/update/{id}", album.getId())
+                .header("If-Match", eTag).bodyValue(album).exchange()
+                .expectStatus().isAccepted()
+                .returnResult(Album.class).getResponseHeaders().getETag();
+        WebTestClient.ResponseSpec stale = webTestClient.put().uri("/api/v1/albums/update/{id}", album.getId())
+                .header("If-Match", eTag).bodyValue(album).exchange();
+
+        //Assert
+        stale.expectStatus().isEqualTo(412);
+        assertThat(newETag).isNotEqualTo(eTag);
+        assertThat(repository.findById(album.getId()).orElseThrow().getVersion()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("GET /{id} varies by Accept and gives Smile its own ETag")
+    public void eTagPerFormat() {
+        //Arrange
+        Album album = repository.save(new Album(0L, "Album1", "ArtistName1", ROCK, Year.of(2001), 10, null, 5));
+
+        //Act
+        HttpHeaders json = webTestClient.get().uri("/api/v1/albums/{id}", album.getId()).exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("Vary", "Accept")
+                .returnResult(Album.class).getResponseHeaders();
+        HttpHeaders smile = webTestClient.get().uri("/api/v1/albums/{id}", album.getId())
+                .accept(MediaType.parseMediaType(AlbumFormatsConfig.SMILE)).exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("Vary", "Accept")
+                .returnResult(byte[].class).getResponseHeaders();
+
+        //Assert
+        assertThat(smile.getContentType()).isEqualTo(MediaType.parseMediaType(AlbumFormatsConfig.SMILE));
+        assertThat(smile.getETag()).isNotEqualTo(json.getETag());
+        webTestClient.get().uri("/api/v1/albums/{id}", album.getId())
+                .accept(MediaType.parseMediaType(AlbumFormatsConfig.SMILE)).header("If-None-Match", json.getETag()).exchange()
+                .expectStatus().isOk();
+        webTestClient.get().uri("/api/v1/albums/{id}", album.getId())
+                .accept(MediaType.parseMediaType(AlbumFormatsConfig.SMILE)).header("If-None-Match", smile.getETag()).exchange()
+                .expectStatus().isNotModified();
+    }
+
+    @Test
+    @DisplayName("POST with an invalid album returns BAD_REQUEST")
+    public void addInvalidAlbum() {
+        //Arrange
+        Album album = new Album(0L, null, "ArtistName1", ROCK, Year.of(2001), 10, null, 5);
+
+        //Act
+        WebTestClient.ResponseSpec response = webTestClient.post().uri("/api/v1/albums/add").bodyValue(album).exchange();
+
+        //Assert
+        response.expectStatus().isBadRequest();
+    }
+
+    @Test
+    @DisplayName("GET /genre streams matching albums as newline-delimited JSON")
+    public void getAlbumsByGenreAsNdjson() {
+        //Arrange
+        repository.saveAll(List.of(
+                new Album(0L, "Album1", "ArtistName1", ROCK, Year.of(2001), 10, null, 5),
+                new Album(0L, "Album2", "ArtistName2", JAZZ, Year.of(2002), 11, null, 6),
+                new Album(0L, "Album3", "ArtistName3", ROCK, Year.of(2003), 12, null, 7)));
+
+        //Act
+        List<Album> albums = webTestClient.get().uri("/api/v1/albums/genre?genre=ROCK")
+                .accept(MediaType.APPLICATION_NDJSON).exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(Album.class).getResponseBody().collectList().block();
+
+        //Assert
+        assertThat(albums).extracting(Album::getName).containsExactly("Album1", "Album3");
+    }
+
+    @Test
+    @DisplayName("GET /{id} returns the album as Smile when asked to")
+    public void getAlbumByIdAsSmile() {
+        //Arrange
+        Album album = repository.save(new Album(0L, "Album1", "ArtistName1", ROCK, Year.of(2001), 10, null, 5));
+
+        //Act
+        Album actual = webTestClient.get().uri("/api/v1/albums/{id}", album.getId())
+                .accept(MediaType.parseMediaType(AlbumFormatsConfig.SMILE)).exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(AlbumFormatsConfig.SMILE)
+                .expectBody(Album.class).returnResult().getResponseBody();
+
+        //Assert
+        assertThat(actual.getName()).isEqualTo("Album1");
+    }
+
+    @Test
+    @DisplayName("Stock endpoints refuse a reservation larger than the stock with CONFLICT")
+    public void reserveMoreThanStock() {
+        //Arrange
+        long id = repository.save(new Album(0L, "Album1", "ArtistName1", ROCK, Year.of(2001), 10, null, 2)).getId();
+
+        //Act
+        webTestClient.post().uri("/api/v1/albums/stock/{id}/reserve?quantity=2", id).exchange()
+                .expectStatus().isOk()
+                .expectBody(Album.class).value(album -> assertThat(album.getQuantity()).isZero());
+        WebTestClient.ResponseSpec refused = webTestClient.post()
+                .uri("/api/v1/albums/stock/{id}/reserve", id).exchange();
+
+        //Assert
+        refused.expectStatus().isEqualTo(409);
+        assertThat(repository.findById(id).orElseThrow().getQuantity()).isZero();
+    }
+
+    @Test
+    @DisplayName("POST /stock/{id}/adjust refuses a delta that would take the stock past the int range with BAD_REQUEST")
+    public void adjustStockOutOfRange() {
+        //Arrange
+        long id = repository.save(new Album(0L, "Album1", "ArtistName1", ROCK, Year.of(2001), 10, null, 2)).getId();
+
+        //Act
+        WebTestClient.ResponseSpec refused = webTestClient.post()
+                .uri("/api/v1/albums/stock/{id}/adjust?delta={delta}", id, Integer.MAX_VALUE).exchange();
+
+        //Assert
+        refused.expectStatus().isBadRequest();
+        assertThat(repository.findById(id).orElseThrow().getQuantity()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("GET /search filters albums and reports the total in X-Total-Count")
+    public void searchAlbums() {
+        //Arrange
+        repository.saveAll(List.of(
+                new Album(0L, "Blue Train", "ArtistName1", JAZZ, Year.of(1957), 10, null, 5),
+                new Album(0L, "Blue Lines", "ArtistName2", ROCK, Year.of(1991), 11, null, 0),
+                new Album(0L, "Kind of Blue", "ArtistName3", JAZZ, Year.of(1959), 12, null, 7)));
+
+        //Act
+        WebTestClient.ResponseSpec response = webTestClient.get()
+                .uri("/api/v1/albums/search?name=blue&inStock=true&sort=name").exchange();
+
+        //Assert
+        response.expectStatus().isOk()
+                .expectHeader().valueEquals("X-Total-Count", "1")
+                .expectBodyList(Album.class)
+                .value(albums -> assertThat(albums).extracting(Album::getName).containsExactly("Blue Train"));
+    }
+
+    @Test
+    @DisplayName("GET /find returns albums added through the API, best match first, until they are deleted")
+    public void findAlbums() {
+        //Arrange
+        Album kindOfBlue = webTestClient.post().uri("/api/v1/albums/add")
+                .bodyValue(new Album(0L, "Kind of Blue", "Miles Davis", JAZZ, Year.of(1959), 5, null, 2)).exchange()
+                .expectBody(Album.class).returnResult().getResponseBody();
+        webTestClient.post().uri("/api/v1/albums/add")
+                .bodyValue(new Album(0L, "Blue Train", "John Coltrane", JAZZ, Year.of(1957), 5, "Blue Note", 4)).exchange()
+                .expectStatus().isCreated();
+
+        //Act
+        WebTestClient.ResponseSpec found = webTestClient.get().uri("/api/v1/albums/find?q=blu trane").exchange();
+        webTestClient.delete().uri("/api/v1/albums/delete/{id}", kindOfBlue.getId()).exchange()
+                .expectStatus().isOk();
+
+        //Assert
+        found.expectStatus().isOk()
+                .expectHeader().exists("ETag")
+                .expectBodyList(Album.class)
+                .value(albums -> assertThat(albums).extracting(Album::getName).containsExactly("Blue Train", "Kind of Blue"));
+        webTestClient.get().uri("/api/v1/albums/find?q=miles").exchange()
+                .expectStatus().isOk()
+                .expectBodyList(Album.class).hasSize(0);
+    }
+
+    @Test
+    @DisplayName("GET /changes streams albums added, restocked and deleted through the API as Server-Sent Events")
+    public void streamAlbumChanges() {
+        //Arrange
+        publisher.publish();
+        long start = publisher.getLastPosition();
+        Album added = webTestClient.post().uri("/api/v1/albums/add")
+                .bodyValue(new Album(0L, "Kind of Blue", "Miles Davis", JAZZ, Year.of(1959), 5, null, 2)).exchange()
+                .expectBody(Album.class).returnResult().getResponseBody();
+        webTestClient.post().uri("/api/v1/albums/stock/{id}/release?quantity=3", added.getId()).exchange()
+                .expectStatus().isOk();
+        webTestClient.delete().uri("/api/v1/albums/delete/{id}", added.getId()).exchange()
+                .expectStatus().isOk();
+
+        //Act
+        List<ServerSentEvent<String>> events = webTestClient.get().uri("/api/v1/albums/changes?after={start}", start)
+                .accept(MediaType.TEXT_EVENT_STREAM).exchange()
+                .expectStatus().isOk()
+                .returnResult(new ParameterizedTypeReference<ServerSentEvent<String>>() {})
+                .getResponseBody()
+                .take(3)
+                .collectList()
+                .block(Duration.ofSeconds(10));
+
+        //Assert
+        assertThat(events).extracting(ServerSentEvent::id)
+                .containsExactly(String.valueOf(start + 1), String.valueOf(start + 2), String.valueOf(start + 3));
+        assertThat(events.get(0).data()).contains("\"type\":\"ADDED\"", "\"name\":\"Kind of Blue\"");
+        assertThat(events.get(1).data()).contains("\"type\":\"UPDATED\"", "\"quantity\":5");
+        assertThat(events.get(2).data()).contains("\"type\":\"DELETED\"", "\"album\":null");
+    }
+}
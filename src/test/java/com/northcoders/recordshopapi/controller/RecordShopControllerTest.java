@@ -2,6 +2,14 @@ package com.northcoders.recordshopapi.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.northcoders.recordshopapi.model.Album;
+import com.northcoders.recordshopapi.model.AlbumFacet;
+import com.northcoders.recordshopapi.model.AlbumPage;
+import com.northcoders.recordshopapi.model.AlbumSearchCriteria;
+import com.northcoders.recordshopapi.model.AlbumSuggestions;
+import com.northcoders.recordshopapi.model.AlbumSummary;
+import com.northcoders.recordshopapi.model.BatchItemResult;
+import com.northcoders.recordshopapi.model.BatchResult;
+import com.northcoders.recordshopapi.service.AlbumBatchService;
 import com.northcoders.recordshopapi.service.RecordShopServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -11,6 +19,10 @@ import org.mockito.Mock;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
@@ -18,12 +30,16 @@ import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 
+import java.io.InputStream;
+import java.time.Instant;
 import java.time.Year;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static com.northcoders.recordshopapi.model.Album.Genre.JAZZ;
 import static com.northcoders.recordshopapi.model.Album.Genre.ROCK;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 @AutoConfigureMockMvc
@@ -33,6 +49,9 @@ class RecordShopControllerTest {
     @Mock
     private RecordShopServiceImpl recordShopServiceImpl;
 
+    @Mock
+    private AlbumBatchService albumBatchService;
+
     @InjectMocks
     private RecordShopController recordShopController;
 
@@ -56,17 +75,37 @@ class RecordShopControllerTest {
                 new Album(2L, "Album2", "AlbumName2", JAZZ, Year.of(2002), 20, "Fine Album2", 7),
                 new Album(3L, "Album3", "AlbumName3", JAZZ, Year.of(2003), 30, "Great Album3", 9)
         );
-        when(recordShopServiceImpl.getAllAlbums()).thenReturn(albums);
+        when(recordShopServiceImpl.getAlbumsPage(null, null)).thenReturn(new AlbumPage(albums, null));
 
         //Act and Assert
         this.mockMvcController.perform(
                 MockMvcRequestBuilders.get("/api/v1/albums/"))
                 .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().doesNotExist("X-Next-Cursor"))
                 .andExpect(MockMvcResultMatchers.jsonPath("$[1].name").value("Album2"))
                 .andExpect(MockMvcResultMatchers.jsonPath("$[2].genre").value("JAZZ"))
                 .andExpect(MockMvcResultMatchers.jsonPath("$[0].quantity").value(5));
     }
 
+    @Test
+    @DisplayName("GET / with a limit returns one page of albums and the cursor of the next page")
+    void getAllAlbumsPaged() throws Exception {
+        //Arrange
+        List<Album> albums = List.of(
+                new Album(3L, "Album3", "AlbumName3", ROCK, Year.of(2001), 10, "Good Album3", 5),
+                new Album(4L, "Album4", "AlbumName4", JAZZ, Year.of(2002), 20, "Fine Album4", 7)
+        );
+        when(recordShopServiceImpl.getAlbumsPage("cursor2", 2)).thenReturn(new AlbumPage(albums, "cursor4"));
+
+        //Act and Assert
+        this.mockMvcController.perform(
+                MockMvcRequestBuilders.get("/api/v1/albums/?limit=2&after=cursor2"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string("X-Next-Cursor", "cursor4"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].id").value(3));
+    }
+
     @Test
     @DisplayName("GET /{id} returns the album with given id and the OK status code")
     void getAlbumById() throws Exception {
@@ -82,6 +121,72 @@ class RecordShopControllerTest {
                 .andExpect(MockMvcResultMatchers.jsonPath("$.genre").value("ROCK"));
     }
 
+    @Test
+    @DisplayName("GET /{id} returns 304 without a body when If-None-Match holds the album's ETag")
+    void getAlbumByIdNotModified() throws Exception {
+        //Arrange
+        Album albumOne = Album.builder().id(1L).name("Album1").artist("Artist1").genre(ROCK).year(Year.of(2001))
+                .version(4L).lastModified(Instant.parse("2024-06-01T10:15:30Z")).build();
+        when(recordShopServiceImpl.getAlbumById(1L)).thenReturn(Optional.of(albumOne));
+
+        //Act and Assert
+        this.mockMvcController.perform(MockMvcRequestBuilders.get("/api/v1/albums/1"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string("ETag", "\"1-4\""))
+                .andExpect(MockMvcResultMatchers.header().string("Last-Modified", "Sat, 01 Jun 2024 10:15:30 GMT"));
+        this.mockMvcController.perform(MockMvcRequestBuilders.get("/api/v1/albums/1").header("If-None-Match", "\"1-4\""))
+                .andExpect(MockMvcResultMatchers.status().isNotModified())
+                .andExpect(MockMvcResultMatchers.content().string(""));
+        this.mockMvcController.perform(MockMvcRequestBuilders.get("/api/v1/albums/1").header("If-None-Match", "\"1-3\""))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+    }
+
+    @Test
+    @DisplayName("GET /artist changes its ETag when an album in the list changes")
+    void getAlbumsByArtistETag() throws Exception {
+        //Arrange
+        Album albumOne = new Album(1L, "Album1", "Artist1", ROCK, Year.of(2001), 10, "Good Album1", 5);
+        Album albumTwo = new Album(2L, "Album2", "Artist1", ROCK, Year.of(2002), 10, "Good Album2", 5);
+        Album albumTwoChanged = Album.builder().id(2L).name("Album2").artist("Artist1").genre(ROCK).year(Year.of(2002))
+                .version(1L).build();
+        when(recordShopServiceImpl.getAlbumsByArtist("Artist1"))
+                .thenReturn(List.of(albumOne, albumTwo))
+                .thenReturn(List.of(albumOne, albumTwo))
+                .thenReturn(List.of(albumOne, albumTwoChanged));
+
+        //Act
+        String eTag = this.mockMvcController.perform(MockMvcRequestBuilders.get("/api/v1/albums/artist?artist=Artist1"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        //Assert
+        this.mockMvcController.perform(MockMvcRequestBuilders.get("/api/v1/albums/artist?artist=Artist1")
+                        .header("If-None-Match", eTag))
+                .andExpect(MockMvcResultMatchers.status().isNotModified());
+        this.mockMvcController.perform(MockMvcRequestBuilders.get("/api/v1/albums/artist?artist=Artist1")
+                        .header("If-None-Match", eTag))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(2));
+    }
+
+    @Test
+    @DisplayName("PUT passes the versions in If-Match to the service and returns the new ETag")
+    void updateAlbumIfMatch() throws Exception {
+        //Arrange
+        Album updatedAlbum = new Album(2L, "Album2", "ArtistName2", JAZZ, Year.of(2002), 20, "Fine Album2", 6);
+        Album savedAlbum = Album.builder().id(2L).name("Album2").artist("ArtistName2").genre(JAZZ).year(Year.of(2002))
+                .tracks(20).description("Fine Album2").quantity(6).version(8L).build();
+        when(recordShopServiceImpl.updateAlbum(2L, updatedAlbum, Set.of(7L))).thenReturn(savedAlbum);
+
+        //Act and Assert
+        this.mockMvcController.perform(MockMvcRequestBuilders.put("/api/v1/albums/update/2")
+                        .header("If-Match", "\"2-7\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(updatedAlbum)))
+                .andExpect(MockMvcResultMatchers.status().isAccepted())
+                .andExpect(MockMvcResultMatchers.header().string("ETag", "\"2-8\""))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.version").doesNotExist());
+    }
+
     @Test
     @DisplayName("POST returns the album and a CREATED status code")
     public void addAlbum() throws Exception {
@@ -109,7 +214,7 @@ class RecordShopControllerTest {
         Album originalAlbum = new Album(2L, "Album1", "ArtistName1", JAZZ, Year.of(2001), 10, "Fine Album1", 7);
         Album updatedAlbum = new Album(2L, "Album2", "ArtistName2", JAZZ, Year.of(2002), 20, "Fine Album2", 6);
 
-        when(recordShopServiceImpl.updateAlbum(2L, updatedAlbum)).thenReturn(updatedAlbum);
+        when(recordShopServiceImpl.updateAlbum(2L, updatedAlbum, null)).thenReturn(updatedAlbum);
 
         //Act and Assert
         this.mockMvcController.perform(MockMvcRequestBuilders.put("/api/v1/albums/update/2")
@@ -125,7 +230,7 @@ class RecordShopControllerTest {
                 .andExpect(MockMvcResultMatchers.jsonPath("$.description").value("Fine Album2"))
                 .andExpect(MockMvcResultMatchers.jsonPath("$.quantity").value("6"));
 
-        verify(recordShopServiceImpl, times(1)).updateAlbum(2L, updatedAlbum);
+        verify(recordShopServiceImpl, times(1)).updateAlbum(2L, updatedAlbum, null);
     }
 
     @Test
@@ -137,6 +242,21 @@ class RecordShopControllerTest {
         verify(recordShopServiceImpl, times(1)).deleteAlbumById(1L);
     }
 
+    @Test
+    @DisplayName("POST /stock/{id}/reserve returns the album with its reduced stock and the OK status code")
+    public void reserveStock() throws Exception {
+        //Arrange
+        Album reserved = new Album(2L, "Album2", "ArtistName2", JAZZ, Year.of(2002), 20, "Fine Album2", 4);
+        when(recordShopServiceImpl.reserveStock(2L, 3)).thenReturn(reserved);
+
+        //Act and Assert
+        this.mockMvcController.perform(MockMvcRequestBuilders.post("/api/v1/albums/stock/2/reserve")
+                        .param("quantity", "3"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.quantity").value(4));
+        verify(recordShopServiceImpl, times(1)).reserveStock(2L, 3);
+    }
+
     @Test
     @DisplayName("getAlbumByArtist returns a list of albums with the given artist name and the OK status code")
     void getAlbumByArtist() throws Exception {
@@ -155,6 +275,23 @@ class RecordShopControllerTest {
                 .andExpect(MockMvcResultMatchers.jsonPath("$[1].artist").value("ArtistName2"));
     }
 
+    @Test
+    @DisplayName("getAlbumByArtist with summary=true returns album summaries and the OK status code")
+    void getAlbumSummariesByArtist() throws Exception {
+        //Arrange
+        List<AlbumSummary> summaries = List.of(new SpelAwareProxyProjectionFactory().createProjection(AlbumSummary.class,
+                new Album(2L, "Album2", "ArtistName2", JAZZ, Year.of(2002), 20, "Fine Album2", 7)));
+        when(recordShopServiceImpl.getAlbumSummariesByArtist("ArtistName2")).thenReturn(summaries);
+
+        //Act and Assert
+        this.mockMvcController.perform(MockMvcRequestBuilders.get("/api/v1/albums/artist?artist=ArtistName2&summary=true"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].artist").value("ArtistName2"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].description").doesNotExist());
+
+        verify(recordShopServiceImpl, never()).getAlbumsByArtist("ArtistName2");
+    }
+
     @Test
     @DisplayName("getAlbumByGenre returns a list of albums with the given genre and the OK status code")
     void getAlbumByGenre() throws Exception {
@@ -200,12 +337,99 @@ class RecordShopControllerTest {
                 new Album(2L, "Album2", "ArtistName2", JAZZ, Year.of(2001), 20, "Fine Album2", 7),
                 new Album(3L, "Album3", "ArtistName2", JAZZ, Year.of(2003), 30, "Great Album3", 9)
         );
-        when(recordShopServiceImpl.getAlbumInfoByName("Album3")).thenReturn(albums.get(2).toString());
+        when(recordShopServiceImpl.getAlbumInfoByName("Album3")).thenReturn(albums.get(2));
 
         //Act and Assert
         this.mockMvcController.perform(MockMvcRequestBuilders.get("/api/v1/albums/name?name=Album3"))
-                .andExpect(MockMvcResultMatchers.status().isOk());
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.name").value("Album3"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.description").value("Great Album3"));
 
         verify(recordShopServiceImpl, times(1)).getAlbumInfoByName("Album3");
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("GET /search returns the matching albums and their total count with the OK status code")
+    void searchAlbums() throws Exception {
+        //Arrange
+        List<Album> albums = List.of(
+                new Album(2L, "Blue Train", "ArtistName2", JAZZ, Year.of(1958), 5, "Fine Album2", 7)
+        );
+        AlbumSearchCriteria criteria = AlbumSearchCriteria.builder()
+                .genre(JAZZ).yearFrom(Year.of(1950)).yearTo(Year.of(1960)).inStock(true).namePrefix("blue").build();
+        when(recordShopServiceImpl.searchAlbums(criteria, 0, 1, "year", Sort.Direction.DESC))
+                .thenReturn(new PageImpl<>(albums, PageRequest.of(0, 1), 3));
+
+        //Act and Assert
+        this.mockMvcController.perform(MockMvcRequestBuilders.get(
+                "/api/v1/albums/search?genre=JAZZ&yearFrom=1950&yearTo=1960&inStock=true&name=blue&size=1&sort=year&direction=DESC"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string("X-Total-Count", "3"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].name").value("Blue Train"));
+    }
+
+    @Test
+    @DisplayName("GET /find returns the best matching albums in rank order with the OK status code")
+    void findAlbums() throws Exception {
+        //Arrange
+        List<Album> albums = List.of(
+                new Album(1L, "Abbey Road", "The Beatles", ROCK, Year.of(1969), 17, "Good Album1", 5),
+                new Album(2L, "Let It Be", "The Beatles", ROCK, Year.of(1970), 12, "Fine Album2", 3)
+        );
+        when(recordShopServiceImpl.findAlbums("beatles abbey rd", 5)).thenReturn(albums);
+
+        //Act and Assert
+        this.mockMvcController.perform(MockMvcRequestBuilders.get("/api/v1/albums/find?q=beatles abbey rd&limit=5"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].name").value("Abbey Road"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].name").value("Let It Be"));
+    }
+
+    @Test
+    @DisplayName("GET /typeahead returns artist and album name suggestions with the OK status code")
+    void suggestAlbums() throws Exception {
+        //Arrange
+        when(recordShopServiceImpl.suggestAlbums("bea", null))
+                .thenReturn(new AlbumSuggestions(List.of("The Beatles", "Beach House"), List.of("Beatles for Sale")));
+
+        //Act and Assert
+        this.mockMvcController.perform(MockMvcRequestBuilders.get("/api/v1/albums/typeahead?prefix=bea"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.artists[1]").value("Beach House"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.names[0]").value("Beatles for Sale"));
+    }
+
+    @Test
+    @DisplayName("GET /facets returns the album counts and stock of each value with the OK status code")
+    void getAlbumFacets() throws Exception {
+        //Arrange
+        when(recordShopServiceImpl.getAlbumFacets(AlbumFacet.Field.DECADE, 5))
+                .thenReturn(List.of(new AlbumFacet("1960s", 4, 17), new AlbumFacet("1970s", 2, 3)));
+
+        //Act and Assert
+        this.mockMvcController.perform(MockMvcRequestBuilders.get("/api/v1/albums/facets?by=DECADE&limit=5"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].value").value("1960s"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].albums").value(4))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].quantity").value(3));
+    }
+
+    @Test
+    @DisplayName("POST /add/batch accepts NDJSON and returns the per-album results")
+    void addAlbums() throws Exception {
+        //Arrange
+        BatchResult result = BatchResult.of(List.of(
+                new BatchItemResult(0, 1L, BatchItemResult.Status.CREATED, null),
+                new BatchItemResult(1, null, BatchItemResult.Status.INVALID, "artist must not be null")
+        ));
+        when(albumBatchService.addAlbums(any(InputStream.class))).thenReturn(result);
+
+        //Act and Assert
+        this.mockMvcController.perform(MockMvcRequestBuilders.post("/api/v1/albums/add/batch")
+                        .contentType("application/x-ndjson")
+                        .content("{\"name\":\"Album1\"}\n{\"name\":\"Album2\"}\n"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.succeeded").value(1))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items[1].status").value("INVALID"));
+    }
+}
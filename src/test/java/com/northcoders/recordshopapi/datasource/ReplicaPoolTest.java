@@ -0,0 +1,115 @@
+package com.northcoders.recordshopapi.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReplicaPoolTest {
+
+    @Mock
+    private DataSource primary;
+
+    @Mock
+    private HikariDataSource replica1;
+
+    @Mock
+    private HikariDataSource replica2;
+
+    private final Connection primaryConnection = mock(Connection.class);
+    private final Connection replicaConnection1 = mock(Connection.class);
+    private final Connection replicaConnection2 = mock(Connection.class);
+
+    private ReplicaPool replicaPool;
+
+    @BeforeEach
+    public void setup() {
+        when(replica1.getPoolName()).thenReturn("replica-1");
+        when(replica2.getPoolName()).thenReturn("replica-2");
+        replicaPool = new ReplicaPool(primary, List.of(replica1, replica2), Duration.ofSeconds(5));
+    }
+
+    @Test
+    @DisplayName("getConnection() takes connections from each replica in turn")
+    void roundRobin() throws SQLException {
+        //Arrange
+        when(replica1.getConnection()).thenReturn(replicaConnection1);
+        when(replica2.getConnection()).thenReturn(replicaConnection2);
+
+        //Act
+        List<Connection> connections = List.of(replicaPool.getConnection(), replicaPool.getConnection(),
+                replicaPool.getConnection(), replicaPool.getConnection());
+
+        //Assert
+        assertThat(connections).containsExactly(replicaConnection1, replicaConnection2, replicaConnection1, replicaConnection2);
+        assertThat(replicaPool.getPrimaryConnections()).isZero();
+    }
+
+    @Test
+    @DisplayName("getConnection() skips a replica that failed until it passes a health check")
+    void skipsFailedReplica() throws SQLException {
+        //Arrange
+        when(replica1.getConnection())
+                .thenThrow(new SQLTransientConnectionException("Connection is not available"))
+                .thenReturn(replicaConnection1);
+        when(replica2.getConnection()).thenReturn(replicaConnection2);
+        when(replicaConnection1.isValid(1)).thenReturn(true);
+        when(replicaConnection2.isValid(1)).thenReturn(true);
+
+        //Act
+        List<Connection> whileDown = List.of(replicaPool.getConnection(), replicaPool.getConnection());
+        replicaPool.checkHealth();
+        List<Connection> afterCheck = List.of(replicaPool.getConnection(), replicaPool.getConnection());
+
+        //Assert
+        assertThat(whileDown).containsExactly(replicaConnection2, replicaConnection2);
+        assertThat(afterCheck).containsExactly(replicaConnection1, replicaConnection2);
+    }
+
+    @Test
+    @DisplayName("getConnection() falls back to the primary when no replica is healthy or the thread is pinned to it")
+    void fallsBackToPrimary() throws SQLException {
+        //Arrange
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(replica1.getConnection()).thenThrow(new SQLTransientConnectionException("Connection is not available"));
+        when(replica2.getConnection()).thenThrow(new SQLTransientConnectionException("Connection is not available"));
+
+        //Act
+        Connection unhealthy = replicaPool.getConnection();
+        replicaPool.pinToPrimary();
+        Connection pinned = replicaPool.getConnection();
+        replicaPool.unpin();
+
+        //Assert
+        assertThat(unhealthy).isSameAs(primaryConnection);
+        assertThat(pinned).isSameAs(primaryConnection);
+        assertThat(replicaPool.getReplicas()).extracting(ReplicaPool.Replica::isHealthy).containsExactly(false, false);
+        assertThat(replicaPool.getPrimaryConnections()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("getConnection(username, password) is refused as a JDBC feature the pool does not support")
+    void refusesOtherCredentials() {
+        //Act & Assert
+        assertThatThrownBy(() -> replicaPool.getConnection("reporting", "secret"))
+                .isInstanceOf(SQLFeatureNotSupportedException.class);
+        assertThat(replicaPool.getPrimaryConnections()).isZero();
+    }
+}
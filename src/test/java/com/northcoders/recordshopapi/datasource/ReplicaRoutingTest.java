@@ -0,0 +1,154 @@
+package com.northcoders.recordshopapi.datasource;
+
+import com.northcoders.recordshopapi.exception.AlbumNotFoundException;
+import com.northcoders.recordshopapi.model.Album;
+import com.northcoders.recordshopapi.repository.RecordShopRepository;
+import com.northcoders.recordshopapi.service.RecordShopService;
+import jakarta.servlet.http.Cookie;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Year;
+import java.util.List;
+
+import static com.northcoders.recordshopapi.model.Album.Genre.ROCK;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * A separate in-memory database stands in for a replica that has not caught up with the primary, so
+ * the albums returned show which one served the read. The second replica is never reachable.
+ */
+@SpringBootTest(properties = {
+        "recordshop.datasource.replicas.urls=" + ReplicaRoutingTest.REPLICA_URL + ",jdbc:h2:tcp://localhost:1/unreachable",
+        "recordshop.datasource.replicas.connection-timeout=250ms",
+        "recordshop.datasource.replicas.health-check-interval=1h"})
+@AutoConfigureMockMvc
+@ActiveProfiles({"dev", "replica"})
+public class ReplicaRoutingTest {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:replica;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1";
+
+    private static final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", "password"));
+
+    @Autowired
+    private RecordShopService recordShopService;
+
+    @Autowired
+    private RecordShopRepository repository;
+
+    @Autowired
+    private ReplicaPool replicaPool;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @BeforeAll
+    public static void migrateReplica() {
+        Flyway.configure()
+                .dataSource(replica.getDataSource())
+                .locations("classpath:db/migration/common", "classpath:db/migration/h2")
+                .load()
+                .migrate();
+    }
+
+    @BeforeEach
+    public void setup() {
+        replica.update("INSERT INTO album (id, name, artist, genre, \"year\", tracks, quantity, version) " +
+                "VALUES (1, 'Replica Album', 'Replica Artist', 'ROCK', 1990, 10, 5, 0)");
+        replicaPool.checkHealth();
+    }
+
+    @AfterEach
+    public void cleanup() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+        replica.update("DELETE FROM album");
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> repository.deleteAllInBatch());
+    }
+
+    @Test
+    @DisplayName("Read-only service calls are served by a healthy replica and writes by the primary")
+    public void readsFromReplicas() {
+        //Arrange
+        recordShopService.addAlbum(new Album(0L, "Primary Album", "Primary Artist", ROCK, Year.of(2001), 10, null, 5));
+
+        //Act
+        List<Album> albums = recordShopService.getAllAlbums();
+        List<Album> reread = recordShopService.getAllAlbums();
+        List<Album> primary = new TransactionTemplate(transactionManager).execute(status -> repository.findAll());
+
+        //Assert
+        assertThat(albums).extracting(Album::getName).containsExactly("Replica Album");
+        assertThat(reread).extracting(Album::getName).containsExactly("Replica Album");
+        assertThat(primary).extracting(Album::getName).containsExactly("Primary Album");
+        assertThat(replicaPool.getReplicas()).extracting(ReplicaPool.Replica::isHealthy).containsExactly(true, false);
+    }
+
+    @Test
+    @DisplayName("Cached lookups are loaded from the primary, so a lagging replica never fills the cache")
+    public void cachedLookupsReadThePrimary() {
+        //Arrange
+        Album deleted = recordShopService.addAlbum(new Album(0L, "Deleted Album", "Primary Artist", ROCK, Year.of(2001), 10, null, 5));
+        Album restocked = recordShopService.addAlbum(new Album(0L, "Restocked Album", "Primary Artist", ROCK, Year.of(2002), 10, null, 5));
+        // The replica has yet to see either write below
+        for (Album album : List.of(deleted, restocked)) {
+            replica.update("INSERT INTO album (id, name, artist, genre, \"year\", tracks, quantity, version) VALUES (?, ?, ?, 'ROCK', ?, 10, 5, 0)",
+                    album.getId(), album.getName(), album.getArtist(), album.getYear().getValue());
+        }
+
+        //Act
+        recordShopService.deleteAlbumById(deleted.getId());
+        recordShopService.adjustStock(restocked.getId(), 3);
+
+        //Assert
+        assertThrows(AlbumNotFoundException.class, () -> recordShopService.getAlbumById(deleted.getId()));
+        assertThrows(AlbumNotFoundException.class, () -> recordShopService.getAlbumInfoByName("Deleted Album"));
+        assertThat(recordShopService.getAlbumById(restocked.getId()).orElseThrow().getQuantity()).isEqualTo(8);
+        assertThat(recordShopService.getAlbumInfoByName("Restocked Album").getQuantity()).isEqualTo(8);
+        assertThat(cacheManager.getCache("album").get(deleted.getId())).isNull();
+    }
+
+    @Test
+    @DisplayName("A client's reads go to the primary after it writes, and other clients' reads to the replicas")
+    public void readsYourWrites() throws Exception {
+        //Act
+        Cookie wrote = this.mockMvc.perform(MockMvcRequestBuilders.post("/api/v1/albums/add")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Primary Album\",\"artist\":\"Primary Artist\",\"genre\":\"ROCK\",\"year\":\"2001\",\"tracks\":10,\"quantity\":5}"))
+                .andExpect(MockMvcResultMatchers.status().isCreated())
+                .andExpect(MockMvcResultMatchers.cookie().maxAge(ReadYourWritesInterceptor.COOKIE, 5))
+                .andReturn().getResponse().getCookie(ReadYourWritesInterceptor.COOKIE);
+
+        //Assert
+        this.mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/albums/").cookie(wrote))
+                .andExpect(MockMvcResultMatchers.content().string(containsString("Primary Album")));
+        this.mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/albums/"))
+                .andExpect(MockMvcResultMatchers.content().string(containsString("Replica Album")))
+                .andExpect(MockMvcResultMatchers.content().string(not(containsString("Primary Album"))));
+    }
+}
@@ -0,0 +1,94 @@
+package com.northcoders.recordshopapi.facet;
+
+import com.northcoders.recordshopapi.model.Album;
+import com.northcoders.recordshopapi.model.AlbumFacet;
+import com.northcoders.recordshopapi.repository.RecordShopRepository;
+import com.northcoders.recordshopapi.service.AlbumBatchService;
+import com.northcoders.recordshopapi.service.RecordShopService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Year;
+
+import static com.northcoders.recordshopapi.model.Album.Genre.JAZZ;
+import static com.northcoders.recordshopapi.model.Album.Genre.ROCK;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("dev")
+public class AlbumFacetCountersTest {
+
+    @Autowired
+    private RecordShopService recordShopService;
+
+    @Autowired
+    private AlbumBatchService albumBatchService;
+
+    @Autowired
+    private AlbumFacetCounters facetCounters;
+
+    @Autowired
+    private RecordShopRepository repository;
+
+    @BeforeEach
+    @AfterEach
+    public void cleanup() {
+        repository.deleteAllInBatch();
+        facetCounters.reconcile();
+    }
+
+    @Test
+    @DisplayName("The facets follow albums added, updated, restocked and deleted through the service")
+    public void facetsFollowWrites() {
+        //Arrange
+        recordShopService.addAlbum(new Album(0L, "Help!", "The Beatles", ROCK, Year.of(1965), 14, null, 5));
+        Album album = recordShopService.addAlbum(new Album(0L, "Abbey Road", "The Beatles", ROCK, Year.of(1969), 17, null, 4));
+        Album other = recordShopService.addAlbum(new Album(0L, "Kind of Blue", "Miles Davis", JAZZ, Year.of(1959), 5, null, 2));
+
+        //Act
+        recordShopService.updateAlbum(album.getId(), new Album(0L, "Abbey Road", "The Beatles", JAZZ, Year.of(1970), 17, null, 4));
+        recordShopService.reserveStock(album.getId(), 3);
+        recordShopService.deleteAlbumById(other.getId());
+
+        //Assert
+        assertThat(recordShopService.getAlbumFacets(AlbumFacet.Field.GENRE, null))
+                .containsExactly(new AlbumFacet("JAZZ", 1, 1), new AlbumFacet("ROCK", 1, 5));
+        assertThat(recordShopService.getAlbumFacets(AlbumFacet.Field.DECADE, null))
+                .containsExactly(new AlbumFacet("1960s", 1, 5), new AlbumFacet("1970s", 1, 1));
+        assertThat(recordShopService.getAlbumFacets(AlbumFacet.Field.ARTIST, null))
+                .containsExactly(new AlbumFacet("The Beatles", 2, 6));
+    }
+
+    @Test
+    @DisplayName("reconcile() replaces the counters with the totals in the database")
+    public void reconcileCountsDatabase() {
+        //Arrange
+        repository.save(new Album(0L, "Giant Steps", "John Coltrane", JAZZ, Year.of(1960), 7, null, 3));
+        repository.save(new Album(0L, "Blue Train", "John Coltrane", JAZZ, Year.of(1957), 5, null, 1));
+        repository.save(new Album(0L, "Kind of Blue", "Miles Davis", JAZZ, Year.of(1959), 5, null, 2));
+        String ndjson = """
+                {"name":"Revolver","artist":"The Beatles","genre":"ROCK","year":"1966","tracks":14,"quantity":8}
+                """;
+        albumBatchService.addAlbums(new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)));
+
+        //Act
+        boolean foundBefore = !recordShopService.getAlbumFacets(AlbumFacet.Field.YEAR, null).stream()
+                .filter(facet -> facet.getValue().equals("1957"))
+                .toList().isEmpty();
+        facetCounters.reconcile();
+
+        //Assert
+        assertThat(foundBefore).isFalse();
+        assertThat(recordShopService.getAlbumFacets(AlbumFacet.Field.ARTIST, 2))
+                .containsExactly(new AlbumFacet("John Coltrane", 2, 4), new AlbumFacet("Miles Davis", 1, 2));
+        assertThat(recordShopService.getAlbumFacets(AlbumFacet.Field.GENRE, null))
+                .containsExactly(new AlbumFacet("JAZZ", 3, 6), new AlbumFacet("ROCK", 1, 8));
+    }
+}
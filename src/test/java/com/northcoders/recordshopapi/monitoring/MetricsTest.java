@@ -0,0 +1,126 @@
+package com.northcoders.recordshopapi.monitoring;
+
+import com.northcoders.recordshopapi.model.Album;
+import com.northcoders.recordshopapi.repository.RecordShopRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.time.Year;
+
+import static com.northcoders.recordshopapi.model.Album.Genre.ROCK;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+@ActiveProfiles("dev")
+public class MetricsTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private RecordShopRepository repository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @AfterEach
+    public void cleanup() {
+        repository.deleteAllInBatch();
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+
+    @Test
+    @DisplayName("GET /{id} records one SQL statement on a cache miss and none on a hit")
+    public void countsSqlStatementsPerEndpoint() throws Exception {
+        //Arrange
+        long id = repository.save(new Album(0L, "Album1", "ArtistName1", ROCK, Year.of(2001), 10, null, 5)).getId();
+        DistributionSummary before = statements("/api/v1/albums/{id}");
+        long countBefore = before == null ? 0 : before.count();
+        double totalBefore = before == null ? 0 : before.totalAmount();
+
+        //Act
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/albums/{id}", id))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/albums/{id}", id))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+
+        //Assert
+        DistributionSummary after = statements("/api/v1/albums/{id}");
+        assertThat(after.count() - countBefore).isEqualTo(2);
+        assertThat(after.totalAmount() - totalBefore).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("An async request is counted across both dispatches and stops counting on the thread it leaves")
+    public void countsSqlStatementsAcrossAsyncDispatch() {
+        //Arrange
+        SqlStatementCounter counter = new SqlStatementCounter();
+        MeterRegistry registry = new SimpleMeterRegistry();
+        SqlStatementMetricsInterceptor interceptor = new SqlStatementMetricsInterceptor(counter, registry);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/albums/changes");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        //Act
+        interceptor.preHandle(request, response, null);
+        counter.inspect("select 1");
+        counter.inspect("select 2");
+        interceptor.afterConcurrentHandlingStarted(request, response, null);
+        int leftOnThread = counter.stop();
+        interceptor.preHandle(request, response, null);
+        counter.inspect("select 3");
+        interceptor.afterCompletion(request, response, null, null);
+
+        //Assert
+        assertThat(leftOnThread).isZero();
+        DistributionSummary summary = registry.get("recordshop.http.sql.statements").summary();
+        assertThat(summary.count()).isEqualTo(1);
+        assertThat(summary.totalAmount()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("The Prometheus endpoint exposes endpoint, service, repository, cache and connection pool metrics")
+    public void prometheusScrape() throws Exception {
+        //Arrange
+        long id = repository.save(new Album(0L, "Album1", "ArtistName1", ROCK, Year.of(2001), 10, null, 5)).getId();
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/albums/{id}", id))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+
+        //Act
+        String scrape = mockMvc.perform(MockMvcRequestBuilders.get("/actuator/prometheus"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        //Assert
+        assertThat(scrape)
+                .contains("http_server_requests_seconds_bucket{")
+                .containsPattern("recordshop_service_seconds_bucket\\{.*method=\"getAlbumById\"")
+                .containsPattern("spring_data_repository_invocations_seconds_bucket\\{.*method=\"findById\"")
+                .containsPattern("recordshop_http_sql_statements_count\\{.*uri=\"/api/v1/albums/\\{id\\}\"")
+                .containsPattern("cache_gets_total\\{cache=\"album\"")
+                .contains("hikaricp_connections_active{");
+    }
+
+    private DistributionSummary statements(String uri) {
+        return meterRegistry.find("recordshop.http.sql.statements").tag("uri", uri).summary();
+    }
+}
@@ -0,0 +1,91 @@
+package com.northcoders.recordshopapi.ratelimit;
+
+import com.northcoders.recordshopapi.model.Album;
+import com.northcoders.recordshopapi.repository.RecordShopRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.time.Year;
+
+import static com.northcoders.recordshopapi.model.Album.Genre.ROCK;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "recordshop.rate-limit.rate=0.1",
+        "recordshop.rate-limit.burst=20",
+        "recordshop.rate-limit.client-header=X-API-Key",
+        "recordshop.admission.max-concurrent=1",
+        "recordshop.admission.max-wait=0ms"})
+@AutoConfigureMockMvc
+@ActiveProfiles("dev")
+public class RequestAdmissionTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AdmissionController admissionController;
+
+    @Autowired
+    private RecordShopRepository repository;
+
+    private long id;
+
+    @BeforeEach
+    public void setup() {
+        id = repository.save(new Album(0L, "Album1", "ArtistName1", ROCK, Year.of(2001), 10, null, 5)).getId();
+    }
+
+    @AfterEach
+    public void cleanup() {
+        repository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("A client that spends its tokens gets 429 with Retry-After, while other clients are still served")
+    public void limitsEachClient() throws Exception {
+        //Act
+        for (int i = 0; i < 2; i++) {
+            this.mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/albums/").header("X-API-Key", "partner"))
+                    .andExpect(MockMvcResultMatchers.status().isOk());
+        }
+
+        //Assert
+        this.mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/albums/{id}", id).header("X-API-Key", "partner"))
+                .andExpect(MockMvcResultMatchers.status().isTooManyRequests())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.RETRY_AFTER, "10"));
+        this.mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/albums/{id}", id).header("X-API-Key", "other"))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+        this.mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/albums/{id}", id))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+    }
+
+    @Test
+    @DisplayName("A request is shed with 503 and Retry-After when every slot is taken, and admitted once one frees")
+    public void shedsLoadWhenFull() throws Exception {
+        //Arrange
+        assertThat(admissionController.tryAdmit()).isTrue();
+
+        //Act and Assert
+        try {
+            this.mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/albums/{id}", id).header("X-API-Key", "shed"))
+                    .andExpect(MockMvcResultMatchers.status().isServiceUnavailable())
+                    .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.RETRY_AFTER, "1"));
+        } finally {
+            admissionController.release();
+        }
+        this.mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/albums/{id}", id).header("X-API-Key", "shed"))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+        assertThat(admissionController.getInFlight()).isZero();
+    }
+}
@@ -0,0 +1,96 @@
+package com.northcoders.recordshopapi.ratelimit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketRateLimiterTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000_000L);
+
+    // 10 tokens a second, so one every 100 ms
+    private final TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(10, 20, now::get);
+
+    @Test
+    @DisplayName("tryAcquire() lets a client spend its burst at once, then tells it when the next request fits")
+    void spendsBurstThenWaits() {
+        //Act
+        List<Duration> waits = IntStream.range(0, 4).mapToObj(i -> limiter.tryAcquire("client", 5)).toList();
+        Duration refused = limiter.tryAcquire("client", 5);
+        now.addAndGet(Duration.ofMillis(500).toNanos());
+        Duration refilled = limiter.tryAcquire("client", 5);
+
+        //Assert
+        assertThat(waits).containsOnly(Duration.ZERO);
+        assertThat(refused).isEqualTo(Duration.ofMillis(500));
+        assertThat(refilled).isEqualTo(Duration.ZERO);
+        assertThat(limiter.tryAcquire("client", 1)).isEqualTo(Duration.ofMillis(100));
+    }
+
+    @Test
+    @DisplayName("tryAcquire() keeps a bucket per client, and a refused request takes no tokens")
+    void bucketPerClient() {
+        //Arrange
+        limiter.tryAcquire("greedy", 20);
+
+        //Act
+        Duration greedy = limiter.tryAcquire("greedy", 10);
+        Duration other = limiter.tryAcquire("other", 20);
+        now.addAndGet(Duration.ofSeconds(1).toNanos());
+
+        //Assert
+        assertThat(greedy).isEqualTo(Duration.ofSeconds(1));
+        assertThat(other).isEqualTo(Duration.ZERO);
+        assertThat(limiter.tryAcquire("greedy", 10)).isEqualTo(Duration.ZERO);
+    }
+
+    @Test
+    @DisplayName("tryAcquire() never hands out more than the burst to concurrent requests from one client")
+    void concurrentRequestsShareOneBucket() throws Exception {
+        //Arrange
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(10, 500, now::get);
+        List<Future<Integer>> threads = new ArrayList<>();
+
+        //Act
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            for (int t = 0; t < 8; t++) {
+                threads.add(executor.submit(() -> (int) IntStream.range(0, 1000)
+                        .filter(i -> limiter.tryAcquire("client", 1).isZero())
+                        .count()));
+            }
+        }
+
+        //Assert
+        int granted = 0;
+        for (Future<Integer> thread : threads) {
+            granted += thread.get();
+        }
+        assertThat(granted).isEqualTo(500);
+    }
+
+    @Test
+    @DisplayName("evictFull() drops the buckets that have refilled and keeps the rest")
+    void evictsFullBuckets() {
+        //Arrange
+        limiter.tryAcquire("idle", 1);
+        now.addAndGet(Duration.ofMillis(500).toNanos());
+        limiter.tryAcquire("busy", 10);
+
+        //Act
+        int evicted = limiter.evictFull();
+
+        //Assert
+        assertThat(evicted).isEqualTo(1);
+        assertThat(limiter.size()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,102 @@
+package com.northcoders.recordshopapi.repository;
+
+import com.northcoders.recordshopapi.model.Album;
+import com.northcoders.recordshopapi.model.AlbumPatch;
+import com.northcoders.recordshopapi.repository.AlbumWriteStatements.Dialect;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.Year;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static com.northcoders.recordshopapi.model.Album.Genre.JAZZ;
+import static com.northcoders.recordshopapi.model.Album.Genre.ROCK;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the writes with the H2 statements and with the locking read and plain write used on databases
+ * without a syntax for handing back the rows they change, both against H2.
+ */
+@SpringBootTest
+@ActiveProfiles("dev")
+@Transactional
+public class AlbumWriteRepositoryTest {
+
+    @Autowired
+    private RecordShopRepository repository;
+
+    @Autowired
+    private AlbumWriteRepositoryImpl writes;
+
+    @AfterEach
+    public void cleanup() {
+        writes.dialect = null;
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = Dialect.class, names = {"H2", "OTHER"})
+    @DisplayName("updateReturningPrevious() writes the patch only at an expected version and returns the album as it was")
+    public void updateReturnsPrevious(Dialect dialect) {
+        //Arrange
+        writes.dialect = dialect;
+        Album album = repository.saveAndFlush(new Album(0L, "Album1", "ArtistName1", ROCK, Year.of(2001), 10, "Good Album1", 5));
+        AlbumPatch patch = new AlbumPatch();
+        patch.setName("Album1 Remastered");
+        patch.setDescription(null);
+        Instant lastModified = Instant.now().truncatedTo(ChronoUnit.MICROS);
+
+        //Act
+        Optional<Album> refused = repository.updateReturningPrevious(album.getId(), patch, lastModified, Set.of(album.getVersion() + 1));
+        Optional<Album> previous = repository.updateReturningPrevious(album.getId(), patch, lastModified, Set.of(album.getVersion()));
+
+        //Assert
+        assertThat(refused).isEmpty();
+        assertThat(previous).hasValueSatisfying(actual -> {
+            assertThat(actual.getName()).isEqualTo("Album1");
+            assertThat(actual.getDescription()).isEqualTo("Good Album1");
+            assertThat(actual.getVersion()).isEqualTo(album.getVersion());
+        });
+        Album updated = repository.findById(album.getId()).orElseThrow();
+        assertThat(updated.getName()).isEqualTo("Album1 Remastered");
+        assertThat(updated.getDescription()).isNull();
+        assertThat(updated.getQuantity()).isEqualTo(5);
+        assertThat(updated.getVersion()).isEqualTo(album.getVersion() + 1);
+        assertThat(updated.getLastModified()).isEqualTo(lastModified);
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = Dialect.class, names = {"H2", "OTHER"})
+    @DisplayName("deleteReturningPrevious() and deleteAllReturningPrevious() return the albums they deleted")
+    public void deleteReturnsPrevious(Dialect dialect) {
+        //Arrange
+        writes.dialect = dialect;
+        List<Album> albums = repository.saveAllAndFlush(List.of(
+                new Album(0L, "Album1", "ArtistName1", ROCK, Year.of(2001), 10, "Good Album1", 5),
+                new Album(0L, "Album2", "ArtistName2", JAZZ, Year.of(2002), 20, "Fine Album2", 7),
+                new Album(0L, "Album3", "ArtistName2", JAZZ, Year.of(2003), 30, "Great Album3", 9)));
+        long first = albums.get(0).getId();
+        long second = albums.get(1).getId();
+        long third = albums.get(2).getId();
+
+        //Act
+        Optional<Album> deleted = repository.deleteReturningPrevious(first);
+        Optional<Album> missing = repository.deleteReturningPrevious(first);
+        List<Album> deletedAll = repository.deleteAllReturningPrevious(List.of(first, second, third));
+
+        //Assert
+        assertThat(deleted).map(Album::getName).hasValue("Album1");
+        assertThat(missing).isEmpty();
+        assertThat(deletedAll).extracting(Album::getName).containsExactlyInAnyOrder("Album2", "Album3");
+        assertThat(repository.findAllById(List.of(first, second, third))).isEmpty();
+    }
+}
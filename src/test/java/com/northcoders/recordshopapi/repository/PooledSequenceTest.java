@@ -0,0 +1,51 @@
+package com.northcoders.recordshopapi.repository;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PooledSequenceTest {
+
+    // Stands in for a sequence that starts at 1 and goes up by 50
+    private final AtomicLong sequence = new AtomicLong(-49);
+
+    private final AtomicInteger reads = new AtomicInteger();
+
+    private final PooledSequence ids = new PooledSequence(50, () -> Mono.fromSupplier(() -> {
+        reads.incrementAndGet();
+        return sequence.addAndGet(50);
+    }));
+
+    @Test
+    @DisplayName("next() hands out every id the sequence reserves, reading it once per 50 ids after the first")
+    void readsSequenceOncePerBlock() {
+        //Act
+        List<Long> actual = Flux.range(0, 101).concatMap(i -> ids.next()).collectList().block();
+
+        //Assert
+        assertThat(actual).containsExactlyElementsOf(Flux.range(1, 101).map(Long::valueOf).toIterable());
+        assertThat(reads.get()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("next() only takes ids at or below a value another allocator read from the sequence")
+    void sharesSequenceWithHibernate() {
+        //Arrange
+        // Hibernate read 1 and 51, so it hands out 1 to 51
+        sequence.addAndGet(100);
+
+        //Act
+        List<Long> actual = Flux.range(0, 3).concatMap(i -> ids.next()).collectList().block();
+
+        //Assert
+        assertThat(actual).containsExactly(52L, 53L, 54L);
+        assertThat(reads.get()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,100 @@
+package com.northcoders.recordshopapi.search;
+
+import com.northcoders.recordshopapi.model.Album;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Year;
+import java.util.List;
+
+import static com.northcoders.recordshopapi.model.Album.Genre.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AlbumSearchIndexTest {
+
+    private AlbumSearchIndex index;
+
+    @BeforeEach
+    public void setup() {
+        index = new AlbumSearchIndex(new ByteBuffersDirectory());
+        index.rebuild(List.of(
+                new Album(1L, "Abbey Road", "The Beatles", ROCK, Year.of(1969), 17, "The last album the band recorded", 5),
+                new Album(2L, "Let It Be", "The Beatles", ROCK, Year.of(1970), 12, null, 3),
+                new Album(3L, "Lemonade", "Beyoncé", POP, Year.of(2016), 12, "Visual album", 7),
+                new Album(4L, "Road to Ruin", "Ramones", ROCK, Year.of(1978), 12, "Punk", 1),
+                new Album(5L, "Kind of Blue", "Miles Davis", JAZZ, Year.of(1959), 5, "Modal jazz, recorded at Abbey Road's rival", 2)
+        ).iterator());
+    }
+
+    @AfterEach
+    public void cleanup() throws IOException {
+        index.close();
+    }
+
+    @Test
+    @DisplayName("search() ignores case and accents")
+    public void searchFoldsCaseAndAccents() {
+        //Act
+        List<Long> beatles = index.search("BEATLES", 10);
+        List<Long> beyonce = index.search("beyonce", 10);
+
+        //Assert
+        assertThat(beatles).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(beyonce).containsExactly(3L);
+    }
+
+    @Test
+    @DisplayName("search() matches the start of a word and tolerates typos")
+    public void searchMatchesPrefixesAndTypos() {
+        //Act
+        List<Long> prefix = index.search("lemo", 10);
+        List<Long> typo = index.search("beetles", 10);
+        List<Long> twoTypos = index.search("lemonaed", 10);
+
+        //Assert
+        assertThat(prefix).containsExactly(3L);
+        assertThat(typo).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(twoTypos).containsExactly(3L);
+    }
+
+    @Test
+    @DisplayName("search() ranks name matches above description matches and albums matching more words first")
+    public void searchRanksResults() {
+        //Act
+        List<Long> abbeyRd = index.search("abbey rd", 10);
+        List<Long> road = index.search("road", 10);
+
+        //Assert
+        assertThat(abbeyRd).containsExactly(1L, 5L);
+        assertThat(road.get(road.size() - 1)).isEqualTo(5L);
+        assertThat(road).containsExactlyInAnyOrder(1L, 4L, 5L);
+    }
+
+    @Test
+    @DisplayName("index() and delete() are visible to the next search")
+    public void writesAreVisible() {
+        //Act
+        index.index(new Album(2L, "Let It Bleed", "The Rolling Stones", ROCK, Year.of(1969), 9, null, 4));
+        index.delete(4L);
+
+        //Assert
+        assertThat(index.search("bleed", 10)).containsExactly(2L);
+        assertThat(index.search("beatles", 10)).containsExactly(1L);
+        assertThat(index.search("ramones", 10)).isEmpty();
+        assertThat(index.size()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("search() returns nothing for text without words")
+    public void searchWithoutWords() {
+        //Act
+        List<Long> actual = index.search(" - ! ", 10);
+
+        //Assert
+        assertThat(actual).isEmpty();
+    }
+}
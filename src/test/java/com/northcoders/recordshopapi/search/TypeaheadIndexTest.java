@@ -0,0 +1,125 @@
+package com.northcoders.recordshopapi.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TypeaheadIndexTest {
+
+    private TypeaheadIndex index;
+
+    @BeforeEach
+    public void setup() {
+        Map<String, Long> counts = new HashMap<>();
+        counts.put("The Beatles", 13L);
+        counts.put("Beyoncé", 7L);
+        counts.put("Bee Gees", 22L);
+        counts.put("Bob Marley", 11L);
+        counts.put("The The", 6L);
+        counts.put("Theatre of Tragedy", 2L);
+        index = new TypeaheadIndex(counts);
+    }
+
+    @Test
+    @DisplayName("suggest() returns the texts starting with the prefix, most counted first")
+    public void suggestRanksByCount() {
+        //Act
+        List<String> actual = index.suggest("Be", 10);
+
+        //Assert
+        assertThat(actual).containsExactly("Bee Gees", "The Beatles", "Beyoncé");
+        assertThat(index.suggest("b", 2)).containsExactly("Bee Gees", "The Beatles");
+    }
+
+    @Test
+    @DisplayName("suggest() ignores case, accents and a leading article, and lists each text once")
+    public void suggestNormalizes() {
+        //Act
+        List<String> accent = index.suggest("BEYONCE", 10);
+        List<String> article = index.suggest("the b", 10);
+        List<String> words = index.suggest("the ", 10);
+        List<String> twice = index.suggest("the", 10);
+
+        //Assert
+        assertThat(accent).containsExactly("Beyoncé");
+        assertThat(article).containsExactly("The Beatles");
+        assertThat(words).containsExactly("The Beatles", "The The");
+        assertThat(twice).containsExactly("The Beatles", "The The", "Theatre of Tragedy");
+    }
+
+    @Test
+    @DisplayName("suggest() returns each text exactly as it was given")
+    public void suggestKeepsTexts() {
+        //Arrange
+        TypeaheadIndex texts = new TypeaheadIndex(Map.of("ABBA", 5L, "Abba Gold", 4L, "a-ha", 3L,
+                "An Awesome Wave", 2L, "AnOther  Green World", 1L));
+
+        //Act
+        List<String> actual = texts.suggest("a", 10);
+
+        //Assert
+        assertThat(actual).containsExactly("ABBA", "Abba Gold", "a-ha", "An Awesome Wave", "AnOther  Green World");
+        assertThat(texts.suggest("awesome", 10)).containsExactly("An Awesome Wave");
+    }
+
+    @Test
+    @DisplayName("add() changes counts, adds new texts and drops texts counted down to zero")
+    public void addChangesCounts() {
+        //Act
+        index.add("The Beatles", 10);
+        index.add("Beach House", 3);
+        index.add("Bee Gees", -22);
+
+        //Assert
+        assertThat(index.suggest("be", 10)).containsExactly("The Beatles", "Beyoncé", "Beach House");
+        assertThat(index.pending()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("suggest() finds texts pushed into the top results by lowered counts outside them")
+    public void suggestAfterLoweredCounts() {
+        //Act
+        index.add("Bee Gees", -20);
+        index.add("The Beatles", -12);
+
+        //Assert
+        assertThat(index.suggest("be", 2)).containsExactly("Beyoncé", "Bee Gees");
+    }
+
+    @Test
+    @DisplayName("ensure() adds a missing text once and leaves counted texts alone")
+    public void ensureAddsMissingTexts() {
+        //Act
+        index.ensure("Björk");
+        index.ensure("Björk");
+        index.ensure("Bob Marley");
+
+        //Assert
+        assertThat(index.suggest("bjork", 10)).containsExactly("Björk");
+        index.add("Björk", -1);
+        assertThat(index.suggest("bjork", 10)).isEmpty();
+        assertThat(index.suggest("bob", 10)).containsExactly("Bob Marley");
+    }
+
+    @Test
+    @DisplayName("An empty index suggests only what is added to it")
+    public void emptyIndex() {
+        //Arrange
+        TypeaheadIndex empty = new TypeaheadIndex(Map.of());
+
+        //Act
+        List<String> before = empty.suggest("a", 10);
+        empty.add("Adele", 1);
+
+        //Assert
+        assertThat(before).isEmpty();
+        assertThat(empty.suggest("a", 10)).containsExactly("Adele");
+        assertThat(empty.fstBytes()).isZero();
+    }
+}
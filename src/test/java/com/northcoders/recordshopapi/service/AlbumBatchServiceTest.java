@@ -0,0 +1,166 @@
+package com.northcoders.recordshopapi.service;
+
+import com.northcoders.recordshopapi.exception.InvalidAlbumPayloadException;
+import com.northcoders.recordshopapi.facet.AlbumFacetCounters;
+import com.northcoders.recordshopapi.model.Album;
+import com.northcoders.recordshopapi.model.AlbumChangedEvent;
+import com.northcoders.recordshopapi.model.BatchItemResult;
+import com.northcoders.recordshopapi.model.BatchResult;
+import com.northcoders.recordshopapi.monitoring.SqlStatementCounter;
+import com.northcoders.recordshopapi.repository.RecordShopRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Year;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.northcoders.recordshopapi.model.Album.Genre.JAZZ;
+import static com.northcoders.recordshopapi.model.Album.Genre.ROCK;
+import static com.northcoders.recordshopapi.model.BatchItemResult.Status.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "recordshop.batch.size=3"
+})
+@ActiveProfiles("dev")
+public class AlbumBatchServiceTest {
+
+    @Autowired
+    private AlbumBatchService albumBatchService;
+
+    @Autowired
+    private RecordShopRepository repository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private SqlStatementCounter statementCounter;
+
+    @SpyBean
+    private AlbumFacetCounters facetCounters;
+
+    @AfterEach
+    public void cleanup() {
+        repository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("addAlbums() stores valid albums from NDJSON and reports invalid ones per item")
+    public void addAlbumsFromNdjson() {
+        //Arrange
+        String ndjson = """
+                {"name":"Album1","artist":"ArtistName1","genre":"ROCK","year":"2001","tracks":10,"quantity":5}
+                {"name":"Album2","genre":"JAZZ","year":"2002"}
+                {"name":"Album3","artist":"ArtistName3","genre":"JAZZ","year":"2003","tracks":30,"quantity":9}
+                {"name":"Album4","artist":"ArtistName4","genre":"POP","year":"2004","tracks":12,"quantity":1}
+                """;
+
+        //Act
+        BatchResult actual = albumBatchService.addAlbums(stream(ndjson));
+
+        //Assert
+        assertThat(actual.getSucceeded()).isEqualTo(3);
+        assertThat(actual.getFailed()).isEqualTo(1);
+        assertThat(actual.getItems()).extracting(BatchItemResult::getStatus).containsExactly(CREATED, INVALID, CREATED, CREATED);
+        assertThat(actual.getItems().get(1).getError()).isEqualTo("artist must not be null");
+        assertThat(repository.count()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("addAlbums() sends a JSON array of albums in a handful of batched statements")
+    public void addAlbumsIsBatched() {
+        //Arrange
+        String json = IntStream.range(0, 30)
+                .mapToObj(i -> String.format("{\"name\":\"Album%d\",\"artist\":\"Artist\",\"genre\":\"ROCK\",\"year\":\"2001\"}", i))
+                .collect(Collectors.joining(",", "[", "]"));
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        //Act
+        statementCounter.start();
+        BatchResult actual = albumBatchService.addAlbums(stream(json));
+        int statements = statementCounter.stop();
+
+        //Assert
+        assertThat(actual.getSucceeded()).isEqualTo(30);
+        assertThat(statistics.getEntityStatistics(Album.class.getName()).getInsertCount()).isEqualTo(30);
+        // Per chunk of three, one insert statement for the albums and one for their changes, plus the
+        // occasional sequence call, not one statement per album
+        assertThat(statements).isLessThanOrEqualTo(23);
+    }
+
+    @Test
+    @DisplayName("updateAlbums() updates existing albums and reports missing ones as not found")
+    public void updateAlbums() {
+        //Arrange
+        List<Album> saved = repository.saveAll(List.of(
+                new Album(0L, "Album1", "ArtistName1", ROCK, Year.of(2001), 10, "Good Album1", 5),
+                new Album(0L, "Album2", "ArtistName2", JAZZ, Year.of(2002), 20, "Fine Album2", 7)
+        ));
+        String ndjson = String.format("""
+                {"id":%d,"name":"Album1","artist":"ArtistName1","genre":"ROCK","year":"2001","tracks":10,"quantity":4}
+                {"id":%d,"name":"Album2","artist":"ArtistName2","genre":"JAZZ","year":"2002","tracks":20,"quantity":0}
+                {"id":999999,"name":"Missing","artist":"Nobody","genre":"JAZZ","year":"2002"}
+                """, saved.get(0).getId(), saved.get(1).getId());
+
+        //Act
+        BatchResult actual = albumBatchService.updateAlbums(stream(ndjson));
+
+        //Assert
+        assertThat(actual.getItems()).extracting(BatchItemResult::getStatus).containsExactly(UPDATED, UPDATED, NOT_FOUND);
+        assertThat(repository.findById(saved.get(0).getId()).get().getQuantity()).isEqualTo(4);
+        assertThat(repository.findById(saved.get(1).getId()).get().getQuantity()).isEqualTo(0);
+    }
+
+    @Test
+    @DisplayName("deleteAlbums() deletes existing albums and reports missing ones as not found")
+    public void deleteAlbums() {
+        //Arrange
+        Album saved = repository.save(new Album(0L, "Album1", "ArtistName1", ROCK, Year.of(2001), 10, "Good Album1", 5));
+        clearInvocations(facetCounters);
+
+        //Act
+        BatchResult actual = albumBatchService.deleteAlbums(stream("[" + saved.getId() + ", 999999]"));
+
+        //Assert
+        assertThat(actual.getItems()).extracting(BatchItemResult::getStatus).containsExactly(DELETED, NOT_FOUND);
+        assertThat(repository.existsById(saved.getId())).isFalse();
+        // The deleted album is handed to the listeners, so the facets follow without a reconciliation
+        ArgumentCaptor<AlbumChangedEvent> event = ArgumentCaptor.forClass(AlbumChangedEvent.class);
+        verify(facetCounters).onAlbumChanged(event.capture());
+        assertThat(event.getValue().getPrevious()).usingRecursiveComparison().ignoringFields("lastModified").isEqualTo(saved);
+        verify(facetCounters, never()).requestReconcile();
+    }
+
+    @Test
+    @DisplayName("A malformed item stops the request with an error naming its position")
+    public void malformedPayload() {
+        InvalidAlbumPayloadException e = assertThrows(InvalidAlbumPayloadException.class,
+                () -> albumBatchService.addAlbums(stream("{\"name\":\"Album1\"}\n{\"name\":")));
+        assertThat(e.getMessage()).contains("index 1");
+    }
+
+    private static InputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,141 @@
+package com.northcoders.recordshopapi.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.northcoders.recordshopapi.exception.InvalidAlbumQueryException;
+import com.northcoders.recordshopapi.model.Album;
+import com.northcoders.recordshopapi.model.AlbumFileFormat;
+import com.northcoders.recordshopapi.repository.RecordShopRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static com.northcoders.recordshopapi.model.Album.Genre.JAZZ;
+import static com.northcoders.recordshopapi.model.Album.Genre.ROCK;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+@ActiveProfiles("dev")
+public class AlbumExportServiceTest {
+
+    @Autowired
+    private AlbumExportService albumExportService;
+
+    @Autowired
+    private RecordShopRepository repository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @AfterEach
+    public void cleanup() {
+        repository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("exportAlbums() writes one JSON album per line in id order")
+    public void exportAlbumsAsNdjson() throws Exception {
+        //Arrange
+        List<Album> saved = repository.saveAll(List.of(
+                new Album(0L, "Album1", "ArtistName1", ROCK, Year.of(2001), 10, "Description1", 5),
+                new Album(0L, "Album2", "ArtistName2", JAZZ, Year.of(2002), 8, null, 0)));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        //Act
+        albumExportService.exportAlbums(AlbumFileFormat.NDJSON, output);
+
+        //Assert
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(objectMapper.readValue(lines[0], Album.class))
+                .usingRecursiveComparison().ignoringFields("version", "lastModified").isEqualTo(saved.get(0));
+        assertThat(objectMapper.readValue(lines[1], Album.class))
+                .usingRecursiveComparison().ignoringFields("version", "lastModified").isEqualTo(saved.get(1));
+    }
+
+    @Test
+    @DisplayName("exportAlbumsAsJson() writes every album in one JSON array in id order")
+    public void exportAlbumsAsJson() throws Exception {
+        //Arrange
+        List<Album> saved = repository.saveAll(List.of(
+                new Album(0L, "Album1", "ArtistName1", ROCK, Year.of(2001), 10, "Description1", 5),
+                new Album(0L, "Album2", "ArtistName2", JAZZ, Year.of(2002), 8, null, 0)));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        //Act
+        albumExportService.exportAlbumsAsJson(output);
+
+        //Assert
+        Album[] albums = objectMapper.readValue(output.toByteArray(), Album[].class);
+        assertThat(albums).usingRecursiveFieldByFieldElementComparatorIgnoringFields("version", "lastModified")
+                .containsExactlyElementsOf(saved);
+    }
+
+    @Test
+    @DisplayName("exportAlbums() writes CSV with a header and quotes fields that need it")
+    public void exportAlbumsAsCsv() throws Exception {
+        //Arrange
+        Album saved = repository.save(new Album(0L, "Album, \"Live\"", "ArtistName1", ROCK, Year.of(2001), 10, null, 5));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        //Act
+        albumExportService.exportAlbums(AlbumFileFormat.CSV, output);
+
+        //Assert
+        assertThat(output.toString(StandardCharsets.UTF_8)).isEqualTo(
+                AlbumCsv.HEADER + "\r\n"
+                        + saved.getId() + ",\"Album, \"\"Live\"\"\",ArtistName1,ROCK,2001,10,,5\r\n");
+    }
+
+    @Test
+    @DisplayName("Every export flushes its output once, at the end, rather than after each album")
+    public void exportFlushesOnce() throws Exception {
+        //Arrange
+        repository.saveAll(IntStream.range(0, 50)
+                .mapToObj(i -> new Album(0L, "Album" + i, "ArtistName" + i, ROCK, Year.of(2001), 10, null, 5))
+                .toList());
+        List<Integer> flushes = new ArrayList<>();
+
+        //Act
+        for (AlbumFileFormat format : AlbumFileFormat.values()) {
+            FlushCountingOutputStream output = new FlushCountingOutputStream();
+            albumExportService.exportAlbums(format, output);
+            flushes.add(output.flushes);
+        }
+        FlushCountingOutputStream output = new FlushCountingOutputStream();
+        albumExportService.exportAlbumsAsJson(output);
+        flushes.add(output.flushes);
+
+        //Assert
+        assertThat(flushes).containsOnly(1);
+        assertThat(objectMapper.readValue(output.toByteArray(), Album[].class)).hasSize(50);
+    }
+
+    @Test
+    @DisplayName("AlbumFileFormat.fromParameter() accepts any case and rejects unknown formats")
+    public void exportFormatFromParameter() {
+        //Act & Assert
+        assertThat(AlbumFileFormat.fromParameter("csv")).isEqualTo(AlbumFileFormat.CSV);
+        assertThat(AlbumFileFormat.fromParameter("NDJSON")).isEqualTo(AlbumFileFormat.NDJSON);
+        assertThrows(InvalidAlbumQueryException.class, () -> AlbumFileFormat.fromParameter("xml"));
+    }
+
+    private static class FlushCountingOutputStream extends ByteArrayOutputStream {
+        private int flushes;
+
+        @Override
+        public void flush() {
+            flushes++;
+        }
+    }
+}
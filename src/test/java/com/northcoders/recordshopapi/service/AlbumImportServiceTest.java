@@ -0,0 +1,227 @@
+package com.northcoders.recordshopapi.service;
+
+import com.northcoders.recordshopapi.exception.ImportJobNotFoundException;
+import com.northcoders.recordshopapi.exception.ServiceOverloadedException;
+import com.northcoders.recordshopapi.model.Album;
+import com.northcoders.recordshopapi.model.AlbumFileFormat;
+import com.northcoders.recordshopapi.model.AlbumImportJob;
+import com.northcoders.recordshopapi.model.BatchItemResult;
+import com.northcoders.recordshopapi.repository.RecordShopRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Year;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static com.northcoders.recordshopapi.model.Album.Genre.JAZZ;
+import static com.northcoders.recordshopapi.model.BatchItemResult.Status.INVALID;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(properties = {
+        "recordshop.batch.size=3",
+        "recordshop.import.in-flight-chunks=2"
+})
+@ActiveProfiles("dev")
+public class AlbumImportServiceTest {
+
+    @Autowired
+    private AlbumImportService albumImportService;
+
+    @Autowired
+    private RecordShopRepository repository;
+
+    @AfterEach
+    public void cleanup() {
+        repository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("startImport() imports a CSV file and reports rows that cannot be converted or are invalid")
+    public void importCsv() throws Exception {
+        //Arrange
+        String csv = """
+                name,artist,genre,year,tracks,quantity,description
+                Album1,ArtistName1,ROCK,2001,10,5,
+                Album2,ArtistName2,JAZZ,not a year,8,1,
+                Album3,,POP,2003,12,0,
+                "Album4, Live",ArtistName4,jazz,2004,9,2,"Recorded ""live""
+                in two parts"
+                Album5,ArtistName5,POLKA,2005,9,2,
+                Album6,ArtistName6,POP,2006,11,4,
+                Album7,ArtistName7,POP,2007,11,4,
+                """;
+
+        //Act
+        AlbumImportJob job = awaitFinished(albumImportService.startImport(AlbumFileFormat.CSV, stream(csv)));
+
+        //Assert
+        assertThat(job.getStatus()).isEqualTo(AlbumImportJob.Status.COMPLETED);
+        assertThat(job.getRowsRead()).isEqualTo(7);
+        assertThat(job.getRowsImported()).isEqualTo(4);
+        assertThat(job.getRowsFailed()).isEqualTo(3);
+        assertThat(job.getProgress()).isEqualTo(1.0);
+        Map<Integer, String> errors = job.getErrors().stream()
+                .collect(Collectors.toMap(BatchItemResult::getIndex, BatchItemResult::getError));
+        assertThat(errors).containsOnly(
+                Map.entry(1, "year 'not a year' is not a whole number"),
+                Map.entry(2, "artist must not be null"),
+                Map.entry(4, "genre 'POLKA' is not a known genre"));
+        Album live = repository.findByName("Album4, Live");
+        assertThat(live.getGenre()).isEqualTo(JAZZ);
+        assertThat(live.getYear()).isEqualTo(Year.of(2004));
+        assertThat(live.getDescription()).isEqualTo("Recorded \"live\"\nin two parts");
+        assertThat(repository.count()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("startImport() imports NDJSON and carries on past malformed lines")
+    public void importNdjson() throws Exception {
+        //Arrange
+        String ndjson = IntStream.range(0, 10)
+                .mapToObj(i -> i == 4
+                        ? "{\"name\":\"Album4\", oops"
+                        : String.format("{\"name\":\"Album%d\",\"artist\":\"Artist\",\"genre\":\"ROCK\",\"year\":\"2001\"}", i))
+                .collect(Collectors.joining("\n"));
+
+        //Act
+        AlbumImportJob job = awaitFinished(albumImportService.startImport(AlbumFileFormat.NDJSON, stream(ndjson)));
+
+        //Assert
+        assertThat(job.getStatus()).isEqualTo(AlbumImportJob.Status.COMPLETED);
+        assertThat(job.getRowsImported()).isEqualTo(9);
+        assertThat(job.getErrors()).singleElement().satisfies(error -> {
+            assertThat(error.getIndex()).isEqualTo(4);
+            assertThat(error.getStatus()).isEqualTo(INVALID);
+            assertThat(error.getError()).startsWith("Malformed row");
+        });
+        assertThat(repository.count()).isEqualTo(9);
+    }
+
+    @Test
+    @DisplayName("startImport() fails the job when a CSV quoted field is never closed")
+    public void importUnterminatedCsv() throws Exception {
+        //Arrange
+        String csv = "name,artist,genre,year\nAlbum1,\"ArtistName1,ROCK,2001\n";
+
+        //Act
+        AlbumImportJob job = awaitFinished(albumImportService.startImport(AlbumFileFormat.CSV, stream(csv)));
+
+        //Assert
+        assertThat(job.getStatus()).isEqualTo(AlbumImportJob.Status.FAILED);
+        assertThat(job.getFailure()).contains("Unterminated quoted field");
+    }
+
+    @Test
+    @DisplayName("getImportJob() throws ImportJobNotFoundException for an unknown id")
+    public void getUnknownImportJob() {
+        //Act & Assert
+        assertThrows(ImportJobNotFoundException.class, () -> albumImportService.getImportJob("missing"));
+    }
+
+    @Test
+    @DisplayName("startImport() refuses an upload once the queue is full, and no upload files outlive the service")
+    public void importQueueFull() throws Exception {
+        //Arrange
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AlbumBatchService blockedBatchService = mock(AlbumBatchService.class);
+        when(blockedBatchService.addChunk(any())).thenAnswer(invocation -> {
+            writing.countDown();
+            release.await();
+            return List.of();
+        });
+        AlbumImportServiceImpl service = new AlbumImportServiceImpl();
+        service.albumBatchService = blockedBatchService;
+        service.batchSize = 1;
+        service.concurrentJobs = 1;
+        service.workers = 1;
+        service.inFlightChunks = 1;
+        service.queueCapacity = 1;
+        service.maxErrors = 10;
+        service.retention = Duration.ofHours(1);
+        service.startExecutors();
+        Set<Path> existing = importFiles();
+        String csv = "name,artist,genre,year,tracks,quantity,description\nAlbum1,ArtistName1,ROCK,2001,10,5,\n";
+
+        try {
+            //Act
+            AlbumImportJob running = service.startImport(AlbumFileFormat.CSV, stream(csv));
+            assertThat(writing.await(10, TimeUnit.SECONDS)).isTrue();
+            service.startImport(AlbumFileFormat.CSV, stream(csv));
+            ServiceOverloadedException refused = assertThrows(ServiceOverloadedException.class,
+                    () -> service.startImport(AlbumFileFormat.CSV, stream(csv)));
+            Set<Path> spooled = importFiles();
+            spooled.removeAll(existing);
+            service.stopExecutors();
+
+            //Assert
+            assertThat(refused.getRetryAfter()).isPositive();
+            assertThat(spooled).hasSize(2);
+            awaitFinished(running);
+            assertThat(importFiles()).doesNotContainAnyElementsOf(spooled);
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    @DisplayName("AlbumCsv.readRecord() reads quoted, empty and missing fields")
+    public void readCsvRecords() throws Exception {
+        //Arrange
+        StringReader reader = new StringReader("a,,\"\",\"b,\"\"c\"\"\"\r\n\r\nlast");
+
+        //Act
+        List<String> first = AlbumCsv.readRecord(reader);
+        List<String> second = AlbumCsv.readRecord(reader);
+        List<String> end = AlbumCsv.readRecord(reader);
+
+        //Assert
+        assertThat(first).isEqualTo(Arrays.asList("a", null, "", "b,\"c\""));
+        assertThat(second).containsExactly("last");
+        assertThat(end).isNull();
+    }
+
+    private static AlbumImportJob awaitFinished(AlbumImportJob job) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!job.isFinished() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(job.isFinished()).as("import finished").isTrue();
+        return job;
+    }
+
+    private static Set<Path> importFiles() throws IOException {
+        try (Stream<Path> files = Files.list(Path.of(System.getProperty("java.io.tmpdir")))) {
+            return files.filter(file -> file.getFileName().toString().startsWith("album-import-"))
+                    .collect(Collectors.toCollection(HashSet::new));
+        }
+    }
+
+    private static ByteArrayInputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,123 @@
+package com.northcoders.recordshopapi.service;
+
+import com.northcoders.recordshopapi.model.Album;
+import com.northcoders.recordshopapi.repository.RecordShopRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+
+import java.time.Year;
+import java.util.Optional;
+
+import static com.northcoders.recordshopapi.model.Album.Genre.JAZZ;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest
+public class RecordShopServiceCacheTest {
+
+    @MockBean
+    private RecordShopRepository repository;
+
+    @Autowired
+    private RecordShopService recordShopService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    public void setup() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+
+    @Test
+    @DisplayName("getAlbumById() only reaches the repository on a cache miss")
+    public void getAlbumByIdIsCached() {
+        //Arrange
+        Album album = new Album(1L, "Album1", "ArtistName1", JAZZ, Year.of(2001), 10, "Good Album1", 5);
+        when(repository.findById(1L)).thenReturn(Optional.of(album));
+
+        //Act
+        recordShopService.getAlbumById(1L);
+        Album actual = recordShopService.getAlbumById(1L).get();
+
+        //Assert
+        assertThat(actual).isEqualTo(album);
+        verify(repository, times(1)).findById(1L);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "album").tag("result", "hit")
+                .functionCounter().count()).isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("updateAlbum() evicts the cached album and drops cached album info")
+    public void updateAlbumEvictsCache() {
+        //Arrange
+        Album original = new Album(2L, "Album2", "ArtistName2", JAZZ, Year.of(2002), 20, "Fine Album2", 7);
+        Album updated = new Album(2L, "Album2 Remastered", "ArtistName2", JAZZ, Year.of(2002), 20, "Fine Album2", 6);
+        when(repository.findById(2L)).thenReturn(Optional.of(original));
+        when(repository.findByName("Album2")).thenReturn(original);
+        when(repository.updateReturningPrevious(eq(2L), any(), any(), isNull())).thenReturn(Optional.of(original));
+        recordShopService.getAlbumById(2L);
+        recordShopService.getAlbumInfoByName("Album2");
+
+        //Act
+        recordShopService.updateAlbum(2L, updated);
+        when(repository.findById(2L)).thenReturn(Optional.of(updated));
+        when(repository.findByName("Album2")).thenReturn(null);
+
+        //Assert
+        assertThat(cacheManager.getCache("album").get(2L)).isNull();
+        assertThat(cacheManager.getCache("albumInfo").get("Album2")).isNull();
+        Album actual = recordShopService.getAlbumById(2L).get();
+        assertThat(actual.getName()).isEqualTo("Album2 Remastered");
+        assertThat(actual.getQuantity()).isEqualTo(6);
+        verify(repository, times(2)).findById(2L);
+    }
+
+    @Test
+    @DisplayName("reserveStock() evicts the cached album rather than putting its own result")
+    public void reserveStockEvictsCache() {
+        //Arrange
+        Album original = new Album(4L, "Album4", "ArtistName4", JAZZ, Year.of(2004), 40, "Rare Album4", 5);
+        Album reserved = original.toBuilder().quantity(3).build();
+        when(repository.findById(4L)).thenReturn(Optional.of(original));
+        when(repository.findByName("Album4")).thenReturn(original);
+        recordShopService.getAlbumById(4L);
+        recordShopService.getAlbumInfoByName("Album4");
+        when(repository.adjustQuantity(4L, -2)).thenReturn(1);
+        when(repository.findById(4L)).thenReturn(Optional.of(reserved));
+
+        //Act
+        recordShopService.reserveStock(4L, 2);
+
+        //Assert
+        assertThat(cacheManager.getCache("album").get(4L)).isNull();
+        assertThat(cacheManager.getCache("albumInfo").get("Album4")).isNull();
+        assertThat(recordShopService.getAlbumById(4L).get().getQuantity()).isEqualTo(3);
+        verify(repository, times(3)).findById(4L);
+    }
+
+    @Test
+    @DisplayName("deleteAlbumById() evicts the cached album")
+    public void deleteAlbumByIdEvictsCache() {
+        //Arrange
+        Album album = new Album(3L, "Album3", "ArtistName3", JAZZ, Year.of(2003), 30, "Great Album3", 9);
+        when(repository.findById(3L)).thenReturn(Optional.of(album));
+        when(repository.deleteReturningPrevious(3L)).thenReturn(Optional.of(album));
+        recordShopService.getAlbumById(3L);
+
+        //Act
+        recordShopService.deleteAlbumById(3L);
+
+        //Assert
+        assertThat(cacheManager.getCache("album").get(3L)).isNull();
+    }
+}
@@ -1,21 +1,53 @@
 package com.northcoders.recordshopapi.service;
 
+import com.northcoders.recordshopapi.changes.AlbumChangeOutbox;
 import com.northcoders.recordshopapi.exception.AlbumNotFoundException;
+import com.northcoders.recordshopapi.exception.AlbumVersionMismatchException;
+import com.northcoders.recordshopapi.exception.InsufficientStockException;
+import com.northcoders.recordshopapi.exception.InvalidAlbumPayloadException;
+import com.northcoders.recordshopapi.exception.InvalidAlbumQueryException;
+import com.northcoders.recordshopapi.facet.AlbumFacetCounters;
 import com.northcoders.recordshopapi.model.Album;
+import com.northcoders.recordshopapi.model.AlbumChangedEvent;
+import com.northcoders.recordshopapi.model.AlbumFacet;
+import com.northcoders.recordshopapi.model.AlbumPage;
+import com.northcoders.recordshopapi.model.AlbumPatch;
+import com.northcoders.recordshopapi.model.AlbumSearchCriteria;
+import com.northcoders.recordshopapi.model.AlbumSuggestions;
+import com.northcoders.recordshopapi.model.AlbumSummary;
 import com.northcoders.recordshopapi.repository.RecordShopRepository;
+import com.northcoders.recordshopapi.search.AlbumSearchIndex;
+import com.northcoders.recordshopapi.search.AlbumTypeahead;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
-
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+
+import java.time.Instant;
 import java.time.Year;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static com.northcoders.recordshopapi.model.Album.Genre.*;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @DataJpaTest
@@ -24,6 +56,21 @@ public class RecordShopServiceImplTest {
     @Mock
     private RecordShopRepository repository;
 
+    @Mock
+    private AlbumSearchIndex searchIndex;
+
+    @Mock
+    private AlbumTypeahead typeahead;
+
+    @Mock
+    private AlbumFacetCounters facetCounters;
+
+    @Mock
+    private AlbumChangeOutbox outbox;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private RecordShopServiceImpl recordShopServiceImpl;
 
@@ -46,6 +93,37 @@ public class RecordShopServiceImplTest {
         assertThat(actual).isEqualTo(albums);
     }
 
+    @Test
+    @DisplayName("getAlbumsPage() returns a page of albums and a cursor that resumes after its last album")
+    public void getAlbumsPageTest() {
+        //Arrange
+        List<Album> albums = List.of(
+                new Album(1L, "Album1", "AlbumName1", ROCK, Year.of(2001), 10, "Good Album1", 5),
+                new Album(2L, "Album2", "AlbumName2", JAZZ, Year.of(2002), 20, "Fine Album2", 7),
+                new Album(3L, "Album3", "AlbumName3", JAZZ, Year.of(2003), 30, "Great Album3", 9)
+        );
+        when(repository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(3))).thenReturn(albums);
+        when(repository.findByIdGreaterThanOrderByIdAsc(2L, Limit.of(3))).thenReturn(albums.subList(2, 3));
+
+        //Act
+        AlbumPage first = recordShopServiceImpl.getAlbumsPage(null, 2);
+        AlbumPage second = recordShopServiceImpl.getAlbumsPage(first.getNextCursor(), 2);
+
+        //Assert
+        assertThat(first.getAlbums()).isEqualTo(albums.subList(0, 2));
+        assertThat(first.getNextCursor()).isNotNull();
+        assertThat(second.getAlbums()).isEqualTo(albums.subList(2, 3));
+        assertThat(second.getNextCursor()).isNull();
+    }
+
+    @Test
+    @DisplayName("getAlbumsPage() rejects out of range limits and malformed cursors")
+    public void getAlbumsPageInvalidTest() {
+        assertThrows(InvalidAlbumQueryException.class, () -> recordShopServiceImpl.getAlbumsPage(null, 0));
+        assertThrows(InvalidAlbumQueryException.class, () -> recordShopServiceImpl.getAlbumsPage(null, 1001));
+        assertThrows(InvalidAlbumQueryException.class, () -> recordShopServiceImpl.getAlbumsPage("not-a-cursor", 10));
+    }
+
     @Test
     @DisplayName("getAlbumById() returns album of id")
     public void getAlbumByIdTest() {
@@ -77,25 +155,145 @@ public class RecordShopServiceImplTest {
         assertThat(actual.getId()).isEqualTo(2L);
         assertThat(actual.getName()).isEqualTo("Album2");
         assertThat(actual.getGenre()).isEqualTo(JAZZ);
+        verify(outbox).record(AlbumChangedEvent.added(album));
+        verify(eventPublisher).publishEvent(AlbumChangedEvent.added(album));
     }
 
     @Test
     @DisplayName("updateAlbum method returns an album with a different quantity")
     public void updateAlbum() {
         //Arrange
-        Album originalAlbum = new Album(2L, "Album2", "ArtistName2", JAZZ, Year.of(2002), 20, "Fine Album2", 7);
+        Album originalAlbum = new Album(2L, "Album2", "ArtistName2", JAZZ, Year.of(2002), 20, "Fine Album2", 7, 3L, Instant.EPOCH);
         Album updatedAlbum = new Album(2L, "Album2", "ArtistName2", JAZZ, Year.of(2002), 20, "Fine Album2", 6);
 
-        //Set the behavior of the two method calls within the mocked object
-        when(repository.findById(2L)).thenReturn(Optional.of(originalAlbum));
-        when(repository.save(originalAlbum)).thenReturn(updatedAlbum);
+        //The update hands back the album as it was, and the service works out the rest
+        when(repository.updateReturningPrevious(eq(2L), any(AlbumPatch.class), any(Instant.class), isNull()))
+                .thenReturn(Optional.of(originalAlbum));
 
         //Act
         Album actual = recordShopServiceImpl.updateAlbum(2L, updatedAlbum);
 
         //Assert
-        assertThat(actual).isEqualTo(updatedAlbum);
+        assertThat(actual).usingRecursiveComparison().ignoringFields("version", "lastModified").isEqualTo(updatedAlbum);
+        assertThat(actual.getVersion()).isEqualTo(4L);
+        assertThat(actual.getLastModified()).isAfter(Instant.EPOCH);
+        verify(repository, never()).findById(any());
+        verify(eventPublisher).publishEvent(AlbumChangedEvent.updated(originalAlbum, actual));
+    }
+
+    @Test
+    @DisplayName("patchAlbum() changes only the fields in the patch")
+    public void patchAlbum() {
+        //Arrange
+        Album originalAlbum = new Album(2L, "Album2", "ArtistName2", JAZZ, Year.of(2002), 20, "Fine Album2", 7, 3L, Instant.EPOCH);
+        AlbumPatch patch = new AlbumPatch();
+        patch.setName("Album2 Remastered");
+        patch.setDescription(null);
+        when(repository.updateReturningPrevious(eq(2L), eq(patch), any(Instant.class), eq(Set.of(3L))))
+                .thenReturn(Optional.of(originalAlbum));
+
+        //Act
+        Album actual = recordShopServiceImpl.patchAlbum(2L, patch, Set.of(3L));
+
+        //Assert
+        assertThat(actual.getName()).isEqualTo("Album2 Remastered");
+        assertThat(actual.getDescription()).isNull();
+        assertThat(actual).usingRecursiveComparison().ignoringFields("name", "description", "version", "lastModified")
+                .isEqualTo(originalAlbum);
+    }
+
+    @Test
+    @DisplayName("patchAlbum() rejects an empty patch and nulls for fields other than the description")
+    public void patchAlbumInvalid() {
+        //Arrange
+        AlbumPatch empty = new AlbumPatch();
+        AlbumPatch nulls = new AlbumPatch();
+        nulls.setName(null);
+        nulls.setTracks(null);
+
+        //Act & Assert
+        assertThrows(InvalidAlbumPayloadException.class, () -> recordShopServiceImpl.patchAlbum(2L, empty, null));
+        InvalidAlbumPayloadException exception = assertThrows(InvalidAlbumPayloadException.class,
+                () -> recordShopServiceImpl.patchAlbum(2L, nulls, null));
+        assertThat(exception.getMessage()).isEqualTo("name must not be null; tracks must not be null");
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    @DisplayName("updateAlbum() tells a missing album from a moved version only when the update was conditional")
+    public void updateAlbumNotUpdated() {
+        //Arrange
+        Album album = new Album(2L, "Album2", "ArtistName2", JAZZ, Year.of(2002), 20, "Fine Album2", 7, 5L, Instant.EPOCH);
+        when(repository.updateReturningPrevious(anyLong(), any(AlbumPatch.class), any(Instant.class), any()))
+                .thenReturn(Optional.empty());
+        when(repository.findById(2L)).thenReturn(Optional.of(album));
+
+        //Act & Assert
+        assertThrows(AlbumNotFoundException.class, () -> recordShopServiceImpl.updateAlbum(9L, album));
+        AlbumVersionMismatchException exception = assertThrows(AlbumVersionMismatchException.class,
+                () -> recordShopServiceImpl.updateAlbum(2L, album, Set.of(4L)));
+        assertThat(exception.getMessage()).isEqualTo("Album with id '2' is at version 5, which the request does not match");
+        verify(repository, never()).findById(9L);
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    @DisplayName("deleteAlbumById() publishes the deleted album, or throws AlbumNotFoundException when nothing was deleted")
+    public void deleteAlbumById() {
+        //Arrange
+        Album album = new Album(2L, "Album2", "ArtistName2", JAZZ, Year.of(2002), 20, "Fine Album2", 7);
+        when(repository.deleteReturningPrevious(2L)).thenReturn(Optional.of(album));
+        when(repository.deleteReturningPrevious(9L)).thenReturn(Optional.empty());
+
+        //Act
+        recordShopServiceImpl.deleteAlbumById(2L);
+
+        //Assert
+        verify(eventPublisher).publishEvent(AlbumChangedEvent.deleted(2L, album));
+        assertThrows(AlbumNotFoundException.class, () -> recordShopServiceImpl.deleteAlbumById(9L));
+        verify(repository, never()).findById(any());
+    }
 
+    @Test
+    @DisplayName("reserveStock() returns the album with its reduced stock and publishes the change")
+    public void reserveStock() {
+        //Arrange
+        Album reserved = new Album(2L, "Album2", "ArtistName2", JAZZ, Year.of(2002), 20, "Fine Album2", 4);
+        when(repository.adjustQuantity(2L, -3)).thenReturn(1);
+        when(repository.findById(2L)).thenReturn(Optional.of(reserved));
+
+        //Act
+        Album actual = recordShopServiceImpl.reserveStock(2L, 3);
+
+        //Assert
+        assertThat(actual).isEqualTo(reserved);
+        verify(eventPublisher).publishEvent(AlbumChangedEvent.updated(reserved.toBuilder().quantity(7).build(), reserved));
+    }
+
+    @Test
+    @DisplayName("reserveStock() throws InsufficientStockException when too few copies are left")
+    public void reserveStockInsufficient() {
+        //Arrange
+        Album album = new Album(2L, "Album2", "ArtistName2", JAZZ, Year.of(2002), 20, "Fine Album2", 2);
+        when(repository.adjustQuantity(2L, -3)).thenReturn(0);
+        when(repository.findById(2L)).thenReturn(Optional.of(album));
+
+        //Act & Assert
+        InsufficientStockException exception = assertThrows(InsufficientStockException.class,
+                () -> recordShopServiceImpl.reserveStock(2L, 3));
+        assertThat(exception.getMessage()).isEqualTo("Cannot take 3 from the stock of Album with id '2', only 2 left");
+    }
+
+    @Test
+    @DisplayName("releaseStock() throws AlbumNotFoundException for an unknown album and rejects non-positive quantities")
+    public void releaseStockErrors() {
+        //Arrange
+        when(repository.adjustQuantity(9L, 1)).thenReturn(0);
+        when(repository.findById(9L)).thenReturn(Optional.empty());
+
+        //Act & Assert
+        assertThrows(AlbumNotFoundException.class, () -> recordShopServiceImpl.releaseStock(9L, 1));
+        assertThrows(InvalidAlbumQueryException.class, () -> recordShopServiceImpl.releaseStock(9L, 0));
     }
 
     @Test
@@ -117,6 +315,28 @@ public class RecordShopServiceImplTest {
         assertThat(actual).isEqualTo(albums.subList(1,3));
     }
 
+    @Test
+    @DisplayName("getAlbumSummariesByArtist() returns summaries and throws when the artist has no albums")
+    public void getAlbumSummariesByArtist() {
+        //Arrange
+        SpelAwareProxyProjectionFactory projections = new SpelAwareProxyProjectionFactory();
+        List<AlbumSummary> summaries = List.of(
+                projections.createProjection(AlbumSummary.class,
+                        new Album(2L, "Album2", "ArtistName2", JAZZ, Year.of(2002), 20, "Fine Album2", 7)),
+                projections.createProjection(AlbumSummary.class,
+                        new Album(3L, "Album3", "ArtistName2", JAZZ, Year.of(2003), 30, "Great Album3", 9))
+        );
+        when(repository.findSummariesByArtist("ArtistName2")).thenReturn(summaries);
+        when(repository.findSummariesByArtist("Unknown")).thenReturn(List.of());
+
+        //Act
+        List<AlbumSummary> actual = recordShopServiceImpl.getAlbumSummariesByArtist("ArtistName2");
+
+        //Assert
+        assertThat(actual).isEqualTo(summaries);
+        assertThrows(AlbumNotFoundException.class, () -> recordShopServiceImpl.getAlbumSummariesByArtist("Unknown"));
+    }
+
     @Test
     @DisplayName("getAlbumsByGenre() returns list of albums with the given genre")
     public void getAlbumsByGenre() {
@@ -168,10 +388,98 @@ public class RecordShopServiceImplTest {
         when(repository.findByName("Album2")).thenReturn(albums.get(1));
 
         //Act
-        String actual = recordShopServiceImpl.getAlbumInfoByName("Album2");
+        Album actual = recordShopServiceImpl.getAlbumInfoByName("Album2");
+
+        //Assert
+        assertThat(actual).isEqualTo(albums.get(1));
+    }
+
+    @Test
+    @DisplayName("searchAlbums() returns the page of albums found by the repository")
+    @SuppressWarnings("unchecked")
+    public void searchAlbums() {
+        //Arrange
+        List<Album> albums = List.of(
+                new Album(1L, "Album1", "ArtistName1", ROCK, Year.of(2001), 10, "Good Album1", 5),
+                new Album(3L, "Album3", "ArtistName3", ROCK, Year.of(2002), 30, "Great Album3", 9)
+        );
+        AlbumSearchCriteria criteria = AlbumSearchCriteria.builder().genre(ROCK).inStock(true).build();
+        when(repository.findAll(any(Specification.class), any(Pageable.class))).thenReturn(new PageImpl<>(albums));
+
+        //Act
+        Page<Album> actual = recordShopServiceImpl.searchAlbums(criteria, 0, 20, "year", Sort.Direction.DESC);
+
+        //Assert
+        assertThat(actual.getContent()).isEqualTo(albums);
+    }
+
+    @Test
+    @DisplayName("searchAlbums() rejects unknown sort fields, bad paging and inverted year ranges")
+    public void searchAlbumsInvalid() {
+        AlbumSearchCriteria any = new AlbumSearchCriteria();
+        AlbumSearchCriteria inverted = AlbumSearchCriteria.builder().yearFrom(Year.of(2005)).yearTo(Year.of(2001)).build();
+
+        assertThrows(InvalidAlbumQueryException.class, () -> recordShopServiceImpl.searchAlbums(any, 0, 20, "description", Sort.Direction.ASC));
+        assertThrows(InvalidAlbumQueryException.class, () -> recordShopServiceImpl.searchAlbums(any, -1, 20, "id", Sort.Direction.ASC));
+        assertThrows(InvalidAlbumQueryException.class, () -> recordShopServiceImpl.searchAlbums(any, 0, 0, "id", Sort.Direction.ASC));
+        assertThrows(InvalidAlbumQueryException.class, () -> recordShopServiceImpl.searchAlbums(inverted, 0, 20, "id", Sort.Direction.ASC));
+    }
+
+    @Test
+    @DisplayName("findAlbums() returns the albums found by the search index in rank order")
+    public void findAlbums() {
+        //Arrange
+        Album first = new Album(3L, "Album3", "ArtistName3", JAZZ, Year.of(2003), 30, "Great Album3", 9);
+        Album second = new Album(1L, "Album1", "ArtistName1", ROCK, Year.of(2001), 10, "Good Album1", 5);
+        when(searchIndex.search("album", 20)).thenReturn(List.of(3L, 2L, 1L));
+        // Album 2 was deleted after it was indexed
+        when(repository.findAllById(List.of(3L, 2L, 1L))).thenReturn(List.of(second, first));
+
+        //Act
+        List<Album> actual = recordShopServiceImpl.findAlbums("album", null);
+
+        //Assert
+        assertThat(actual).containsExactly(first, second);
+    }
+
+    @Test
+    @DisplayName("findAlbums() rejects blank text and out of range limits")
+    public void findAlbumsInvalid() {
+        assertThrows(InvalidAlbumQueryException.class, () -> recordShopServiceImpl.findAlbums(" ", 20));
+        assertThrows(InvalidAlbumQueryException.class, () -> recordShopServiceImpl.findAlbums("album", 0));
+        assertThrows(InvalidAlbumQueryException.class, () -> recordShopServiceImpl.findAlbums("album", 101));
+    }
+
+    @Test
+    @DisplayName("suggestAlbums() returns the typeahead's suggestions and rejects blank prefixes and out of range limits")
+    public void suggestAlbums() {
+        //Arrange
+        AlbumSuggestions suggestions = new AlbumSuggestions(List.of("The Beatles"), List.of("Beatles for Sale"));
+        when(typeahead.suggest("beat", 10)).thenReturn(suggestions);
+
+        //Act
+        AlbumSuggestions actual = recordShopServiceImpl.suggestAlbums("beat", null);
+
+        //Assert
+        assertThat(actual).isEqualTo(suggestions);
+        assertThrows(InvalidAlbumQueryException.class, () -> recordShopServiceImpl.suggestAlbums("", 10));
+        assertThrows(InvalidAlbumQueryException.class, () -> recordShopServiceImpl.suggestAlbums("beat", 21));
+    }
+
+    @Test
+    @DisplayName("getAlbumFacets() returns the counters' facets and rejects out of range limits")
+    public void getAlbumFacets() {
+        //Arrange
+        List<AlbumFacet> facets = List.of(new AlbumFacet("ROCK", 3, 12), new AlbumFacet("JAZZ", 1, 5));
+        when(facetCounters.facets(AlbumFacet.Field.GENRE, 100)).thenReturn(facets);
+
+        //Act
+        List<AlbumFacet> actual = recordShopServiceImpl.getAlbumFacets(AlbumFacet.Field.GENRE, null);
 
         //Assert
-        assertThat(actual).isEqualTo(albums.get(1).toString());
+        assertThat(actual).isEqualTo(facets);
+        assertThrows(InvalidAlbumQueryException.class, () -> recordShopServiceImpl.getAlbumFacets(AlbumFacet.Field.ARTIST, 0));
+        assertThrows(InvalidAlbumQueryException.class, () -> recordShopServiceImpl.getAlbumFacets(AlbumFacet.Field.ARTIST, 10_001));
     }
 
-}
\ No newline at end of file
+}
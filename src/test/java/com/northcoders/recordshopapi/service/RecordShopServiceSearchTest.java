@@ -0,0 +1,145 @@
+package com.northcoders.recordshopapi.service;
+
+import com.northcoders.recordshopapi.model.Album;
+import com.northcoders.recordshopapi.model.AlbumSuggestions;
+import com.northcoders.recordshopapi.repository.RecordShopRepository;
+import com.northcoders.recordshopapi.search.AlbumSearchIndexer;
+import com.northcoders.recordshopapi.search.AlbumTypeahead;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Year;
+
+import static com.northcoders.recordshopapi.model.Album.Genre.JAZZ;
+import static com.northcoders.recordshopapi.model.Album.Genre.ROCK;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("dev")
+public class RecordShopServiceSearchTest {
+
+    @Autowired
+    private RecordShopService recordShopService;
+
+    @Autowired
+    private AlbumBatchService albumBatchService;
+
+    @Autowired
+    private AlbumSearchIndexer searchIndexer;
+
+    @Autowired
+    private AlbumTypeahead typeahead;
+
+    @Autowired
+    private RecordShopRepository repository;
+
+    @AfterEach
+    public void cleanup() {
+        repository.deleteAllInBatch();
+        typeahead.rebuild();
+    }
+
+    @Test
+    @DisplayName("findAlbums() follows albums added, updated and deleted through the service")
+    public void findAlbumsFollowsWrites() {
+        //Arrange
+        Album album = recordShopService.addAlbum(new Album(0L, "Abbey Road", "The Beatles", ROCK, Year.of(1969), 17, null, 5));
+
+        //Act
+        boolean foundAdded = recordShopService.findAlbums("beatles", null).contains(album);
+        Album updated = recordShopService.updateAlbum(album.getId(),
+                new Album(0L, "Let It Be", "The Beatles", ROCK, Year.of(1970), 12, null, 5));
+        boolean foundOldName = !recordShopService.findAlbums("abbey", null).isEmpty();
+        boolean foundNewName = recordShopService.findAlbums("let it be", null).contains(updated);
+        recordShopService.deleteAlbumById(album.getId());
+
+        //Assert
+        assertThat(foundAdded).isTrue();
+        assertThat(foundOldName).isFalse();
+        assertThat(foundNewName).isTrue();
+        assertThat(recordShopService.findAlbums("beatles", null)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("findAlbums() follows albums added and deleted in batches")
+    public void findAlbumsFollowsBatches() {
+        //Arrange
+        String ndjson = """
+                {"name":"Kind of Blue","artist":"Miles Davis","genre":"JAZZ","year":"1959","tracks":5,"quantity":2}
+                {"name":"Blue Train","artist":"John Coltrane","genre":"JAZZ","year":"1958","tracks":5,"quantity":4}
+                """;
+
+        //Act
+        albumBatchService.addAlbums(new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)));
+        int found = recordShopService.findAlbums("blue", null).size();
+        long id = recordShopService.findAlbums("coltrane", null).get(0).getId();
+        albumBatchService.deleteAlbums(new ByteArrayInputStream(String.valueOf(id).getBytes(StandardCharsets.UTF_8)));
+
+        //Assert
+        assertThat(found).isEqualTo(2);
+        assertThat(recordShopService.findAlbums("blue", null)).extracting(Album::getName).containsExactly("Kind of Blue");
+    }
+
+    @Test
+    @DisplayName("The index is rebuilt from albums written straight to the database")
+    public void rebuildIndexesDatabase() {
+        //Arrange
+        repository.save(new Album(0L, "A Love Supreme", "John Coltrane", JAZZ, Year.of(1965), 4, null, 3));
+
+        //Act
+        boolean foundBefore = !recordShopService.findAlbums("supreme", null).isEmpty();
+        searchIndexer.afterSingletonsInstantiated();
+
+        //Assert
+        assertThat(foundBefore).isFalse();
+        assertThat(recordShopService.findAlbums("supreme", null)).extracting(Album::getName).containsExactly("A Love Supreme");
+    }
+
+    @Test
+    @DisplayName("suggestAlbums() follows albums added, renamed and deleted through the service")
+    public void suggestAlbumsFollowsWrites() {
+        //Arrange
+        recordShopService.addAlbum(new Album(0L, "Help!", "The Beatles", ROCK, Year.of(1965), 14, null, 5));
+        Album album = recordShopService.addAlbum(new Album(0L, "Abbey Road", "The Beatles", ROCK, Year.of(1969), 17, null, 5));
+        recordShopService.addAlbum(new Album(0L, "Beauty and the Beat", "The Go-Go's", ROCK, Year.of(1981), 11, null, 5));
+
+        //Act
+        AlbumSuggestions added = recordShopService.suggestAlbums("bea", null);
+        recordShopService.updateAlbum(album.getId(), new Album(0L, "Let It Be", "The Beatles", ROCK, Year.of(1970), 12, null, 5));
+        AlbumSuggestions renamed = recordShopService.suggestAlbums("abbey", null);
+        recordShopService.deleteAlbumById(album.getId());
+        AlbumSuggestions deleted = recordShopService.suggestAlbums("let", null);
+
+        //Assert
+        assertThat(added.getArtists()).containsExactly("The Beatles");
+        assertThat(added.getNames()).containsExactly("Beauty and the Beat");
+        assertThat(renamed.getNames()).isEmpty();
+        assertThat(deleted.getNames()).isEmpty();
+        assertThat(recordShopService.suggestAlbums("beat", null).getArtists()).containsExactly("The Beatles");
+    }
+
+    @Test
+    @DisplayName("The typeahead is rebuilt with exact counts from the database")
+    public void rebuildTypeaheadCountsDatabase() {
+        //Arrange
+        repository.save(new Album(0L, "Giant Steps", "John Coltrane", JAZZ, Year.of(1960), 7, null, 3));
+        repository.save(new Album(0L, "Blue Train", "John Coltrane", JAZZ, Year.of(1957), 5, null, 3));
+        repository.save(new Album(0L, "Kind of Blue", "John Lewis", JAZZ, Year.of(1959), 5, null, 3));
+        repository.save(new Album(0L, "Kind of Blue", "Miles Davis", JAZZ, Year.of(1959), 5, null, 3));
+
+        //Act
+        boolean foundBefore = !recordShopService.suggestAlbums("john", null).getArtists().isEmpty();
+        typeahead.rebuild();
+
+        //Assert
+        assertThat(foundBefore).isFalse();
+        assertThat(recordShopService.suggestAlbums("john", null).getArtists()).containsExactly("John Coltrane", "John Lewis");
+        assertThat(recordShopService.suggestAlbums("k", null).getNames()).containsExactly("Kind of Blue");
+    }
+}
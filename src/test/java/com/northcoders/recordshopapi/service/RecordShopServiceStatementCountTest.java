@@ -0,0 +1,177 @@
+package com.northcoders.recordshopapi.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.northcoders.recordshopapi.exception.AlbumNotFoundException;
+import com.northcoders.recordshopapi.model.Album;
+import com.northcoders.recordshopapi.model.AlbumPatch;
+import com.northcoders.recordshopapi.model.AlbumSearchCriteria;
+import com.northcoders.recordshopapi.model.AlbumSummary;
+import com.northcoders.recordshopapi.monitoring.SqlStatementCounter;
+import com.northcoders.recordshopapi.repository.RecordShopRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Year;
+import java.util.List;
+
+import static com.northcoders.recordshopapi.model.Album.Genre.JAZZ;
+import static com.northcoders.recordshopapi.model.Album.Genre.ROCK;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Counts the SQL statements each service call sends to the database, on the test's own thread so that
+ * background work such as publishing album changes is left out.
+ */
+@SpringBootTest
+@ActiveProfiles("dev")
+public class RecordShopServiceStatementCountTest {
+
+    @Autowired
+    private RecordShopService recordShopService;
+
+    @Autowired
+    private RecordShopRepository repository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private SqlStatementCounter statementCounter;
+
+    @Autowired
+    private ObjectMapper mapper;
+
+    @BeforeEach
+    public void setup() {
+        repository.saveAll(List.of(
+                new Album(0L, "Album1", "ArtistName1", ROCK, Year.of(2001), 10, "Good Album1", 5),
+                new Album(0L, "Album2", "ArtistName2", JAZZ, Year.of(2002), 20, "Fine Album2", 7),
+                new Album(0L, "Album3", "ArtistName2", JAZZ, Year.of(2003), 30, "Great Album3", 9)
+        ));
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+        statementCounter.start();
+    }
+
+    @AfterEach
+    public void cleanup() {
+        statementCounter.stop();
+        repository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("Each filter query is answered with a single statement")
+    public void filterQueriesUseOneStatement() {
+        assertThat(recordShopService.getAlbumsByArtist("ArtistName2")).hasSize(2);
+        assertStatements(1);
+
+        assertThat(recordShopService.getAlbumsByGenre(JAZZ)).hasSize(2);
+        assertStatements(1);
+
+        assertThat(recordShopService.getAlbumsByYear(Year.of(2001))).hasSize(1);
+        assertStatements(1);
+
+        assertThat(recordShopService.getAlbumInfoByName("Album1").getDescription()).isEqualTo("Good Album1");
+        assertStatements(1);
+    }
+
+    @Test
+    @DisplayName("Each summary query is answered with a single statement")
+    public void summaryQueriesUseOneStatement() {
+        assertThat(recordShopService.getAlbumSummariesByArtist("ArtistName2")).hasSize(2);
+        assertStatements(1);
+
+        assertThat(recordShopService.getAlbumSummariesByGenre(ROCK)).hasSize(1);
+        assertStatements(1);
+
+        assertThat(recordShopService.getAlbumSummariesByYear(Year.of(2003)))
+                .extracting("name").containsExactly("Album3");
+        assertStatements(1);
+    }
+
+    @Test
+    @DisplayName("Summary queries are projected, so no description is loaded or written")
+    public void summaryQueriesLeaveOutDescription() throws Exception {
+        //Act
+        List<AlbumSummary> summaries = recordShopService.getAlbumSummariesByArtist("ArtistName2");
+
+        //Assert
+        assertThat(summaries).hasSize(2).noneMatch(summary -> summary instanceof Album);
+        assertThat(mapper.writeValueAsString(summaries))
+                .contains("\"name\":\"Album2\"")
+                .doesNotContain("description")
+                .doesNotContain("Fine Album2");
+    }
+
+    @Test
+    @DisplayName("A filter query that finds nothing also costs a single statement")
+    public void notFoundUsesOneStatement() {
+        assertThrows(AlbumNotFoundException.class, () -> recordShopService.getAlbumsByArtist("Unknown"));
+        assertStatements(1);
+
+        assertThrows(AlbumNotFoundException.class, () -> recordShopService.getAlbumInfoByName("Unknown"));
+        assertStatements(1);
+    }
+
+    @Test
+    @DisplayName("A combined search is filtered by the database in one query")
+    public void searchFiltersInOneQuery() {
+        AlbumSearchCriteria criteria = AlbumSearchCriteria.builder()
+                .genre(JAZZ).yearFrom(Year.of(2002)).inStock(true).namePrefix("album").build();
+
+        Page<Album> actual = recordShopService.searchAlbums(criteria, 0, 10, "year", Sort.Direction.DESC);
+
+        assertThat(actual.getContent()).extracting("name").containsExactly("Album3", "Album2");
+        assertThat(actual.getTotalElements()).isEqualTo(2);
+        // A page smaller than the requested size lets Spring Data skip the count query
+        assertStatements(1);
+    }
+
+    @Test
+    @DisplayName("Updating, patching and deleting an album each write it in one statement, without reading it first")
+    public void writesUseOneStatement() {
+        //Arrange
+        List<Long> ids = repository.findAll().stream().map(Album::getId).sorted().toList();
+        AlbumPatch patch = new AlbumPatch();
+        patch.setDescription("Remastered");
+        statementCounter.start();
+
+        //Act
+        recordShopService.updateAlbum(ids.get(0), new Album(0L, "Album1", "ArtistName1", ROCK, Year.of(2001), 10, null, 4));
+        recordShopService.patchAlbum(ids.get(1), patch, null);
+        recordShopService.deleteAlbumById(ids.get(2));
+
+        //Assert
+        // Per write, one statement for the album and one for its change, plus the sequence calls that
+        // hand out change ids 50 at a time; reading each album first would make it at least 9
+        assertThat(statementCounter.stop()).isLessThanOrEqualTo(8);
+        statementCounter.start();
+        assertThat(repository.findById(ids.get(1)).orElseThrow().getDescription()).isEqualTo("Remastered");
+        assertThat(repository.existsById(ids.get(2))).isFalse();
+    }
+
+    @Test
+    @DisplayName("Writing a missing album costs the one statement that finds nothing to write")
+    public void missingAlbumWritesUseOneStatement() {
+        Album album = new Album(0L, "Album9", "ArtistName9", ROCK, Year.of(2009), 10, null, 1);
+
+        assertThrows(AlbumNotFoundException.class, () -> recordShopService.updateAlbum(-1L, album));
+        assertStatements(1);
+
+        assertThrows(AlbumNotFoundException.class, () -> recordShopService.deleteAlbumById(-1L));
+        assertStatements(1);
+    }
+
+    private void assertStatements(long expected) {
+        assertThat(statementCounter.stop()).isEqualTo(expected);
+        statementCounter.start();
+    }
+}
@@ -0,0 +1,132 @@
+package com.northcoders.recordshopapi.service;
+
+import com.northcoders.recordshopapi.exception.InsufficientStockException;
+import com.northcoders.recordshopapi.exception.InvalidAlbumQueryException;
+import com.northcoders.recordshopapi.model.Album;
+import com.northcoders.recordshopapi.repository.RecordShopRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.northcoders.recordshopapi.model.Album.Genre.ROCK;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+@ActiveProfiles("dev")
+public class RecordShopServiceStockTest {
+
+    private static final int BUYERS = 64;
+
+    @Autowired
+    private RecordShopService recordShopService;
+
+    @Autowired
+    private RecordShopRepository repository;
+
+    @AfterEach
+    public void cleanup() {
+        repository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("reserveStock() sells every copy exactly once to 64 concurrent buyers")
+    public void reserveStockNeverOversells() throws Exception {
+        //Arrange
+        int stock = 500;
+        long id = repository.save(new Album(0L, "Album1", "ArtistName1", ROCK, Year.of(2001), 10, null, stock)).getId();
+
+        //Act
+        List<Integer> sold = concurrently(() -> {
+            int reserved = 0;
+            while (true) {
+                try {
+                    recordShopService.reserveStock(id, 1);
+                    reserved++;
+                } catch (InsufficientStockException e) {
+                    return reserved;
+                }
+            }
+        });
+
+        //Assert
+        assertThat(sold.stream().mapToInt(Integer::intValue).sum()).isEqualTo(stock);
+        assertThat(repository.findById(id).orElseThrow().getQuantity()).isZero();
+        assertThat(recordShopService.getAlbumById(id).orElseThrow().getQuantity()).isZero();
+    }
+
+    @Test
+    @DisplayName("adjustStock() refuses changes that would take the stock past the int range, leaving it as it was")
+    public void adjustStockOutOfRange() {
+        //Arrange
+        long id = repository.save(new Album(0L, "Album1", "ArtistName1", ROCK, Year.of(2001), 10, null, 5)).getId();
+
+        //Act & Assert
+        InvalidAlbumQueryException overflow = assertThrows(InvalidAlbumQueryException.class,
+                () -> recordShopService.adjustStock(id, Integer.MAX_VALUE));
+        assertThat(overflow.getMessage()).isEqualTo(String.format(
+                "Cannot add 2147483647 to the stock of Album with id '%d', which holds 5, as it would exceed 2147483647", id));
+        InsufficientStockException underflow = assertThrows(InsufficientStockException.class,
+                () -> recordShopService.adjustStock(id, Integer.MIN_VALUE));
+        assertThat(underflow.getMessage()).isEqualTo(String.format(
+                "Cannot take 2147483648 from the stock of Album with id '%d', only 5 left", id));
+        assertThat(recordShopService.adjustStock(id, Integer.MAX_VALUE - 5).getQuantity()).isEqualTo(Integer.MAX_VALUE);
+        assertThat(repository.findById(id).orElseThrow().getQuantity()).isEqualTo(Integer.MAX_VALUE);
+    }
+
+    @Test
+    @DisplayName("Concurrent reserve, release and adjust calls lose no updates")
+    public void concurrentStockChangesLoseNoUpdates() throws Exception {
+        //Arrange
+        int stock = 1_000;
+        long id = repository.save(new Album(0L, "Album1", "ArtistName1", ROCK, Year.of(2001), 10, null, stock)).getId();
+
+        //Act
+        List<Integer> added = concurrently(() -> {
+            for (int i = 0; i < 10; i++) {
+                recordShopService.reserveStock(id, 2);
+                recordShopService.releaseStock(id, 1);
+                recordShopService.adjustStock(id, 2);
+            }
+            return 10;
+        });
+
+        //Assert
+        int expected = stock + added.stream().mapToInt(Integer::intValue).sum();
+        assertThat(repository.findById(id).orElseThrow().getQuantity()).isEqualTo(expected);
+    }
+
+    private static List<Integer> concurrently(Callable<Integer> buyer) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(BUYERS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int i = 0; i < BUYERS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return buyer.call();
+                }));
+            }
+            start.countDown();
+            List<Integer> results = new ArrayList<>();
+            for (Future<Integer> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
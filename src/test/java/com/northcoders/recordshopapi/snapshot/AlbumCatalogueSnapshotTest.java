@@ -0,0 +1,156 @@
+package com.northcoders.recordshopapi.snapshot;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.luben.zstd.ZstdInputStream;
+import com.northcoders.recordshopapi.changes.AlbumChangePublisher;
+import com.northcoders.recordshopapi.model.Album;
+import com.northcoders.recordshopapi.repository.RecordShopRepository;
+import com.northcoders.recordshopapi.service.RecordShopService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.time.Year;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static com.northcoders.recordshopapi.model.Album.Genre.JAZZ;
+import static com.northcoders.recordshopapi.model.Album.Genre.ROCK;
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Served by a real Tomcat, so the snapshot goes out with sendfile
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "recordshop.snapshot.check-interval=1h")
+@ActiveProfiles("dev")
+public class AlbumCatalogueSnapshotTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private RecordShopService recordShopService;
+
+    @Autowired
+    private RecordShopRepository repository;
+
+    @Autowired
+    private AlbumChangePublisher publisher;
+
+    @Autowired
+    private AlbumCatalogueSnapshot catalogueSnapshot;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    private List<Album> saved;
+
+    @BeforeEach
+    public void setup() {
+        saved = List.of(
+                recordShopService.addAlbum(new Album(0L, "Abbey Road", "The Beatles", ROCK, Year.of(1969), 17, null, 5)),
+                recordShopService.addAlbum(new Album(0L, "Kind of Blue", "Miles Davis", JAZZ, Year.of(1959), 5, "Modal", 1)));
+        rebuild();
+    }
+
+    @AfterEach
+    public void cleanup() {
+        repository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("GET /snapshot sends the most compact encoding the client accepts, each holding every album")
+    public void servesNegotiatedEncodings() throws Exception {
+        //Act
+        HttpResponse<byte[]> zstd = get("zstd, gzip", null);
+        HttpResponse<byte[]> gzip = get("gzip, deflate, br", null);
+        HttpResponse<byte[]> identity = get(null, null);
+
+        //Assert
+        assertThat(zstd.headers().firstValue("Content-Encoding")).contains("zstd");
+        assertThat(gzip.headers().firstValue("Content-Encoding")).contains("gzip");
+        assertThat(identity.headers().firstValue("Content-Encoding")).isEmpty();
+        assertThat(identity.headers().allValues("Vary")).anyMatch(vary -> vary.contains("Accept-Encoding"));
+        assertThat(zstd.headers().firstValueAsLong("Content-Length")).hasValue(zstd.body().length);
+        assertThat(zstd.body().length).isLessThan(identity.body().length);
+        assertThat(parse(new ZstdInputStream(new ByteArrayInputStream(zstd.body())))).isEqualTo(parse(identity.body()));
+        assertThat(parse(new GZIPInputStream(new ByteArrayInputStream(gzip.body())))).isEqualTo(parse(identity.body()));
+        assertThat(parse(identity.body())).extracting(Album::getId)
+                .containsExactlyElementsOf(saved.stream().map(Album::getId).toList());
+    }
+
+    @Test
+    @DisplayName("GET /snapshot answers 304 to the current ETag, and a write makes a new snapshot with a new ETag")
+    public void rebuildsAfterWrites() throws Exception {
+        //Arrange
+        String etag = get("gzip", null).headers().firstValue("ETag").orElseThrow();
+        AlbumCatalogueSnapshot.Snapshot before = catalogueSnapshot.current().orElseThrow();
+
+        //Act
+        HttpResponse<byte[]> unchanged = get("gzip", etag);
+        recordShopService.deleteAlbumById(saved.get(0).getId());
+        rebuild();
+        HttpResponse<byte[]> changed = get(null, etag);
+
+        //Assert
+        assertThat(unchanged.statusCode()).isEqualTo(304);
+        assertThat(unchanged.body()).isEmpty();
+        assertThat(changed.statusCode()).isEqualTo(200);
+        assertThat(changed.headers().firstValue("ETag")).isPresent().get().isNotEqualTo(etag);
+        assertThat(parse(changed.body())).extracting(Album::getName).containsExactly("Kind of Blue");
+        assertThat(before.files().values()).allMatch(Files::exists);
+    }
+
+    @Test
+    @DisplayName("SnapshotEncoding.negotiate() honours q=0 and wildcards, and falls back to identity")
+    public void negotiatesEncoding() {
+        //Assert
+        assertThat(SnapshotEncoding.negotiate("gzip, zstd")).isEqualTo(SnapshotEncoding.ZSTD);
+        assertThat(SnapshotEncoding.negotiate("zstd;q=0, gzip;q=0.5")).isEqualTo(SnapshotEncoding.GZIP);
+        assertThat(SnapshotEncoding.negotiate("*")).isEqualTo(SnapshotEncoding.ZSTD);
+        assertThat(SnapshotEncoding.negotiate("*;q=0, GZIP")).isEqualTo(SnapshotEncoding.GZIP);
+        assertThat(SnapshotEncoding.negotiate("br, deflate")).isEqualTo(SnapshotEncoding.IDENTITY);
+        assertThat(SnapshotEncoding.negotiate("")).isEqualTo(SnapshotEncoding.IDENTITY);
+        assertThat(SnapshotEncoding.negotiate(null)).isEqualTo(SnapshotEncoding.IDENTITY);
+    }
+
+    private void rebuild() {
+        publisher.publish();
+        catalogueSnapshot.refresh();
+    }
+
+    private HttpResponse<byte[]> get(String acceptEncoding, String ifNoneMatch) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/albums/snapshot"));
+        if (acceptEncoding != null) {
+            request.header("Accept-Encoding", acceptEncoding);
+        }
+        if (ifNoneMatch != null) {
+            request.header("If-None-Match", ifNoneMatch);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private List<Album> parse(InputStream body) throws IOException {
+        try (body) {
+            return parse(body.readAllBytes());
+        }
+    }
+
+    private List<Album> parse(byte[] body) throws IOException {
+        return List.of(objectMapper.readValue(body, Album[].class));
+    }
+}